@@ -0,0 +1,100 @@
+package debie.bench;
+
+import static debie.harness.Harness.*;
+import static debie.telecommand.TcAddress.*;
+import static debie.target.SensorUnitDev.NUM_SU;
+import debie.harness.HarnessMailbox;
+import debie.harness.TestLogger;
+import debie.particles.SensorUnit.SensorUnitState;
+import debie.telecommand.TelemetryData;
+
+/** Problems 5a-5b: the Acquisition task handling an accepted hit; set up
+ *  as the nominal scenario of AcquisitionTest. */
+public class AcquisitionBenchmarks {
+
+	/** Hits to try before giving up on getting one accepted */
+	private static final int MAX_TRIES = 100;
+
+	private static final int[] switchSUCmd = {
+		SWITCH_SU_1, SWITCH_SU_2, SWITCH_SU_3, SWITCH_SU_4 };
+
+	public static ProblemBenchmark[] create(TestLogger tl) {
+		return new ProblemBenchmark[] {
+			new Acquisition(Prob5a, "Acquisition task, science data not full", tl),
+			new Acquisition(Prob5b, "Acquisition task, science data full", tl),
+		};
+	}
+
+	static class Acquisition extends ProblemBenchmark {
+
+		Acquisition(int problem, String title, TestLogger tl) {
+			super(problem, title, tl);
+		}
+
+		/** Switch the SUs on, start acquisition and, for 5b, fill the
+		 *  Science Data. */
+		protected void setup() {
+			super.setup();
+
+			for (int sen = 0; sen < NUM_SU; sen++) {
+				execTC(switchSUCmd[sen], ON_VALUE, Prob4a);
+			}
+
+			/* Prevent all errors in Monitoring: */
+
+			system.getAdcSim().setADNominal();
+			system.getAdcSim().max_adc_hits = 0;
+			system.getAdcSim().ad_random_failures = 0;
+			hmTask.setCheckCurrentErrors(0);
+			system.getSensorUnitSim().v_down_errors = 0;
+
+			/* Run Health Monitoring to drive the SUs ON: */
+
+			monitorHealth(Prob6a);
+			monitorHealth(Prob6a);
+
+			for (int sen = 0; sen < NUM_SU; sen++) {
+				checkEquals("sensor state sen == on_e", acqTask.getSensorUnitState(sen), SensorUnitState.on_e);
+			}
+
+			execTC(START_ACQUISITION, START_ACQUISITION, Prob4a);
+			checkMode(TelemetryData.ACQUISITION);
+
+			system.getAdcSim().setADDelay(2);
+
+			if (getProblem() == Prob5b) {
+				while (tctmTask.hasFreeSlot()) {
+					prepare();
+					invoke();
+				}
+			}
+		}
+
+		/** Hit Trigger interrupts until one is accepted, and the mail that
+		 *  the Acquisition task waits for. */
+		protected void prepare() {
+			HarnessMailbox acqMailbox = system.getAcqMailbox();
+
+			if (getProblem() == Prob5a && !tctmTask.hasFreeSlot()) {
+				tctmTask.clearEvents();
+			}
+
+			for (int i = 0; i < MAX_TRIES && acqMailbox.getMailCount() == 0; i++) {
+				hmTask.getInternalTime().incr();
+				acqTask.setHitBudgetLeft(10);
+				system.getSensorUnitSim().randomEvent();
+				acqTask.handleHitTrigger();
+			}
+			checkEquals("mail count of acq mailbox = 1", acqMailbox.getMailCount(), 1);
+			acqMailbox.waitMail();
+		}
+
+		protected void invoke() {
+			acqTask.handleAcquisition(system.getAcqMailbox().getMessage());
+		}
+
+		protected void complete() {
+			if (getProblem() == Prob5b) checkFalse(tctmTask.hasFreeSlot());
+		}
+	}
+}
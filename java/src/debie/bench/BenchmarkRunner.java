@@ -0,0 +1,142 @@
+package debie.bench;
+
+import java.io.PrintStream;
+
+import debie.harness.LatencyHistogram;
+import debie.harness.TestLogger;
+
+/**
+ * Runs the benchmarks of the Harness analysis problems on a stock JVM,
+ * where the JOP cycle counter is not available, and reports for each
+ * problem:
+ * <ul>
+ * <li/> throughput: invocations per second of measured time
+ * <li/> average time per invocation
+ * <li/> the distribution of the invocation times: percentiles and a
+ *       histogram
+ * </ul>
+ * Each benchmark is first run for a number of warm-up invocations, which
+ * are not recorded, so that the measured code is compiled. The time of
+ * reading the clock is measured once and subtracted from each sample.
+ * <p>
+ * Usage: BenchmarkRunner [iterations [warm-up [problem ...]]]
+ */
+public class BenchmarkRunner {
+
+	public static final int DEFAULT_ITERATIONS = 20000;
+	public static final int DEFAULT_WARMUP = 5000;
+
+	private final int iterations;
+	private final int warmup;
+
+	private final long overhead;
+
+	public BenchmarkRunner(int iterations, int warmup) {
+		this.iterations = iterations;
+		this.warmup = warmup;
+		this.overhead = clockOverhead();
+	}
+
+	/** The smallest time between two readings of the clock */
+	private static long clockOverhead() {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 10000; i++) {
+			long start = System.nanoTime();
+			long end = System.nanoTime();
+			if (end - start < best) best = end - start;
+		}
+		return best;
+	}
+
+	public long getOverhead() {
+		return overhead;
+	}
+
+	/** Run one benchmark; returns the recorded times in ns. */
+	public LatencyHistogram run(ProblemBenchmark benchmark) {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for (int i = 0; i < warmup; i++) {
+			benchmark.measure();
+		}
+		for (int i = 0; i < iterations; i++) {
+			histogram.record(benchmark.measure() - overhead);
+		}
+		return histogram;
+	}
+
+	/** Invocations per second of measured time */
+	public static double throughput(LatencyHistogram histogram) {
+		return histogram.getTotal() > 0 ? histogram.getCount() * 1e9 / histogram.getTotal() : 0;
+	}
+
+	public static void report(PrintStream out, ProblemBenchmark benchmark, LatencyHistogram histogram) {
+		out.print("Problem ");
+		out.print(benchmark.getProblem());
+		out.print(":\t");
+		out.println(benchmark.getTitle());
+		out.println(String.format("  thrpt:\t%.0f ops/s\tavgt:\t%d ns/op",
+				throughput(histogram), histogram.getMean()));
+		out.print("  sample:\t");
+		out.println(histogram);
+		histogram.dump(out, "    ");
+	}
+
+	/** All benchmarks, in the order of the problem codes */
+	public static ProblemBenchmark[] all(TestLogger tl) {
+		ProblemBenchmark[][] groups = {
+			TelecommandBenchmarks.create(tl),
+			TelemetryBenchmarks.create(tl),
+			HitTriggerBenchmarks.create(tl),
+			AcquisitionBenchmarks.create(tl),
+			MonitoringBenchmarks.create(tl),
+		};
+		int n = 0;
+		for (int g = 0; g < groups.length; g++) n += groups[g].length;
+
+		ProblemBenchmark[] all = new ProblemBenchmark[n];
+		n = 0;
+		for (int g = 0; g < groups.length; g++) {
+			for (int i = 0; i < groups[g].length; i++) {
+				/* Insertion by problem code */
+				int j = n++;
+				while (j > 0 && all[j-1].getProblem() > groups[g][i].getProblem()) {
+					all[j] = all[j-1];
+					j--;
+				}
+				all[j] = groups[g][i];
+			}
+		}
+		return all;
+	}
+
+	private static boolean selected(int problem, String[] argv) {
+		if (argv.length <= 2) return true;
+		for (int i = 2; i < argv.length; i++) {
+			if (Integer.parseInt(argv[i]) == problem) return true;
+		}
+		return false;
+	}
+
+	public static void main(String[] argv) {
+		int iterations = argv.length > 0 ? Integer.parseInt(argv[0]) : DEFAULT_ITERATIONS;
+		int warmup     = argv.length > 1 ? Integer.parseInt(argv[1]) : DEFAULT_WARMUP;
+
+		TestLogger logger = new TestLogger();
+		BenchmarkRunner runner = new BenchmarkRunner(iterations, warmup);
+
+		System.out.println("[BenchmarkRunner] " + iterations + " iterations, " + warmup
+				+ " warm-up, clock overhead " + runner.getOverhead() + " ns");
+
+		ProblemBenchmark[] benchmarks = all(logger);
+		for (int i = 0; i < benchmarks.length; i++) {
+			if (!selected(benchmarks[i].getProblem(), argv)) continue;
+
+			LatencyHistogram histogram = runner.run(benchmarks[i]);
+			report(System.out, benchmarks[i], histogram);
+			if (benchmarks[i].getCheckErrors() > 0) {
+				System.out.println("  FAILED CHECKS: " + benchmarks[i].getCheckErrors());
+			}
+		}
+	}
+}
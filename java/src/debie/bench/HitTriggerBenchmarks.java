@@ -0,0 +1,63 @@
+package debie.bench;
+
+import static debie.harness.Harness.*;
+import static debie.particles.AcquisitionTask.ADC_MAX_TRIES;
+import static debie.target.SensorUnitDev.NUM_SU;
+import debie.harness.TestLogger;
+
+/** Problems 3a-3c: the Hit Trigger interrupt handler, with hit budget
+ *  left; set up as in HitISRTest. */
+public class HitTriggerBenchmarks {
+
+	public static ProblemBenchmark[] create(TestLogger tl) {
+		return new ProblemBenchmark[] {
+			new HitTrigger(Prob3a, "Hit Trigger interrupt handler, no ADC errors", tl),
+			new HitTrigger(Prob3b, "Hit Trigger interrupt handler, at most one ADC error", tl),
+			new HitTrigger(Prob3c, "Hit Trigger interrupt handler, any number of ADC errors", tl),
+		};
+	}
+
+	/** A hit on each SU in turn; the A/D delays depend on the problem. */
+	static class HitTrigger extends ProblemBenchmark {
+
+		private int su;
+
+		HitTrigger(int problem, String title, TestLogger tl) {
+			super(problem, title, tl);
+		}
+
+		protected void setup() {
+			super.setup();
+			if (getProblem() == Prob3a) {
+				system.getAdcSim().setADDelay(2);
+				system.getAdcSim().setADConvNum(0);
+			} else if (getProblem() == Prob3b) {
+				/* All A/D delays at limit, one beyond it: */
+				system.getAdcSim().setADDelay(ADC_MAX_TRIES);
+				system.getAdcSim().ad_conv_delay[0] = ADC_MAX_TRIES + 1;
+			}
+		}
+
+		protected void prepare() {
+			su = (su + 1) % NUM_SU;
+
+			acqTask.setHitBudgetLeft(15);
+			if (getProblem() == Prob3b) {
+				/* Offset starting index to make a different channel fail. */
+				system.getAdcSim().setADConvNum(su);
+			} else if (getProblem() == Prob3c) {
+				system.getAdcSim().randomADDelay();
+			}
+			system.getSensorUnitSim().setTriggerSU(su);
+		}
+
+		protected void invoke() {
+			acqTask.handleHitTrigger();
+		}
+
+		protected void complete() {
+			checkEquals("mail count of acq mailbox = 1", system.getAcqMailbox().getMailCount(), 1);
+			system.getAcqMailbox().flushMail();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package debie.bench;
+
+import static debie.harness.Harness.*;
+import static debie.health.HealthMonitoringTask.*;
+import debie.harness.AdcSim;
+import debie.harness.TestLogger;
+import debie.particles.AcquisitionTask;
+
+/** Problems 6a-6e: one round of the Health Monitoring task; set up as
+ *  in MonitoringTaskTest. */
+public class MonitoringBenchmarks {
+
+	/** Rounds in a full monitoring period of 180 seconds */
+	private static final int PERIOD_ROUNDS = 180;
+
+	public static ProblemBenchmark[] create(TestLogger tl) {
+		return new ProblemBenchmark[] {
+			new Monitoring(Prob6a, "Monitoring task, no hits or errors", tl),
+			new Monitoring(Prob6b, "Monitoring task, one hit during A/D conversion", tl),
+			new Monitoring(Prob6c, "Monitoring task, many hits during A/D conversion", tl),
+			new Monitoring(Prob6d, "Monitoring task, some SU error detected", tl),
+			new Monitoring(Prob6e, "Monitoring task, any number of hits and errors", tl),
+		};
+	}
+
+	static class Monitoring extends ProblemBenchmark {
+
+		private int round;
+
+		Monitoring(int problem, String title, TestLogger tl) {
+			super(problem, title, tl);
+		}
+
+		private boolean withErrors() {
+			return getProblem() == Prob6d || getProblem() == Prob6e;
+		}
+
+		protected void setup() {
+			super.setup();
+
+			/* Reset all cycles: */
+
+			hmTask.setHealthMonRound(HEALTH_COUNT);
+			hmTask.setTempMeasCount(TEMP_COUNT);
+			hmTask.setVoltageMeasCount(VOLTAGE_COUNT);
+			hmTask.setChecksumCount(CHECK_COUNT);
+
+			AdcSim adcSim = system.getAdcSim();
+			adcSim.setADNominal();
+
+			if (withErrors()) {
+				adcSim.setADUnlimited();
+				adcSim.max_adc_hits = 0;
+			} else {
+				/* A/D conversions ready on second poll: */
+				adcSim.setADDelay(2);
+			}
+		}
+
+		protected void prepare() {
+			AdcSim adcSim = system.getAdcSim();
+
+			if (getProblem() == Prob6b) {
+				adcSim.max_adc_hits = 1;
+			} else if (getProblem() == Prob6c || getProblem() == Prob6e) {
+				adcSim.max_adc_hits = AcquisitionTask.HIT_BUDGET_DEFAULT;
+			}
+
+			if (withErrors()) {
+				if (system.getTelemetryData().getErrorStatus() != 0) {
+					clearErrors();
+				}
+				if (round % PERIOD_ROUNDS == 0) {
+					/* Some SU current errors in each period: */
+					hmTask.setCheckCurrentErrors(5);
+				}
+				if (getProblem() == Prob6e) {
+					adcSim.ad_random_failures = 2;
+				}
+			}
+			round++;
+		}
+
+		protected void invoke() {
+			hmTask.handleHealthMonitor();
+		}
+
+		protected void complete() {
+			if (!withErrors()) checkNoErrors();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package debie.bench;
+
+import debie.harness.HarnessSystem;
+import debie.harness.HarnessTest;
+import debie.harness.TestLogger;
+import debie.host.SystemCheckpoint;
+
+/**
+ * Benchmark of one analysis problem of the Harness, on a stock JVM.
+ * <p>
+ * A benchmark owns a HarnessSystem and reuses the helpers of the harness
+ * tests to drive it. Each invocation brings the system to the state that
+ * the problem starts from (prepare), runs the code of the problem (invoke,
+ * the only part that is timed) and then consumes its results (complete),
+ * so that the next invocation starts from the same kind of state. The
+ * state after setup is kept in a SystemCheckpoint, which is restored
+ * before each later invocation: every invocation starts from the same
+ * warm state, without booting again.
+ * <p>
+ * The checks of HarnessTest are kept in the untimed parts, so that a
+ * benchmark that drifts off its intended path is reported as a test
+ * failure; see ProblemBenchmarkTest.
+ */
+public abstract class ProblemBenchmark extends HarnessTest {
+
+	private final int problem;
+	private final String title;
+
+	private SystemCheckpoint warm;
+
+	protected ProblemBenchmark(int problem, String title, TestLogger tl) {
+		super(new HarnessSystem(), tl);
+		this.problem = problem;
+		this.title = title;
+	}
+
+	/** The problem code, as in Harness (Prob1 .. Prob6e) */
+	public int getProblem() {
+		return problem;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	/** Boot the system; extended by benchmarks that need more state. */
+	protected void setup() {
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+	}
+
+	/** Bring the system to the start of the problem. Not timed. */
+	protected abstract void prepare();
+
+	/** The code of the analysis problem. Timed. */
+	protected abstract void invoke();
+
+	/** Consume the results of invoke. Not timed. */
+	protected void complete() {
+	}
+
+	/** Run one invocation, and return the time of invoke in ns. */
+	public final long measure() {
+		if (warm == null) {
+			setup();
+			warm = new SystemCheckpoint(system);
+		} else {
+			warm.restore();
+		}
+		prepare();
+		long start = System.nanoTime();
+		invoke();
+		long end = System.nanoTime();
+		complete();
+		return end - start;
+	}
+
+	/** Run a few invocations, with the checks of the benchmark. */
+	@Override
+	public void runTests() {
+		testcase("Benchmark " + title);
+
+		for (int i = 0; i < 4; i++) {
+			measure();
+		}
+	}
+}
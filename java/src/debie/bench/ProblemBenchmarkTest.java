@@ -0,0 +1,95 @@
+package debie.bench;
+
+import debie.harness.Harness;
+import debie.harness.LatencyHistogram;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+
+/** The problem benchmarks follow their intended paths, and the runner
+ *  records every invocation. */
+public class ProblemBenchmarkTest extends TestSuite {
+
+	private static final int ITERATIONS = 200;
+
+	private final TestLogger logger;
+
+	public ProblemBenchmarkTest(TestLogger tl) {
+		super(tl);
+		this.logger = tl;
+	}
+
+	@Override
+	public void runTests() {
+
+		testCoverage();
+		testBenchmarks();
+		testDispatch();
+		testHistogram();
+
+		reportTestResults("ProblemBenchmarkTest");
+	}
+
+	private void testCoverage() {
+		testcase("Benchmarks, one per analysis problem");
+
+		int[] problems = Harness.PROBLEMS;
+
+		ProblemBenchmark[] benchmarks = BenchmarkRunner.all(logger);
+		checkEquals("benchmarks", benchmarks.length, problems.length);
+		for (int i = 0; i < benchmarks.length && i < problems.length; i++) {
+			checkEquals("problem", benchmarks[i].getProblem(), problems[i]);
+		}
+	}
+
+	private void testBenchmarks() {
+		testcase("Benchmarks, every problem runs on its intended path");
+
+		ProblemBenchmark[] benchmarks = BenchmarkRunner.all(logger);
+		BenchmarkRunner runner = new BenchmarkRunner(ITERATIONS, 0);
+
+		for (int i = 0; i < benchmarks.length; i++) {
+			LatencyHistogram histogram = runner.run(benchmarks[i]);
+
+			checkEquals("samples", (int)histogram.getCount(), ITERATIONS);
+			checkTrue(histogram.getMax() >= histogram.getValueAtPerMille(500));
+			checkZero(benchmarks[i].getCheckErrors());
+		}
+	}
+
+	private void testDispatch() {
+		testcase("TC dispatch benchmarks, every TC is executed without errors");
+
+		ProblemBenchmark[] benchmarks = TcDispatchBenchmark.create(logger);
+		BenchmarkRunner runner = new BenchmarkRunner(ITERATIONS / 10, 0);
+
+		for (int i = 0; i < benchmarks.length; i++) {
+			LatencyHistogram histogram = runner.run(benchmarks[i]);
+
+			checkEquals("samples", (int)histogram.getCount(), ITERATIONS / 10);
+			checkZero(benchmarks[i].getCheckErrors());
+		}
+	}
+
+	private void testHistogram() {
+		testcase("Latency histogram, percentiles");
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int v = 1; v <= 1000; v++) {
+			histogram.record(v);
+		}
+		checkEquals("count", (int)histogram.getCount(), 1000);
+		checkEquals("min", (int)histogram.getMin(), 1);
+		checkEquals("max", (int)histogram.getMax(), 1000);
+		checkEquals("mean", (int)histogram.getMean(), 500);
+
+		/* Buckets are at most 1/8 of their values wide: */
+		long p50 = histogram.getValueAtPerMille(500);
+		checkTrue(p50 >= 500 && p50 < 500 + 500 / 8 + 1);
+		long p99 = histogram.getValueAtPerMille(990);
+		checkTrue(p99 >= 990 && p99 <= 1000);
+		checkEquals("p100", (int)histogram.getValueAtPerMille(1000), 1000);
+
+		histogram.record(-5);
+		checkEquals("negative counts as zero", (int)histogram.getMin(), 0);
+	}
+}
@@ -0,0 +1,109 @@
+package debie.bench;
+
+import static debie.target.SensorUnitDev.NUM_SU;
+
+import java.util.Random;
+
+import debie.harness.HarnessSystem;
+import debie.particles.EventBatch;
+import debie.particles.EventRecord;
+import debie.telecommand.TelemetryData;
+
+/**
+ * Reclassification of downloaded event records on the host: records per
+ * second of EventRecord.classify, one record object at a time, and of
+ * EventBatch, in columns. Both start from the records in their telemetry
+ * layout, so the times include unpacking; the batch is also timed when it
+ * classifies the records it already holds again.
+ * <p>
+ * Usage: ReclassificationBenchmark [records [rounds]]
+ */
+public class ReclassificationBenchmark {
+
+	public static final int DEFAULT_RECORDS = 1000000;
+	public static final int DEFAULT_ROUNDS = 5;
+
+	private final HarnessSystem system = new HarnessSystem();
+	private final TelemetryData tmData = system.getTelemetryData();
+	private final EventRecord event = new EventRecord(system);
+	private final EventBatch batch;
+	private final byte[] packed;
+	private final int records;
+
+	/** Checksum of the results, so that the work is not optimized away */
+	private int sink;
+
+	public ReclassificationBenchmark(int records) {
+		this.records = records;
+		this.batch = new EventBatch(records);
+
+		this.packed = randomEvents(new Random(1), records);
+		tmData.init();
+	}
+
+	/** Random packed event records; amplitudes and delays are spread over
+	 *  the ranges of the levels and time windows. */
+	public static byte[] randomEvents(Random random, int count) {
+		byte[] packed = new byte[count * EventRecord.SIZE_IN_BYTES];
+		random.nextBytes(packed);
+		for (int i = 0; i < count; i++) {
+			int off = i * EventRecord.SIZE_IN_BYTES;
+			packed[off+2] = (byte)(1 + random.nextInt(NUM_SU));
+			/* Delays 2 and 3 mostly in the range of the time windows: */
+			packed[off+23] = (byte)random.nextInt(16);
+			packed[off+25] = (byte)random.nextInt(16);
+		}
+		return packed;
+	}
+
+	/** Records per second of EventRecord.classify */
+	public double runRecords() {
+		long start = System.nanoTime();
+		for (int i = 0; i < records; i++) {
+			event.unpack(packed, i * EventRecord.SIZE_IN_BYTES);
+			event.classify();
+			sink += event.getQualityNumber();
+		}
+		return records * 1e9 / (System.nanoTime() - start);
+	}
+
+	/** Records per second of EventBatch.classify */
+	public double runBatch() {
+		long start = System.nanoTime();
+		batch.clear();
+		for (int i = 0; i < records; i++) {
+			batch.add(packed, i * EventRecord.SIZE_IN_BYTES);
+		}
+		batch.classify(tmData.getClassificationLimits(), tmData.getQualityTable(), null);
+		sink += batch.quality_number[records - 1];
+		return records * 1e9 / (System.nanoTime() - start);
+	}
+
+	/** Records per second of EventBatch.classify again, on the records
+	 *  already in the batch, as when the levels or coefficients change */
+	public double runReclassify() {
+		long start = System.nanoTime();
+		batch.classify(tmData.getClassificationLimits(), tmData.getQualityTable(), null);
+		sink += batch.quality_number[records - 1];
+		return records * 1e9 / (System.nanoTime() - start);
+	}
+
+	public static void main(String[] argv) {
+		int records = argv.length > 0 ? Integer.parseInt(argv[0]) : DEFAULT_RECORDS;
+		int rounds  = argv.length > 1 ? Integer.parseInt(argv[1]) : DEFAULT_ROUNDS;
+
+		ReclassificationBenchmark bench = new ReclassificationBenchmark(records);
+
+		System.out.println("[ReclassificationBenchmark] " + records + " records, "
+				+ rounds + " rounds after one warm-up round");
+		bench.runRecords();
+		bench.runBatch();
+		bench.runReclassify();
+		for (int r = 0; r < rounds; r++) {
+			System.out.println(String.format(
+					"  round %d:\tEventRecord %.0f records/s\tEventBatch %.0f records/s\treclassify %.0f records/s",
+					r, bench.runRecords(), bench.runBatch(), bench.runReclassify()));
+		}
+		System.out.println("  (checksum " + bench.sink + ")");
+	}
+}
@@ -0,0 +1,91 @@
+package debie.bench;
+
+import static debie.harness.Harness.*;
+import static debie.telecommand.TcAddress.*;
+import debie.harness.LatencyHistogram;
+import debie.harness.TestLogger;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/**
+ * The TC Execution task handling one TC, for each of a set of TC
+ * addresses, so that the cost of the TC dispatch can be compared across
+ * the addresses. Each benchmark is a variant of 4a (general case).
+ * <p>
+ * Usage: TcDispatchBenchmark [iterations [warm-up]]
+ */
+public class TcDispatchBenchmark {
+
+	/** TC address and a valid TC code of each benchmark */
+	private static final int[][] TCS = {
+		{ ERROR_STATUS_CLEAR,              ERROR_STATUS_CLEAR },
+		{ CLEAR_WATCHDOG_FAILURES,         CLEAR_WATCHDOG_FAILURES },
+		{ CLEAR_CHECKSUM_FAILURES,         CLEAR_CHECKSUM_FAILURES },
+		{ SET_TIME_BYTE_3,                 0x12 },
+		{ SET_COEFFICIENT_1,               5 },
+		{ SET_COEFFICIENT_5,               5 },
+		{ SET_SU_1_PLASMA_1P_THRESHOLD,    0x40 },
+		{ SET_SU_4_PIEZO_THRESHOLD,        0x40 },
+		{ SET_SU_1_PLASMA_1P_CLASS_LEVEL,  0x40 },
+		{ SET_SU_4_PLASMA_2P_CLASS_LEVEL,  0x40 },
+		{ SET_SU_1_PLASMA_1E_1I_MAX_TIME,  0x40 },
+		{ SET_SU_4_PLASMA_1I_PZT_MAX_TIME, 0x40 },
+	};
+
+	public static ProblemBenchmark[] create(TestLogger tl) {
+		ProblemBenchmark[] benchmarks = new ProblemBenchmark[TCS.length];
+		for (int i = 0; i < TCS.length; i++) {
+			benchmarks[i] = new TcDispatch(TCS[i][0], TCS[i][1], tl);
+		}
+		return benchmarks;
+	}
+
+	/** 4a with the given TC */
+	static class TcDispatch extends ProblemBenchmark {
+
+		private final int address;
+		private final int code;
+
+		TcDispatch(int address, int code, TestLogger tl) {
+			super(Prob4a, "TC Execution task, TC address 0x"
+					+ Integer.toHexString(address), tl);
+			this.address = address;
+			this.code = code;
+		}
+
+		protected void prepare() {
+			sendTC(address, code);
+		}
+
+		protected void invoke() {
+			tctmTask.handleTelecommand();
+		}
+
+		protected void complete() {
+			checkNoErrors();
+			checkTcState(TC_State.TC_handling_e);
+		}
+	}
+
+	public static void main(String[] argv) {
+		int iterations = argv.length > 0 ? Integer.parseInt(argv[0]) : BenchmarkRunner.DEFAULT_ITERATIONS;
+		int warmup     = argv.length > 1 ? Integer.parseInt(argv[1]) : BenchmarkRunner.DEFAULT_WARMUP;
+
+		TestLogger logger = new TestLogger();
+		BenchmarkRunner runner = new BenchmarkRunner(iterations, warmup);
+
+		System.out.println("[TcDispatchBenchmark] " + iterations + " iterations, " + warmup
+				+ " warm-up, clock overhead " + runner.getOverhead() + " ns");
+		System.out.println("address\tp50 ns\tavgt ns");
+
+		ProblemBenchmark[] benchmarks = create(logger);
+		for (int i = 0; i < benchmarks.length; i++) {
+			LatencyHistogram histogram = runner.run(benchmarks[i]);
+			System.out.println("0x" + Integer.toHexString(TCS[i][0])
+					+ "\t" + histogram.getValueAtPerMille(500)
+					+ "\t" + histogram.getMean());
+			if (benchmarks[i].getCheckErrors() > 0) {
+				System.out.println("  FAILED CHECKS: " + benchmarks[i].getCheckErrors());
+			}
+		}
+	}
+}
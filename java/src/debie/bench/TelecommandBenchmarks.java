@@ -0,0 +1,138 @@
+package debie.bench;
+
+import static debie.harness.Harness.*;
+import static debie.telecommand.TcAddress.*;
+import debie.harness.TestLogger;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Problems 1 and 4a-4d: the TC interrupt handler and the Telecommand
+ *  Execution task; set up as in TelecommandISRTest and TelecommandTaskTest. */
+public class TelecommandBenchmarks {
+
+	/** Data memory address of the patch used for 4b-4d */
+	private static final int PATCH_ADDRESS = 0x2200;
+
+	/** Words of patch contents in the Write Data Memory sequence */
+	private static final int PATCH_WORDS = 16;
+
+	public static ProblemBenchmark[] create(TestLogger tl) {
+		return new ProblemBenchmark[] {
+			new TcInterrupt(tl),
+			new TcGeneral(tl),
+			new MemoryPatch(Prob4b, "TC Execution task, start TC buffering, MSB", tl),
+			new MemoryPatch(Prob4c, "TC Execution task, start TC buffering, LSB", tl),
+			new MemoryPatch(Prob4d, "TC Execution task, buffer TC word", tl),
+		};
+	}
+
+	/** 1: TC interrupt handler, with a valid TC */
+	static class TcInterrupt extends ProblemBenchmark {
+		TcInterrupt(TestLogger tl) {
+			super(Prob1, "TC interrupt handler", tl);
+		}
+
+		protected void prepare() {
+			system.getTcTmSim().setTcRegs(ERROR_STATUS_CLEAR, ERROR_STATUS_CLEAR);
+			system.getTcTmSim().setTimerOverflowFlag();
+		}
+
+		protected void invoke() {
+			tctmTask.tcInterruptService();
+		}
+
+		protected void complete() {
+			handleTC(Prob4a);
+			checkNoErrors();
+		}
+	}
+
+	/** 4a: TC Execution task, general case */
+	static class TcGeneral extends ProblemBenchmark {
+		TcGeneral(TestLogger tl) {
+			super(Prob4a, "TC Execution task, general case", tl);
+		}
+
+		protected void prepare() {
+			sendTC(ERROR_STATUS_CLEAR, ERROR_STATUS_CLEAR);
+		}
+
+		protected void invoke() {
+			tctmTask.handleTelecommand();
+		}
+
+		protected void complete() {
+			checkNoErrors();
+			checkTcState(TC_State.TC_handling_e);
+		}
+	}
+
+	/**
+	 * 4b-4d: one step of a Write Data Memory sequence. The steps are the
+	 * MSB of the address (4b), the LSB (4c), the words of the patch (4d)
+	 * and the final word with the checksum. Each invocation runs the whole
+	 * sequence and times one step; for 4d, a different word each time.
+	 */
+	static class MemoryPatch extends ProblemBenchmark {
+
+		private static final int STEP_MSB  = 0;
+		private static final int STEP_LSB  = 1;
+		private static final int STEP_WORD = 2;
+		private static final int STEP_LAST = STEP_WORD + PATCH_WORDS;
+
+		private int timed_step;
+		private int next_word;
+		private int checksum;
+
+		MemoryPatch(int problem, String title, TestLogger tl) {
+			super(problem, title, tl);
+		}
+
+		private int stepOf() {
+			if (getProblem() == Prob4b) return STEP_MSB;
+			if (getProblem() == Prob4c) return STEP_LSB;
+			int step = STEP_WORD + next_word;
+			next_word = (next_word + 1) % PATCH_WORDS;
+			return step;
+		}
+
+		/** Send the TC of the given step to the TC ISR. */
+		private void send(int step) {
+			if (step == STEP_MSB) {
+				checksum = 0;
+				sendTC(WRITE_DATA_MEMORY_MSB, (PATCH_ADDRESS >> 8) & 0xff);
+			} else if (step == STEP_LSB) {
+				sendTC(WRITE_DATA_MEMORY_LSB, PATCH_ADDRESS & 0xff);
+			} else if (step < STEP_LAST) {
+				sendTCWord((step - STEP_WORD) << 6);
+			} else {
+				checksum ^= 0x11;   /* Irrelevant for data patch. */
+				sendTCWord(0x1100 | checksum);
+				return;
+			}
+			int word = system.getTcTmSim().getTcWord();
+			checksum ^= (word >> 8) ^ (word & 0xff);
+		}
+
+		protected void prepare() {
+			timed_step = stepOf();
+			for (int step = STEP_MSB; step < timed_step; step++) {
+				send(step);
+				tctmTask.handleTelecommand();
+			}
+			send(timed_step);
+		}
+
+		protected void invoke() {
+			tctmTask.handleTelecommand();
+		}
+
+		protected void complete() {
+			for (int step = timed_step + 1; step <= STEP_LAST; step++) {
+				send(step);
+				tctmTask.handleTelecommand();
+			}
+			checkNoErrors();
+			checkTcState(TC_State.TC_handling_e);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package debie.bench;
+
+import static debie.harness.Harness.*;
+import static debie.telecommand.TcAddress.*;
+import debie.harness.TestLogger;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.TelemetryData;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Problems 2a-2c: the TM interrupt handler; set up as in TelemetryTest. */
+public class TelemetryBenchmarks {
+
+	public static ProblemBenchmark[] create(TestLogger tl) {
+		return new ProblemBenchmark[] {
+			new RegisterTm(Prob2a, "TM interrupt handler, most common case", tl),
+			new RegisterTm(Prob2b, "TM interrupt handler, send internal time register", tl),
+			new EndOfTm(tl),
+		};
+	}
+
+	/** 2a, 2b: a TM interrupt during register TM, which goes on until
+	 *  stopped; 2b is the interrupt that sends the internal time. */
+	static class RegisterTm extends ProblemBenchmark {
+		RegisterTm(int problem, String title, TestLogger tl) {
+			super(problem, title, tl);
+		}
+
+		protected void setup() {
+			super.setup();
+			sendTC(SEND_STATUS_REGISTER, 0);
+			handleTC(Prob4a);
+			checkTcState(TC_State.register_TM_e);
+		}
+
+		protected void prepare() {
+			if (getProblem() == Prob2b) {
+				while (!tctmTask.telemetryIndexEquals(TelemetryData.TIME_INDEX)) {
+					tctmTask.tmInterruptService();
+				}
+			} else if (tctmTask.telemetryIndexEquals(TelemetryData.TIME_INDEX)) {
+				tctmTask.tmInterruptService();
+			}
+		}
+
+		protected void invoke() {
+			tctmTask.tmInterruptService();
+		}
+
+		protected void complete() {
+			checkTcState(TC_State.register_TM_e);
+		}
+	}
+
+	/** 2c: the TM interrupt that ends a Science Data TM */
+	static class EndOfTm extends ProblemBenchmark {
+
+		private final byte[] block = new byte[ScienceDataFile.sizeInBytes()];
+
+		EndOfTm(TestLogger tl) {
+			super(Prob2c, "TM interrupt handler, end of TM", tl);
+		}
+
+		protected void prepare() {
+			sendTC(SEND_SCIENCE_DATA_FILE, SEND_SCIENCE_DATA_FILE);
+			handleTC(Prob4a);
+			tctmTask.drainTelemetry(block);
+			checkTrue(tctmTask.telemetryIndexAtEnd());
+		}
+
+		protected void invoke() {
+			tctmTask.tmInterruptService();
+		}
+
+		protected void complete() {
+			/* Handle the TM_READY message: */
+			handleTC(Prob4a);
+			checkTcState(TC_State.TC_handling_e);
+		}
+	}
+}
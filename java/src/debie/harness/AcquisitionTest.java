@@ -9,6 +9,7 @@ import static debie.target.TcTmDev.*;
 import static debie.telecommand.TcAddress.*;
 import static debie.target.SensorUnitDev.NUM_SU;
 import static debie.telecommand.TelecommandExecutionTask.MAX_QUEUE_LENGTH;
+import static debie.telecommand.TelecommandExecutionTask.SNAPSHOT_SCIENCE_TM;
 
 import debie.telecommand.TelecommandExecutionTask;
 import debie.telecommand.TelemetryData;
@@ -178,6 +179,10 @@ public class AcquisitionTest extends HarnessTest {
 			system.suSim.randomEvent();
 
 			acquireHit (Prob3a, Prob5b);
+
+			checkEquals ("indexed min quality record == linear search",
+					tctmTask.getMinQualityRecordIndex(),
+					tctmTask.findMinQualityRecordLinear());
 		}
 
 		reportEventHisto ();
@@ -213,15 +218,15 @@ public class AcquisitionTest extends HarnessTest {
 		{
 			if (! tctmTask.telemetryIndexAtEnd())
 			{
-				if(Harness.INSTRUMENTATION) Harness.startProblem(Prob2a);
+				if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob2a);
 				tctmTask.tmInterruptService() ;
-				if(Harness.INSTRUMENTATION) Harness.endProblem(Prob2a);
+				if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob2a);
 			}
 			else
 			{
-				if(Harness.INSTRUMENTATION) Harness.startProblem(Prob2c);
+				if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob2c);
 				tctmTask.tmInterruptService() ;
-				if(Harness.INSTRUMENTATION) Harness.endProblem(Prob2c);
+				if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob2c);
 			}
 
 			octets += 2;
@@ -239,7 +244,11 @@ public class AcquisitionTest extends HarnessTest {
 
 				hits ++;
 
-				if (hits <= MAX_QUEUE_LENGTH)
+				if (SNAPSHOT_SCIENCE_TM)
+					checkEquals ("free slot index = accepted hits",
+							tctmTask.getFreeSlotIndex(),
+							hits < MAX_QUEUE_LENGTH + 2 ? hits : MAX_QUEUE_LENGTH + 2);
+				else if (hits <= MAX_QUEUE_LENGTH)
 					checkEquals ("event queue length = hits", tctmTask.getEventQueueLength(), hits);
 				else
 					checkEquals ("event queue length = max queue length",
@@ -264,8 +273,12 @@ public class AcquisitionTest extends HarnessTest {
 
 		checkZero (tctmTask.getEventQueueLength());
 
-		checkEquals ("tctmTask.getFreeSlotIndex() == MAX_QUEUE_LENGTH",
-				      tctmTask.getFreeSlotIndex(), MAX_QUEUE_LENGTH);
+		if (SNAPSHOT_SCIENCE_TM)
+			checkEquals ("tctmTask.getFreeSlotIndex() == accepted hits",
+					      tctmTask.getFreeSlotIndex(), MAX_QUEUE_LENGTH + 2);
+		else
+			checkEquals ("tctmTask.getFreeSlotIndex() == MAX_QUEUE_LENGTH",
+					      tctmTask.getFreeSlotIndex(), MAX_QUEUE_LENGTH);
 
 	}
 	
@@ -326,10 +339,10 @@ public class AcquisitionTest extends HarnessTest {
 
 		if (system.acqMailbox.getMailCount() > 0)
 		{
-			if(Harness.INSTRUMENTATION) startProblem(acq_problem);
+			if(Harness.INSTRUMENTATION || Harness.hostTiming) startProblem(acq_problem);
 			system.acqMailbox.waitMail();
 			system.acqTask.handleAcquisition (system.acqMailbox.getMessage());
-			if(Harness.INSTRUMENTATION) endProblem(acq_problem);
+			if(Harness.INSTRUMENTATION || Harness.hostTiming) endProblem(acq_problem);
 		}
 	}
 	
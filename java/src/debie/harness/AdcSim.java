@@ -70,12 +70,12 @@ public class AdcSim implements AdConverter {
 
 	private static final int AD_NUM_CONV = 6;
 	
-	int ad_conv_delay [] = new int[AD_NUM_CONV];
+	public int ad_conv_delay [] = new int[AD_NUM_CONV];
 	
 	/** Counts the consecutive conversions for ad_conv_delay[]. */
 	private int ad_conv_num = 0;
 	
-	void setADConvNum(int value) {
+	public void setADConvNum(int value) {
 		ad_conv_num = value;
 	}
 	
@@ -107,7 +107,7 @@ public class AdcSim implements AdConverter {
 	/** Maximum number of particle "hits" that may occur during
 	 * A/D conversions (in the Monitoring task, we assume).
 	 */
-	int max_adc_hits;
+	public int max_adc_hits;
 
 	/** A roving index to the random A/D data, for randomizing
 	 * the occurrence of "hits" during A/D conversions.
@@ -121,7 +121,7 @@ public class AdcSim implements AdConverter {
 	 * to be simulated, at random times, in the next conversions
 	 * (calls of Start_Conversion).
 	 */
-	int ad_random_failures = 0;
+	public int ad_random_failures = 0;
 
 	/** A roving index to the random A/D data, for randomizing
 	 * the occurrence of A/D failures (conversion never done).
@@ -9,7 +9,6 @@ package debie.harness;
 import java.io.PrintStream;
 
 import com.jopdesign.sys.Config;
-import com.jopdesign.sys.Const;
 import com.jopdesign.sys.Native;
 
 import debie.health.HealthMonitoringTask;
@@ -90,7 +89,7 @@ public class Harness {
 	public static void main(String[] argv) {
 		
 		/* JOP specific instrumentation code */
-		if(INSTRUMENTATION) initInstrumentation();
+		if(INSTRUMENTATION || hostTiming) initInstrumentation();
 
 		HarnessSystem system = new HarnessSystem();
 		TestLogger defaultLogger = new TestLogger();
@@ -107,6 +106,7 @@ public class Harness {
 		HitISRTest hitTest = new HitISRTest(system, defaultLogger);
 		AcquisitionTest acqTest = new AcquisitionTest(system, defaultLogger);
 		SensorUnitSelfTest suSelfTest = new SensorUnitSelfTest(system, defaultLogger);
+		MailboxTest mailboxTest = new MailboxTest(system, defaultLogger);
 
 		for (int i = 0; i < RUNS; i++) {
 			tcISRTest.runTests();
@@ -116,10 +116,11 @@ public class Harness {
 			hitTest.runTests();
 			acqTest.runTests();
 			suSelfTest.runTests();
+			mailboxTest.runTests();
 		}
 		
 		/* dump results from instrumentation */
-		if(INSTRUMENTATION) printInstrumentation();
+		if(INSTRUMENTATION || hostTiming) printInstrumentation();
 	}
 	
 	/*   Tracing */
@@ -130,28 +131,66 @@ public class Harness {
 	}
 	
 	/* Instrumentation */
-	public final static boolean INSTRUMENTATION  = Config.MEASURE;	
+
+	/** Measure the problems with the JOP cycle counter (JopTimingSource).
+	 *  A compile-time constant, so that the guards are removed when
+	 *  Config.MEASURE is off. */
+	public final static boolean INSTRUMENTATION  = Config.MEASURE;
 	public final static boolean CACHE_SIMULATION = false;	
 	public final static int CACHE_FLUSH = -51;
 	public final static int CACHE_COST  = -52;
 
 	public final static int RUNS = 10;
-	
-	private static int ts, te, to;
+
+	/** The analysis problems, in order */
+	public static final int[] PROBLEMS = {
+		Prob1,
+		Prob2a, Prob2b, Prob2c,
+		Prob3a, Prob3b, Prob3c,
+		Prob4a, Prob4b, Prob4c, Prob4d,
+		Prob5a, Prob5b,
+		Prob6a, Prob6b, Prob6c, Prob6d, Prob6e };
+
+	/** Measure the problems with the timing source selected by
+	 *  setTimingSource, on JVMs other than JOP. Never set on JOP, where
+	 *  INSTRUMENTATION is used instead. */
+	public static boolean hostTiming = false;
+
+	/** Readings of the timing source for overhead calibration */
+	private static final int OVERHEAD_SAMPLES = 16;
+
+	/* The source of the time stamps: the JOP cycle counter with
+	 * INSTRUMENTATION, else the one selected by setTimingSource */
+	private static final TimingSource JOP_TIMING = INSTRUMENTATION ? new JopTimingSource() : null;
+	private static TimingSource timing = JOP_TIMING;
+
+	private static long ts, te, to;
+
+	/**
+	 * Select the host source of the time stamps, and enable hostTiming;
+	 * null disables it. Call initInstrumentation before measuring.
+	 */
+	public static void setTimingSource(TimingSource source) {
+		timing = (source != null) ? source : JOP_TIMING;
+		hostTiming = (source != null);
+	}
+
+	public static TimingSource getTimingSource() {
+		return timing;
+	}
 
 	public static void startProblem(int probCode) {
 		if(CACHE_SIMULATION) {
 			Native.wrMem(1, CACHE_FLUSH); /* flush cache (sim only) */
 			Native.wrMem(0, CACHE_COST); /* reset cache cost (sim only) */
 		}
-		if(INSTRUMENTATION)  ts = Native.rdMem(Const.IO_CNT);
+		if(INSTRUMENTATION || hostTiming) ts = timing.read();
 	}
 
 	public static void endProblem(int probCode) {
-		if(INSTRUMENTATION) {
-			/* JOP Specific instrumentation */
-			te = Native.rdMem(Const.IO_CNT);			
-			problemStats[probCode-ProbFirst].recordRun(te-ts-to);
+		if(INSTRUMENTATION || hostTiming) {
+			te = timing.read();
+			problemStats[probCode-ProbFirst].recordRun(timing.elapsed(ts, te) - to);
 		}
 		if(CACHE_SIMULATION) {
 			problemStats[probCode-ProbFirst].recordICacheCost(Native.rdMem(CACHE_COST));
@@ -159,32 +198,27 @@ public class Harness {
 	}
 
 	private static class MeasurementStatistic {
-		int minElapsed, maxElapsed, totalRuns;		
-		long totalElapsed;
+		final LatencyHistogram elapsed = new LatencyHistogram();
 		int minICacheCost, maxICacheCost;
 		public MeasurementStatistic() {
-			minElapsed = Integer.MAX_VALUE;
-			maxElapsed = 0;
-			totalElapsed = 0;
-			totalRuns = 0;
 			minICacheCost = Integer.MAX_VALUE;
 			maxICacheCost = 0;
 		}
-		public void recordRun(int elapsed) {
-			totalRuns++;
-			totalElapsed += elapsed;
-			if(minElapsed > elapsed) minElapsed = elapsed;
-			if(maxElapsed < elapsed) maxElapsed = elapsed;
+		public void recordRun(long time) {
+			elapsed.record(time);
 		}
 		public void recordICacheCost(int cost) {
 			if(minICacheCost > cost) minICacheCost = cost;
 			if(maxICacheCost < cost) maxICacheCost = cost;
 		}
 		public void dump(PrintStream out) {
-			out.print("min:\t"); out.print(minElapsed);
-			out.print("\tmax:\t"); out.print(maxElapsed);
-			out.print("\ttotal:\t"); out.print(totalElapsed);
-			out.print("/\t"); out.print(totalRuns);
+			out.print("min:\t"); out.print(elapsed.getMin());
+			out.print("\tmax:\t"); out.print(elapsed.getMax());
+			out.print("\ttotal:\t"); out.print(elapsed.getTotal());
+			out.print("/\t"); out.print(elapsed.getCount());
+			out.print("\tp50:\t"); out.print(elapsed.getValueAtPerMille(500));
+			out.print("\tp99:\t"); out.print(elapsed.getValueAtPerMille(990));
+			out.print("\tp99.9:\t"); out.print(elapsed.getValueAtPerMille(999));
 			if(maxICacheCost > 0) {
 				out.print("\ti$-min:\t"); out.print(minICacheCost);
 				out.print("\ti$-max:\t"); out.print(maxICacheCost);
@@ -192,28 +226,49 @@ public class Harness {
 			out.println("");
 		}
 		public String toString() {
-			return "min:\t"+minElapsed+"\tmax:\t"+maxElapsed
-				+"\ttotal:\t"+totalElapsed+"/"+totalRuns;
+			return "min:\t"+elapsed.getMin()+"\tmax:\t"+elapsed.getMax()
+				+"\ttotal:\t"+elapsed.getTotal()+"/"+elapsed.getCount();
 		}
 	}
 
+	/** Statistics per problem code; null for codes that are not problems. */
 	private static MeasurementStatistic[] problemStats;
 	
-	private static void initInstrumentation() {
+	/** Clear the statistics and measure the overhead of the timing source. */
+	public static void initInstrumentation() {
 		/* initialize statistics */
 		problemStats = new MeasurementStatistic[ProbLast-ProbFirst+1];
-		for(int i = 0; i < problemStats.length; i++) {
-			problemStats[i] = new MeasurementStatistic();
+		for(int i = 0; i < PROBLEMS.length; i++) {
+			problemStats[PROBLEMS[i]-ProbFirst] = new MeasurementStatistic();
 		} 
-		/* JOP Specific instrumentation */
-		ts = Native.rdMem(Const.IO_CNT);
-		te = Native.rdMem(Const.IO_CNT);
-		to = te-ts;
+		if(INSTRUMENTATION || hostTiming) {
+			/* the smallest time between two readings */
+			to = Long.MAX_VALUE;
+			for (int i = 0; i < OVERHEAD_SAMPLES; i++) {
+				ts = timing.read();
+				te = timing.read();
+				if (timing.elapsed(ts, te) < to) to = timing.elapsed(ts, te);
+			}
+		}
 	}
-	
-	private static void printInstrumentation() {
+
+	/** The times measured for a problem, after the overhead of the
+	 *  timing source is subtracted. */
+	public static LatencyHistogram getProblemHistogram(int probCode) {
+		return problemStats[probCode-ProbFirst].elapsed;
+	}
+
+	public static void printInstrumentation() {
+		if(INSTRUMENTATION || hostTiming) {
+			System.out.print("Timing source:\t");
+			System.out.print(timing.getName());
+			System.out.print(" (");
+			System.out.print(timing.getUnit());
+			System.out.print("), overhead ");
+			System.out.println(to);
+		}
 		for (int i = 0; i < problemStats.length; i++) {
-			if (problemStats[i].totalRuns > 0) {
+			if (problemStats[i] != null && problemStats[i].elapsed.getCount() > 0) {
 				System.out.print("Problem ");
 				System.out.print((ProbFirst+i));
 				System.out.print(":\t");
@@ -13,14 +13,18 @@ public class HarnessMailbox extends Mailbox {
 		this.system = system;
 	}
 
+	/* XXX: The C harness kept these in global arrays indexed by the mailbox
+	 * number; they are per mailbox here, so that each HarnessSystem has
+	 * its own mailboxes. */
+
 	/** The last message in the mailbox. */
-	private static char mail_message [] = new char[8];
+	private char mail_message;
 
 	/** The number of messages in the mailbox. Should be between 0 and 1. */
-	private static char mail_count [] = new char[8];	/* was originally {0, 0, 0, 0, 0, 0, 0, 0}; */
+	private char mail_count;	/* was originally 0 */
 
-	/** The number of times a mailbox has overflowed. */
-	private static int mail_overflows = 0;
+	/** The number of times the mailbox has overflowed. */
+	private int mail_overflows = 0;
 		
 	/** Purpose        : Send mail to a requested mailbox.
 	 *  Interface      : input:   - mailbox, message, timeout
@@ -37,12 +41,12 @@ public class HarnessMailbox extends Mailbox {
 		if (Harness.TRACE)
 			Harness.trace(String.format("[HarnessMailbox] SendTaskMail to %d, message %d, timeout %d",
 										(int)mailbox_number, (int)message, (int)timeout)); 
-		if (mail_count[mailbox_number] == 0) {
-			mail_message[mailbox_number] = message;
+		if (mail_count == 0) {
+			mail_message = message;
 		} else {
 			mail_overflows++;
 		}
-		mail_count[mailbox_number] ++;
+		mail_count ++;
 	}
 
 	/** Purpose        : Send mail from ISR to a requested mailbox.
@@ -95,16 +99,16 @@ public class HarnessMailbox extends Mailbox {
 			Harness.trace(String.format("[HarnessMailbox] WaitMail from %d, timeout %d",
 										(int)mailbox_number, timeout));
 		
-		if (mail_count[mailbox_number] > 0) {
+		if (mail_count > 0) {
 			wait_result = MSG_RECEIVED;
 			execution_result = MSG_RECEIVED;
-			message = mail_message[mailbox_number];
+			message = mail_message;
 
 			if (Harness.TRACE)
 				Harness.trace(String.format("[HarnessMailbox] Message from %d is %d = 0x%x",
 											(int)mailbox_number, (int)message, (int)message));
 			
-			mail_count[mailbox_number]--;
+			mail_count--;
 		} else {
 			wait_result = TIMEOUT_OCCURRED;
 			execution_result = TIMEOUT_OCCURRED;
@@ -112,21 +116,21 @@ public class HarnessMailbox extends Mailbox {
 		}
 	}
 
-	void flushMail() {
+	public void flushMail() {
 		if (Harness.TRACE)
 			Harness.trace(String.format("[HarnessMailbox] FlushMail from box %d, which had %d messages.",
-										(int)mailbox_number, (int)mail_count[mailbox_number])); 
+										(int)mailbox_number, (int)mail_count)); 
 
-		mail_count[mailbox_number] = 0;
+		mail_count = 0;
 	}
 
 	/* Debugging / Testing interface */
 
-	int getMailCount() {
-		return mail_count[mailbox_number];
+	public int getMailCount() {
+		return mail_count;
 	}
 
-	int getMessage() {
-		return mail_message[mailbox_number];
+	public int getMessage() {
+		return mail_message;
 	}
 }
\ No newline at end of file
@@ -12,11 +12,15 @@ import debie.target.AdConverter;
 import debie.target.HwIf;
 import debie.target.SensorUnitDev;
 import debie.target.TcTmDev;
+import debie.telecommand.ScienceDataFile;
 import debie.telecommand.TelecommandExecutionTask;
 import debie.telecommand.TelemetryData;
 
 /** The simulated DEBIE System */
 public class HarnessSystem implements DebieSystem {
+	Dpu dpu;
+	HwIf hwIf;
+
 	TaskControlSim taskControl;
 
 	TelemetryData tmData;
@@ -33,9 +37,11 @@ public class HarnessSystem implements DebieSystem {
 	SensorUnitSim suSim;
 	TcTmSim tctmSim;
 	
-	public HarnessSystem() {
-		HwIf.setSystem(this);
-		Dpu.setSystem(this);
+	/** event_queue_size: events that can wait during Science Telemetry;
+	 *  packed_layout: the layout of the Science Data File */
+	public HarnessSystem(int event_queue_size, boolean packed_layout) {
+		this.dpu = new Dpu(this);
+		this.hwIf = new HwIf(this);
 		
 		this.taskControl = new TaskControlSim(this);
 		
@@ -49,11 +55,20 @@ public class HarnessSystem implements DebieSystem {
 		this.tctmMailbox = new HarnessMailbox(TCTM_MAILBOX, this);
 
 		this.acqTask = new AcquisitionTask(this);
-		this.tctmTask = new TelecommandExecutionTask(this);
+		this.tctmTask = new TelecommandExecutionTask(this, event_queue_size, packed_layout);
 		this.hmTask = new HealthMonitoringTask(this);
 		this.htTask = new HitTriggerTask(this);
 	}
 
+	/** event_queue_size: events that can wait during Science Telemetry */
+	public HarnessSystem(int event_queue_size) {
+		this(event_queue_size, ScienceDataFile.PACKED_LAYOUT);
+	}
+
+	public HarnessSystem() {
+		this(TelecommandExecutionTask.MAX_QUEUE_LENGTH);
+	}
+
 	@Override
 	public TaskControl getTaskControl() {
 		return taskControl;
@@ -113,6 +128,29 @@ public class HarnessSystem implements DebieSystem {
 	public Time getInternalTime() {
 		return hmTask.getInternalTime();
 	}
-	
+
+	@Override
+	public Dpu getDpu() {
+		return dpu;
+	}
+
+	@Override
+	public HwIf getHwIf() {
+		return hwIf;
+	}
+
+	/* Simulated devices, for drivers outside the harness */
+
+	public AdcSim getAdcSim() {
+		return adcSim;
+	}
+
+	public SensorUnitSim getSensorUnitSim() {
+		return suSim;
+	}
+
+	public TcTmSim getTcTmSim() {
+		return tctmSim;
+	}
 
 }
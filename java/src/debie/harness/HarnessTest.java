@@ -71,9 +71,9 @@ public abstract class HarnessTest extends TestSuite {
 	/* Runs the TC Interrupt Service. */	
 	{
 	   /* Analysis Problem (1) */
-	   if(Harness.INSTRUMENTATION) Harness.startProblem(Prob1);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob1);
 	   system.tctmTask.tcInterruptService();
-	   if(Harness.INSTRUMENTATION) Harness.endProblem(Prob1);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob1);
 	}
 
 	public void handleTC (int problem)
@@ -85,9 +85,9 @@ public abstract class HarnessTest extends TestSuite {
 	{
 	   checkEquals ("[handleTC] TC mailbox has 1 msg", system.tctmMailbox.getMailCount(), 1);
 
-	   if(Harness.INSTRUMENTATION) Harness.startProblem(problem);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(problem);
 	   system.tctmTask.handleTelecommand ();
-	   if(Harness.INSTRUMENTATION) Harness.endProblem(problem);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(problem);
 
 	   checkEquals ("[handleTC] TC mailbox has 0 msgs", system.tctmMailbox.getMailCount(), 0);
 	}
@@ -98,9 +98,9 @@ public abstract class HarnessTest extends TestSuite {
 	   system.adcSim.start_conversion_count = 0;
 	   system.adcSim.end_of_adc_count       = 0;
 	   
-	   if(Harness.INSTRUMENTATION) Harness.startProblem(problem);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(problem);
 	   system.hmTask.handleHealthMonitor();
-	   if(Harness.INSTRUMENTATION) Harness.endProblem(problem);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(problem);
 
 	   reportStartConversionCount (problem);
 	   reportEndOfADCCount        (problem);
@@ -114,11 +114,11 @@ public abstract class HarnessTest extends TestSuite {
 	   checkEquals("no acq mail", system.acqMailbox.getMailCount(), 0);
 	   if(Harness.TRACE) Harness.trace("[HarnessTest] Hit!");
 	
-	   if(Harness.INSTRUMENTATION) Harness.startProblem(problem);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(problem);
 	
 	   system.acqTask.handleHitTrigger();
 	
-	   if(Harness.INSTRUMENTATION) Harness.endProblem(problem);
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(problem);
 	
 	   if(Harness.TRACE) {
 		   if(system.acqMailbox.getMailCount() == 0) {
@@ -236,9 +236,9 @@ public abstract class HarnessTest extends TestSuite {
 	       * response and transmits the first data word.
 	       */
 
-	      if(Harness.INSTRUMENTATION) Harness.startProblem(Prob2a);	      
+	      if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob2a);	      
 	      tctmTask.tmInterruptService();
-	      if(Harness.INSTRUMENTATION) Harness.endProblem(Prob2a);	      
+	      if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob2a);	      
 
 	      checkTcState(TC_State.memory_dump_e);
 	   }
@@ -252,9 +252,9 @@ public abstract class HarnessTest extends TestSuite {
 	    * sequence, containing the data checksum.
 	    */
 
-	   if(Harness.INSTRUMENTATION) Harness.startProblem(Prob2c);	      
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob2c);	      
 	   tctmTask.tmInterruptService();
-	   if(Harness.INSTRUMENTATION) Harness.endProblem(Prob2c);	      
+	   if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob2c);	      
 
 	   /* The TM_READY message: */
 
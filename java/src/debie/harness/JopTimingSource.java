@@ -0,0 +1,25 @@
+package debie.harness;
+
+import com.jopdesign.sys.Const;
+import com.jopdesign.sys.Native;
+
+/** The JOP cycle counter, read through the IO_CNT register. */
+public class JopTimingSource extends TimingSource {
+
+	public String getName() {
+		return "JOP IO_CNT";
+	}
+
+	public String getUnit() {
+		return "cycles";
+	}
+
+	public long read() {
+		return Native.rdMem(Const.IO_CNT);
+	}
+
+	/** The counter is 32 bits wide and wraps around. */
+	public long elapsed(long start, long end) {
+		return (int)(end - start);
+	}
+}
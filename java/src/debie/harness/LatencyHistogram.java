@@ -0,0 +1,164 @@
+package debie.harness;
+
+import java.io.PrintStream;
+
+/**
+ * Histogram of measured execution times, in any unit (cycles or ns).
+ * <p>
+ * The buckets are log-linear: each power-of-two range is split into
+ * SUB_BUCKETS equal parts, so a bucket is at most 1/SUB_BUCKETS of its
+ * values wide. Values below SUB_BUCKETS have a bucket of their own.
+ * Recording is allocation-free and takes a bounded number of steps.
+ * Percentiles are reported as the upper bound of the bucket that holds
+ * them, clamped to the largest recorded value.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** Bucket groups: one for the values below SUB_BUCKETS, then one
+	 *  for each power of two up to 2^62. */
+	private static final int GROUPS = 64 - SUB_BITS;
+	private static final int BUCKETS = GROUPS * SUB_BUCKETS;
+
+	private final int[] counts = new int[BUCKETS];
+
+	private long count;
+	private long total;
+	private long min;
+	private long max;
+
+	public LatencyHistogram() {
+		reset();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) { // @WCA loop = BUCKETS
+			counts[i] = 0;
+		}
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/** Record one value; negative values count as zero. */
+	public void record(long value) {
+		if (value < 0) value = 0;
+
+		counts[bucketOf(value)]++;
+		count++;
+		total += value;
+		if (value < min) min = value;
+		if (value > max) max = value;
+	}
+
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) return (int)value;
+
+		int exp = SUB_BITS;
+		/* The position of the highest one bit of value. */
+		while ((value >> (exp + 1)) != 0) { // @WCA loop <= 63 - SUB_BITS
+			exp++;
+		}
+		int sub = (int)(value >> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/** The smallest value in the given bucket. */
+	private static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+
+		int group = bucket / SUB_BUCKETS;
+		int sub   = bucket % SUB_BUCKETS;
+		return ((long)(SUB_BUCKETS + sub)) << (group - 1);
+	}
+
+	/** The largest value in the given bucket. */
+	private static long upperBound(int bucket) {
+		if (bucket == BUCKETS - 1) return Long.MAX_VALUE;
+		return lowerBound(bucket + 1) - 1;
+	}
+
+	public long getCount() { return count; }
+	public long getTotal() { return total; }
+	public long getMin()   { return count > 0 ? min : 0; }
+	public long getMax()   { return max; }
+	public long getMean()  { return count > 0 ? total / count : 0; }
+
+	/**
+	 * The value below or at which the given part of the recorded values
+	 * lie, with the part in units of 1/1000: 500 is the median, 999 is
+	 * the 99.9th percentile, 1000 the maximum.
+	 */
+	public long getValueAtPerMille(int per_mille) {
+		if (count == 0) return 0;
+		if (per_mille >= 1000) return max;
+
+		/* The rank of the value, rounded up, at least 1. */
+		long rank = (count * per_mille + 999) / 1000;
+		if (rank < 1) rank = 1;
+
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) { // @WCA loop <= BUCKETS
+			seen += counts[i];
+			if (seen >= rank) {
+				long bound = upperBound(i);
+				return bound < max ? bound : max;
+			}
+		}
+		return max;
+	}
+
+	/** Add the values recorded in another histogram to this one. */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) { // @WCA loop = BUCKETS
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		total += other.total;
+		if (other.count > 0 && other.min < min) min = other.min;
+		if (other.max > max) max = other.max;
+	}
+
+	/** Print one line per power of two that holds any values: the range,
+	 *  the count, and a bar scaled to the fullest line. */
+	public void dump(PrintStream out, String indent) {
+		int fullest = 0;
+		for (int g = 0; g < GROUPS; g++) {
+			int n = groupCount(g);
+			if (n > fullest) fullest = n;
+		}
+		for (int g = 0; g < GROUPS; g++) {
+			int n = groupCount(g);
+			if (n == 0) continue;
+
+			out.print(indent);
+			out.print("[");
+			out.print(lowerBound(g * SUB_BUCKETS));
+			out.print(", ");
+			out.print(upperBound(g * SUB_BUCKETS + SUB_BUCKETS - 1));
+			out.print("]\t");
+			out.print(n);
+			out.print("\t");
+			int bar = (int)((long)n * 40 / fullest);
+			for (int i = 0; i <= bar; i++) out.print('#');
+			out.println();
+		}
+	}
+
+	private int groupCount(int group) {
+		int n = 0;
+		for (int s = 0; s < SUB_BUCKETS; s++) {
+			n += counts[group * SUB_BUCKETS + s];
+		}
+		return n;
+	}
+
+	public String toString() {
+		return "min:\t" + getMin() + "\tp50:\t" + getValueAtPerMille(500)
+			+ "\tp99:\t" + getValueAtPerMille(990) + "\tp99.9:\t" + getValueAtPerMille(999)
+			+ "\tmax:\t" + max + "\tmean:\t" + getMean() + "\tn:\t" + count;
+	}
+}
@@ -0,0 +1,95 @@
+package debie.harness;
+
+import debie.support.Mailbox;
+import debie.support.RingMailbox;
+import debie.telecommand.TelemetryData;
+
+public class MailboxTest extends HarnessTest {
+
+	/* A mailbox number not used by the DEBIE tasks */
+	private static final byte TEST_MAILBOX = 2;
+	private static final int  TEST_DEPTH   = 4;
+
+	private final RingMailbox mailbox;
+	private final TelemetryData tmData;
+
+	public MailboxTest(HarnessSystem sys, TestLogger tl) {
+		super(sys, tl);
+		this.mailbox = new RingMailbox(TEST_MAILBOX, TEST_DEPTH, sys);
+		this.tmData = sys.getTelemetryData();
+	}
+
+	@Override
+	public void runTests() {
+
+		testBurst();
+		testOverflow();
+		testWrapAround();
+		
+		reportTestResults("MailboxTest");
+	}
+
+	private void testBurst() {
+		testcase("Ring mailbox, burst of messages is queued in order");
+
+		mailbox.flushMail();
+		tmData.clearMailDiagnostics();
+
+		for (int i = 0; i < TEST_DEPTH; i++) {
+			mailbox.sendISRMail((char)(100 + i));
+		}
+		checkEquals("mail count = depth", mailbox.getMailCount(), TEST_DEPTH);
+
+		for (int i = 0; i < TEST_DEPTH; i++) {
+			mailbox.waitMail();
+			checkEquals("wait result", mailbox.wait_result, Mailbox.MSG_RECEIVED);
+			checkEquals("message order", mailbox.message, 100 + i);
+		}
+		mailbox.waitMail();
+		checkEquals("empty mailbox times out", mailbox.wait_result, Mailbox.TIMEOUT_OCCURRED);
+
+		checkEquals("high-water mark", tmData.getMailHighWater(TEST_MAILBOX), TEST_DEPTH);
+		checkEquals("no overflows", tmData.getMailOverflows(TEST_MAILBOX), 0);
+	}
+
+	private void testOverflow() {
+		testcase("Ring mailbox, overflow is counted");
+
+		mailbox.flushMail();
+		tmData.clearMailDiagnostics();
+
+		for (int i = 0; i < TEST_DEPTH + 3; i++) {
+			mailbox.sendTaskMail((char)i, (byte)0);
+		}
+		checkEquals("mail count = depth", mailbox.getMailCount(), TEST_DEPTH);
+		checkEquals("overflows", tmData.getMailOverflows(TEST_MAILBOX), 3);
+
+		/* The oldest messages are kept */
+		mailbox.waitMail();
+		checkEquals("first message kept", mailbox.message, 0);
+
+		mailbox.flushMail();
+		checkEquals("flushed", mailbox.getMailCount(), 0);
+	}
+
+	private void testWrapAround() {
+		testcase("Ring mailbox, wrap around");
+
+		mailbox.flushMail();
+
+		/* Three in, three out: the positions wrap around the ring */
+		boolean ok = true;
+		int sent = 0, received = 0;
+		for (int i = 0; i < 5 * TEST_DEPTH; i++) {
+			for (int j = 0; j < 3; j++) {
+				mailbox.sendTaskMail((char)(sent++), (byte)0);
+			}
+			for (int j = 0; j < 3; j++) {
+				mailbox.waitMail();
+				if (mailbox.message != received++) ok = false;
+			}
+		}
+		checkTrue(ok);
+		checkEquals("mail count", mailbox.getMailCount(), 0);
+	}
+}
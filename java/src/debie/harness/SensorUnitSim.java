@@ -2,6 +2,7 @@ package debie.harness;
 
 import debie.particles.AcquisitionTask;
 import debie.particles.SensorUnit.SensorUnitState;
+import debie.support.DebieSystem;
 import debie.support.Dpu;
 import debie.target.SensorUnitDev;
 
@@ -31,9 +32,10 @@ public class SensorUnitSim extends SensorUnitDev {
 		sim_self_test = value;
 	}
 	
-	private HarnessSystem system;
+	private DebieSystem system;
 
-	public SensorUnitSim(HarnessSystem sys) {
+	public SensorUnitSim(DebieSystem sys) {
+		super(sys.getDpu());
 		this.system = sys;
 	}
 
@@ -50,14 +52,16 @@ public class SensorUnitSim extends SensorUnitDev {
 	 * SU Self Test sequences.
 	 */
 	{
+	   AcquisitionTask acqTask = system.getAcquisitionTask();
+
 	   if ((sim_self_test   == 1)
 	   &&  (hit_enabled     == 1)
 	   &&  (self_test_pulse >  0)
-	   &&  (system.acqTask.self_test_SU_number != NO_SU)
-	   &&  (system.acqTask.sensorUnitState[system.acqTask.self_test_SU_number  - AcquisitionTask.SU1] == SensorUnitState.self_test_trigger_e))
+	   &&  (acqTask.self_test_SU_number != NO_SU)
+	   &&  (acqTask.sensorUnitState[acqTask.self_test_SU_number  - AcquisitionTask.SU1] == SensorUnitState.self_test_trigger_e))
 	   {
 		   if(Harness.TRACE) Harness.trace("[SensorUnitSim] SU Self Test trigger!");
-		   system.acqTask.sensorUnitState[system.acqTask.self_test_SU_number - AcquisitionTask.SU1] = SensorUnitState.self_test_e;
+		   acqTask.sensorUnitState[acqTask.self_test_SU_number - AcquisitionTask.SU1] = SensorUnitState.self_test_e;
 	   }
 	}
 
@@ -66,7 +70,7 @@ public class SensorUnitSim extends SensorUnitDev {
 	RandomSim /* unsigned int */ rand = new RandomSim(0);
 
 
-	void randomEvent () /* Random_Event */
+	public void randomEvent () /* Random_Event */
 	/* Sets random data in the event sensors. */
 	{
 	   /* unsigned char */ int val;
@@ -85,7 +89,7 @@ public class SensorUnitSim extends SensorUnitDev {
 	}
 
 
-	void setTriggerSU(/* sensor_index_t */ int unit) /* Set_Trigger_SU  */
+	public void setTriggerSU(/* sensor_index_t */ int unit) /* Set_Trigger_SU  */
 	/* Sets the given SU in trigger_source_0/1. */
 	{
 		if(Harness.TRACE) Harness.trace(String.format("[SensorUnitSim] Set Trigger SU index %d", unit));
@@ -166,14 +170,14 @@ public class SensorUnitSim extends SensorUnitDev {
 		return event_flag;
 	}
 
-	void setEventFlag(int value) {
+	public void setEventFlag(int value) {
 		event_flag = value;
 	}
 
 	/** The number of consecutive error results to
 	 * be returned from the next calls of V_Down.
 	 */
-	int v_down_errors = 0;
+	public int v_down_errors = 0;
 
 	public int VDown () 
 	{
@@ -39,6 +39,15 @@ public class TcTmSim implements TcTmDev {
 		tm_msb = value;
 	}
 
+	@Override
+	public void writeTmBlock(byte[] src, int off, int len) {
+		if(Harness.TRACE) Harness.trace(String.format("[TcTmSim] Write_TM_Block %d octets", len));
+		for (int i = 0; i < len; i += 2) {
+			tm_msb = src[off+i]   & 0xff;
+			tm_lsb = src[off+i+1] & 0xff;
+		}
+	}
+
 	public void setTcRegs (/* unsigned char */ int address, /* unsigned char */ int code)
 	/* Invokes TC_InterruptService with a TC composed of the
 	 * given address and code, provided with valid (even) parity.
@@ -63,6 +72,11 @@ public class TcTmSim implements TcTmDev {
 
 		tc_word = (char)((tc_msb << 8) | tc_lsb);
 	}
+
+	/** The last TC word set in the TC interface registers. */
+	public int getTcWord() {
+		return tc_word;
+	}
 	
 	public void setTcRegsWord (/* uint_least16_t */ int word)
 	/* Invokes TC_InterruptService with the given TC word,
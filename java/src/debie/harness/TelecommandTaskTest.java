@@ -1,6 +1,8 @@
 package debie.harness;
 
 import static debie.harness.Harness.*;
+import debie.particles.ClassificationLimits;
+import debie.particles.EventRecord;
 import debie.target.TcTmDev;
 import debie.telecommand.TelemetryData;
 import debie.telecommand.TelecommandExecutionTask.TC_State;
@@ -173,6 +175,22 @@ public class TelecommandTaskTest extends HarnessTest {
 	    execTC(SET_SU_4_PLASMA_1I_PZT_MAX_TIME, 208, Prob4a);
 
 	    checkNoErrors();
+
+	    /* The classification limits follow the new settings: */
+
+	    ClassificationLimits limits = system.getTelemetryData().getClassificationLimits();
+
+	    checkEquals("SU 3 piezo 1 at level",
+	    		limits.getClassIndex(2, 0, 0, 33 * 256, 0, 0, 255, 0, 0),
+	    		EventRecord.PIEZO_1_CLASS);
+	    checkEquals("SU 3 piezo 1 below level",
+	    		limits.getClassIndex(2, 0, 0, 33 * 256 - 1, 0, 0, 255, 0, 0), 0);
+	    checkEquals("SU 4 plasma 1i to piezo window",
+	    		limits.getClassIndex(3, 0, 0, 0, 0, 0, 255, 0, 208 * 16),
+	    		EventRecord.PLASMA_1_MINUS_TO_PIEZO_CLASS);
+	    checkEquals("SU 1 plasma 1e to 1i max time",
+	    		limits.getClassIndex(0, 0, 0, 0, 0, 0, 191, 0, 0),
+	    		EventRecord.PLASMA_1_PLUS_TO_MINUS_CLASS);
 	}
 
 	private void testSetClassificationCoeffs() {
@@ -465,9 +483,9 @@ public class TelecommandTaskTest extends HarnessTest {
 		
 		/* Empty mailbox => WaitMail signals "time-out". */
 
-		if(Harness.INSTRUMENTATION) Harness.startProblem(Prob4a);
+		if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob4a);
 		tctmTask.handleTelecommand();
-		if(Harness.INSTRUMENTATION) Harness.endProblem(Prob4a);
+		if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob4a);
 		
 	    checkTcState(TC_State.TC_handling_e);
 		checkTcError();		
@@ -482,9 +500,9 @@ public class TelecommandTaskTest extends HarnessTest {
 
 		/* Empty mailbox => WaitMail signals "time-out". */
 
-		if(Harness.INSTRUMENTATION) Harness.startProblem(Prob4a);
+		if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.startProblem(Prob4a);
 		tctmTask.handleTelecommand();
-		if(Harness.INSTRUMENTATION) Harness.endProblem(Prob4a);
+		if(Harness.INSTRUMENTATION || Harness.hostTiming) Harness.endProblem(Prob4a);
 		
 	    checkTcState(TC_State.TC_handling_e);
 	    checkNoErrors();
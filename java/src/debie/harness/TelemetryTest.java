@@ -2,6 +2,7 @@ package debie.harness;
 
 import static debie.harness.Harness.*;
 import static debie.telecommand.TcAddress.*;
+import debie.telecommand.ScienceDataFile;
 import debie.telecommand.TelemetryData;
 import debie.telecommand.TelecommandExecutionTask.TC_State;
 
@@ -15,8 +16,10 @@ public class TelemetryTest extends HarnessTest {
 	public void runTests() {
 
 		testWholeRound();
+		testNextRound();
 		testPartial();
 		testScienceData();
+		testScienceDataBlock();
 		
 		reportTestResults("TelemetryTest");
 
@@ -54,6 +57,24 @@ public class TelemetryTest extends HarnessTest {
 		}
 	}
 
+	private void testNextRound() {
+		testcase("Register TM, next round from the first register");
+
+		/* Register TM of the previous case is still going on: */
+
+		checkTcState(TC_State.register_TM_e);
+
+		while (!tctmTask.telemetryIndexAtEnd()) {
+			tctmTask.tmInterruptService();
+		}
+
+		/* The next TM interrupt sends the first registers again: */
+
+		tctmTask.tmInterruptService();
+		checkTrue(tctmTask.telemetryIndexEquals(2));
+		checkTcState(TC_State.register_TM_e);
+	}
+
 	private void testPartial() {
 		testcase("Partial register TM, stop by TC");
 
@@ -128,5 +149,43 @@ public class TelemetryTest extends HarnessTest {
 
 		checkTcState(TC_State.TC_handling_e);
 	}
+
+	private void testScienceDataBlock() {
+		testcase("Science Data TM, block transfer");
+
+		sendTC (SEND_SCIENCE_DATA_FILE, SEND_SCIENCE_DATA_FILE);
+
+		checkNoErrors ();
+		checkTcState(TC_State.SC_TM_e);
+
+		handleTC (Prob4a);
+
+		checkTcState(TC_State.SC_TM_e);
+
+		/* Drain the rest of the dump at once, and compare with getByte: */
+
+		byte[] block = new byte[ScienceDataFile.sizeInBytes()];
+		int octets = tctmTask.drainTelemetry(block);
+
+		checkTrue(tctmTask.telemetryIndexAtEnd());
+		/* The first two octets were sent by the TC itself: */
+		ScienceDataFile science_data = tctmTask.getScienceTelemetryFile();
+		checkEquals("science TM length", octets + 2, 2 * science_data.getByte(0)
+		                                           + 512 * science_data.getByte(1));
+		boolean same = true;
+		for (int i = 0; i < octets; i++) {
+			if ((block[i] & 0xff) != science_data.getByte(i + 2)) same = false;
+		}
+		checkTrue(same);
+
+		/* The next TM interrupt ends the dump: */
+
+		tctmTask.tmInterruptService();
+		checkEquals("mail count", system.tctmMailbox.getMailCount(), 1);
+
+		handleTC (Prob4a);
+
+		checkTcState(TC_State.TC_handling_e);
+	}
 	
 }
@@ -0,0 +1,24 @@
+package debie.harness;
+
+/**
+ * Source of the time stamps taken by Harness.startProblem and
+ * Harness.endProblem. The unit is that of the source: processor cycles
+ * on JOP, nanoseconds for the host sources.
+ */
+public abstract class TimingSource {
+
+	/** Short name, for the measurement report */
+	public abstract String getName();
+
+	/** Unit of the readings, for the measurement report */
+	public abstract String getUnit();
+
+	/** The current reading */
+	public abstract long read();
+
+	/** The time between two readings; sources with a counter that wraps
+	 *  around must override this. */
+	public long elapsed(long start, long end) {
+		return end - start;
+	}
+}
@@ -6,6 +6,7 @@ import debie.particles.AcquisitionTask;
 import debie.particles.SensorUnit;
 import debie.particles.SensorUnitSettings;
 import debie.particles.SensorUnit.SensorUnitState;
+import debie.support.CodeMemory;
 import debie.support.DebieSystem;
 import debie.support.Dpu;
 import debie.support.KernelObjects;
@@ -149,15 +150,39 @@ public class HealthMonitoringTask implements Runnable {
 	 * measured. */
 	public static final int TEMP_COUNT = 5;
 
+	/** Select the code checksum engine. The word checksum folds eight
+	 * code bytes at a time (see CodeMemory.checksum), and checks larger
+	 * parts of the code memory per round, in a shorter cycle. */
+	public static final boolean WORD_CHECKSUM = true;
+
+	/** Select page checksums, with WORD_CHECKSUM: each page of code memory
+	 * is checked against its own reference checksum (see CodeMemory), and
+	 * patched or suspect pages are checked first. An error is found in
+	 * the round that checks its page, which is reported. */
+	public static final boolean PAGE_CHECKSUM = WORD_CHECKSUM;
+
 	/** Checksum loop count. */
-	public static final int CHECK_COUNT = 59;
+	public static final int CHECK_COUNT = WORD_CHECKSUM ? 11 : 59;
 
 	/** Maximum temperature (0xFA = 90 C and 0xF4 = 85C) for a Sensor Unit. */
 	private static final int MAX_TEMP_1 = 0xFA;
 	private static final int MAX_TEMP_2 = 0xF4;
 
-	/** Checksum is counted for code memory 547 bytes per check round. */
-	private static final int CHECK_SIZE = 547;
+	/** Checksum is counted for code memory 547 bytes per check round,
+	 * or 2816 bytes (11 pages, 352 words) with the word checksum. */
+	private static final int CHECK_SIZE = WORD_CHECKSUM ? 11 * CodeMemory.PAGE_SIZE : 547;
+
+	/** Pages per check round of the page checksum. */
+	private static final int CHECK_PAGES = CHECK_SIZE / CodeMemory.PAGE_SIZE;
+
+	/** Marked pages checked per round, before the others. */
+	private static final int MARKED_PAGE_CHECKS = 4;
+
+	/** Value of failed_code_page when no page has failed. */
+	public static final int NO_FAILED_PAGE = -1;
+
+	/** Words per check round of the word checksum. */
+	public static final int CHECK_WORDS = CHECK_SIZE / 8;
 
 	/** The last code memory address to be checked in function
 	 * 'CalculateChecksum'.                                   
@@ -168,7 +193,7 @@ public class HealthMonitoringTask implements Runnable {
 	private static final int CODE_MEMORY_END = 0x7FFF;
 
 	/** Limiting values used in function 'CalculateChecksum'. */
-	private static final int MAX_CHECKSUM_COUNT = 59;
+	private static final int MAX_CHECKSUM_COUNT = CHECK_COUNT;
 	private static final int MIN_CHECKSUM_COUNT = 0;
 
 	/* Ported SU_INDEX_t */
@@ -232,6 +257,11 @@ public class HealthMonitoringTask implements Runnable {
 	
 	private int code_checksum;
 
+	/* The last page found in error by the page checksum, and the number */
+	/* of pages found in error.                                          */
+	private int failed_code_page = NO_FAILED_PAGE;
+	private int code_page_failures;
+
 	private Time internal_time = new Time();
 
 	private DebieSystem system;
@@ -333,10 +363,10 @@ public class HealthMonitoringTask implements Runnable {
 	public void boot() {
 		
 		system.getSensorUnitDevice().SU_ctrl_register |= 0x0F;
-		Dpu.setDataByte(SU_CONTROL, (byte)system.getSensorUnitDevice().SU_ctrl_register);
+		system.getDpu().setDataByte(SU_CONTROL, (byte)system.getSensorUnitDevice().SU_ctrl_register);
 		/* Set all Peak detector reset signals to high */
 
-		HwIf.resetDelayCounters();
+		system.getHwIf().resetDelayCounters();
 		
 		TelecommandExecutionTask tctmTask = system.getTelecommandExecutionTask();
 
@@ -358,13 +388,13 @@ public class HealthMonitoringTask implements Runnable {
 		adcDev.setADCChannelRegister(adcDev.getADCChannelRegister() | 0x80);
 		adcDev.updateADCChannelReg(adcDev.getADCChannelRegister());
 		
-		ResetClass reset_class = Dpu.getResetClass();
+		ResetClass reset_class = system.getDpu().getResetClass();
 		
 		if (reset_class != ResetClass.warm_reset_e) {
 			/* We are running the PROM code unpatched, either   */
 			/* from PROM or from SRAM.                          */
 
-			Dpu.reference_checksum = Dpu.INITIAL_CHECKSUM_VALUE;
+			system.getDpu().reference_checksum = Dpu.INITIAL_CHECKSUM_VALUE;
 			/* 'reference_checksum' is used as a reference when */
 			/* the integrity of the code is checked by          */
 			/* HealthMonitoringTask. It is set to  its initial  */
@@ -447,7 +477,7 @@ public class HealthMonitoringTask implements Runnable {
 		/* Software version information is stored in the telemetry data. */
 		tmData.setSWVersion(Version.SW_VERSION);
 		
-		HwIf.signalMemoryErrors();
+		system.getHwIf().signalMemoryErrors();
 		/* Copy results of RAM tests to telemetry_data. */
 
 		SensorUnitDev suDev = system.getSensorUnitDevice();
@@ -1099,11 +1129,18 @@ public class HealthMonitoringTask implements Runnable {
 	 *
 	 *                  - if no anomalies have been encountered there will be no
 	 *                    changes and checksum loop starts from the beginning
-	 *                    i.e. on 'checksum_count' = 59, 'code_not_patched'
-	 *                    is set and 'code_checksum' is initialised.
+	 *                    i.e. on 'checksum_count' = MAX_CHECKSUM_COUNT,
+	 *                    'code_not_patched' is set and 'code_checksum' is
+	 *                    initialised.
+	 *
+	 * XXX: with WORD_CHECKSUM, the part is checked by Dpu.getCodeChecksum,
+	 *      eight bytes at a time; with PAGE_CHECKSUM, by checkCodePages.
 	 */
 	private void calculateChecksum(int checksum_count) 
 	{
+	   Dpu dpu = system.getDpu();
+	   /* The DPU whose code memory is checked. */
+
 	   int check_start;
 	   /* This variable is used for determining the start address of a given     */
 	   /* check.                                                                 */
@@ -1130,13 +1167,27 @@ public class HealthMonitoringTask implements Runnable {
 	     /* here at the beginning of a new cycle and checked at the end of     */
 	     /* each cycle against 'reference_checksum'.                           */
 
-	     Dpu.code_not_patched = 1;
+	     dpu.code_not_patched = 1;
 	     /* This global variable shows whether code is patched during a code   */
 	     /* memory checksum cycle. It is set here at the beginning of a new    */
 	     /* cycle and checked at the end of each cycle whether it has been     */
 	     /* cleared as an indication of an executed code patching.             */
 	   }
 
+	   if (PAGE_CHECKSUM) {
+
+	      checkCodePages(dpu, check_start / CodeMemory.PAGE_SIZE,
+	            check_end / CodeMemory.PAGE_SIZE);
+	      /* Errors are handled by page, instead of at the end of the cycle. */
+	      return;
+
+	   } else if (WORD_CHECKSUM) {
+
+	      code_checksum ^= dpu.getCodeChecksum(check_start, check_end);
+	      /* XOR is counted for the code memory words under check. */
+
+	   } else {
+
 	   for (int i = check_start; i <= check_end; i++) {
 		 // @WCA loop <= union(CHECK_SIZE, 1 + CODE_MEMORY_END - MAX_CHECKSUM_COUNT * CHECK_SIZE)
 	     /* It is assumed that 'CODE_MEMORY_END'  < 2^16 - 1 */
@@ -1144,23 +1195,25 @@ public class HealthMonitoringTask implements Runnable {
 	     /* larger than 'check_end' and this loop will never */
 	     /* stop.                                            */             
 
-	      code_checksum ^= Dpu.getCodeByte(i); 
+	      code_checksum ^= dpu.getCodeByte(i) & 0xff; 
 	      /* XOR is counted for code memory byte under check. */
 	   }
 
+	   }
+
 	   if (    (checksum_count == MIN_CHECKSUM_COUNT)
-	        && (code_checksum  != Dpu.reference_checksum)   )
+	        && (code_checksum  != dpu.reference_checksum)   )
 	   {
 	      /* Checksum mismatch due to a memory error or */
 	      /* code memory patch.                         */
 	 
-	      if (Dpu.code_not_patched != 0)
+	      if (dpu.code_not_patched != 0)
 	      {
 	         /* An anomaly has been detected in the code memory  */
 	         /* area. Code has not been patched during this code */
 	         /* memory checksum cycle.                           */
 
-	         Dpu.reboot (ResetClass.checksum_reset_e);
+	         dpu.reboot (ResetClass.checksum_reset_e);
 	         /* Soft reset is executed, as global variable       */
 	         /* 'code_not_patched' enables it. Note that         */
 	         /* Reboot() does not return here.                   */
@@ -1169,6 +1222,68 @@ public class HealthMonitoringTask implements Runnable {
 	   
 	}   
 	
+
+	/**
+	 * Purpose        : Checks pages of the code memory.
+	 * Interface      : inputs      - first_page, last_page: the pages of this
+	 *                                check round
+	 *                              - the marked pages and the page
+	 *                                reference checksums of code memory
+	 *                  outputs     - 'code_checksum' is modified.
+	 *                              - 'failed_code_page' and the failed code
+	 *                                address in telemetry, if a page is in
+	 *                                error
+	 *                  subroutines - Reboot()
+	 * Preconditions  : PAGE_CHECKSUM
+	 * Postconditions : The marked pages checked are no longer marked.
+	 * Algorithm      : - check up to MARKED_PAGE_CHECKS marked pages, such
+	 *                    as patched pages
+	 *                  - check the pages of the round, and add their
+	 *                    checksums to 'code_checksum'
+	 *                  - a page whose checksum is not its reference is in
+	 *                    error: it is reported, and Reboot() is called.
+	 */
+	private void checkCodePages(Dpu dpu, int first_page, int last_page)
+	{
+	   CodeMemory code = dpu.getCodeMemory();
+
+	   int page;
+	   int sum;
+
+	   for (int i = 0; i < MARKED_PAGE_CHECKS; i++) {
+	      page = code.nextMarkedPage();
+	      if (page < 0) break;
+
+	      if (code.pageChecksum(page) != code.getPageReference(page)) {
+	         codePageFailure(dpu, page);
+	      }
+	   }
+
+	   for (page = first_page; page <= last_page; page++) {
+	      // @WCA loop <= CHECK_PAGES
+	      sum = code.pageChecksum(page);
+	      code_checksum ^= sum;
+
+	      if (sum != code.getPageReference(page)) {
+	         codePageFailure(dpu, page);
+	      }
+	   }
+	}
+
+	/** A code page is in error: report it, accept its contents so that
+	 *  the error is not found (at once) again, and reboot. */
+	private void codePageFailure(Dpu dpu, int page)
+	{
+	   failed_code_page = page;
+	   code_page_failures++;
+
+	   tmData.setFailedCodeAddress((char)(page * CodeMemory.PAGE_SIZE));
+	   /* The first address of the page in error. */
+
+	   dpu.getCodeMemory().acceptPage(page);
+
+	   dpu.reboot(ResetClass.checksum_reset_e);
+	}
 	/**
 	 * Purpose        : One round of health monitoring for DEBIE.
 	 * Interface      : inputs      - telemetry_data
@@ -1257,6 +1372,8 @@ public class HealthMonitoringTask implements Runnable {
 	 *                     of 6 Health Monitoring loop cycles each lasting 10
 	 *                     secs. It is executed  partly on each Health Monitoring
 	 *                     round.
+	 *                     With WORD_CHECKSUM it lasts 12 secs, one check
+	 *                     round per Health Monitoring round.
 	 * 
 	 *    Illustration of the process:
 	 * <pre>
@@ -1296,7 +1413,7 @@ public class HealthMonitoringTask implements Runnable {
 	 */
 	private void monitor(int health_mon_round) {
 		calculateChecksum(checksum_count);
-		/* A 1/60th part of the memory checksum is calculated.                 */
+		/* A 1/(CHECK_COUNT+1)th part of the memory checksum is calculated.    */
 
 		checksum_count = updatePeriodCounter(checksum_count, CHECK_COUNT);
 		/* Decrease or reset checksum counter                                  */
@@ -1324,10 +1441,10 @@ public class HealthMonitoringTask implements Runnable {
 				/* Hit budget was exceeded during this ending Health Monitoring */
 				/* period.                                                      */
 
-				HwIf.resetPeakDetector(SU_1);
-				HwIf.resetPeakDetector(SU_2);
-				HwIf.resetPeakDetector(SU_3);
-				HwIf.resetPeakDetector(SU_4);
+				system.getHwIf().resetPeakDetector(SU_1);
+				system.getHwIf().resetPeakDetector(SU_2);
+				system.getHwIf().resetPeakDetector(SU_3);
+				system.getHwIf().resetPeakDetector(SU_4);
 				/* Reset all Peak detectors */
 
 				system.getTaskControl().waitTimeout(AcquisitionTask.COUNTER_RESET_MIN_DELAY);
@@ -1336,7 +1453,7 @@ public class HealthMonitoringTask implements Runnable {
 				/* Allows a later falling edge on T2EX to cause */
 				/* a Hit Trigger interrupt (i.e. to set EXF2).  */
 
-				HwIf.resetDelayCounters();
+				system.getHwIf().resetDelayCounters();
 				/* Resets the SU logic that generates Hit Triggers.    */
 				/* Brings T2EX to a high level, making a new falling   */
 				/* edge possible.                                      */
@@ -1898,17 +2015,17 @@ public class HealthMonitoringTask implements Runnable {
 
 			tc.waitTimeout(1);
 
-			HwIf.resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
+			system.getHwIf().resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
 
 			tc.waitTimeout(1);
 
-			HwIf.resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
+			system.getHwIf().resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
 
 			tc.waitTimeout(1);
 
 			tc.clearHitTriggerISRFlag();
 
-			HwIf.resetDelayCounters();
+			system.getHwIf().resetDelayCounters();
 
 			acqTask.sensorUnitState[self_test_SU_index] = SensorUnitState.self_test_trigger_e;
 			/* Enable hit trigger processing for this self test pulse. */
@@ -1974,17 +2091,17 @@ public class HealthMonitoringTask implements Runnable {
 
 			tc.waitTimeout(1);
 
-			HwIf.resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
+			system.getHwIf().resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
 
 			tc.waitTimeout(1);
 
-			HwIf.resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
+			system.getHwIf().resetPeakDetector(self_test_SU_index + AcquisitionTask.SU1);
 
 			tc.waitTimeout(1);
 
 			tc.clearHitTriggerISRFlag();
 
-			HwIf.resetDelayCounters();
+			system.getHwIf().resetDelayCounters();
 
 			acqTask.sensorUnitState[self_test_SU_index] = SensorUnitState.self_test_trigger_e;
 			/* Enable hit trigger processing for this self test pulse. */
@@ -2134,5 +2251,13 @@ public class HealthMonitoringTask implements Runnable {
 	public int getCodeChecksum() {
 		return code_checksum;
 	}
+
+	public int getFailedCodePage() {
+		return failed_code_page;
+	}
+
+	public int getCodePageFailures() {
+		return code_page_failures;
+	}
 	
 }
@@ -0,0 +1,176 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import static debie.harness.Harness.Prob6a;
+import static debie.health.HealthMonitoringTask.CHECK_COUNT;
+import static debie.health.HealthMonitoringTask.NO_FAILED_PAGE;
+
+import java.io.IOException;
+import java.util.Random;
+
+import debie.harness.HarnessSystem;
+import debie.harness.HarnessTest;
+import debie.harness.TestLogger;
+import debie.support.CodeMemory;
+import debie.support.Dpu;
+import debie.telecommand.TelemetryData;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Code memory checksum: the word checksum against a byte-by-byte XOR,
+ *  and the checksum cycle of the health monitoring on a code image read
+ *  from a class file, with a memory error found by its page, a code patch,
+ *  and an error in a page marked to be checked first. */
+public class CodeChecksumTest extends HarnessTest {
+
+	private static final int RANGES = 500;
+
+	public CodeChecksumTest(TestLogger tl) {
+		super(new HarnessSystem(), tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testWordChecksum();
+		testJopImage();
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+		system.getAdcSim().setADNominal();
+
+		testChecksumCycle();
+
+		reportTestResults("CodeChecksumTest");
+	}
+
+	private void testWordChecksum() {
+		testcase("Code checksum, words against bytes");
+
+		CodeMemory code = new CodeMemory(Dpu.CODE_MEMORY_SIZE);
+		byte[] image = new byte[Dpu.CODE_MEMORY_SIZE];
+		Random random = new Random(21);
+		random.nextBytes(image);
+		code.load(image, image.length);
+
+		checkZero(code.checksum(0, code.getSize() - 1));
+
+		int mismatches = 0;
+		for (int i = 0; i < code.getSize() - 1; i++) {
+			if (code.getByte(i) != image[i]) mismatches++;
+		}
+		for (int r = 0; r < RANGES; r++) {
+			int start = random.nextInt(code.getSize());
+			int end = start + random.nextInt(r < RANGES / 2 ? 20 : code.getSize() - start);
+			if (end >= code.getSize()) end = code.getSize() - 1;
+
+			int sum = 0;
+			for (int i = start; i <= end; i++) sum ^= code.getByte(i) & 0xff;
+			if (code.checksum(start, end) != sum) mismatches++;
+		}
+		checkZero(mismatches);
+	}
+
+	private void testJopImage() {
+		testcase("Code image, JOP image file words");
+
+		byte[] text = "// header\n1, 2,\n-1 , 305419896 // last\n".getBytes();
+		byte[] image = null;
+		try {
+			image = CodeImageFile.parseJop(text);
+		} catch (IOException e) {
+			failCheck(e.toString());
+			return;
+		}
+		checkEquals("bytes", image.length, 16);
+		checkEquals("word 0", image[3], 1);
+		checkEquals("word 1", image[7], 2);
+		checkEquals("word 2", image[8], -1);
+		checkEquals("word 3 msb", image[12], 0x12);
+		checkEquals("word 3 lsb", image[15], 0x78);
+	}
+
+	/** Run the health monitoring for a full checksum cycle, from its start */
+	private void checksumCycle() {
+		hmTask.setChecksumCount(CHECK_COUNT);
+		for (int sec = 0; sec <= CHECK_COUNT; sec++) {
+			monitorHealth(Prob6a);
+		}
+	}
+
+	private void testChecksumCycle() {
+		testcase("Code checksum cycle, class file image, error and patch");
+
+		Dpu dpu = system.getDpu();
+		byte[] image;
+		try {
+			image = CodeImageFile.readClass(Dpu.class);
+		} catch (IOException e) {
+			failCheck(e.toString());
+			return;
+		}
+		dpu.loadCodeImage(image, image.length);
+		checkTrue(image.length > 1000);
+		checkEquals("image", dpu.getCodeByte(0) & 0xff, 0xCA);
+		checkZero(dpu.getCodeChecksum(0, Dpu.CODE_MEMORY_SIZE - 1));
+
+		/* The image checks out: */
+		checksumCycle();
+		checkEquals("cycle", hmTask.getChecksumCount(), CHECK_COUNT);
+		checkZero(hmTask.getCodeChecksum());
+		checkEquals("no failed page", hmTask.getFailedCodePage(), NO_FAILED_PAGE);
+
+		/* A memory error is found in the round that checks its page, which
+		 * is reported, and not found again: */
+		CodeMemory code = dpu.getCodeMemory();
+		int page = 0x1234 / CodeMemory.PAGE_SIZE;
+		dpu.setCodeByte(0x1234, (byte)(dpu.getCodeByte(0x1234) ^ 0x10));
+		checkEquals("page before error", code.getPageReference(page) ^ 0x10, code.pageChecksum(page));
+		hmTask.setChecksumCount(2);
+		/* The rounds count down; round 1 checks pages 11 .. 21. */
+		monitorHealth(Prob6a);
+		checkEquals("not checked yet", hmTask.getFailedCodePage(), NO_FAILED_PAGE);
+		monitorHealth(Prob6a);
+		checkEquals("failed page", hmTask.getFailedCodePage(), page);
+		checkEquals("failed code address", failedCodeAddress(), page * CodeMemory.PAGE_SIZE);
+		checkEquals("page accepted", code.getPageReference(page), code.pageChecksum(page));
+		checksumCycle();
+		checkEquals("failures", hmTask.getCodePageFailures(), 1);
+		checkEquals("error in cycle", hmTask.getCodeChecksum(), 0x10);
+
+		/* A code patch changes the reference checksum of its page, which
+		 * is checked first: */
+		int chsum = sendPatchCode(0x1100);
+		sendTCWord(0x0000 | chsum);
+		handleTC(Prob4a);
+		checkNoErrors();
+		checkTcState(TC_State.TC_handling_e);
+		checkEquals("patched", dpu.getCodeByte(0x1100 + 8) & 0xff, 0x01);
+		checkTrue(code.isMarked(0x1100 / CodeMemory.PAGE_SIZE));
+
+		int patched_page = 0x1100 / CodeMemory.PAGE_SIZE;
+		checkEquals("reference after patch", code.getPageReference(patched_page),
+				code.pageChecksum(patched_page));
+		monitorHealth(Prob6a);
+		checkTrue(!code.isMarked(patched_page));
+		checksumCycle();
+		checkEquals("failures after patch", hmTask.getCodePageFailures(), 1);
+		checkEquals("checksum after patch", hmTask.getCodeChecksum(),
+				dpu.getCodeChecksum(0, Dpu.CODE_MEMORY_SIZE - 1));
+
+		/* An error in a marked page is found in the next round, wherever
+		 * the cycle is: */
+		int suspect = 0x7E00 / CodeMemory.PAGE_SIZE;
+		dpu.setCodeByte(0x7E05, (byte)(dpu.getCodeByte(0x7E05) ^ 0x01));
+		code.markPage(suspect);
+		hmTask.setChecksumCount(1);
+		/* Round 1 does not check the page. */
+		monitorHealth(Prob6a);
+		checkEquals("marked page", hmTask.getFailedCodePage(), suspect);
+		checkEquals("failures after mark", hmTask.getCodePageFailures(), 2);
+	}
+
+	private int failedCodeAddress() {
+		TelemetryData tmData = system.getTelemetryData();
+		return (tmData.getByte(95) << 8) | tmData.getByte(94);
+	}
+}
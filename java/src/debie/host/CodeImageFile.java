@@ -0,0 +1,90 @@
+package debie.host;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import debie.support.Dpu;
+
+/**
+ * Reads a code image for the code memory of a Dpu (see Dpu.loadCodeImage)
+ * from the built program: a class file, or any other file, is taken as
+ * is; a JOP image file (.jop) is the text list of its 32-bit words, in
+ * decimal and separated by commas or white space, with // comments, and
+ * is taken as the bytes of the words, most significant first.
+ * <p>
+ * Only the host reads files; the JOP target keeps the code memory of the
+ * Dpu as loaded here.
+ */
+public class CodeImageFile {
+
+	private CodeImageFile() {
+	}
+
+	/** The code image in the file at the given path */
+	public static byte[] read(String path) throws IOException {
+
+		byte[] bytes = Files.readAllBytes(Paths.get(path));
+		return path.endsWith(".jop") ? parseJop(bytes) : bytes;
+	}
+
+	/** The code image of a class file found by the class loader of the
+	 *  given class, such as the class itself */
+	public static byte[] readClass(Class<?> cls) throws IOException {
+
+		String name = cls.getName();
+		String resource = name.substring(name.lastIndexOf('.') + 1) + ".class";
+
+		InputStream in = cls.getResourceAsStream(resource);
+		if (in == null) throw new IOException("no class file for " + name);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int n; (n = in.read(buffer)) > 0; ) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Load the code image in the file at the given path into the code
+	 *  memory of the Dpu; returns the bytes of the image. */
+	public static int load(Dpu dpu, String path) throws IOException {
+
+		byte[] image = read(path);
+		dpu.loadCodeImage(image, image.length);
+		return image.length;
+	}
+
+	/** The words of a JOP image file, as bytes */
+	static byte[] parseJop(byte[] text) throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] lines = new String(text, StandardCharsets.US_ASCII).split("\n");
+
+		for (String line : lines) {
+			int comment = line.indexOf("//");
+			if (comment >= 0) line = line.substring(0, comment);
+
+			for (String token : line.split("[,\\s]+")) {
+				if (token.isEmpty()) continue;
+				int word;
+				try {
+					word = (int)Long.parseLong(token);
+				} catch (NumberFormatException e) {
+					throw new IOException("not a JOP image word: " + token);
+				}
+				out.write(word >>> 24);
+				out.write(word >>> 16);
+				out.write(word >>> 8);
+				out.write(word);
+			}
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,221 @@
+package debie.host;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+import debie.support.Mailbox;
+
+/**
+ * Mailbox for running the DEBIE tasks as real threads on a JVM host.
+ * <p>
+ * Any number of threads (tasks or simulated ISRs) may send; one thread,
+ * the task owning the mailbox, receives. The public result fields of
+ * {@link Mailbox} ({@code message}, {@code wait_result},
+ * {@code execution_result}) are written by {@link #waitMail()} and must
+ * only be read by the receiving thread.
+ * <p>
+ * Sending is wait-free: a sender reserves room with one atomic add,
+ * takes a ticket with another, stores the message in the ticket's slot
+ * and publishes the ticket number for that slot. The receiver takes
+ * messages in ticket order. If the receiver is blocked, it is woken
+ * with {@code LockSupport.unpark}. Nothing is allocated after
+ * construction.
+ * <p>
+ * {@link #waitMail()} parks the receiving thread until a message
+ * arrives or {@code timeout} kernel ticks have passed.
+ * A timeout of 0 means wait forever, as in the RTX-51 kernel.
+ */
+public class ConcurrentMailbox extends Mailbox {
+
+	/** Default length of a kernel tick: 1 ms */
+	public static final long DEFAULT_TICK_NANOS = 1000000L;
+
+	/** Default number of queued messages */
+	public static final int DEFAULT_DEPTH = 8;
+
+	private final char[] ring;
+	private final long[] stamps;
+	private final int mask;
+
+	/* published[slot] == ticket + 1 once the message with that ticket
+	 * has been stored in ring[slot] */
+	private final AtomicIntegerArray published;
+
+	/* next ticket to hand out to a sender */
+	private final AtomicInteger tail = new AtomicInteger();
+
+	/* messages reserved by senders and not yet received */
+	private final AtomicInteger count = new AtomicInteger();
+
+	/* next ticket to receive; only used by the receiver */
+	private int head;
+
+	private volatile Thread waiter;
+
+	private final AtomicInteger overflows = new AtomicInteger();
+
+	/* Benign race: concurrent senders may miss a maximum by one */
+	private volatile int high_water;
+
+	private final long tick_nanos;
+
+	/* Stamp of the last received message */
+	private long stamp;
+
+	/** depth is rounded up to a power of two */
+	public ConcurrentMailbox(byte mailbox_number, int depth, long tick_nanos) {
+		super(mailbox_number);
+		int size = 1;
+		while (size < depth) size <<= 1;
+		this.ring = new char[size];
+		this.stamps = new long[size];
+		this.mask = size - 1;
+		this.published = new AtomicIntegerArray(size);
+		this.tick_nanos = tick_nanos;
+	}
+
+	public ConcurrentMailbox(byte mailbox_number) {
+		this(mailbox_number, DEFAULT_DEPTH, DEFAULT_TICK_NANOS);
+	}
+
+	/** Purpose        : Send mail to this mailbox, from any thread.
+	 *  Interface      : input:   - message, timeout (ignored, sending never blocks)
+	 *  Preconditions  : none
+	 *  Postconditions : Mail is queued, or counted as overflow if the
+	 *                   mailbox is full.
+	 *  Algorithm      : - reserve room; if there is none, count overflow
+	 *                   - take a ticket, store the message in its slot,
+	 *                     publish the ticket and wake the receiver */
+	@Override
+	public void sendTaskMail(char message, byte timeout) {
+		
+		offer(message);
+	}
+
+	/** As sendTaskMail, but returns false if the message was dropped
+	 *  because the mailbox is full. */
+	public boolean offer(char message) {
+		
+		return offer(message, 0L);
+	}
+
+	/** As offer(message), and attach a stamp to the message, which the
+	 *  receiver gets from getStamp() (e.g. the time of the event that
+	 *  caused the message). */
+	public boolean offer(char message, long stamp) {
+		
+		int reserved = count.getAndIncrement();
+		if (reserved >= ring.length) {
+			count.getAndDecrement();
+			overflows.getAndIncrement();
+			return false;
+		}
+		if (reserved + 1 > high_water) high_water = reserved + 1;
+
+		int ticket = tail.getAndIncrement();
+		ring[ticket & mask] = message;
+		stamps[ticket & mask] = stamp;
+		published.set(ticket & mask, ticket + 1);
+
+		Thread w = waiter;
+		if (w != null) LockSupport.unpark(w);
+		return true;
+	}
+
+	@Override
+	public void sendISRMail(char message) {
+		
+		sendTaskMail(message, (byte)0);
+	}
+
+	/** Purpose        : Mail is waited from this mailbox (receiver thread only).
+	 *  Interface      : Result is stored in message, wait_result and
+	 *                   execution_result.
+	 *  Preconditions  : timeout is set (0 = wait forever)
+	 *  Postconditions : The oldest message is received, or timeout has
+	 *                   occurred.
+	 *  Algorithm      : - if the message at head is not yet published,
+	 *                     park until it is, or until the timeout expires
+	 *                   - take message at head and advance head */
+	@Override
+	public void waitMail() {
+		
+		int slot = head & mask;
+
+		if (!available(slot)) {
+			long deadline = System.nanoTime() + timeout * tick_nanos;
+			waiter = Thread.currentThread();
+			while (!available(slot)) {
+				if (timeout == 0) {
+					LockSupport.park(this);
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) break;
+					LockSupport.parkNanos(this, remaining);
+				}
+				if (Thread.interrupted()) {
+					/* Keep the interrupt for the caller, as in HostKernel */
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			waiter = null;
+		}
+
+		if (available(slot)) {
+			message = ring[slot];
+			stamp = stamps[slot];
+			head++;
+			count.getAndDecrement();
+			wait_result = MSG_RECEIVED;
+			execution_result = MSG_RECEIVED;
+		} else {
+			wait_result = TIMEOUT_OCCURRED;
+			execution_result = TIMEOUT_OCCURRED;
+			message = 0;
+		}
+	}
+
+	private boolean available(int slot) {
+		
+		return published.get(slot) == head + 1;
+	}
+
+	/** Discard all published messages (receiver thread only). */
+	public void flushMail() {
+		
+		while (available(head & mask)) {
+			head++;
+			count.getAndDecrement();
+		}
+	}
+
+	/** Number of messages sent and not yet received */
+	public int getMailCount() {
+		
+		int c = count.get();
+		return c < ring.length ? c : ring.length;
+	}
+
+	public int getDepth() {
+		
+		return ring.length;
+	}
+
+	/** Stamp of the last received message (receiver thread only) */
+	public long getStamp() {
+		
+		return stamp;
+	}
+
+	public int getOverflows() {
+		
+		return overflows.get();
+	}
+
+	public int getHighWater() {
+		
+		return high_water;
+	}
+}
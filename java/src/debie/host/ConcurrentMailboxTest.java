@@ -0,0 +1,126 @@
+package debie.host;
+
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.support.Mailbox;
+
+public class ConcurrentMailboxTest extends TestSuite {
+
+	private static final byte TEST_MAILBOX = 2;
+	private static final int  SENDERS      = 3;
+	private static final int  MESSAGES     = 20000;
+
+	public ConcurrentMailboxTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testTimeout();
+		testInterrupt();
+		testWakeUp();
+		testSenders();
+
+		reportTestResults("ConcurrentMailboxTest");
+	}
+
+	private void testTimeout() {
+		testcase("Concurrent mailbox, wait times out on empty mailbox");
+
+		ConcurrentMailbox mailbox = new ConcurrentMailbox(TEST_MAILBOX, 4, ConcurrentMailbox.DEFAULT_TICK_NANOS);
+
+		mailbox.setTimeout(5);
+		long start = System.nanoTime();
+		mailbox.waitMail();
+		long elapsed = System.nanoTime() - start;
+
+		checkEquals("timeout occurred", mailbox.execution_result, Mailbox.TIMEOUT_OCCURRED);
+		checkTrue(elapsed >= 5 * ConcurrentMailbox.DEFAULT_TICK_NANOS);
+	}
+
+	private void testInterrupt() {
+		testcase("Concurrent mailbox, an interrupted wait keeps the interrupt");
+
+		ConcurrentMailbox mailbox = new ConcurrentMailbox(TEST_MAILBOX);
+
+		mailbox.setTimeout(0); /* wait forever */
+		Thread.currentThread().interrupt();
+		mailbox.waitMail();
+
+		checkEquals("no message", mailbox.execution_result, Mailbox.TIMEOUT_OCCURRED);
+		checkTrue(Thread.interrupted());
+	}
+
+	private void testWakeUp() {
+		testcase("Concurrent mailbox, blocked receiver is woken by sender");
+
+		final ConcurrentMailbox mailbox = new ConcurrentMailbox(TEST_MAILBOX);
+
+		Thread sender = new Thread() {
+			public void run() {
+				try { Thread.sleep(20); } catch (InterruptedException e) { }
+				mailbox.sendISRMail((char)42);
+			}
+		};
+		sender.start();
+
+		mailbox.setTimeout(0); /* wait forever */
+		mailbox.waitMail();
+
+		checkEquals("message received", mailbox.execution_result, Mailbox.MSG_RECEIVED);
+		checkEquals("message", mailbox.message, 42);
+		join(sender);
+	}
+
+	private void testSenders() {
+		testcase("Concurrent mailbox, several senders, one receiver");
+
+		final ConcurrentMailbox mailbox = new ConcurrentMailbox(TEST_MAILBOX, 16, ConcurrentMailbox.DEFAULT_TICK_NANOS);
+		Thread[] senders = new Thread[SENDERS];
+
+		/* message = sender number in the top bits, sequence number below;
+		 * a sender retries when the mailbox is full */
+		for (int s = 0; s < SENDERS; s++) {
+			final int id = s;
+			senders[s] = new Thread() {
+				public void run() {
+					for (int i = 0; i < MESSAGES; i++) {
+						while (!mailbox.offer((char)((id << 14) | (i & 0x3fff)))) {
+							Thread.yield();
+						}
+					}
+				}
+			};
+			senders[s].start();
+		}
+
+		int[] next = new int[SENDERS];
+		boolean in_order = true;
+		int received = 0;
+
+		mailbox.setTimeout(1000);
+		while (received < SENDERS * MESSAGES) {
+			mailbox.waitMail();
+			if (mailbox.execution_result != Mailbox.MSG_RECEIVED) break;
+			int id = mailbox.message >> 14;
+			if ((mailbox.message & 0x3fff) != (next[id] & 0x3fff)) in_order = false;
+			next[id]++;
+			received++;
+		}
+		for (int s = 0; s < SENDERS; s++) join(senders[s]);
+
+		checkEquals("all messages received", received, SENDERS * MESSAGES);
+		checkTrue(in_order);
+		checkEquals("mailbox empty", mailbox.getMailCount(), 0);
+		checkTrue(mailbox.getHighWater() <= mailbox.getDepth());
+	}
+
+	private static void join(Thread t) {
+		try {
+			t.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package debie.host;
+
+import java.util.Random;
+
+import debie.bench.ReclassificationBenchmark;
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.particles.EventBatch;
+import debie.particles.EventRecord;
+import debie.particles.SensorUnit.SensorUnitState;
+import debie.particles.SensorUnitSettings;
+import debie.telecommand.TelemetryData;
+
+import static debie.target.SensorUnitDev.NUM_SU;
+import static debie.telecommand.TelecommandExecutionTask.NUM_QCOEFF;
+
+/** Batch reclassification gives the same classes and quality numbers as
+ *  EventRecord.classify. */
+public class EventBatchTest extends TestSuite {
+
+	private static final int EVENTS = 20000;
+	private static final int SETTINGS = 20;
+
+	private final Random random = new Random(13);
+
+	public EventBatchTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testDefaultSettings();
+		testRandomSettings();
+		testSelfTest();
+		testInvalidRecords();
+
+		reportTestResults("EventBatchTest");
+	}
+
+	private void randomSettings(TelemetryData tmData) {
+		for (int su = 0; su < NUM_SU; su++) {
+			SensorUnitSettings settings = tmData.getSuConfig(su);
+			settings.plasma_1_plus_classification  = random.nextInt(256);
+			settings.plasma_1_minus_classification = random.nextInt(256);
+			settings.piezo_1_classification        = random.nextInt(256);
+			settings.piezo_2_classification        = random.nextInt(256);
+			settings.plasma_2_plus_classification  = random.nextInt(256);
+			settings.plasma_1_plus_to_minus_max_time  = random.nextInt(256);
+			settings.plasma_1_plus_to_piezo_min_time  = random.nextInt(256);
+			settings.plasma_1_plus_to_piezo_max_time  = random.nextInt(256);
+			settings.plasma_1_minus_to_piezo_min_time = random.nextInt(256);
+			settings.plasma_1_minus_to_piezo_max_time = random.nextInt(256);
+		}
+		tmData.updateClassificationLimits();
+		for (int i = 0; i < NUM_QCOEFF; i++) {
+			tmData.setCoefficient(i, random.nextInt(256));
+		}
+	}
+
+	/** Number of records where the batch and EventRecord.classify differ */
+	private int compare(HarnessSystem system, byte[] packed, int count, boolean[] self_test) {
+		TelemetryData tmData = system.getTelemetryData();
+		EventRecord event = new EventRecord(system);
+		EventBatch batch = new EventBatch(count);
+
+		for (int i = 0; i < count; i++) {
+			batch.add(packed, i * EventRecord.SIZE_IN_BYTES);
+		}
+		batch.classify(tmData.getClassificationLimits(), tmData.getQualityTable(), self_test);
+
+		int mismatches = 0;
+		for (int i = 0; i < count; i++) {
+			event.unpack(packed, i * EventRecord.SIZE_IN_BYTES);
+			event.classify();
+			if (event.getClassification() != batch.classification[i]
+					|| event.getQualityNumber() != batch.quality_number[i]) {
+				mismatches++;
+			}
+		}
+		return mismatches;
+	}
+
+	private void testDefaultSettings() {
+		testcase("Batch classification, default settings");
+
+		HarnessSystem system = new HarnessSystem();
+		system.getTelemetryData().init();
+		checkZero(compare(system, ReclassificationBenchmark.randomEvents(random, EVENTS), EVENTS, null));
+	}
+
+	private void testRandomSettings() {
+		testcase("Batch classification, random levels, windows and coefficients");
+
+		HarnessSystem system = new HarnessSystem();
+		byte[] packed = ReclassificationBenchmark.randomEvents(random, EVENTS);
+		int mismatches = 0;
+
+		for (int n = 0; n < SETTINGS; n++) {
+			randomSettings(system.getTelemetryData());
+			mismatches += compare(system, packed, EVENTS, null);
+		}
+		checkZero(mismatches);
+	}
+
+	private void testSelfTest() {
+		testcase("Batch classification, Sensor Unit in self test");
+
+		HarnessSystem system = new HarnessSystem();
+		system.getTelemetryData().init();
+		system.getAcquisitionTask().sensorUnitState[2] = SensorUnitState.self_test_e;
+		boolean[] self_test = { false, false, true, false };
+
+		checkZero(compare(system, ReclassificationBenchmark.randomEvents(random, EVENTS), EVENTS, self_test));
+	}
+
+	private void testInvalidRecords() {
+		testcase("Batch, records from invalid Sensor Units and overflow");
+
+		byte[] packed = ReclassificationBenchmark.randomEvents(random, 3);
+		packed[EventRecord.SIZE_IN_BYTES + 2] = 0;
+		packed[2 * EventRecord.SIZE_IN_BYTES + 2] = 5;
+
+		EventBatch batch = new EventBatch(1);
+		checkTrue(batch.add(packed, 0));
+		checkFalse(batch.add(packed, 0));
+
+		batch.clear();
+		checkFalse(batch.add(packed, EventRecord.SIZE_IN_BYTES));
+		checkFalse(batch.add(packed, 2 * EventRecord.SIZE_IN_BYTES));
+		checkZero(batch.size());
+	}
+}
@@ -0,0 +1,122 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import static debie.telecommand.TcAddress.*;
+import static debie.telecommand.TelecommandExecutionTask.MAX_EVENT_QUEUE_SIZE;
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.particles.EventRecord;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.TelemetryData;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Event queue during Science Telemetry of the live Science Data memory:
+ *  a ring of configurable size, whose events are stored in order when the
+ *  telemetry ends, and whose overflow drops events and is reported to
+ *  telemetry data. */
+public class EventQueueTest extends ScienceTmTest {
+
+	private static final int QUEUE_SIZE = 50;
+
+
+	public EventQueueTest(TestLogger tl) {
+		this(tl, ScienceDataFile.PACKED_LAYOUT);
+	}
+
+	public EventQueueTest(TestLogger tl, boolean packed_layout) {
+		super(new HarnessSystem(QUEUE_SIZE, packed_layout), tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+
+		checkEquals("queue size", tctmTask.getEventQueueSize(), QUEUE_SIZE);
+		checkEquals("limited queue size",
+				new HarnessSystem(MAX_EVENT_QUEUE_SIZE + 1).getTelecommandExecutionTask().getEventQueueSize(),
+				MAX_EVENT_QUEUE_SIZE);
+
+		testOverflow();
+		testWrapAround();
+
+		reportScienceResults("EventQueueTest");
+	}
+
+	/** Record an event, of a quality number that varies with its hit time */
+	private void recordEvent() {
+		recordEvent(1 + (hit_time + 1) % 200);
+	}
+
+	/** Start a delta telemetry, during which events are queued */
+	private void startDelta() {
+		sendTC(SEND_SCIENCE_DATA_DELTA, SEND_SCIENCE_DATA_DELTA);
+		checkNoErrors();
+		checkTcState(TC_State.SC_TM_e);
+		handleTC(Prob4a);
+		tctmTask.drainTelemetry(block);
+		checkTrue(tctmTask.telemetryIndexAtEnd());
+	}
+
+	/** Queue events during a delta telemetry; checks that the first
+	 *  stored events are stored in order when the telemetry ends. */
+	private void queueEvents(int events) {
+		int first_slot = tctmTask.getFreeSlotIndex();
+		int first_time = hit_time + 1;
+		int stored = events < QUEUE_SIZE ? events : QUEUE_SIZE;
+
+		startDelta();
+		for (int i = 0; i < events; i++) recordEvent();
+		checkEquals("queued", tctmTask.getEventQueueLength(), stored);
+		checkEquals("not stored yet", tctmTask.getFreeSlotIndex(), first_slot);
+
+		/* An event being collected when the telemetry ends is kept: */
+		EventRecord free = tctmTask.getFreeRecord();
+		endScienceTm();
+		checkZero(tctmTask.getEventQueueLength());
+		checkTrue(tctmTask.getFreeRecord() == free);
+
+		checkEquals("stored", tctmTask.getFreeSlotIndex(), first_slot + stored);
+		ScienceDataFile science_data = tctmTask.science_data;
+		int mismatches = 0;
+		for (int i = 0; i < stored; i++) {
+			if (science_data.getHitTime(first_slot + i) != first_time + i) mismatches++;
+		}
+		checkZero(mismatches);
+	}
+
+	private void testOverflow() {
+		testcase("Event queue, more events than its size during Science TM");
+
+		TelemetryData tmData = system.getTelemetryData();
+		tmData.clearEventQueueDiagnostics();
+
+		for (int i = 0; i < 3; i++) recordEvent();
+		checkZero(tctmTask.getEventQueueLength());
+		checkZero(tmData.getEventQueueHighWater());
+
+		queueEvents(QUEUE_SIZE + 10);
+		checkEquals("drops", tmData.getEventQueueDrops(), 10);
+		checkEquals("high-water mark", tmData.getEventQueueHighWater(), QUEUE_SIZE);
+	}
+
+	private void testWrapAround() {
+		testcase("Event queue, queued events wrap around the ring");
+
+		TelemetryData tmData = system.getTelemetryData();
+		tmData.clearEventQueueDiagnostics();
+
+		queueEvents(QUEUE_SIZE / 2 + 5);
+		queueEvents(QUEUE_SIZE - 1);
+		checkZero(tmData.getEventQueueDrops());
+		checkEquals("high-water mark", tmData.getEventQueueHighWater(), QUEUE_SIZE - 1);
+
+		/* Events are stored directly again: */
+		int slot = tctmTask.getFreeSlotIndex();
+		recordEvent();
+		checkZero(tctmTask.getEventQueueLength());
+		checkEquals("stored", tctmTask.getFreeSlotIndex(), slot + 1);
+		checkEquals("hit time", tctmTask.science_data.getHitTime(slot), hit_time);
+	}
+}
@@ -0,0 +1,124 @@
+package debie.host;
+
+import static debie.health.HealthMonitoringTask.CHECK_COUNT;
+
+import java.util.Random;
+
+import debie.harness.HarnessSystem;
+import debie.harness.LatencyHistogram;
+import debie.health.HealthMonitoringTask;
+import debie.support.CodeMemory;
+import debie.support.Dpu;
+
+/**
+ * One fault injection campaign: a HarnessSystem, loaded with a code image,
+ * whose code or data memory gets a single bit flipped (a memory upset)
+ * while the Health Monitoring task runs, and which then runs until the
+ * code checksum finds the error, or for the given number of rounds.
+ * <p>
+ * The memory, address, bit, and the round in the checksum cycle at which
+ * the bit is flipped are chosen at random from the campaign id, so a
+ * campaign gives the same results however many others run with it. Only
+ * the code memory is checked periodically; an upset of the data memory
+ * is not detected (the RAM test runs at boot).
+ * <p>
+ * The detection latency is counted in Health Monitoring rounds, from the
+ * flip to the round that finds it, and in the wall time of those rounds,
+ * which run calculateChecksum.
+ */
+public class FaultCampaign {
+
+	/** Rounds of a checksum cycle */
+	public static final int CYCLE_ROUNDS = CHECK_COUNT + 1;
+
+	private final int id;
+	private final HarnessSystem system;
+	private final Random random;
+
+	private final LatencyHistogram round_nanos = new LatencyHistogram();
+
+	private boolean code_fault;
+	private int address;
+	private int bit;
+
+	private boolean detected;
+	private int detection_rounds;
+	private long detection_nanos;
+	private int failed_page = HealthMonitoringTask.NO_FAILED_PAGE;
+
+	/** image: the loaded code image, shared with the campaign, which
+	 *  copies the page it flips a bit in */
+	public FaultCampaign(int id, CodeMemory image) {
+		this.id = id;
+		this.system = new HarnessSystem();
+		this.random = new Random(id);
+
+		system.getDpu().shareCodeImage(image);
+		system.getAdcSim().setADNominal();
+	}
+
+	/**
+	 * Boot, run the health monitoring up to a random round of the checksum
+	 * cycle, flip a bit, and run up to max_rounds rounds until the code
+	 * checksum reports an error.
+	 */
+	public void run(int max_rounds) {
+
+		HealthMonitoringTask hmTask = system.getHealthMonitoringTask();
+		Dpu dpu = system.getDpu();
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+
+		int warm_up = random.nextInt(CYCLE_ROUNDS);
+		for (int r = 0; r < warm_up; r++) {
+			monitorHealth();
+		}
+
+		code_fault = random.nextBoolean();
+		bit = random.nextInt(8);
+		if (code_fault) {
+			address = random.nextInt(Dpu.CODE_MEMORY_SIZE);
+			dpu.setCodeByte(address, (byte)(dpu.getCodeByte(address) ^ (1 << bit)));
+		} else {
+			address = random.nextInt(Dpu.DATA_MEMORY_SIZE);
+			dpu.setDataByte(address, (byte)(dpu.getDataByte(address) ^ (1 << bit)));
+		}
+
+		int failures = hmTask.getCodePageFailures();
+		for (int r = 1; r <= max_rounds && !detected; r++) {
+			detection_nanos += monitorHealth();
+			if (hmTask.getCodePageFailures() != failures) {
+				detected = true;
+				detection_rounds = r;
+				failed_page = hmTask.getFailedCodePage();
+			}
+		}
+	}
+
+	/** One Health Monitoring round; returns its wall time */
+	private long monitorHealth() {
+		long start = System.nanoTime();
+		system.getHealthMonitoringTask().handleHealthMonitor();
+		long nanos = System.nanoTime() - start;
+
+		round_nanos.record(nanos);
+		return nanos;
+	}
+
+	/** The page of the flipped bit, for a code fault */
+	public int getPage() {
+		return address / CodeMemory.PAGE_SIZE;
+	}
+
+	public int getId() { return id; }
+	public HarnessSystem getSystem() { return system; }
+	public boolean isCodeFault() { return code_fault; }
+	public int getAddress() { return address; }
+	public int getBit() { return bit; }
+	public boolean isDetected() { return detected; }
+	public int getDetectionRounds() { return detection_rounds; }
+	public long getDetectionNanos() { return detection_nanos; }
+	public int getFailedPage() { return failed_page; }
+	public LatencyHistogram getRoundNanos() { return round_nanos; }
+}
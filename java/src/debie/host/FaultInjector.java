@@ -0,0 +1,85 @@
+package debie.host;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import debie.support.CodeMemory;
+import debie.support.Dpu;
+
+/**
+ * Runs fault injection campaigns in parallel and reports how quickly the
+ * code checksum of the Health Monitoring task detects memory upsets.
+ * <p>
+ * Each FaultCampaign is a self-contained HarnessSystem, run to completion
+ * by one worker, as the instances of FleetRunner. All campaigns share the
+ * pages of one code image, and copy only the pages they write.
+ * <p>
+ * Usage: FaultInjector [campaigns [workers [rounds [code image file]]]]
+ * <br/>
+ * The default code image is the class file of Dpu; a .jop file of the
+ * built program can be given instead (see CodeImageFile).
+ */
+public class FaultInjector {
+
+	public static final int DEFAULT_CAMPAIGNS = 5000;
+
+	/** Rounds to wait for the detection: two checksum cycles */
+	public static final int DEFAULT_ROUNDS = 2 * FaultCampaign.CYCLE_ROUNDS;
+
+	private final CodeMemory image = new CodeMemory(Dpu.CODE_MEMORY_SIZE);
+	private final int workers;
+	private final int rounds;
+
+	private final FaultStatistics statistics = new FaultStatistics();
+
+	public FaultInjector(byte[] image, int workers, int rounds) {
+		this.image.load(image, image.length);
+		this.workers = workers;
+		this.rounds = rounds;
+	}
+
+	/** Run the given number of campaigns, numbered 0..campaigns-1, and
+	 *  wait for all of them. */
+	public FaultStatistics run(final int campaigns) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		final AtomicInteger next_id = new AtomicInteger();
+
+		statistics.start();
+		for (int w = 0; w < workers; w++) {
+			pool.execute(new Runnable() {
+				public void run() {
+					for (int id = next_id.getAndIncrement(); id < campaigns; id = next_id.getAndIncrement()) {
+						FaultCampaign campaign = new FaultCampaign(id, image);
+						campaign.run(rounds);
+						statistics.record(campaign);
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+			/* keep waiting */
+		}
+		statistics.stop();
+
+		return statistics;
+	}
+
+	public FaultStatistics getStatistics() {
+		return statistics;
+	}
+
+	public static void main(String[] argv) throws InterruptedException, IOException {
+		int campaigns = argv.length > 0 ? Integer.parseInt(argv[0]) : DEFAULT_CAMPAIGNS;
+		int workers   = argv.length > 1 ? Integer.parseInt(argv[1]) : Runtime.getRuntime().availableProcessors();
+		int rounds    = argv.length > 2 ? Integer.parseInt(argv[2]) : DEFAULT_ROUNDS;
+		byte[] image  = argv.length > 3 ? CodeImageFile.read(argv[3]) : CodeImageFile.readClass(Dpu.class);
+
+		FaultInjector injector = new FaultInjector(image, workers, rounds);
+		System.out.print("[FaultInjector] " + workers + " workers: ");
+		injector.run(campaigns).report(System.out);
+	}
+}
@@ -0,0 +1,90 @@
+package debie.host;
+
+import java.io.IOException;
+
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.support.CodeMemory;
+import debie.support.Dpu;
+
+/** Fault injection: every code memory upset is found by the page of the
+ *  code checksum within a checksum cycle, and campaigns run in parallel
+ *  give the results of the same campaigns run one by one. */
+public class FaultInjectorTest extends TestSuite {
+
+	private static final int CAMPAIGNS = 48;
+	private static final int WORKERS = 4;
+
+	private byte[] image;
+	private final CodeMemory code_image = new CodeMemory(Dpu.CODE_MEMORY_SIZE);
+
+	public FaultInjectorTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		try {
+			image = CodeImageFile.readClass(Dpu.class);
+		} catch (IOException e) {
+			failCheck(e.toString());
+			return;
+		}
+		code_image.load(image, image.length);
+
+		testCampaigns();
+		testInjector();
+
+		reportTestResults("FaultInjectorTest");
+	}
+
+	private void testCampaigns() {
+		testcase("Fault campaign, code faults found in their page within a cycle");
+
+		int code_faults = 0;
+		int data_faults = 0;
+		int late = 0;
+		int wrong = 0;
+		for (int id = 0; id < CAMPAIGNS; id++) {
+			FaultCampaign campaign = new FaultCampaign(id, code_image);
+			campaign.run(FaultInjector.DEFAULT_ROUNDS);
+
+			if (campaign.isCodeFault()) {
+				code_faults++;
+				if (!campaign.isDetected() || campaign.getDetectionRounds() > FaultCampaign.CYCLE_ROUNDS) late++;
+				if (campaign.getFailedPage() != campaign.getPage()) wrong++;
+			} else {
+				data_faults++;
+				if (campaign.isDetected()) wrong++;
+			}
+		}
+		checkTrue(code_faults > 0);
+		checkTrue(data_faults > 0);
+		checkZero(late);
+		checkZero(wrong);
+	}
+
+	private void testInjector() {
+		testcase("Fault injector, parallel campaigns match sequential ones");
+
+		FaultStatistics sequential;
+		FaultStatistics parallel;
+		try {
+			sequential = new FaultInjector(image, 1, FaultInjector.DEFAULT_ROUNDS).run(CAMPAIGNS);
+			parallel = new FaultInjector(image, WORKERS, FaultInjector.DEFAULT_ROUNDS).run(CAMPAIGNS);
+		} catch (InterruptedException e) {
+			checkTrue(false);
+			return;
+		}
+
+		checkEquals("campaigns", parallel.getCampaigns(), CAMPAIGNS);
+		checkEquals("code faults", parallel.getCodeFaults(), sequential.getCodeFaults());
+		checkEquals("detected", parallel.getCodeDetected(), parallel.getCodeFaults());
+		checkZero(parallel.getWrongPage());
+		checkZero(parallel.getDataDetected());
+		checkTrue(parallel.getDetectionRounds().getTotal() == sequential.getDetectionRounds().getTotal());
+		checkTrue(parallel.getDetectionRounds().getMax() <= FaultCampaign.CYCLE_ROUNDS);
+		checkTrue(parallel.getDetectionNanos().getCount() == parallel.getCodeDetected());
+	}
+}
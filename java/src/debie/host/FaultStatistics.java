@@ -0,0 +1,92 @@
+package debie.host;
+
+import java.io.PrintStream;
+
+import debie.harness.LatencyHistogram;
+
+/** Results of a set of fault injection campaigns: how many faults the
+ *  code checksum found, and how quickly. */
+public class FaultStatistics {
+
+	private long start_time = System.nanoTime();
+	private long end_time;
+
+	private int campaigns;
+	private int code_faults;
+	private int code_detected;
+	private int wrong_page;
+	private int data_faults;
+	private int data_detected;
+	private long footprint;
+
+	/* Detection latency of the code faults found */
+	private final LatencyHistogram detection_rounds = new LatencyHistogram();
+	private final LatencyHistogram detection_nanos  = new LatencyHistogram();
+
+	/* Wall time of every Health Monitoring round run */
+	private final LatencyHistogram round_nanos = new LatencyHistogram();
+
+	/** A campaign has completed its run. */
+	public synchronized void record(FaultCampaign campaign) {
+		campaigns++;
+		if (campaign.isCodeFault()) {
+			code_faults++;
+			if (campaign.isDetected()) {
+				code_detected++;
+				if (campaign.getFailedPage() != campaign.getPage()) wrong_page++;
+				detection_rounds.record(campaign.getDetectionRounds());
+				detection_nanos.record(campaign.getDetectionNanos());
+			}
+		} else {
+			data_faults++;
+			if (campaign.isDetected()) data_detected++;
+		}
+		round_nanos.add(campaign.getRoundNanos());
+		footprint += campaign.getSystem().getDpu().getMemoryFootprint();
+	}
+
+	public synchronized void start() {
+		start_time = System.nanoTime();
+		end_time = 0;
+	}
+
+	public synchronized void stop() {
+		end_time = System.nanoTime();
+	}
+
+	public synchronized int getCampaigns() { return campaigns; }
+	public synchronized int getCodeFaults() { return code_faults; }
+	public synchronized int getCodeDetected() { return code_detected; }
+	public synchronized int getWrongPage() { return wrong_page; }
+	public synchronized int getDataFaults() { return data_faults; }
+	public synchronized int getDataDetected() { return data_detected; }
+	public synchronized LatencyHistogram getDetectionRounds() { return detection_rounds; }
+	public synchronized LatencyHistogram getDetectionNanos() { return detection_nanos; }
+	public synchronized LatencyHistogram getRoundNanos() { return round_nanos; }
+	public synchronized long getFootprint() { return footprint; }
+
+	/** Nanoseconds from start until stop, or until now if still running */
+	public synchronized long getElapsed() {
+		return (end_time != 0 ? end_time : System.nanoTime()) - start_time;
+	}
+
+	/** Print the summary, then the detection latency in rounds (seconds of
+	 *  DPU time) and in wall time, and the wall time of a round. */
+	public synchronized void report(PrintStream out) {
+		out.println(this);
+		out.println("  detection latency, rounds:\t" + detection_rounds);
+		detection_rounds.dump(out, "    ");
+		out.println("  detection latency, ns:\t" + detection_nanos);
+		detection_nanos.dump(out, "    ");
+		out.println("  health monitoring round, ns:\t" + round_nanos);
+	}
+
+	public synchronized String toString() {
+		return String.format("%d campaigns in %.1f ms: %d/%d code faults detected (%d in the wrong page), "
+				+ "%d/%d data faults detected, %.1f campaigns/s, %d bytes of DPU memory per campaign",
+				campaigns, getElapsed() / 1e6, code_detected, code_faults, wrong_page,
+				data_detected, data_faults,
+				getElapsed() > 0 ? campaigns * 1e9 / getElapsed() : 0,
+				campaigns > 0 ? footprint / campaigns : 0);
+	}
+}
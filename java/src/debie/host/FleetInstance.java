@@ -0,0 +1,141 @@
+package debie.host;
+
+import static debie.telecommand.TcAddress.*;
+import static debie.target.SensorUnitDev.NUM_SU;
+import debie.harness.HarnessSystem;
+import debie.harness.SensorUnitSim;
+import debie.harness.TcTmSim;
+import debie.particles.AcquisitionTask;
+import debie.particles.SensorUnit.SensorUnitState;
+import debie.support.Mailbox;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.TelecommandExecutionTask;
+import debie.telecommand.TelemetryData;
+
+/**
+ * One DEBIE instance of a fleet: a HarnessSystem driven through a nominal
+ * mission by the thread that calls run().
+ * <p>
+ * The tasks are invoked directly, as in the harness, so an instance needs
+ * no threads of its own and many instances can share a small pool of
+ * workers. Instances share no state, so any number of them can run
+ * concurrently in one JVM.
+ */
+public class FleetInstance {
+
+	/** Maximum number of Health Monitoring rounds to wait for the SUs */
+	private static final int SWITCH_ON_ROUNDS = 50;
+
+	private static final int[] switchSUCmd = {
+		SWITCH_SU_1, SWITCH_SU_2, SWITCH_SU_3, SWITCH_SU_4 };
+
+	private final int id;
+	private final HarnessSystem system;
+
+	private int telecommands;
+	private int rounds;
+	private int hits;
+	private int hits_handled;
+	private boolean acquiring;
+
+	public FleetInstance(int id) {
+		this.id = id;
+		this.system = new HarnessSystem();
+		system.getAdcSim().setADNominal();
+	}
+
+	/**
+	 * Boot, switch the SUs on, start acquisition, then run the given number
+	 * of Health Monitoring rounds with hits_per_round particle hits in
+	 * each. The hits rotate over the SUs, starting from one chosen by id.
+	 */
+	public void run(int acq_rounds, int hits_per_round) {
+
+		system.getHealthMonitoringTask().boot();
+		system.getHealthMonitoringTask().initHealthMonitoring();
+
+		for (int su = 0; su < NUM_SU; su++) {
+			telecommand(switchSUCmd[su], ON_VALUE);
+		}
+		for (int i = 0; i < SWITCH_ON_ROUNDS && !sensorUnitsOn(); i++) {
+			monitorHealth();
+		}
+
+		telecommand(START_ACQUISITION, START_ACQUISITION);
+		acquiring = (system.getTelemetryData().getMode() == TelemetryData.ACQUISITION);
+		if (!acquiring) return;
+
+		for (int r = 0; r < acq_rounds; r++) {
+			for (int h = 0; h < hits_per_round; h++) {
+				hitTrigger((id + hits) % NUM_SU);
+			}
+			monitorHealth();
+		}
+	}
+
+	/** Run the TC interrupt and the Telecommand Execution task. */
+	private void telecommand(int address, int code) {
+		TcTmSim tctmSim = system.getTcTmSim();
+		TelecommandExecutionTask tctmTask = system.getTelecommandExecutionTask();
+
+		tctmSim.setTcRegs(address, code);
+		tctmSim.setTimerOverflowFlag();
+		tctmTask.tcInterruptService();
+		tctmTask.handleTelecommand();
+		telecommands++;
+	}
+
+	/** Run the Hit Trigger interrupt and, if the hit was accepted, the
+	 *  Acquisition task. */
+	private void hitTrigger(int su) {
+		SensorUnitSim suSim = system.getSensorUnitSim();
+		AcquisitionTask acqTask = system.getAcquisitionTask();
+		Mailbox acqMailbox = system.getAcqMailbox();
+
+		suSim.setTriggerSU(su);
+		acqTask.handleHitTrigger();
+		hits++;
+
+		acqMailbox.setTimeout(0);
+		acqMailbox.waitMail();
+		if (acqMailbox.execution_result == Mailbox.MSG_RECEIVED) {
+			acqTask.handleAcquisition(acqMailbox.message);
+			hits_handled++;
+		}
+	}
+
+	private void monitorHealth() {
+		system.getHealthMonitoringTask().handleHealthMonitor();
+		rounds++;
+	}
+
+	private boolean sensorUnitsOn() {
+		AcquisitionTask acqTask = system.getAcquisitionTask();
+
+		for (int su = 0; su < NUM_SU; su++) {
+			if (acqTask.getSensorUnitState(su) != SensorUnitState.on_e) return false;
+		}
+		return true;
+	}
+
+	/** The number of events counted in the Science Data File. */
+	public int getEventCount() {
+		ScienceDataFile science_data = system.getTelecommandExecutionTask().science_data;
+		int events = 0;
+
+		for (int su = 0; su < NUM_SU; su++) {
+			for (int c = 0; c < TelecommandExecutionTask.NUM_CLASSES; c++) {
+				events += science_data.getEventCounter(su, c);
+			}
+		}
+		return events;
+	}
+
+	public int getId() { return id; }
+	public HarnessSystem getSystem() { return system; }
+	public boolean isAcquiring() { return acquiring; }
+	public int getTelecommands() { return telecommands; }
+	public int getRounds() { return rounds; }
+	public int getHits() { return hits; }
+	public int getHitsHandled() { return hits_handled; }
+}
@@ -0,0 +1,82 @@
+package debie.host;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a fleet of independent DEBIE instances in one JVM and reports the
+ * aggregate throughput.
+ * <p>
+ * Each FleetInstance is a self-contained HarnessSystem that is driven to
+ * completion by one worker. The instances are spread over a fixed pool of
+ * platform threads, one per processor by default; an instance never blocks,
+ * so more threads than processors would not add throughput.
+ * <p>
+ * Usage: FleetRunner [instances [workers [rounds [hits per round]]]]
+ */
+public class FleetRunner {
+
+	public static final int DEFAULT_INSTANCES = 2000;
+	public static final int DEFAULT_ROUNDS = 20;
+	public static final int DEFAULT_HITS_PER_ROUND = 4;
+
+	private final int workers;
+	private final int rounds;
+	private final int hits_per_round;
+
+	private final FleetStatistics statistics = new FleetStatistics();
+
+	public FleetRunner(int workers, int rounds, int hits_per_round) {
+		this.workers = workers;
+		this.rounds = rounds;
+		this.hits_per_round = hits_per_round;
+	}
+
+	public FleetRunner() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_ROUNDS, DEFAULT_HITS_PER_ROUND);
+	}
+
+	/** Run the given number of instances, numbered 0..instances-1, and
+	 *  wait for all of them. Each instance is discarded when done, so the
+	 *  memory in use is bounded by the number of workers. */
+	public FleetStatistics run(final int instances) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		final AtomicInteger next_id = new AtomicInteger();
+
+		statistics.start();
+		for (int w = 0; w < workers; w++) {
+			pool.execute(new Runnable() {
+				public void run() {
+					for (int id = next_id.getAndIncrement(); id < instances; id = next_id.getAndIncrement()) {
+						FleetInstance instance = new FleetInstance(id);
+						instance.run(rounds, hits_per_round);
+						statistics.record(instance);
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+			/* keep waiting */
+		}
+		statistics.stop();
+
+		return statistics;
+	}
+
+	public FleetStatistics getStatistics() {
+		return statistics;
+	}
+
+	public static void main(String[] argv) throws InterruptedException {
+		int instances      = argv.length > 0 ? Integer.parseInt(argv[0]) : DEFAULT_INSTANCES;
+		int workers        = argv.length > 1 ? Integer.parseInt(argv[1]) : Runtime.getRuntime().availableProcessors();
+		int rounds         = argv.length > 2 ? Integer.parseInt(argv[2]) : DEFAULT_ROUNDS;
+		int hits_per_round = argv.length > 3 ? Integer.parseInt(argv[3]) : DEFAULT_HITS_PER_ROUND;
+
+		FleetRunner runner = new FleetRunner(workers, rounds, hits_per_round);
+		System.out.println("[FleetRunner] " + workers + " workers: " + runner.run(instances));
+	}
+}
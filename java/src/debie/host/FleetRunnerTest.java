@@ -0,0 +1,86 @@
+package debie.host;
+
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.support.Mailbox;
+
+/** Several DEBIE instances in one JVM: isolation of the instances, and a
+ *  small fleet run on a pool of workers. */
+public class FleetRunnerTest extends TestSuite {
+
+	private static final int INSTANCES = 64;
+	private static final int WORKERS = 4;
+	private static final int ROUNDS = 12;
+	private static final int HITS_PER_ROUND = 3;
+
+	public FleetRunnerTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testIsolation();
+		testFleet();
+
+		reportTestResults("FleetRunnerTest");
+	}
+
+	private void testIsolation() {
+		testcase("Fleet, instances do not share state");
+
+		HarnessSystem a = new HarnessSystem();
+		HarnessSystem b = new HarnessSystem();
+
+		a.getDpu().setDataByte(0x1234, (byte)0x5A);
+		checkEquals("own data memory", a.getDpu().getDataByte(0x1234), 0x5A);
+		checkZero(b.getDpu().getDataByte(0x1234));
+
+		a.getDpu().reference_checksum = 0x77;
+		checkZero(b.getDpu().reference_checksum);
+
+		a.getAcqMailbox().sendTaskMail((char)3, (byte)0);
+		b.getAcqMailbox().waitMail();
+		checkEquals("other mailbox empty", b.getAcqMailbox().execution_result, Mailbox.TIMEOUT_OCCURRED);
+		a.getAcqMailbox().waitMail();
+		checkEquals("own mailbox has mail", a.getAcqMailbox().execution_result, Mailbox.MSG_RECEIVED);
+		checkEquals("own message", a.getAcqMailbox().message, 3);
+
+		checkTrue(a.getSensorUnitDevice() != b.getSensorUnitDevice());
+	}
+
+	private void testFleet() {
+		testcase("Fleet, concurrent instances match sequential ones");
+
+		/* Reference results, one instance per SU rotation, run alone */
+		FleetInstance[] reference = new FleetInstance[4];
+		long hits_handled = 0;
+		for (int i = 0; i < reference.length; i++) {
+			reference[i] = new FleetInstance(i);
+			reference[i].run(ROUNDS, HITS_PER_ROUND);
+			checkTrue(reference[i].isAcquiring());
+			checkTrue(reference[i].getHitsHandled() > 0);
+			checkEquals("events counted", reference[i].getEventCount(), reference[i].getHitsHandled());
+		}
+		for (int id = 0; id < INSTANCES; id++) {
+			hits_handled += reference[id % reference.length].getHitsHandled();
+		}
+
+		FleetStatistics stat;
+		try {
+			stat = new FleetRunner(WORKERS, ROUNDS, HITS_PER_ROUND).run(INSTANCES);
+		} catch (InterruptedException e) {
+			checkTrue(false);
+			return;
+		}
+
+		checkEquals("instances", stat.getInstances(), INSTANCES);
+		checkZero(stat.getFailed());
+		checkTrue(stat.getHits() == (long)INSTANCES * reference[0].getHits());
+		checkTrue(stat.getHitsHandled() == hits_handled);
+		checkTrue(stat.getEvents() == hits_handled);
+		checkTrue(stat.getTelecommands() == (long)INSTANCES * reference[0].getTelecommands());
+		checkTrue(stat.getInstanceThroughput() > 0);
+	}
+}
@@ -0,0 +1,83 @@
+package debie.host;
+
+/** Aggregate throughput of a fleet of DEBIE instances. */
+public class FleetStatistics {
+
+	private long start_time = System.nanoTime();
+	private long end_time;
+
+	private int instances;
+	private int failed;
+	private long telecommands;
+	private long rounds;
+	private long hits;
+	private long hits_handled;
+	private long events;
+	private long footprint;
+
+	/** A fleet instance has completed its run. */
+	public synchronized void record(FleetInstance instance) {
+		instances++;
+		if (!instance.isAcquiring() || instance.getEventCount() != instance.getHitsHandled()) {
+			failed++;
+		}
+		telecommands += instance.getTelecommands();
+		rounds       += instance.getRounds();
+		hits         += instance.getHits();
+		hits_handled += instance.getHitsHandled();
+		events       += instance.getEventCount();
+		footprint    += instance.getSystem().getDpu().getMemoryFootprint();
+	}
+
+	public synchronized void start() {
+		start_time = System.nanoTime();
+		end_time = 0;
+	}
+
+	public synchronized void stop() {
+		end_time = System.nanoTime();
+	}
+
+	public synchronized int getInstances() { return instances; }
+	public synchronized int getFailed() { return failed; }
+	public synchronized long getTelecommands() { return telecommands; }
+	public synchronized long getRounds() { return rounds; }
+	public synchronized long getHits() { return hits; }
+	public synchronized long getHitsHandled() { return hits_handled; }
+	public synchronized long getEvents() { return events; }
+	public synchronized long getFootprint() { return footprint; }
+
+	/** Bytes of DPU data and code memory in use, per instance */
+	public synchronized long getInstanceFootprint() {
+		return instances > 0 ? footprint / instances : 0;
+	}
+
+	/** Nanoseconds from start until stop, or until now if still running */
+	public synchronized long getElapsed() {
+		return (end_time != 0 ? end_time : System.nanoTime()) - start_time;
+	}
+
+	private double perSecond(long count) {
+		long elapsed = getElapsed();
+		return elapsed > 0 ? count * 1e9 / elapsed : 0;
+	}
+
+	public synchronized double getInstanceThroughput() { return perSecond(instances); }
+	public synchronized double getHitThroughput() { return perSecond(hits_handled); }
+	public synchronized double getTelecommandThroughput() { return perSecond(telecommands); }
+
+	/** Simulated DPU seconds per wall-clock second, over all instances;
+	 *  a Health Monitoring round is HM_INTERVAL RTX ticks of 10 ms. */
+	public synchronized double getSimulationRate() {
+		return perSecond(rounds) * 0.1;
+	}
+
+	public synchronized String toString() {
+		return String.format("%d instances (%d failed) in %.1f ms: %.1f instances/s, "
+				+ "%d/%d hits handled, %.0f hits/s, %d TCs, %.0f TCs/s, %.0fx real time, "
+				+ "%d bytes of DPU memory per instance",
+				instances, failed, getElapsed() / 1e6, getInstanceThroughput(),
+				hits_handled, hits, getHitThroughput(), telecommands, getTelecommandThroughput(),
+				getSimulationRate(), getInstanceFootprint());
+	}
+}
@@ -0,0 +1,39 @@
+package debie.host;
+
+import debie.bench.ProblemBenchmarkTest;
+import debie.harness.TestLogger;
+import debie.telecommand.ScienceDataFile;
+
+/** Test driver for the host-only (multi-threaded JVM) parts of DEBIE.
+ *  These use java.util.concurrent, and are not part of the JOP harness. */
+public class HostHarness {
+
+	public static void main(String[] argv) {
+
+		TestLogger defaultLogger = new TestLogger();
+
+		new ConcurrentMailboxTest(defaultLogger).runTests();
+		new HostSystemTest(defaultLogger).runTests();
+		new FleetRunnerTest(defaultLogger).runTests();
+		new ProblemBenchmarkTest(defaultLogger).runTests();
+		new InstrumentationTest(defaultLogger).runTests();
+		new QualityNumberTest(defaultLogger).runTests();
+		new EventBatchTest(defaultLogger).runTests();
+		new TcDecodeTest(defaultLogger).runTests();
+		new ScienceDeltaTest(defaultLogger).runTests();
+		new ScienceQualityTest(defaultLogger).runTests();
+		new ScienceCompressionTest(defaultLogger).runTests();
+		new EventQueueTest(defaultLogger).runTests();
+		new CodeChecksumTest(defaultLogger).runTests();
+		new FaultInjectorTest(defaultLogger).runTests();
+		new PagedMemoryTest(defaultLogger).runTests();
+		new TelemetryMapTest(defaultLogger).runTests();
+		new SystemCheckpointTest(defaultLogger).runTests();
+
+		/* The science telemetry with the other Science Data File layout */
+		new ScienceDeltaTest(defaultLogger, !ScienceDataFile.PACKED_LAYOUT).runTests();
+		new ScienceQualityTest(defaultLogger, !ScienceDataFile.PACKED_LAYOUT).runTests();
+		new ScienceCompressionTest(defaultLogger, !ScienceDataFile.PACKED_LAYOUT).runTests();
+		new EventQueueTest(defaultLogger, !ScienceDataFile.PACKED_LAYOUT).runTests();
+	}
+}
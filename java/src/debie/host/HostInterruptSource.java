@@ -0,0 +1,65 @@
+package debie.host;
+
+/**
+ * An interrupt line of the simulated DPU, raised by a stimulus thread
+ * and awaited by the task attached to it (see TaskControl.waitInterrupt).
+ * Like a hardware interrupt flag it is not counted: raising it again
+ * before it has been taken counts as a lost interrupt.
+ */
+public class HostInterruptSource {
+
+	private boolean pending;
+	private long raise_time;
+	private int raised;
+	private int lost;
+
+	/** Raise the interrupt, from any thread. */
+	public synchronized void raise() {
+		raised++;
+		if (pending) {
+			lost++;
+		} else {
+			pending = true;
+			raise_time = System.nanoTime();
+			notifyAll();
+		}
+	}
+
+	/** Wait until the interrupt is raised, and take it.
+	 *  Returns false on timeout or interrupt of the waiting thread.
+	 *  timeout_nanos == 0 waits forever. */
+	public synchronized boolean await(long timeout_nanos) {
+		long deadline = System.nanoTime() + timeout_nanos;
+		while (!pending) {
+			long remaining = deadline - System.nanoTime();
+			if (timeout_nanos != 0 && remaining <= 0) return false;
+			try {
+				if (timeout_nanos == 0) wait();
+				else wait(remaining / 1000000L, (int)(remaining % 1000000L));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		pending = false;
+		return true;
+	}
+
+	/** Whether the interrupt has been raised and not yet taken */
+	public synchronized boolean isPending() {
+		return pending;
+	}
+
+	/** System.nanoTime() at which the pending (or last taken) interrupt was raised */
+	public synchronized long getRaiseTime() {
+		return raise_time;
+	}
+
+	public synchronized int getRaised() {
+		return raised;
+	}
+
+	public synchronized int getLost() {
+		return lost;
+	}
+}
@@ -0,0 +1,159 @@
+package debie.host;
+
+import debie.support.KernelObjects;
+
+/**
+ * The simulated DPU processor, shared by the threads of a HostSystem.
+ * <p>
+ * Only the thread holding the kernel executes DEBIE code. The tasks
+ * therefore see the same mutual exclusion as on the single-processor
+ * target, and the enable/disableInterruptMaster critical sections need
+ * no further locking. A thread gives up the kernel only when it blocks
+ * (waiting for mail, an interrupt, an interval or a timeout). The kernel
+ * then goes to the waiting thread with the highest priority
+ * (non-preemptive, fixed-priority dispatching).
+ * <p>
+ * Task threads are instances of {@link Task}, with the priorities of
+ * KernelObjects. Any other thread (e.g. a ground link or a particle
+ * generator raising interrupts) acquires the kernel with ISR_PRIORITY.
+ */
+public class HostKernel {
+
+	/** Priority of interrupt service routines, above all tasks */
+	public static final int ISR_PRIORITY = KernelObjects.HIT_TRIGGER_PR + 1;
+
+	private static final int LEVELS = ISR_PRIORITY + 1;
+
+	/** Thrown out of a blocking wait when the kernel is shut down. */
+	public static class Shutdown extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/** A DEBIE task running on the kernel */
+	public static class Task extends Thread {
+		final int priority;
+
+		/* Next activation for waitInterval, in System.nanoTime() */
+		long next_interval;
+		
+		public Task(String name, int priority, Runnable body) {
+			super(body, name);
+			this.priority = priority;
+			setDaemon(true);
+			setPriority(Thread.NORM_PRIORITY + priority - KernelObjects.HIT_TRIGGER_PR / 2);
+		}
+	}
+
+	private final long tick_nanos;
+
+	private Thread owner;
+	private int holds;
+	private final int[] waiting = new int[LEVELS];
+	private boolean stopped;
+
+	public HostKernel(long tick_nanos) {
+		this.tick_nanos = tick_nanos;
+	}
+
+	/** Length of a kernel tick (RTX-51: 10 ms) */
+	public long getTickNanos() {
+		return tick_nanos;
+	}
+
+	private static int priorityOf(Thread t) {
+		return (t instanceof Task) ? ((Task)t).priority : ISR_PRIORITY;
+	}
+
+	/** Wait until the kernel is free and no thread of higher priority
+	 *  is waiting for it, then take it. Re-entrant. */
+	public void acquire() {
+		acquire(1);
+	}
+
+	private synchronized void acquire(int count) {
+		Thread self = Thread.currentThread();
+		if (owner == self) {
+			holds += count;
+			return;
+		}
+
+		int priority = priorityOf(self);
+		boolean interrupted = false;
+
+		waiting[priority]++;
+		while (!stopped && (owner != null || higherWaiting(priority))) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		waiting[priority]--;
+		if (interrupted) self.interrupt();
+		if (stopped) {
+			notifyAll();
+			throw new Shutdown();
+		}
+
+		owner = self;
+		holds = count;
+	}
+
+	private boolean higherWaiting(int priority) {
+		for (int p = priority + 1; p < LEVELS; p++) {
+			if (waiting[p] > 0) return true;
+		}
+		return false;
+	}
+
+	public synchronized void release() {
+		if (--holds == 0) {
+			owner = null;
+			notifyAll();
+		}
+	}
+
+	/** Give up the kernel before blocking. Returns the number of holds
+	 *  to pass to resume(). */
+	public synchronized int suspend() {
+		int h = holds;
+		holds = 0;
+		owner = null;
+		notifyAll();
+		return h;
+	}
+
+	/** Take the kernel back after blocking. */
+	public void resume(int h) {
+		acquire(h);
+	}
+
+	/** Block for the given number of ticks, without holding the kernel. */
+	public void sleepTicks(int ticks) {
+		sleepUntil(System.nanoTime() + ticks * tick_nanos);
+	}
+
+	/** Block until the given System.nanoTime(), without holding the kernel. */
+	public void sleepUntil(long deadline) {
+		int h = suspend();
+		long remaining;
+		while (!isStopped() && (remaining = deadline - System.nanoTime()) > 0) {
+			try {
+				Thread.sleep(remaining / 1000000L, (int)(remaining % 1000000L));
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		resume(h);
+	}
+
+	/** Stop the kernel: all threads waiting for it get Shutdown. */
+	public synchronized void shutdown() {
+		stopped = true;
+		notifyAll();
+	}
+
+	public synchronized boolean isStopped() {
+		return stopped;
+	}
+}
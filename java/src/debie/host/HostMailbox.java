@@ -0,0 +1,35 @@
+package debie.host;
+
+/**
+ * ConcurrentMailbox of a HostSystem: the receiving task gives up the
+ * kernel while it waits for mail. If a stamp source is given, each
+ * message is stamped with the raise time of that interrupt source, so
+ * that the receiver can measure the latency from the interrupt.
+ */
+public class HostMailbox extends ConcurrentMailbox {
+
+	private final HostKernel kernel;
+	private final HostInterruptSource stamp_source;
+
+	public HostMailbox(byte mailbox_number, int depth, HostKernel kernel,
+	                   HostInterruptSource stamp_source) {
+		super(mailbox_number, depth, kernel.getTickNanos());
+		this.kernel = kernel;
+		this.stamp_source = stamp_source;
+	}
+
+	@Override
+	public void sendTaskMail(char message, byte timeout) {
+		offer(message, stamp_source != null ? stamp_source.getRaiseTime() : System.nanoTime());
+	}
+
+	@Override
+	public void waitMail() {
+		int h = kernel.suspend();
+		try {
+			super.waitMail();
+		} finally {
+			kernel.resume(h);
+		}
+	}
+}
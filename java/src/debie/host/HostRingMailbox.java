@@ -0,0 +1,64 @@
+package debie.host;
+
+import debie.support.DebieSystem;
+import debie.support.RingMailbox;
+
+/**
+ * RingMailbox of a HostSystem, for mail sent with the kernel held, such
+ * as the mail of the TC and TM interrupt service routines: the kernel
+ * orders the senders, so the ring keeps one sender at a time. The
+ * receiving task gives up the kernel while it waits for mail, as with
+ * HostMailbox, and the overflows and high-water mark of the ring are
+ * reported to telemetry.
+ */
+public class HostRingMailbox extends RingMailbox {
+
+	private final HostKernel kernel;
+
+	public HostRingMailbox(byte mailbox_number, int depth, DebieSystem system, HostKernel kernel) {
+		super(mailbox_number, depth, system);
+		this.kernel = kernel;
+	}
+
+	@Override
+	public void sendTaskMail(char message, byte timeout) {
+		super.sendTaskMail(message, timeout);
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+
+	@Override
+	public void waitMail() {
+		if (getMailCount() == 0) {
+			int h = kernel.suspend();
+			try {
+				awaitMail();
+			} finally {
+				kernel.resume(h);
+			}
+		}
+		super.waitMail();
+	}
+
+	/** Wait until there is mail, or timeout kernel ticks have passed
+	 *  (0 = wait forever), without holding the kernel. */
+	private synchronized void awaitMail() {
+		long deadline = System.nanoTime() + timeout * kernel.getTickNanos();
+		while (getMailCount() == 0 && !kernel.isStopped()) {
+			try {
+				if (timeout == 0) {
+					wait();
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) return;
+					wait(remaining / 1000000L, (int)(remaining % 1000000L));
+				}
+			} catch (InterruptedException e) {
+				/* Keep the interrupt for the caller, as in HostKernel */
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package debie.host;
+
+/** Hit-to-record latency and throughput of a HostSystem. */
+public class HostStatistics {
+
+	private long start_time = System.nanoTime();
+
+	private int hits_handled;
+	private long latency_sum;
+	private long latency_min = Long.MAX_VALUE;
+	private long latency_max;
+
+	private int telecommands;
+
+	/** A hit, raised at raise_time, has been handled by the Acquisition task. */
+	public synchronized void recordHit(long raise_time, long done_time) {
+		long latency = done_time - raise_time;
+		hits_handled++;
+		latency_sum += latency;
+		if (latency < latency_min) latency_min = latency;
+		if (latency > latency_max) latency_max = latency;
+	}
+
+	public synchronized void recordTelecommand() {
+		telecommands++;
+	}
+
+	public synchronized void reset() {
+		start_time = System.nanoTime();
+		hits_handled = 0;
+		latency_sum = 0;
+		latency_min = Long.MAX_VALUE;
+		latency_max = 0;
+		telecommands = 0;
+	}
+
+	public synchronized int getHitsHandled() { return hits_handled; }
+	public synchronized int getTelecommands() { return telecommands; }
+	public synchronized long getLatencyMin() { return hits_handled > 0 ? latency_min : 0; }
+	public synchronized long getLatencyMax() { return latency_max; }
+	public synchronized long getLatencyMean() { return hits_handled > 0 ? latency_sum / hits_handled : 0; }
+
+	/** Handled hits per second since start or reset */
+	public synchronized double getHitThroughput() {
+		long elapsed = System.nanoTime() - start_time;
+		return elapsed > 0 ? hits_handled * 1e9 / elapsed : 0;
+	}
+
+	public synchronized String toString() {
+		return String.format("hits %d, latency min/mean/max %d/%d/%d us, %.1f hits/s, TCs %d",
+				hits_handled, getLatencyMin() / 1000, getLatencyMean() / 1000, latency_max / 1000,
+				getHitThroughput(), telecommands);
+	}
+}
@@ -0,0 +1,369 @@
+package debie.host;
+
+import debie.harness.AdcSim;
+import debie.harness.SensorUnitSim;
+import debie.harness.TcTmSim;
+import debie.health.HealthMonitoringTask;
+import debie.particles.AcquisitionTask;
+import debie.particles.HitTriggerTask;
+import debie.support.DebieSystem;
+import debie.support.Dpu;
+import debie.support.KernelObjects;
+import debie.support.Mailbox;
+import debie.support.TaskControl;
+import debie.support.Dpu.Time;
+import debie.target.AdConverter;
+import debie.target.HwIf;
+import debie.target.SensorUnitDev;
+import debie.target.TcTmDev;
+import debie.telecommand.TelecommandExecutionTask;
+import debie.telecommand.TelemetryData;
+
+/**
+ * DEBIE system running on real threads of the host JVM.
+ * <p>
+ * The four activities of the DPU software run on their own threads,
+ * with the fixed priorities of KernelObjects, on a shared HostKernel:
+ * <ul>
+ * <li/> HealthMonitoringTask: periodic, every HM_INTERVAL ticks; it boots
+ *       the system and creates the other tasks
+ * <li/> TelecommandExecutionTask: waits for mail from the TC and TM ISRs,
+ *       queued in a HostRingMailbox
+ * <li/> AcquisitionTask: waits for mail from the Hit Trigger task
+ * <li/> HitTriggerTask: waits for the Hit Trigger interrupt
+ * </ul>
+ * The devices are the simulators of the harness. Interrupts are raised by
+ * the stimulus methods (hitTrigger, telecommand, telemetryInterrupt),
+ * which may be called from any thread, e.g. a ground link or a particle
+ * generator. The statistics report the latency from the Hit Trigger
+ * interrupt until the Acquisition task has handled the hit.
+ */
+public class HostSystem implements DebieSystem {
+
+	/** Length of the RTX-51 system tick on the DPU */
+	public static final long RTX_TICK_NANOS = 10000000L;
+
+	private final Dpu dpu;
+	private final HwIf hwIf;
+
+	private final HostKernel kernel;
+	private final HostTaskControl taskControl;
+
+	private final TelemetryData tmData;
+
+	private final AcquisitionTask acqTask;
+	private final HealthMonitoringTask hmTask;
+	private final TelecommandExecutionTask tctmTask;
+	private final HitTriggerTask htTask;
+
+	private final HostInterruptSource hit_source;
+
+	private final HostMailbox acqMailbox;
+	private final HostRingMailbox tctmMailbox;
+
+	private final AdcSim adcSim;
+	private final SensorUnitSim suSim;
+	private final TcTmSim tctmSim;
+
+	private final HostStatistics statistics = new HostStatistics();
+
+	private final HostKernel.Task[] tasks = new HostKernel.Task[KernelObjects.HIT_TRIGGER_ISR_TASK + 1];
+	private boolean booted;
+
+	/** tick_nanos: length of a kernel tick; RTX_TICK_NANOS runs in real time,
+	 *  smaller values run the periodic activities faster.
+	 *  event_queue_size: events that can wait during Science Telemetry. */
+	public HostSystem(long tick_nanos, int mailbox_depth, int event_queue_size) {
+		this.dpu = new Dpu(this);
+		this.hwIf = new HwIf(this);
+
+		this.kernel = new HostKernel(tick_nanos);
+		this.taskControl = new HostTaskControl(this, kernel);
+
+		this.tmData = new TelemetryData(this);
+
+		this.tctmSim = new TcTmSim();
+		this.suSim = new SensorUnitSim(this);
+		this.adcSim = new AdcSim();
+
+		this.hit_source = new HostInterruptSource();
+		this.acqMailbox = new HostMailbox(KernelObjects.ACQUISITION_MAILBOX, mailbox_depth, kernel, hit_source);
+		this.tctmMailbox = new HostRingMailbox(KernelObjects.TCTM_MAILBOX, mailbox_depth, this, kernel);
+
+		this.acqTask = new AcquisitionTask(this);
+		this.tctmTask = new TelecommandExecutionTask(this, event_queue_size);
+		this.hmTask = new HealthMonitoringTask(this);
+		this.htTask = new HitTriggerTask(this);
+	}
+
+	public HostSystem(long tick_nanos, int mailbox_depth) {
+		this(tick_nanos, mailbox_depth, TelecommandExecutionTask.MAX_QUEUE_LENGTH);
+	}
+
+	public HostSystem() {
+		this(RTX_TICK_NANOS, ConcurrentMailbox.DEFAULT_DEPTH);
+	}
+
+	/* Task bodies */
+
+	private final Runnable healthMonitoring = new Runnable() {
+		public void run() {
+			try {
+				kernel.acquire();
+				hmTask.boot();
+				hmTask.initHealthMonitoring();
+				setBooted();
+				for (;;) {
+					hmTask.handleHealthMonitor();
+				}
+			} catch (HostKernel.Shutdown e) {
+				/* done */
+			}
+		}
+	};
+
+	private final Runnable telecommandExecution = new Runnable() {
+		public void run() {
+			try {
+				kernel.acquire();
+				for (;;) {
+					tctmTask.handleTelecommand();
+				}
+			} catch (HostKernel.Shutdown e) {
+				/* done */
+			}
+		}
+	};
+
+	private final Runnable acquisition = new Runnable() {
+		public void run() {
+			try {
+				kernel.acquire();
+				for (;;) {
+					acqMailbox.setTimeout(0);
+					acqMailbox.waitMail();
+					if (acqMailbox.execution_result == Mailbox.MSG_RECEIVED) {
+						acqTask.handleAcquisition(acqMailbox.message);
+						statistics.recordHit(acqMailbox.getStamp(), System.nanoTime());
+					}
+				}
+			} catch (HostKernel.Shutdown e) {
+				/* done */
+			}
+		}
+	};
+
+	private final Runnable hitTrigger = new Runnable() {
+		public void run() {
+			try {
+				kernel.acquire();
+				for (;;) {
+					acqTask.handleHitTrigger();
+				}
+			} catch (HostKernel.Shutdown e) {
+				/* done */
+			}
+		}
+	};
+
+	/** Start the system: the Health Monitoring task boots DEBIE and
+	 *  creates the other tasks. */
+	public void start() {
+		startTask(KernelObjects.HEALTH_MONITORING_TASK);
+	}
+
+	/** Called by TaskControl.createTask */
+	synchronized void startTask(int task_number) {
+		Runnable body;
+		int priority;
+
+		switch (task_number) {
+		case KernelObjects.HEALTH_MONITORING_TASK:
+			body = healthMonitoring;     priority = KernelObjects.HEALTH_MONITORING_PR; break;
+		case KernelObjects.TC_TM_INTERFACE_TASK:
+			body = telecommandExecution; priority = KernelObjects.TC_TM_INTERFACE_PR; break;
+		case KernelObjects.ACQUISITION_TASK:
+			body = acquisition;          priority = KernelObjects.ACQUISITION_PR; break;
+		case KernelObjects.HIT_TRIGGER_ISR_TASK:
+			body = hitTrigger;           priority = KernelObjects.HIT_TRIGGER_PR; break;
+		default:
+			return; /* unknown task number, as in TaskControlSim */
+		}
+		if (tasks[task_number] != null) return;
+
+		tasks[task_number] = new HostKernel.Task(HostTaskControl.taskName(task_number), priority, body);
+		tasks[task_number].start();
+	}
+
+	private synchronized void setBooted() {
+		booted = true;
+		notifyAll();
+	}
+
+	/** Wait until boot is complete; returns false on timeout. */
+	public synchronized boolean awaitBoot(long timeout_millis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout_millis;
+		while (!booted) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) return false;
+			wait(remaining);
+		}
+		return true;
+	}
+
+	/** Stop all tasks and wait for their threads to end. */
+	public void shutdown() throws InterruptedException {
+		kernel.shutdown();
+		HostKernel.Task[] started;
+		synchronized (this) {
+			started = tasks.clone();
+		}
+		for (int i = 0; i < started.length; i++) {
+			if (started[i] != null) started[i].interrupt();
+		}
+		for (int i = 0; i < started.length; i++) {
+			if (started[i] != null) started[i].join();
+		}
+	}
+
+	/* Stimuli: interrupt service routines, run in the calling thread */
+
+	/** Particle hit on the given SU: raise the Hit Trigger interrupt. */
+	public void hitTrigger(int su) {
+		kernel.acquire();
+		try {
+			suSim.setTriggerSU(su);
+		} finally {
+			kernel.release();
+		}
+		hit_source.raise();
+	}
+
+	/** Telecommand from the ground: run the TC ISR. */
+	public void telecommand(int address, int code) {
+		kernel.acquire();
+		try {
+			tctmSim.setTcRegs(address, code);
+			tctmSim.setTimerOverflowFlag();
+			tctmTask.tcInterruptService();
+			statistics.recordTelecommand();
+		} finally {
+			kernel.release();
+		}
+	}
+
+	/** TM word sent to the ground: run the TM ISR, if TM interrupts are
+	 *  enabled. Returns false if they are not. */
+	public boolean telemetryInterrupt() {
+		kernel.acquire();
+		try {
+			if (!taskControl.isInterruptMaskSet(TcTmDev.TM_ISR_MASK)) return false;
+			tctmTask.tmInterruptService();
+			return true;
+		} finally {
+			kernel.release();
+		}
+	}
+
+	/** Take the kernel, e.g. to inspect the system state consistently. */
+	public void lock() {
+		kernel.acquire();
+	}
+
+	public void unlock() {
+		kernel.release();
+	}
+
+	HostInterruptSource getInterruptSource(int source) {
+		/* The Hit Trigger is the only interrupt attached to a task */
+		return hit_source;
+	}
+
+	public HostStatistics getStatistics() {
+		return statistics;
+	}
+
+	public HostInterruptSource getHitTriggerSource() {
+		return hit_source;
+	}
+
+	public AdcSim getAdcSim() {
+		return adcSim;
+	}
+
+	public SensorUnitSim getSensorUnitSim() {
+		return suSim;
+	}
+
+	/* DebieSystem */
+
+	@Override
+	public TaskControl getTaskControl() {
+		return taskControl;
+	}
+
+	@Override
+	public TelemetryData getTelemetryData() {
+		return tmData;
+	}
+
+	@Override
+	public AcquisitionTask getAcquisitionTask() {
+		return acqTask;
+	}
+
+	@Override
+	public HealthMonitoringTask getHealthMonitoringTask() {
+		return hmTask;
+	}
+
+	@Override
+	public TelecommandExecutionTask getTelecommandExecutionTask() {
+		return tctmTask;
+	}
+
+	@Override
+	public HitTriggerTask getHitTriggerTask() {
+		return htTask;
+	}
+
+	@Override
+	public HostMailbox getAcqMailbox() {
+		return acqMailbox;
+	}
+
+	@Override
+	public HostRingMailbox getTcTmMailbox() {
+		return tctmMailbox;
+	}
+
+	@Override
+	public AdConverter getAdcDevice() {
+		return adcSim;
+	}
+
+	@Override
+	public SensorUnitDev getSensorUnitDevice() {
+		return suSim;
+	}
+
+	@Override
+	public TcTmDev getTcTmDevice() {
+		return tctmSim;
+	}
+
+	@Override
+	public Time getInternalTime() {
+		return hmTask.getInternalTime();
+	}
+
+	@Override
+	public Dpu getDpu() {
+		return dpu;
+	}
+
+	@Override
+	public HwIf getHwIf() {
+		return hwIf;
+	}
+}
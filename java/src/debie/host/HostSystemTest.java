@@ -0,0 +1,205 @@
+package debie.host;
+
+import static debie.telecommand.TcAddress.*;
+import static debie.target.SensorUnitDev.NUM_SU;
+import static debie.support.KernelObjects.TCTM_MAILBOX;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.particles.SensorUnit.SensorUnitState;
+import debie.telecommand.TelemetryData;
+
+/** Nominal operation of a threaded HostSystem: boot, switch the sensor
+ *  units on, start acquisition, handle a series of particle hits.
+ *  Each step waits, up to a deadline, until the system reaches the state
+ *  it checks, so that the test does not depend on the load of the host. */
+public class HostSystemTest extends TestSuite {
+
+	/* 0.2 ms ticks: Health Monitoring runs every 20 ms */
+	private static final long TICK_NANOS = 200000L;
+
+	/* Deadline of each wait for a state of the system */
+	private static final int TIMEOUT_MILLIS = 10000;
+
+	private static final int HITS = 40;
+
+	private static final int[] switchSUCmd = {
+		SWITCH_SU_1, SWITCH_SU_2, SWITCH_SU_3, SWITCH_SU_4 };
+
+	private HostSystem system;
+
+	public HostSystemTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		system = new HostSystem(TICK_NANOS, ConcurrentMailbox.DEFAULT_DEPTH);
+		system.getAdcSim().setADNominal();
+
+		testBoot();
+		testSensorUnitsOn();
+		testStartAcquisition();
+		testHits();
+		testShutdown();
+
+		reportTestResults("HostSystemTest");
+	}
+
+	private void testBoot() {
+		testcase("Host system, boot");
+
+		system.start();
+		checkTrue(awaitBoot());
+
+		system.lock();
+		checkEquals("mode", system.getTelemetryData().getMode(), TelemetryData.STAND_BY);
+		system.unlock();
+	}
+
+	private void testSensorUnitsOn() {
+		testcase("Host system, switch sensor units on");
+
+		/* A burst of TCs, queued until the TC Execution task runs: */
+		system.lock();
+		system.getTelemetryData().clearMailDiagnostics();
+		for (int su = 0; su < NUM_SU; su++) {
+			system.telecommand(switchSUCmd[su], ON_VALUE);
+		}
+		checkEquals("queued TCs", system.getTcTmMailbox().getMailCount(), NUM_SU);
+		system.unlock();
+		checkTrue(await(telecommandHandled));
+
+		system.lock();
+		checkEquals("TC mail high-water mark", system.getTelemetryData().getMailHighWater(TCTM_MAILBOX), NUM_SU);
+		checkZero(system.getTelemetryData().getMailOverflows(TCTM_MAILBOX));
+		system.unlock();
+
+		/* Health Monitoring drives the SUs through switching_e to on_e */
+		checkTrue(await(new Condition() {
+			boolean holds() {
+				for (int su = 0; su < NUM_SU; su++) {
+					if (system.getAcquisitionTask().getSensorUnitState(su) != SensorUnitState.on_e) return false;
+				}
+				return true;
+			}
+		}));
+
+		system.lock();
+		for (int su = 0; su < NUM_SU; su++) {
+			checkEquals("SU on", system.getAcquisitionTask().getSensorUnitState(su), SensorUnitState.on_e);
+		}
+		system.unlock();
+	}
+
+	private void testStartAcquisition() {
+		testcase("Host system, start acquisition");
+
+		system.telecommand(START_ACQUISITION, START_ACQUISITION);
+		checkTrue(await(telecommandHandled));
+
+		system.lock();
+		checkEquals("mode", system.getTelemetryData().getMode(), TelemetryData.ACQUISITION);
+		system.unlock();
+	}
+
+	private void testHits() {
+		testcase("Host system, particle hits");
+
+		system.getStatistics().reset();
+
+		for (int i = 0; i < HITS; i++) {
+			system.hitTrigger(i % NUM_SU);
+			checkTrue(await(hitTaken));
+		}
+
+		/* Every hit taken has been recorded, or rejected: */
+		checkTrue(await(new Condition() {
+			boolean holds() {
+				return system.getAcqMailbox().getMailCount() == 0
+					&& countEvents() == system.getStatistics().getHitsHandled();
+			}
+		}));
+
+		HostStatistics stat = system.getStatistics();
+		checkTrue(stat.getHitsHandled() > 0);
+		checkTrue(stat.getLatencyMin() > 0);
+		checkTrue(stat.getLatencyMax() >= stat.getLatencyMean());
+
+		system.lock();
+		checkEquals("events counted", countEvents(), stat.getHitsHandled());
+		system.unlock();
+	}
+
+	/** Events in the counters of the Science Data File */
+	private int countEvents() {
+		int events = 0;
+		for (int su = 0; su < NUM_SU; su++) {
+			for (int c = 0; c < 10; c++) {
+				events += system.getTelecommandExecutionTask().science_data.getEventCounter(su, c);
+			}
+		}
+		return events;
+	}
+
+	private void testShutdown() {
+		testcase("Host system, shutdown");
+
+		try {
+			system.shutdown();
+			checkTrue(true);
+		} catch (InterruptedException e) {
+			checkTrue(false);
+		}
+	}
+
+	private boolean awaitBoot() {
+		try {
+			return system.awaitBoot(5000);
+		} catch (InterruptedException e) {
+			return false;
+		}
+	}
+
+	/** A state of the system, checked with the kernel taken */
+	private abstract static class Condition {
+		abstract boolean holds();
+	}
+
+	/** The TC mail has been handled by the Telecommand Execution task */
+	private final Condition telecommandHandled = new Condition() {
+		boolean holds() {
+			return system.getTcTmMailbox().getMailCount() == 0;
+		}
+	};
+
+	/** The Hit Trigger interrupt has been taken by its task */
+	private final Condition hitTaken = new Condition() {
+		boolean holds() {
+			return !system.getHitTriggerSource().isPending();
+		}
+	};
+
+	/** Wait until the condition holds; returns false if it still does not
+	 *  hold after TIMEOUT_MILLIS. */
+	private boolean await(Condition condition) {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		for (;;) {
+			boolean holds;
+			system.lock();
+			try {
+				holds = condition.holds();
+			} finally {
+				system.unlock();
+			}
+			if (holds) return true;
+			if (System.currentTimeMillis() >= deadline) return false;
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+}
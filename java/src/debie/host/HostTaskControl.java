@@ -0,0 +1,128 @@
+package debie.host;
+
+import debie.support.KernelObjects;
+import debie.support.TaskControl;
+
+/** TaskControl of a HostSystem: RTX-51 services on top of a HostKernel. */
+public class HostTaskControl implements TaskControl {
+
+	/** RTX-51 timeout value meaning "wait forever" */
+	private static final int WAIT_FOREVER = 255;
+
+	private static final double MACHINE_CYCLE = 1.085;
+	/* The machine (processor) cycle time, in microseconds. */
+
+	private final HostSystem system;
+	private final HostKernel kernel;
+
+	private volatile int interrupt_mask;
+
+	HostTaskControl(HostSystem system, HostKernel kernel) {
+		this.system = system;
+		this.kernel = kernel;
+	}
+
+	public int delayLimit(int time) {
+		return ((((time << 16) / (int)(MACHINE_CYCLE*0x10000)) - 4) / 2);
+	}
+
+	/** The A/D converter is simulated: any on-going conversion is assumed
+	 *  to end during the delay (as in the harness). */
+	public void shortDelay(int delay_loops) {
+		system.getAdcDevice().clearADConverting();
+	}
+
+	/** Periodic wait: the calling task is activated every 'time' ticks.
+	 *  If the task has fallen behind, the period restarts from now. */
+	public void waitInterval(int /* unsigned char */ time) {
+		long now = System.nanoTime();
+		Thread self = Thread.currentThread();
+		if (self instanceof HostKernel.Task) {
+			HostKernel.Task task = (HostKernel.Task)self;
+			if (task.next_interval == 0 || task.next_interval - now < 0) {
+				task.next_interval = now;
+			}
+			task.next_interval += time * kernel.getTickNanos();
+			kernel.sleepUntil(task.next_interval);
+		} else {
+			kernel.sleepTicks(time);
+		}
+		checkShutdown();
+	}
+
+	public void waitTimeout(int time) {
+		kernel.sleepTicks(time);
+		checkShutdown();
+	}
+
+	public void waitInterrupt(byte isrVectorNumber, int timer) {
+		HostInterruptSource source = system.getInterruptSource(isrVectorNumber);
+		long timeout = (timer == WAIT_FOREVER) ? 0 : timer * kernel.getTickNanos();
+
+		int h = kernel.suspend();
+		try {
+			source.await(timeout);
+		} finally {
+			kernel.resume(h);
+		}
+		checkShutdown();
+	}
+
+	private void checkShutdown() {
+		if (kernel.isStopped()) throw new HostKernel.Shutdown();
+	}
+
+	public void createTask(int task_number) {
+		system.startTask(task_number);
+	}
+
+	/* Only the thread holding the kernel runs, so interrupts are
+	 * always "disabled" for the running code. */
+	public void enableInterruptMaster() {
+	}
+
+	public void disableInterruptMaster() {
+	}
+
+	public void attachInterrupt(int intr) {
+	}
+
+	public void enableInterrupt(int intr) {
+	}
+
+	public void disableInterrupt(int intr) {
+	}
+
+	public int setInterruptMask(int mask) {
+		interrupt_mask |= mask;
+		return 0;  /* Success. */
+	}
+
+	public int resetInterruptMask(int mask) {
+		interrupt_mask &= ~mask;
+		return 0;  /* Success. */
+	}
+
+	public boolean isInterruptMaskSet(int mask) {
+		return (interrupt_mask & mask) != 0;
+	}
+
+	/* The kernel tick is fixed by the HostKernel */
+	public void setTimeSlice(int time_slice) {
+	}
+
+	public void clearHitTriggerISRFlag() {
+		// NOP
+	}
+
+	/** Task numbers of KernelObjects, for thread names */
+	static String taskName(int task_number) {
+		switch (task_number) {
+		case KernelObjects.HEALTH_MONITORING_TASK: return "HealthMonitoringTask";
+		case KernelObjects.TC_TM_INTERFACE_TASK:   return "TelecommandExecutionTask";
+		case KernelObjects.ACQUISITION_TASK:       return "AcquisitionTask";
+		case KernelObjects.HIT_TRIGGER_ISR_TASK:   return "HitTriggerTask";
+		default:                                   return "Task" + task_number;
+		}
+	}
+}
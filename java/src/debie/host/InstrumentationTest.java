@@ -0,0 +1,85 @@
+package debie.host;
+
+import debie.harness.Harness;
+import debie.harness.JopTimingSource;
+import debie.harness.LatencyHistogram;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.harness.TimingSource;
+
+/** Harness instrumentation with the host timing sources. */
+public class InstrumentationTest extends TestSuite {
+
+	private static final int RUNS = 100;
+
+	public InstrumentationTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testSources();
+		testProblemStatistics();
+		testCounterWrap();
+
+		reportTestResults("InstrumentationTest");
+	}
+
+	private void testSources() {
+		testcase("Timing sources, readings do not go back");
+
+		TimingSource[] sources = { new NanoTimingSource(), new ThreadCpuTimingSource() };
+		for (int s = 0; s < sources.length; s++) {
+			long last = sources[s].read();
+			boolean monotonic = true;
+			for (int i = 0; i < 1000; i++) {
+				long now = sources[s].read();
+				if (sources[s].elapsed(last, now) < 0) monotonic = false;
+				last = now;
+			}
+			checkTrue(monotonic);
+		}
+	}
+
+	private void testProblemStatistics() {
+		testcase("Instrumentation, every run of a problem is recorded");
+
+		Harness.setTimingSource(new NanoTimingSource());
+		try {
+			checkTrue(Harness.hostTiming);
+			Harness.initInstrumentation();
+
+			for (int i = 0; i < RUNS; i++) {
+				Harness.startProblem(Harness.Prob1);
+				Harness.endProblem(Harness.Prob1);
+			}
+			Harness.startProblem(Harness.Prob6e);
+			Harness.endProblem(Harness.Prob6e);
+
+			LatencyHistogram prob1 = Harness.getProblemHistogram(Harness.Prob1);
+			checkEquals("runs of Prob1", (int)prob1.getCount(), RUNS);
+			checkTrue(prob1.getMin() >= 0);
+			checkTrue(prob1.getValueAtPerMille(500) <= prob1.getValueAtPerMille(990));
+			checkTrue(prob1.getValueAtPerMille(990) <= prob1.getMax());
+			checkEquals("runs of Prob6e", (int)Harness.getProblemHistogram(Harness.Prob6e).getCount(), 1);
+			checkZero((int)Harness.getProblemHistogram(Harness.Prob2a).getCount());
+
+			/* Statistics are cleared: */
+			Harness.initInstrumentation();
+			checkZero((int)Harness.getProblemHistogram(Harness.Prob1).getCount());
+		} finally {
+			Harness.setTimingSource(null);
+		}
+		checkFalse(Harness.hostTiming);
+	}
+
+	private void testCounterWrap() {
+		testcase("JOP cycle counter, elapsed time across the wrap-around");
+
+		TimingSource jop = new JopTimingSource();
+		checkEquals("no wrap", (int)jop.elapsed(0x100, 0x180), 0x80);
+		checkEquals("sign wrap", (int)jop.elapsed(0x7ffffff0, 0x80000010), 0x20);
+		checkEquals("zero wrap", (int)jop.elapsed(-16, 16), 32);
+	}
+}
@@ -0,0 +1,19 @@
+package debie.host;
+
+import debie.harness.TimingSource;
+
+/** Wall-clock time of the host JVM, from System.nanoTime. */
+public class NanoTimingSource extends TimingSource {
+
+	public String getName() {
+		return "System.nanoTime";
+	}
+
+	public String getUnit() {
+		return "ns";
+	}
+
+	public long read() {
+		return System.nanoTime();
+	}
+}
@@ -0,0 +1,107 @@
+package debie.host;
+
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.support.CodeMemory;
+import debie.support.Dpu;
+import debie.support.PagedMemory;
+
+/** Paged DPU memory: data pages allocated when first written, and code
+ *  images shared by several DPUs, each copying the pages it writes. */
+public class PagedMemoryTest extends TestSuite {
+
+	public PagedMemoryTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		if (Dpu.PAGED_MEMORY) {
+			testDataPages();
+			testSharedCode();
+			testFootprint();
+		}
+
+		reportTestResults("PagedMemoryTest");
+	}
+
+	private void testDataPages() {
+		testcase("Paged memory, pages allocated on first write");
+
+		PagedMemory a = new PagedMemory(Dpu.DATA_MEMORY_SIZE);
+		PagedMemory b = new PagedMemory(Dpu.DATA_MEMORY_SIZE);
+
+		checkZero(a.getByte(0x1234));
+		a.setByte(0x1234, (byte)0);
+		checkZero(a.getAllocatedPages());
+
+		a.setByte(0x1234, (byte)0x5A);
+		a.setByte(0x12FF, (byte)0xA5);
+		checkEquals("one page", a.getAllocatedPages(), 1);
+		checkEquals("written", a.getByte(0x1234), 0x5A);
+		checkEquals("same page", a.getByte(0x12FF), (byte)0xA5);
+		checkZero(a.getByte(0x1300));
+		checkZero(b.getByte(0x1234));
+		checkZero(b.getAllocatedPages());
+
+		a.setByte(0x7FFF, (byte)1);
+		checkEquals("two pages", a.getAllocatedPages(), 2);
+		checkEquals("footprint", a.getFootprint(), b.getFootprint() + 2 * PagedMemory.PAGE_SIZE);
+	}
+
+	private void testSharedCode() {
+		testcase("Code memory, a shared image copied on write");
+
+		byte[] bytes = new byte[3000];
+		for (int i = 0; i < bytes.length; i++) bytes[i] = (byte)(i * 7 + 1);
+
+		CodeMemory image = new CodeMemory(Dpu.CODE_MEMORY_SIZE);
+		image.load(bytes, bytes.length);
+		CodeMemory a = new CodeMemory(Dpu.CODE_MEMORY_SIZE);
+		CodeMemory b = new CodeMemory(Dpu.CODE_MEMORY_SIZE);
+		checkTrue(image.getAllocatedPages() > 0);
+		a.share(image);
+		b.share(image);
+
+		checkZero(a.getAllocatedPages());
+		checkZero(image.getAllocatedPages());
+		checkEquals("shared byte", a.getByte(2999), bytes[2999]);
+		checkZero(a.checksum(0, a.getSize() - 1));
+		checkEquals("page reference", b.getPageReference(5), image.getPageReference(5));
+
+		/* A memory error copies the page for one memory only: */
+		a.setByte(0x0105, (byte)(a.getByte(0x0105) ^ 0x04));
+		checkEquals("copied", a.getAllocatedPages(), 1);
+		checkEquals("changed", a.pageChecksum(1), a.getPageReference(1) ^ 0x04);
+		checkEquals("other", b.getByte(0x0105), bytes[0x0105]);
+		checkEquals("image", image.getByte(0x0105), bytes[0x0105]);
+		checkZero(b.checksum(0, b.getSize() - 1));
+
+		/* A patch too, which keeps its page reference: */
+		b.patch(0x0A00, (byte)0x33);
+		checkEquals("patched", b.getByte(0x0A00), 0x33);
+		checkEquals("patched page", b.pageChecksum(0x0A), b.getPageReference(0x0A));
+		checkTrue(b.getPageReference(0x0A) != image.getPageReference(0x0A));
+		checkEquals("image not patched", image.getByte(0x0A00), bytes[0x0A00]);
+
+		/* The image, written after it is shared, copies its page too: */
+		image.setByte(0x0200, (byte)0);
+		checkEquals("shared after image write", a.getByte(0x0200), bytes[0x0200]);
+		checkEquals("image copied", image.getAllocatedPages(), 1);
+	}
+
+	private void testFootprint() {
+		testcase("DPU memory footprint, booted instance");
+
+		HarnessSystem system = new HarnessSystem();
+		system.getHealthMonitoringTask().boot();
+		system.getHealthMonitoringTask().initHealthMonitoring();
+
+		Dpu dpu = system.getDpu();
+		checkTrue(dpu.getMemoryFootprint() < (Dpu.DATA_MEMORY_SIZE + Dpu.CODE_MEMORY_SIZE) / 8);
+		checkEquals("footprint", dpu.getMemoryFootprint(),
+				dpu.getDataMemory().getFootprint() + dpu.getCodeMemory().getFootprint());
+	}
+}
@@ -0,0 +1,157 @@
+package debie.host;
+
+import java.util.Random;
+
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.particles.EventRecord;
+import debie.particles.QualityTable;
+import debie.telecommand.TelemetryData;
+
+import static debie.telecommand.TelecommandExecutionTask.NUM_QCOEFF;
+
+/** The fixed-point quality formula gives the same quality numbers as the
+ *  float formula of the port, over all coefficients and amplitudes. */
+public class QualityNumberTest extends TestSuite {
+
+	/** Classes in the event class table */
+	private static final int MAX_CLASS = 10;
+
+	private static final int RANDOM_EVENTS = 200000;
+
+	public QualityNumberTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testTerms();
+		testQualityNumbers();
+		testRandomEvents();
+		testTelemetryCoefficients();
+
+		reportTestResults("QualityNumberTest");
+	}
+
+	/* The float formula, as in EventRecord before the quality table */
+
+	private static float floatTerm(byte coefficient, int amplitude) {
+		float quality;
+
+		quality =
+			(float)(coefficient
+					* QualityTable.roughLogarithm(amplitude))
+			/ EventRecord.AMPLITUDE_DIVIDER;
+
+		if (quality > 5.0f) {
+			quality = 5.0f;
+		}
+		return quality;
+	}
+
+	private static int floatQualityNumber(byte[] coefficient, int classification, int[] amplitude) {
+		float quality = 25.0f * classification;
+		for (int i = 0; i < NUM_QCOEFF; i++) {
+			quality += floatTerm(coefficient[i], amplitude[i]);
+		}
+		return (int)(quality + 0.5f) & 0xff;
+	}
+
+	private static int fixedQualityNumber(QualityTable table, int classification, int[] amplitude) {
+		return table.getQualityNumber(classification,
+				amplitude[0], amplitude[1], amplitude[2], amplitude[3], amplitude[4]);
+	}
+
+	private void testTerms() {
+		testcase("Quality terms, all coefficients and amplitudes");
+
+		QualityTable table = new QualityTable();
+		int mismatches = 0;
+
+		for (int c = -128; c <= 127; c++) {
+			table.setCoefficient(0, (byte)c);
+			for (int a = 0; a <= 0xffff; a++) {
+				float fixed = (float)table.getQualityTerm(0, a) / QualityTable.QUALITY_SCALE;
+				if (fixed != floatTerm((byte)c, a)) mismatches++;
+			}
+		}
+		checkZero(mismatches);
+	}
+
+	/** The quality number depends on the amplitudes only through their
+	 *  rough logarithms, so one amplitude per bucket covers the domain of
+	 *  each term; all terms share one coefficient and bucket here. */
+	private void testQualityNumbers() {
+		testcase("Quality numbers, all classes, coefficients and buckets");
+
+		QualityTable table = new QualityTable();
+		byte[] coefficient = new byte[NUM_QCOEFF];
+		int[] amplitude = new int[NUM_QCOEFF];
+		int mismatches = 0;
+
+		for (int c = -128; c <= 127; c++) {
+			for (int i = 0; i < NUM_QCOEFF; i++) {
+				coefficient[i] = (byte)c;
+				table.setCoefficient(i, (byte)c);
+			}
+			for (int bucket = 0; bucket < QualityTable.NUM_BUCKETS; bucket++) {
+				for (int i = 0; i < NUM_QCOEFF; i++) {
+					amplitude[i] = bucket == 0 ? 0 : (1 << (bucket - 1)) + i;
+				}
+				for (int cls = 0; cls <= MAX_CLASS; cls++) {
+					if (fixedQualityNumber(table, cls, amplitude)
+							!= floatQualityNumber(coefficient, cls, amplitude)) mismatches++;
+				}
+			}
+		}
+		checkZero(mismatches);
+	}
+
+	private void testRandomEvents() {
+		testcase("Quality numbers, random coefficients and amplitudes");
+
+		Random random = new Random(11);
+		QualityTable table = new QualityTable();
+		byte[] coefficient = new byte[NUM_QCOEFF];
+		int[] amplitude = new int[NUM_QCOEFF];
+		int mismatches = 0;
+
+		for (int n = 0; n < RANDOM_EVENTS; n++) {
+			if (n % 1000 == 0) {
+				for (int i = 0; i < NUM_QCOEFF; i++) {
+					coefficient[i] = (byte)random.nextInt(256);
+					table.setCoefficient(i, coefficient[i]);
+				}
+			}
+			for (int i = 0; i < NUM_QCOEFF; i++) {
+				amplitude[i] = random.nextInt(0x10000) >>> random.nextInt(16);
+			}
+			int cls = random.nextInt(MAX_CLASS + 1);
+			if (fixedQualityNumber(table, cls, amplitude)
+					!= floatQualityNumber(coefficient, cls, amplitude)) mismatches++;
+		}
+		checkZero(mismatches);
+	}
+
+	private void testTelemetryCoefficients() {
+		testcase("Quality table follows the telemetry coefficients");
+
+		TelemetryData tmData = new HarnessSystem().getTelemetryData();
+		QualityTable table = tmData.getQualityTable();
+		int[] amplitude = { 0x8000, 0x4000, 0x100, 0x7, 0x1 };
+
+		tmData.initCoefficients();
+		/* 5 * (16 + 15 + 9 + 3 + 1) / 16 = 13.75 */
+		checkEquals("default coefficients", fixedQualityNumber(table, 2, amplitude), 50 + 14);
+
+		tmData.setCoefficient(0, 1);
+		/* (16 + 5 * (15 + 9 + 3 + 1)) / 16 = 9.75 */
+		checkEquals("coefficient 1 set", fixedQualityNumber(table, 2, amplitude), 50 + 10);
+		checkEquals("telemetry register", tmData.getCoefficient(0), 1);
+
+		tmData.initCoefficients();
+		checkEquals("defaults restored", fixedQualityNumber(table, 2, amplitude), 50 + 14);
+	}
+}
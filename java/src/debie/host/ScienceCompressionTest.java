@@ -0,0 +1,172 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import static debie.telecommand.TcAddress.*;
+import static debie.telecommand.TelecommandExecutionTask.NUM_CLASSES;
+
+import java.util.Random;
+
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.particles.EventRecord;
+import debie.telecommand.RecordCodec;
+import debie.telecommand.ScienceCompressedTelemetry;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.ScienceDecoder;
+import debie.telecommand.TelecommandExecutionTask;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Compressed science telemetry: round trip of RecordCodec and
+ *  ScienceDecoder on random records, and a compressed dump of the
+ *  Science Data File decoded against its layout. */
+public class ScienceCompressionTest extends ScienceTmTest {
+
+	private static final int RECORDS = 2000;
+	private static final int EVENTS = 100;
+
+	private final byte[] encoded = new byte[RecordCodec.BUFFER_SIZE];
+	private final byte[] decoded = new byte[EventRecord.SIZE_IN_BYTES];
+	private final byte[] layout  = new byte[ScienceDataFile.sizeInBytes()];
+
+	private final boolean packed_layout;
+
+	public ScienceCompressionTest(TestLogger tl) {
+		this(tl, ScienceDataFile.PACKED_LAYOUT);
+	}
+
+	public ScienceCompressionTest(TestLogger tl, boolean packed_layout) {
+		super(new HarnessSystem(TelecommandExecutionTask.MAX_QUEUE_LENGTH, packed_layout), tl);
+		this.packed_layout = packed_layout;
+	}
+
+	@Override
+	public void runTests() {
+
+		testRoundTrip();
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+
+		testDump();
+
+		reportScienceResults("ScienceCompressionTest");
+	}
+
+	/** A random record; small values unless wide, and then any values */
+	private void randomRecord(Random random, boolean wide) {
+		record[0] = (byte)random.nextInt(256);
+		record[1] = (byte)random.nextInt(NUM_CLASSES);
+		record[2] = (byte)(1 + random.nextInt(4));
+		int time = wide ? random.nextInt() : random.nextInt(1 << 14);
+		for (int i = 0; i < 4; i++) {
+			record[4+i] = (byte)(time >> 8 * i);
+		}
+		record[8] = (byte)random.nextInt(256);
+		record[9] = (byte)random.nextInt(256);
+		for (int i = 10; i < 26; i += 2) {
+			int word;
+			if (i == 20) {
+				/* rise time and delay 1 */
+				word = random.nextInt(1 << 16);
+			} else if (random.nextInt(4) == 0) {
+				word = 0;
+			} else {
+				word = wide ? random.nextInt(1 << 16) : random.nextInt(1 << 10);
+			}
+			record[i]   = (byte)word;
+			record[i+1] = (byte)(word >> 8);
+		}
+		record[26] = (byte)random.nextInt(256);
+	}
+
+	private void testRoundTrip() {
+		testcase("Record codec, round trip of random records");
+
+		ScienceDataFile file = ScienceDataFile.create(system, packed_layout);
+		EventRecord event = new EventRecord(system);
+		ScienceDecoder decoder = new ScienceDecoder();
+		Random random = new Random(19);
+
+		int mismatches = 0;
+		int raw = 0;
+		for (int r = 0; r < RECORDS; r++) {
+			randomRecord(random, r % 5 == 0);
+			event.unpack(record, 0);
+			int slot = r % EVENTS;
+			file.storeEvent(slot, event);
+
+			int offset = file.getEventByteOffset(slot);
+			int size = RecordCodec.encode(file, offset, encoded);
+			if (size < RecordCodec.MIN_SIZE || size > RecordCodec.MAX_SIZE) mismatches++;
+			if ((encoded[0] & 0xff) == RecordCodec.RAW) raw++;
+
+			if (decoder.decodeRecord(encoded, 0, size, decoded, 0) != size) mismatches++;
+			for (int i = 0; i < EventRecord.SIZE_IN_BYTES; i++) {
+				if ((decoded[i] & 0xff) != file.getByte(offset + i)) mismatches++;
+			}
+
+			/* Cut short, the record is rejected: */
+			if (decoder.decodeRecord(encoded, 0, size - 1, decoded, 0) >= 0) mismatches++;
+		}
+		checkZero(mismatches);
+		checkTrue(raw > 0 && raw < RECORDS);
+	}
+
+	private void testDump() {
+		testcase("Compressed Science TM, decoded against the Science Data File");
+
+		Random random = new Random(190);
+		for (int i = 0; i < EVENTS; i++) {
+			randomRecord(random, i % 10 == 0);
+			tctmTask.getFreeRecord().unpack(record, 0);
+			tctmTask.recordEvent();
+		}
+		checkEquals("events", tctmTask.getFreeSlotIndex(), EVENTS);
+
+		ScienceDataFile science_data = tctmTask.science_data;
+		int raw_size = science_data.getEventByteOffset(EVENTS);
+		science_data.copyTo(0, layout, 0, raw_size);
+
+		int encoded_size = 0;
+		for (int slot = 0; slot < EVENTS; slot++) {
+			encoded_size += RecordCodec.encode(science_data, science_data.getEventByteOffset(slot), encoded);
+		}
+
+		sendTC(SEND_SCIENCE_DATA_COMPRESSED, SEND_SCIENCE_DATA_COMPRESSED);
+		checkNoErrors();
+		checkTcState(TC_State.SC_TM_e);
+		handleTC(Prob4a);
+
+		/* The first two octets are sent by the TC Execution task: */
+		block[0] = (byte)science_data.getByte(0);
+		block[1] = (byte)science_data.getByte(1);
+		byte[] rest = new byte[ScienceDataFile.sizeInBytes()];
+		int octets = tctmTask.drainTelemetry(rest);
+		System.arraycopy(rest, 0, block, 2, octets);
+		octets += 2;
+		checkTrue(tctmTask.telemetryIndexAtEnd());
+		checkEquals("length", octets, 2 * (block[0] & 0xff) + 512 * (block[1] & 0xff));
+		checkTrue(octets < raw_size);
+		checkEquals("encoded length", octets,
+				(ScienceCompressedTelemetry.HEADER_SIZE + encoded_size + 1) & ~1);
+
+		ScienceDecoder decoder = new ScienceDecoder();
+		byte[] decoded_file = new byte[ScienceDataFile.sizeInBytes()];
+		checkEquals("decoded size", decoder.decode(block, octets, decoded_file), raw_size);
+		checkEquals("records", decoder.getRecords(), EVENTS);
+		checkEquals("raw length", (decoded_file[0] & 0xff) + 256 * (decoded_file[1] & 0xff),
+				raw_size / 2);
+
+		int mismatches = 0;
+		for (int i = 2; i < raw_size; i++) {
+			if (decoded_file[i] != layout[i]) mismatches++;
+		}
+		checkZero(mismatches);
+
+		/* The end of the dump clears the Science Data, as a full dump: */
+		tctmTask.tmInterruptService();
+		handleTC(Prob4a);
+		checkTcState(TC_State.TC_handling_e);
+		checkZero(tctmTask.getFreeSlotIndex());
+	}
+}
@@ -0,0 +1,167 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import static debie.telecommand.TcAddress.*;
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.particles.EventRecord;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.ScienceDeltaTelemetry;
+import debie.telecommand.TelecommandExecutionTask;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Science telemetry of the changed event records: the records recorded
+ *  since the last delta telemetry are sent, with their slot indices, and
+ *  the Science Data memory is kept. */
+public class ScienceDeltaTest extends ScienceTmTest {
+
+
+	/* Slot indices of the last delta telemetry, and their number */
+	private final int[] slots = new int[64];
+	private int entries;
+
+	public ScienceDeltaTest(TestLogger tl) {
+		this(tl, ScienceDataFile.PACKED_LAYOUT);
+	}
+
+	public ScienceDeltaTest(TestLogger tl, boolean packed_layout) {
+		super(new HarnessSystem(TelecommandExecutionTask.MAX_QUEUE_LENGTH, packed_layout), tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+
+		testFirstDelta();
+		testNoChanges();
+		testNewEvents();
+		testEventsDuringDelta();
+		testFullDump();
+
+		reportScienceResults("ScienceDeltaTest");
+	}
+
+	/** Send a delta telemetry up to its last TM interrupt, and parse it
+	 *  into slots; returns the octets after the first TM word. */
+	private int startDelta() {
+		sendTC(SEND_SCIENCE_DATA_DELTA, SEND_SCIENCE_DATA_DELTA);
+		checkNoErrors();
+		checkTcState(TC_State.SC_TM_e);
+		handleTC(Prob4a);
+
+		int octets = tctmTask.drainTelemetry(block);
+		checkTrue(tctmTask.telemetryIndexAtEnd());
+
+		ScienceDataFile science_data = tctmTask.science_data;
+		checkEquals("length", octets + 2,
+				2 * science_data.getByte(0) + 512 * science_data.getByte(1));
+
+		/* block[i] is telemetry byte i + 2 */
+		int header = ScienceDeltaTelemetry.HEADER_SIZE - 2;
+		boolean same = true;
+		for (int i = 0; i < header; i++) {
+			if ((block[i] & 0xff) != science_data.getByte(i + 2)) same = false;
+		}
+		checkTrue(same);
+
+		entries = (octets - header) / ScienceDeltaTelemetry.ENTRY_SIZE;
+		checkEquals("whole entries", header + entries * ScienceDeltaTelemetry.ENTRY_SIZE, octets);
+		for (int e = 0; e < entries && e < slots.length; e++) {
+			int at = header + e * ScienceDeltaTelemetry.ENTRY_SIZE;
+			slots[e] = (block[at] & 0xff) | (block[at+1] & 0xff) << 8;
+
+			int offset = science_data.getEventByteOffset(slots[e]);
+			for (int i = 0; i < EventRecord.SIZE_IN_BYTES; i++) {
+				if ((block[at+2+i] & 0xff) != science_data.getByte(offset + i)) same = false;
+			}
+		}
+		checkTrue(same);
+		return octets;
+	}
+
+	private void testFirstDelta() {
+		testcase("Science delta TM, records since boot");
+
+		for (int i = 0; i < 5; i++) recordEvent(10 + i);
+
+		startDelta();
+		endScienceTm();
+
+		checkEquals("entries", entries, 5);
+		for (int e = 0; e < entries; e++) {
+			checkEquals("slot", slots[e], e);
+		}
+		checkEquals("records kept", tctmTask.getFreeSlotIndex(), 5);
+	}
+
+	private void testNoChanges() {
+		testcase("Science delta TM, no changes");
+
+		startDelta();
+		endScienceTm();
+
+		checkZero(entries);
+		checkEquals("records kept", tctmTask.getFreeSlotIndex(), 5);
+	}
+
+	private void testNewEvents() {
+		testcase("Science delta TM, new records only");
+
+		recordEvent(20);
+		recordEvent(21);
+
+		startDelta();
+		endScienceTm();
+
+		checkEquals("entries", entries, 2);
+		checkEquals("slot", slots[0], 5);
+		checkEquals("slot", slots[1], 6);
+	}
+
+	private void testEventsDuringDelta() {
+		testcase("Science delta TM, events during TM sent by the next one");
+
+		recordEvent(30);
+
+		startDelta();
+		checkEquals("entries", entries, 1);
+
+		/* Queued until the telemetry ends: */
+		recordEvent(31);
+		recordEvent(32);
+		checkEquals("queued", tctmTask.getEventQueueLength(), 2);
+		checkEquals("not stored", tctmTask.getFreeSlotIndex(), 8);
+
+		endScienceTm();
+
+		checkZero(tctmTask.getEventQueueLength());
+		checkEquals("stored", tctmTask.getFreeSlotIndex(), 10);
+
+		startDelta();
+		endScienceTm();
+
+		checkEquals("entries", entries, 2);
+		checkEquals("slot", slots[0], 8);
+		checkEquals("slot", slots[1], 9);
+	}
+
+	private void testFullDump() {
+		testcase("Science delta TM, nothing changed after a full dump");
+
+		recordEvent(40);
+
+		sendTC(SEND_SCIENCE_DATA_FILE, SEND_SCIENCE_DATA_FILE);
+		handleTC(Prob4a);
+		tctmTask.drainTelemetry(block);
+		endScienceTm();
+
+		checkZero(tctmTask.getFreeSlotIndex());
+
+		startDelta();
+		endScienceTm();
+
+		checkZero(entries);
+	}
+}
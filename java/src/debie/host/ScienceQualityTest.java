@@ -0,0 +1,162 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import static debie.telecommand.TcAddress.*;
+
+import java.util.Random;
+
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.particles.EventRecord;
+import debie.telecommand.QualityOrder;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.ScienceEntryTelemetry;
+import debie.target.HwIf;
+import debie.telecommand.TelecommandExecutionTask;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Science telemetry by quality: the download order of QualityOrder
+ *  against a reference order, and a dump of a Science Data File where
+ *  records are replaced. */
+public class ScienceQualityTest extends ScienceTmTest {
+
+	private static final int SLOTS = 40;
+	private static final int UPDATES = 5000;
+
+
+	public ScienceQualityTest(TestLogger tl) {
+		this(tl, ScienceDataFile.PACKED_LAYOUT);
+	}
+
+	public ScienceQualityTest(TestLogger tl, boolean packed_layout) {
+		super(new HarnessSystem(TelecommandExecutionTask.MAX_QUEUE_LENGTH, packed_layout), tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testOrder();
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+
+		testDump();
+
+		reportScienceResults("ScienceQualityTest");
+	}
+
+	/** true if slot a is downloaded before slot b, by quality number and
+	 *  then by the sequence number of the last update */
+	private static boolean before(int[] quality, int[] sequence, int a, int b) {
+		if (quality[a] != quality[b]) return quality[a] > quality[b];
+		return sequence[a] > sequence[b];
+	}
+
+	private void testOrder() {
+		testcase("Quality order, random updates against reference order");
+
+		QualityOrder order = new QualityOrder(SLOTS);
+		int[] quality  = new int[SLOTS];
+		int[] sequence = new int[SLOTS];
+		boolean[] used = new boolean[SLOTS];
+		int n = 0;
+
+		Random random = new Random(18);
+		int mismatches = 0;
+
+		for (int u = 1; u <= UPDATES; u++) {
+			int slot = random.nextInt(SLOTS);
+			/* Few distinct quality numbers, to exercise the recency order: */
+			quality[slot]  = random.nextInt(8) * 36;
+			sequence[slot] = u;
+			if (!used[slot]) n++;
+			used[slot] = true;
+			order.update(slot, quality[slot]);
+
+			if (u % 50 != 0) continue;
+
+			/* Walk the order: every used slot once, in reference order. */
+			boolean[] seen = new boolean[SLOTS];
+			int count = 0;
+			int previous = QualityOrder.NO_SLOT;
+			for (int s = order.first(); s != QualityOrder.NO_SLOT; s = order.next(s)) {
+				if (seen[s] || !used[s]) mismatches++;
+				if (previous != QualityOrder.NO_SLOT && !before(quality, sequence, previous, s)) mismatches++;
+				seen[s] = true;
+				previous = s;
+				count++;
+				if (count > SLOTS) break;
+			}
+			if (count != n || order.size() != n) mismatches++;
+		}
+		checkZero(mismatches);
+
+		order.clear();
+		checkZero(order.size());
+		checkEquals("empty", order.first(), QualityOrder.NO_SLOT);
+	}
+
+	private void testDump() {
+		testcase("Science TM by quality, Science Data full");
+
+		Random random = new Random(180);
+		tctmTask.max_events = SLOTS;
+
+		/* Fill the Science Data, then replace the lowest records: */
+		for (int i = 0; i < 3 * SLOTS; i++) {
+			recordEvent(random.nextInt(200));
+		}
+		checkEquals("full", tctmTask.getFreeSlotIndex(), SLOTS);
+
+		ScienceDataFile science_data = tctmTask.science_data;
+
+		sendTC(SEND_SCIENCE_DATA_BY_QUALITY, SEND_SCIENCE_DATA_BY_QUALITY);
+		checkNoErrors();
+		checkTcState(TC_State.SC_TM_e);
+		handleTC(Prob4a);
+
+		int octets = tctmTask.drainTelemetry(block);
+		checkTrue(tctmTask.telemetryIndexAtEnd());
+		checkEquals("length", octets + 2,
+				2 * science_data.getByte(0) + 512 * science_data.getByte(1));
+
+		/* block[i] is telemetry byte i + 2 */
+		int header  = ScienceEntryTelemetry.HEADER_SIZE - 2;
+		int entries = (octets - header) / ScienceEntryTelemetry.ENTRY_SIZE;
+		checkEquals("entries", entries, SLOTS);
+
+		boolean[] seen = new boolean[SLOTS];
+		int mismatches = 0;
+		int previous_quality = 256;
+		int previous_time = Integer.MAX_VALUE;
+		for (int e = 0; e < entries; e++) {
+			int at = header + e * ScienceEntryTelemetry.ENTRY_SIZE;
+			int slot = (block[at] & 0xff) | (block[at+1] & 0xff) << 8;
+			if (slot >= SLOTS || seen[slot]) { mismatches++; continue; }
+			seen[slot] = true;
+
+			int offset = science_data.getEventByteOffset(slot);
+			for (int i = 0; i < EventRecord.SIZE_IN_BYTES; i++) {
+				if ((block[at+2+i] & 0xff) != science_data.getByte(offset + i)) mismatches++;
+			}
+
+			/* Best first, then most recent first: */
+			int quality = block[at+2] & 0xff;
+			int time = (block[at+6] & 0xff) | (block[at+7] & 0xff) << 8;
+			if (quality > previous_quality) mismatches++;
+			if (quality == previous_quality && time > previous_time) mismatches++;
+			previous_quality = quality;
+			previous_time = time;
+		}
+		checkZero(mismatches);
+
+		/* The end of the dump clears the Science Data, as a full dump: */
+		tctmTask.tmInterruptService();
+		handleTC(Prob4a);
+		checkTcState(TC_State.TC_handling_e);
+		checkZero(tctmTask.getFreeSlotIndex());
+		checkZero(tctmTask.science_data.getQualityOrder().size());
+
+		tctmTask.max_events = HwIf.MAX_EVENTS;
+	}
+}
@@ -0,0 +1,57 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import debie.harness.HarnessSystem;
+import debie.harness.HarnessTest;
+import debie.harness.TestLogger;
+import debie.particles.EventRecord;
+import debie.telecommand.ObjectScienceDataFile;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Common fixture of the Science telemetry tests: events recorded with
+ *  increasing hit times, and a buffer for the telemetry blocks. The tests
+ *  run against either layout of the Science Data File. */
+public abstract class ScienceTmTest extends HarnessTest {
+
+	protected final byte[] record = new byte[EventRecord.SIZE_IN_BYTES];
+	protected final byte[] block  = new byte[ScienceDataFile.sizeInBytes() * 2];
+
+	/* Hit time of the last recorded event */
+	protected int hit_time;
+
+	public ScienceTmTest(HarnessSystem sys, TestLogger tl) {
+		super(sys, tl);
+	}
+
+	/** Record an event with the given quality number; its hit time tells
+	 *  the order of the events. */
+	protected void recordEvent(int quality_number) {
+		hit_time++;
+		record[0] = (byte)quality_number;
+		record[1] = 1;                 /* classification */
+		record[2] = 1;                 /* SU number */
+		record[4] = (byte)hit_time;
+		record[5] = (byte)(hit_time >> 8);
+		tctmTask.getFreeRecord().unpack(record, 0);
+		tctmTask.recordEvent();
+	}
+
+	/** Report the results, under a name that tells the layout of the
+	 *  Science Data File unless it is the one selected by PACKED_LAYOUT */
+	protected void reportScienceResults(String name) {
+		boolean packed_layout = !(tctmTask.science_data instanceof ObjectScienceDataFile);
+
+		if (packed_layout != ScienceDataFile.PACKED_LAYOUT) {
+			name += packed_layout ? " (packed layout)" : " (object layout)";
+		}
+		reportTestResults(name);
+	}
+
+	/** The TM interrupt and TM_READY that end a science telemetry */
+	protected void endScienceTm() {
+		tctmTask.tmInterruptService();
+		handleTC(Prob4a);
+		checkTcState(TC_State.TC_handling_e);
+	}
+}
@@ -0,0 +1,302 @@
+package debie.host;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import debie.harness.HarnessSystem;
+
+/**
+ * Checkpoint of the whole state of a HarnessSystem, which can be restored
+ * into the same system any number of times: telemetry data, the Science
+ * Data File, the state machines of the tasks, the Dpu memory, the mailboxes
+ * and the simulators (AdcSim, SensorUnitSim, TcTmSim, RandomSim), so that
+ * benchmark iterations and test runs start from the same warm state without
+ * booting again.
+ * <p>
+ * The checkpoint walks the objects reachable from the system when it is
+ * taken, and keeps a flat layout of them: the variable scalar fields, whose
+ * values are kept in one long array; the variable reference fields; and the
+ * arrays, whose contents are kept in copies. Restoring copies the arrays
+ * back with System.arraycopy and sets the fields from the layout, without
+ * walking the objects again or allocating memory. Objects allocated after
+ * the checkpoint, such as memory pages written since, are dropped by the
+ * references restored.
+ * <p>
+ * Constants are not part of the state: final scalar fields, enum constants,
+ * and the objects of static fields of the DEBIE classes, such as the tables
+ * and zero pages they share. The pages of a code image shared with other
+ * systems are kept, and restored with the contents they already have.
+ * <p>
+ * Uses reflection, so it is for the host only, as the rest of this package.
+ */
+public class SystemCheckpoint {
+
+	/* Kinds of scalar fields */
+	private static final int BOOLEAN = 0;
+	private static final int BYTE    = 1;
+	private static final int CHAR    = 2;
+	private static final int SHORT   = 3;
+	private static final int INT     = 4;
+	private static final int LONG    = 5;
+	private static final int FLOAT   = 6;
+	private static final int DOUBLE  = 7;
+
+	private final HarnessSystem system;
+
+	/* Scalar fields: the object, the field, its kind, and its value */
+	private final Object[] scalar_objects;
+	private final Field[]  scalar_fields;
+	private final int[]    scalar_kinds;
+	private final long[]   scalar_values;
+
+	/* Reference fields: the object, the field, and its value */
+	private final Object[] ref_objects;
+	private final Field[]  ref_fields;
+	private final Object[] ref_values;
+
+	/* Arrays, of scalars or references, and copies of their contents */
+	private final Object[] arrays;
+	private final Object[] array_copies;
+
+	private final int objects;
+	private final long size_in_bytes;
+
+	/** Take a checkpoint of the current state of the system. */
+	public SystemCheckpoint(HarnessSystem system) {
+		this.system = system;
+
+		/* Walk once to find the classes, then again without their constants */
+		IdentityHashMap<Object, Object> seen = new IdentityHashMap<Object, Object>();
+		IdentityHashMap<Object, Object> classes = new IdentityHashMap<Object, Object>();
+		for (Object obj : walk(system, seen)) {
+			for (Class<?> c = obj.getClass(); c != null; c = c.getSuperclass()) {
+				classes.put(c, c);
+			}
+		}
+		seen.clear();
+		for (Object c : classes.keySet()) {
+			excludeStatics((Class<?>)c, seen);
+		}
+		ArrayList<Object> queue = walk(system, seen);
+
+		ArrayList<Object> s_objects = new ArrayList<Object>();
+		ArrayList<Field> s_fields = new ArrayList<Field>();
+		ArrayList<Object> r_objects = new ArrayList<Object>();
+		ArrayList<Field> r_fields = new ArrayList<Field>();
+		ArrayList<Object> a_list = new ArrayList<Object>();
+
+		long size = 0;
+		for (Object obj : queue) {
+			Class<?> cls = obj.getClass();
+
+			if (cls.isArray()) {
+				a_list.add(obj);
+				size += (long)Array.getLength(obj) * elementSize(cls.getComponentType());
+				continue;
+			}
+			for (Class<?> c = cls; c != Object.class; c = c.getSuperclass()) {
+				for (Field f : c.getDeclaredFields()) {
+					int modifiers = f.getModifiers();
+					if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) continue;
+					f.setAccessible(true);
+
+					if (f.getType().isPrimitive()) {
+						s_objects.add(obj);
+						s_fields.add(f);
+						size += 8;
+					} else {
+						r_objects.add(obj);
+						r_fields.add(f);
+						size += 4;
+					}
+				}
+			}
+		}
+
+		this.objects = queue.size();
+		this.size_in_bytes = size;
+
+		this.scalar_objects = s_objects.toArray();
+		this.scalar_fields = s_fields.toArray(new Field[s_fields.size()]);
+		this.scalar_kinds = new int[scalar_fields.length];
+		this.scalar_values = new long[scalar_fields.length];
+		for (int i = 0; i < scalar_fields.length; i++) {
+			scalar_kinds[i] = kindOf(scalar_fields[i].getType());
+		}
+
+		this.ref_objects = r_objects.toArray();
+		this.ref_fields = r_fields.toArray(new Field[r_fields.size()]);
+		this.ref_values = new Object[ref_fields.length];
+
+		this.arrays = a_list.toArray();
+		this.array_copies = new Object[arrays.length];
+		for (int i = 0; i < arrays.length; i++) {
+			array_copies[i] = Array.newInstance(arrays[i].getClass().getComponentType(),
+					Array.getLength(arrays[i]));
+		}
+
+		save();
+	}
+
+	/** The objects reachable from the root, in the order they are found,
+	 *  except those already seen. */
+	private static ArrayList<Object> walk(Object root, IdentityHashMap<Object, Object> seen) {
+		ArrayList<Object> queue = new ArrayList<Object>();
+
+		visit(root, seen, queue);
+		for (int next = 0; next < queue.size(); next++) {
+			Object obj = queue.get(next);
+			Class<?> cls = obj.getClass();
+
+			if (cls.isArray()) {
+				if (!cls.getComponentType().isPrimitive()) {
+					Object[] elements = (Object[])obj;
+					for (int i = 0; i < elements.length; i++) {
+						visit(elements[i], seen, queue);
+					}
+				}
+				continue;
+			}
+			for (Class<?> c = cls; c != Object.class; c = c.getSuperclass()) {
+				for (Field f : c.getDeclaredFields()) {
+					if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) continue;
+					f.setAccessible(true);
+					visit(get(f, obj), seen, queue);
+				}
+			}
+		}
+		return queue;
+	}
+
+	/** Walk an object, unless it is null, walked already, or a constant. */
+	private static void visit(Object obj, IdentityHashMap<Object, Object> seen, ArrayList<Object> queue) {
+		if (obj == null || seen.containsKey(obj)) return;
+
+		Class<?> cls = obj.getClass();
+		if (!cls.isArray() && !cls.getName().startsWith("debie.")) {
+			throw new IllegalStateException("no checkpoint of " + cls.getName());
+		}
+		seen.put(obj, obj);
+		if (obj instanceof Enum) return;
+		queue.add(obj);
+	}
+
+	/** The objects of the static fields of a class are constants, and not
+	 *  walked. */
+	private static void excludeStatics(Class<?> cls, IdentityHashMap<Object, Object> seen) {
+		for (Field f : cls.getDeclaredFields()) {
+			if (!Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) continue;
+			f.setAccessible(true);
+			Object value = get(f, null);
+			if (value != null) seen.put(value, value);
+		}
+	}
+
+	private static Object get(Field f, Object obj) {
+		try {
+			return f.get(obj);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static int kindOf(Class<?> type) {
+		if (type == boolean.class) return BOOLEAN;
+		if (type == byte.class)    return BYTE;
+		if (type == char.class)    return CHAR;
+		if (type == short.class)   return SHORT;
+		if (type == int.class)     return INT;
+		if (type == long.class)    return LONG;
+		if (type == float.class)   return FLOAT;
+		return DOUBLE;
+	}
+
+	private static int elementSize(Class<?> type) {
+		if (type == boolean.class || type == byte.class) return 1;
+		if (type == char.class || type == short.class) return 2;
+		if (type == long.class || type == double.class) return 8;
+		return 4; /* int, float, or a reference */
+	}
+
+	/** Keep the current values of the state, in the same layout. */
+	private void save() {
+		try {
+			for (int i = 0; i < scalar_fields.length; i++) {
+				Field f = scalar_fields[i];
+				Object obj = scalar_objects[i];
+				long v;
+				switch (scalar_kinds[i]) {
+				case BOOLEAN: v = f.getBoolean(obj) ? 1 : 0; break;
+				case BYTE:    v = f.getByte(obj); break;
+				case CHAR:    v = f.getChar(obj); break;
+				case SHORT:   v = f.getShort(obj); break;
+				case INT:     v = f.getInt(obj); break;
+				case LONG:    v = f.getLong(obj); break;
+				case FLOAT:   v = Float.floatToRawIntBits(f.getFloat(obj)); break;
+				default:      v = Double.doubleToRawLongBits(f.getDouble(obj)); break;
+				}
+				scalar_values[i] = v;
+			}
+			for (int i = 0; i < ref_fields.length; i++) {
+				ref_values[i] = ref_fields[i].get(ref_objects[i]);
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		for (int i = 0; i < arrays.length; i++) {
+			System.arraycopy(arrays[i], 0, array_copies[i], 0, Array.getLength(arrays[i]));
+		}
+	}
+
+	/** Restore the system to the state of the checkpoint. */
+	public void restore() {
+		for (int i = 0; i < arrays.length; i++) {
+			System.arraycopy(array_copies[i], 0, arrays[i], 0, Array.getLength(arrays[i]));
+		}
+		try {
+			for (int i = 0; i < ref_fields.length; i++) {
+				ref_fields[i].set(ref_objects[i], ref_values[i]);
+			}
+			for (int i = 0; i < scalar_fields.length; i++) {
+				Field f = scalar_fields[i];
+				Object obj = scalar_objects[i];
+				long v = scalar_values[i];
+				switch (scalar_kinds[i]) {
+				case BOOLEAN: f.setBoolean(obj, v != 0); break;
+				case BYTE:    f.setByte(obj, (byte)v); break;
+				case CHAR:    f.setChar(obj, (char)v); break;
+				case SHORT:   f.setShort(obj, (short)v); break;
+				case INT:     f.setInt(obj, (int)v); break;
+				case LONG:    f.setLong(obj, v); break;
+				case FLOAT:   f.setFloat(obj, Float.intBitsToFloat((int)v)); break;
+				default:      f.setDouble(obj, Double.longBitsToDouble(v)); break;
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public HarnessSystem getSystem() {
+		return system;
+	}
+
+	/** Number of objects and arrays in the checkpoint */
+	public int getObjects() {
+		return objects;
+	}
+
+	/** Bytes of state kept: scalar fields as 8 bytes, references as 4,
+	 *  and the contents of the arrays */
+	public long getSizeInBytes() {
+		return size_in_bytes;
+	}
+
+	public String toString() {
+		return String.format("%d objects, %d scalar fields, %d reference fields, %d arrays, %d bytes",
+				objects, scalar_fields.length, ref_fields.length, arrays.length, size_in_bytes);
+	}
+}
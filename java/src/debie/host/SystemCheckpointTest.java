@@ -0,0 +1,154 @@
+package debie.host;
+
+import static debie.harness.Harness.Prob4a;
+import static debie.harness.Harness.Prob6a;
+import static debie.target.SensorUnitDev.NUM_SU;
+import static debie.telecommand.TcAddress.*;
+
+import debie.harness.HarnessSystem;
+import debie.harness.HarnessTest;
+import debie.harness.TestLogger;
+import debie.particles.SensorUnit.SensorUnitState;
+import debie.support.Dpu;
+import debie.support.Mailbox;
+import debie.telecommand.ScienceDataFile;
+import debie.telecommand.TelemetryData;
+import debie.telecommand.TelecommandExecutionTask.TC_State;
+
+/** Checkpoint of a booted system: restored, it gives the state it was
+ *  taken in, and the same run from it gives the same results. */
+public class SystemCheckpointTest extends HarnessTest {
+
+	private static final int ROUNDS = 15;
+
+	private static final int[] switchSUCmd = {
+		SWITCH_SU_1, SWITCH_SU_2, SWITCH_SU_3, SWITCH_SU_4 };
+
+	public SystemCheckpointTest(TestLogger tl) {
+		super(new HarnessSystem(), tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		hmTask.boot();
+		hmTask.initHealthMonitoring();
+		system.getAdcSim().setADNominal();
+
+		testRestore();
+		testRepeat();
+
+		reportTestResults("SystemCheckpointTest");
+	}
+
+	private void testRestore() {
+		testcase("Checkpoint, restored state is the state taken");
+
+		byte[] booted = state();
+		int pages = system.getDpu().getDataMemory().getAllocatedPages();
+		SystemCheckpoint checkpoint = new SystemCheckpoint(system);
+		checkTrue(checkpoint.getObjects() > 0);
+
+		run();
+		checkTrue(!same(state(), booted));
+
+		checkpoint.restore();
+		checkTrue(same(state(), booted));
+		checkEquals("data pages", system.getDpu().getDataMemory().getAllocatedPages(), pages);
+		checkTcState(TC_State.TC_handling_e);
+		checkEquals("mode", system.getTelemetryData().getMode(), TelemetryData.STAND_BY);
+	}
+
+	private void testRepeat() {
+		testcase("Checkpoint, runs from a restored state are the same");
+
+		run();
+		SystemCheckpoint checkpoint = new SystemCheckpoint(system);
+		byte[] start = state();
+
+		run();
+		byte[] first = state();
+		checkpoint.restore();
+		checkTrue(same(state(), start));
+		run();
+		checkTrue(same(state(), first));
+	}
+
+	/** Switch the SUs on, acquire hits, switch the SUs off, and patch
+	 *  code and data memory */
+	private void run() {
+		for (int su = 0; su < NUM_SU; su++) {
+			execTC(switchSUCmd[su], ON_VALUE, Prob4a);
+		}
+		for (int i = 0; i < 50 && !sensorUnitsOn(); i++) {
+			monitorHealth(Prob6a);
+		}
+		execTC(START_ACQUISITION, START_ACQUISITION, Prob4a);
+		checkEquals("acquisition", system.getTelemetryData().getMode(), TelemetryData.ACQUISITION);
+
+		Mailbox acqMailbox = system.getAcqMailbox();
+		for (int r = 0; r < ROUNDS; r++) {
+			triggerSUHit(r % NUM_SU, Prob6a);
+			acqMailbox.setTimeout(0);
+			acqMailbox.waitMail();
+			if (acqMailbox.execution_result == Mailbox.MSG_RECEIVED) {
+				acqTask.handleAcquisition(acqMailbox.message);
+			}
+			monitorHealth(Prob6a);
+		}
+		execTC(STOP_ACQUISITION, STOP_ACQUISITION, Prob4a);
+		for (int su = 0; su < NUM_SU; su++) {
+			execTC(switchSUCmd[su], OFF_VALUE, Prob4a);
+		}
+
+		int chsum = sendPatchCode(0x1100);
+		sendTCWord(0x0000 | chsum);
+		handleTC(Prob4a);
+		chsum = sendPatchData(0x2000);
+		sendTCWord(chsum);
+		handleTC(Prob4a);
+		checkNoErrors();
+	}
+
+	private boolean sensorUnitsOn() {
+		for (int su = 0; su < NUM_SU; su++) {
+			if (acqTask.getSensorUnitState(su) != SensorUnitState.on_e) return false;
+		}
+		return true;
+	}
+
+	/** Telemetry data, the Science Data File, the data and code memory,
+	 *  and the checksum cycle and time of the system */
+	private byte[] state() {
+		int tm_size = TelemetryData.sizeInBytes();
+		int sc_size = ScienceDataFile.sizeInBytes();
+		byte[] state = new byte[tm_size + sc_size + Dpu.DATA_MEMORY_SIZE + 12];
+		Dpu dpu = system.getDpu();
+
+		system.getTelemetryData().copyTo(0, state, 0, tm_size);
+		tctmTask.science_data.copyTo(0, state, tm_size, sc_size);
+		int at = tm_size + sc_size;
+		for (int i = 0; i < Dpu.DATA_MEMORY_SIZE; i++) {
+			state[at++] = dpu.getDataByte(i);
+		}
+		int[] words = {
+			dpu.getCodeChecksum(0, Dpu.CODE_MEMORY_SIZE - 1),
+			hmTask.getChecksumCount(),
+			hmTask.getInternalTime().toInt() };
+		for (int i = 0; i < words.length; i++) {
+			state[at++] = (byte)(words[i] >> 24);
+			state[at++] = (byte)(words[i] >> 16);
+			state[at++] = (byte)(words[i] >> 8);
+			state[at++] = (byte)words[i];
+		}
+		return state;
+	}
+
+	private static boolean same(byte[] a, byte[] b) {
+		if (a.length != b.length) return false;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) return false;
+		}
+		return true;
+	}
+}
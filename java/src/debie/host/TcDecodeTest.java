@@ -0,0 +1,90 @@
+package debie.host;
+
+import static debie.telecommand.TcAddress.*;
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.target.TcTmDev;
+import debie.telecommand.TelecommandExecutionTask;
+
+/** The TC decode table, checked over all 65536 TC words. */
+public class TcDecodeTest extends TestSuite {
+
+	private final TelecommandExecutionTask tctmTask =
+		new HarnessSystem().getTelecommandExecutionTask();
+
+	public TcDecodeTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testParity();
+		testAddressTypes();
+
+		reportTestResults("TcDecodeTest");
+	}
+
+	private static int word(int address, int code) {
+		int msb = address << 1;
+		/* Parity bit for even parity of the whole word: */
+		if ((Integer.bitCount(msb) + Integer.bitCount(code)) % 2 != 0) msb |= 1;
+		return msb * 256 + code;
+	}
+
+	/** Number of TC codes accepted with a TC address */
+	private int accepted(int address) {
+		int n = 0;
+		for (int code = 0; code < 256; code++) {
+			if (tctmTask.getTcStatus(word(address, code)) == 0) n++;
+		}
+		return n;
+	}
+
+	private void testParity() {
+		testcase("TC decode, parity errors of all TC words");
+
+		int mismatches = 0;
+		for (int w = 0; w < 0x10000; w++) {
+			int status = tctmTask.getTcStatus(w);
+			if (Integer.bitCount(w) % 2 != 0) {
+				if (status != TcTmDev.PARITY_ERROR) mismatches++;
+			} else {
+				if (status != 0 && status != TcTmDev.TC_ERROR) mismatches++;
+			}
+		}
+		checkZero(mismatches);
+	}
+
+	private void testAddressTypes() {
+		testcase("TC decode, accepted codes per TC address type");
+
+		int[] only_equal = { START_ACQUISITION, STOP_ACQUISITION, ERROR_STATUS_CLEAR,
+			SEND_SCIENCE_DATA_FILE, SEND_SCIENCE_DATA_DELTA, SEND_SCIENCE_DATA_BY_QUALITY,
+			SEND_SCIENCE_DATA_COMPRESSED, SOFT_RESET,
+			CLEAR_WATCHDOG_FAILURES, CLEAR_CHECKSUM_FAILURES };
+		for (int i = 0; i < only_equal.length; i++) {
+			checkEquals("only equal code", accepted(only_equal[i]), 1);
+			checkZero(tctmTask.getTcStatus(word(only_equal[i], only_equal[i])));
+		}
+
+		checkEquals("even codes up to LAST_EVEN", accepted(SEND_STATUS_REGISTER), LAST_EVEN / 2 + 1);
+		checkEquals("odd code", tctmTask.getTcStatus(word(SEND_STATUS_REGISTER, 3)), TcTmDev.TC_ERROR);
+		checkEquals("too large", tctmTask.getTcStatus(word(SEND_STATUS_REGISTER, LAST_EVEN + 2)), TcTmDev.TC_ERROR);
+
+		int[] on_off = { SWITCH_SU_1, SWITCH_SU_2, SWITCH_SU_3, SWITCH_SU_4 };
+		for (int i = 0; i < on_off.length; i++) {
+			checkEquals("on, off and self test", accepted(on_off[i]), 3);
+			checkZero(tctmTask.getTcStatus(word(on_off[i], SELF_TEST)));
+		}
+
+		int[] all_valid = { SET_TIME_BYTE_0, SET_TIME_BYTE_3, WRITE_CODE_MEMORY_MSB,
+			READ_DATA_MEMORY_LSB, SET_SU_4_PIEZO_2_CLASS_LEVEL, SET_COEFFICIENT_5 };
+		for (int i = 0; i < all_valid.length; i++) {
+			checkEquals("all codes", accepted(all_valid[i]), 256);
+		}
+
+		checkZero(accepted(UNUSED_TC_ADDRESS));
+	}
+}
@@ -0,0 +1,177 @@
+package debie.host;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import debie.harness.HarnessSystem;
+import debie.harness.TestLogger;
+import debie.harness.TestSuite;
+import debie.support.Dpu;
+import debie.telecommand.TelemetryData;
+
+/** The register map of TelemetryData.getByte, against the register
+ *  switch it replaced. Every byte of every field is set to a value that
+ *  names its register, so that each register must read its own value. */
+public class TelemetryMapTest extends TestSuite {
+
+	/* The register map of the former getByte() switch: for each field,
+	 * its first register, the number of elements, and the bytes per
+	 * element (little endian). Registers not listed are not used. */
+	private static final Object[][] OLD_MAP = {
+		{ "error_status",               0,  1, 1 },
+		{ "mode_status",                1,  1, 1 },
+		{ "TC_word",                    2,  1, 2 },
+		{ "TC_time_tag",                4,  1, 4 },
+		{ "watchdog_failures",          8,  1, 1 },
+		{ "checksum_failures",          9,  1, 1 },
+		{ "SW_version",                10,  1, 1 },
+		{ "isr_send_message_error",    11,  1, 1 },
+		{ "SU_status",                 12,  4, 1 },
+		{ "SU_temperature",            16,  8, 1 },
+		{ "DPU_plus_5_digital",        24,  1, 1 },
+		{ "os_send_message_error",     25,  1, 1 },
+		{ "os_create_task_error",      26,  1, 1 },
+		{ "SU_plus_50",                27,  1, 1 },
+		{ "SU_minus_50",               28,  1, 1 },
+		{ "os_disable_isr_error",      29,  1, 1 },
+		{ "sensor_unit_1",             31, 15, 1 },
+		{ "os_wait_error",             46,  1, 1 },
+		{ "sensor_unit_2",             47, 15, 1 },
+		{ "os_attach_interrupt_error", 62,  1, 1 },
+		{ "sensor_unit_3",             63, 15, 1 },
+		{ "os_enable_isr_error",       78,  1, 1 },
+		{ "sensor_unit_4",             79, 15, 1 },
+		{ "failed_code_address",       94,  1, 2 },
+		{ "failed_data_address",       96,  1, 2 },
+		{ "SU_hits",                   98,  4, 2 },
+		{ "time",                     108,  1, 4 },
+		{ "software_error",           112,  1, 1 },
+		{ "hit_budget_exceedings",    113,  1, 1 },
+		{ "coefficient",              114,  5, 1 },
+	};
+
+	/* The settings of a sensor unit, in the order of the former
+	 * SensorUnitSettings.getByte() switch */
+	private static final String[] SU_SETTINGS = {
+		"plus_5_voltage",
+		"minus_5_voltage",
+		"plasma_1_plus_threshold",
+		"plasma_1_minus_threshold",
+		"piezo_threshold",
+		"plasma_1_plus_classification",
+		"plasma_1_minus_classification",
+		"piezo_1_classification",
+		"piezo_2_classification",
+		"plasma_2_plus_classification",
+		"plasma_1_plus_to_minus_max_time",
+		"plasma_1_plus_to_piezo_min_time",
+		"plasma_1_plus_to_piezo_max_time",
+		"plasma_1_minus_to_piezo_min_time",
+		"plasma_1_minus_to_piezo_max_time",
+	};
+
+	public TelemetryMapTest(TestLogger tl) {
+		super(tl);
+	}
+
+	@Override
+	public void runTests() {
+
+		testRegisterMap();
+		testOutOfRange();
+
+		reportTestResults("TelemetryMapTest");
+	}
+
+	/** The value of register reg: distinct for each register, and with
+	 *  the top bit set, so that sign extension is caught as well. */
+	private static int registerValue(int reg) {
+		return 0x80 + reg;
+	}
+
+	private void testRegisterMap() {
+		testcase("Telemetry registers, every register reads the field of the old map");
+
+		TelemetryData tm = new HarnessSystem().getTelemetryData();
+		int[] expected = new int[TelemetryData.sizeInBytes()];
+
+		try {
+			for (int f = 0; f < OLD_MAP.length; f++) {
+				String name  = (String)OLD_MAP[f][0];
+				int first    = ((Integer)OLD_MAP[f][1]).intValue();
+				int count    = ((Integer)OLD_MAP[f][2]).intValue();
+				int bytes    = ((Integer)OLD_MAP[f][3]).intValue();
+
+				for (int i = 0; i < count; i++) {
+					int value = 0;
+					for (int b = 0; b < bytes; b++) {
+						int reg = first + i * bytes + b;
+						expected[reg] = registerValue(reg);
+						value |= registerValue(reg) << (b << 3);
+					}
+					if (name.startsWith("sensor_unit_")) {
+						setField(get(tm, name), SU_SETTINGS[i], value);
+					} else {
+						setElement(tm, name, i, value);
+					}
+				}
+			}
+		} catch (Exception e) {
+			failCheck("cannot set telemetry field: " + e);
+			return;
+		}
+
+		for (int reg = 0; reg < expected.length; reg++) {
+			checkEquals("register " + reg, tm.getByte(reg), expected[reg]);
+		}
+
+		int copied = 0;
+		byte[] dst = new byte[expected.length];
+		tm.copyTo(0, dst, 0, dst.length);
+		for (int reg = 0; reg < expected.length; reg++) {
+			if ((dst[reg] & 0xff) == expected[reg]) copied++;
+		}
+		checkEquals("registers copied", copied, expected.length);
+	}
+
+	private void testOutOfRange() {
+		testcase("Telemetry registers, indices outside the map read as not used");
+
+		TelemetryData tm = new HarnessSystem().getTelemetryData();
+		tm.setErrorStatusRaw((byte)0x5A);
+
+		checkZero(tm.getByte(-1));
+		checkZero(tm.getByte(TelemetryData.sizeInBytes()));
+		checkZero(tm.getByte(1 << TelemetryData.indexBits()));
+	}
+
+	private static Object get(Object obj, String name) throws Exception {
+		Field f = obj.getClass().getDeclaredField(name);
+		f.setAccessible(true);
+		return f.get(obj);
+	}
+
+	/** Set element i of an array field, or the field itself (i == 0) */
+	private static void setElement(Object obj, String name, int i, int value) throws Exception {
+		Object target = get(obj, name);
+		if (target instanceof Dpu.Time) {
+			((Dpu.Time)target).set(value);
+		} else if (target != null && target.getClass().isArray()) {
+			Class<?> type = target.getClass().getComponentType();
+			if (type == byte.class)      Array.setByte(target, i, (byte)value);
+			else if (type == char.class) Array.setChar(target, i, (char)value);
+			else                         Array.setInt(target, i, value);
+		} else {
+			setField(obj, name, value);
+		}
+	}
+
+	private static void setField(Object obj, String name, int value) throws Exception {
+		Field f = obj.getClass().getDeclaredField(name);
+		f.setAccessible(true);
+		Class<?> type = f.getType();
+		if (type == byte.class)      f.setByte(obj, (byte)value);
+		else if (type == char.class) f.setChar(obj, (char)value);
+		else                         f.setInt(obj, value);
+	}
+}
@@ -0,0 +1,39 @@
+package debie.host;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import debie.harness.TimingSource;
+
+/**
+ * CPU time of the measuring thread, from the JVM's thread management
+ * interface. Unlike wall-clock time, it excludes the time the thread is
+ * descheduled, which makes it the closest to a per-thread performance
+ * counter that a JVM offers without native code. Its resolution depends
+ * on the operating system, typically 1 us or better on Linux.
+ */
+public class ThreadCpuTimingSource extends TimingSource {
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	public ThreadCpuTimingSource() {
+		if (!threads.isCurrentThreadCpuTimeSupported()) {
+			throw new UnsupportedOperationException("thread CPU time is not supported by this JVM");
+		}
+		if (!threads.isThreadCpuTimeEnabled()) {
+			threads.setThreadCpuTimeEnabled(true);
+		}
+	}
+
+	public String getName() {
+		return "thread CPU time";
+	}
+
+	public String getUnit() {
+		return "ns";
+	}
+
+	public long read() {
+		return threads.getCurrentThreadCpuTime();
+	}
+}
@@ -0,0 +1,28 @@
+package debie.host;
+
+import debie.harness.Harness;
+import debie.harness.TimingSource;
+
+/**
+ * Runs the JOP test harness on a host JVM with instrumentation, and
+ * prints the distribution of the measured times per analysis problem.
+ * <p>
+ * Usage: TimedHarness [nano | cpu]
+ * <ul>
+ * <li/> nano: wall-clock time, System.nanoTime (the default)
+ * <li/> cpu: CPU time of the harness thread
+ * </ul>
+ */
+public class TimedHarness {
+
+	public static TimingSource timingSource(String name) {
+		if (name.equals("nano")) return new NanoTimingSource();
+		if (name.equals("cpu"))  return new ThreadCpuTimingSource();
+		throw new IllegalArgumentException("unknown timing source: " + name);
+	}
+
+	public static void main(String[] argv) {
+		Harness.setTimingSource(timingSource(argv.length > 0 ? argv[0] : "nano"));
+		Harness.main(new String[0]);
+	}
+}
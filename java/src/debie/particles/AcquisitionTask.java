@@ -27,7 +27,6 @@ import debie.support.KernelObjects;
 import debie.support.Mailbox;
 import debie.support.TaskControl;
 import debie.target.AdConverter;
-import debie.target.HwIf;
 import debie.target.SensorUnitDev;
 import debie.target.SensorUnitDev.Delays;
 import debie.telecommand.TelecommandExecutionTask;
@@ -448,10 +447,10 @@ public class AcquisitionTask {
 				event.plasma_2_plus = ADC_result[4];
 
 				/* Rise time counter is read in to Event Record. */
-				event.rise_time = HwIf.readRiseTimeCounter();
+				event.rise_time = system.getHwIf().readRiseTimeCounter();
 
 				/* Delay counters are read in to a struct. */
-				HwIf.readDelayCounters(delay_counters);
+				system.getHwIf().readDelayCounters(delay_counters);
 
 				/* Delay from plasma 1+ to PZT 1/2 is stored into Event Record. */
 				event.delay_2 = delay_counters.FromPlasma1Plus;
@@ -528,17 +527,17 @@ public class AcquisitionTask {
 
 		tc.waitTimeout(PEAK_RESET_MIN_DELAY);
 
-		HwIf.resetPeakDetector(trigger_unit);
+		system.getHwIf().resetPeakDetector(trigger_unit);
 		/* Peak detector for this Sensor Unit is resetted. */
 
 		tc.waitTimeout(PEAK_RESET_MIN_DELAY);
 
-		HwIf.resetPeakDetector(trigger_unit);
+		system.getHwIf().resetPeakDetector(trigger_unit);
 		/* Peak detector for this Sensor Unit is resetted again. */
 
 		tc.waitTimeout(COUNTER_RESET_MIN_DELAY);
 
-		HwIf.resetDelayCounters();
+		system.getHwIf().resetDelayCounters();
 		/* The Delay Counters are reset. */
 	}
 
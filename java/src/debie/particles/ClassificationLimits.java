@@ -0,0 +1,101 @@
+package debie.particles;
+
+import static debie.target.SensorUnitDev.NUM_SU;
+
+/**
+ * The classification levels and time windows of all Sensor Units, scaled
+ * to the units of the event record. Classification compares a hit with
+ * these directly, without looking up and scaling the settings of the
+ * Sensor Unit for every hit. The limits of a Sensor Unit must be updated
+ * whenever its settings change.
+ */
+public class ClassificationLimits {
+
+	/* Limits of one Sensor Unit, in this order: */
+	public static final int PLASMA_1_PLUS_LEVEL          = 0;
+	public static final int PLASMA_1_MINUS_LEVEL         = 1;
+	public static final int PIEZO_1_LEVEL                = 2;
+	public static final int PIEZO_2_LEVEL                = 3;
+	public static final int PLASMA_2_PLUS_LEVEL          = 4;
+	public static final int PLASMA_1_PLUS_TO_PIEZO_MIN   = 5;
+	public static final int PLASMA_1_PLUS_TO_PIEZO_MAX   = 6;
+	public static final int PLASMA_1_MINUS_TO_PIEZO_MIN  = 7;
+	public static final int PLASMA_1_MINUS_TO_PIEZO_MAX  = 8;
+	public static final int PLASMA_1_PLUS_TO_MINUS_MAX   = 9;
+
+	public static final int NUM_LIMITS = 10;
+
+	/** Limits indexed by sensor_index * NUM_LIMITS + limit */
+	private final int[] limit = new int[NUM_SU * NUM_LIMITS];
+
+	/** Rescale the limits of a Sensor Unit from its settings. */
+	public void update(int sensor_index, SensorUnitSettings settings) {
+
+		int base = sensor_index * NUM_LIMITS;
+
+		limit[base + PLASMA_1_PLUS_LEVEL]  = settings.plasma_1_plus_classification * 256;
+		limit[base + PLASMA_1_MINUS_LEVEL] = settings.plasma_1_minus_classification * 256;
+		limit[base + PIEZO_1_LEVEL]        = settings.piezo_1_classification * 256;
+		limit[base + PIEZO_2_LEVEL]        = settings.piezo_2_classification * 256;
+		limit[base + PLASMA_2_PLUS_LEVEL]  = settings.plasma_2_plus_classification * 256;
+
+		limit[base + PLASMA_1_PLUS_TO_PIEZO_MIN]  = settings.plasma_1_plus_to_piezo_min_time * 16;
+		limit[base + PLASMA_1_PLUS_TO_PIEZO_MAX]  = settings.plasma_1_plus_to_piezo_max_time * 16;
+		limit[base + PLASMA_1_MINUS_TO_PIEZO_MIN] = settings.plasma_1_minus_to_piezo_min_time * 16;
+		limit[base + PLASMA_1_MINUS_TO_PIEZO_MAX] = settings.plasma_1_minus_to_piezo_max_time * 16;
+		limit[base + PLASMA_1_PLUS_TO_MINUS_MAX]  = settings.plasma_1_plus_to_minus_max_time;
+	}
+
+	/** One limit of a Sensor Unit, in the units of the event record */
+	public int getLimit(int sensor_index, int which) {
+
+		return limit[sensor_index * NUM_LIMITS + which];
+	}
+
+	/** Purpose        : Computes the index of an event in the class table.
+	 *  Interface      : inputs      - Sensor Unit index and the signal
+	 *                                 amplitudes and delays of the event.
+	 *                   outputs     - class index is returned.
+	 *  Preconditions  : The limits of the Sensor Unit are up to date.
+	 *  Postconditions : none.
+	 *  Algorithm      : A bit of the class index is set for each amplitude
+	 *                   above its classification level, and for each delay
+	 *                   inside its time window. */
+	public int getClassIndex(int sensor_index,
+			int plasma_1_plus, int plasma_1_minus,
+			int piezo_1, int piezo_2, int plasma_2_plus,
+			int delay_1, int delay_2, int delay_3) {
+
+		int base = sensor_index * NUM_LIMITS;
+		int class_index = 0;
+
+		if (plasma_1_plus >= limit[base + PLASMA_1_PLUS_LEVEL]) {
+			class_index |= EventRecord.PLASMA_1_PLUS_CLASS;
+		}
+		if (plasma_1_minus >= limit[base + PLASMA_1_MINUS_LEVEL]) {
+			class_index |= EventRecord.PLASMA_1_MINUS_CLASS;
+		}
+		if (piezo_1 >= limit[base + PIEZO_1_LEVEL]) {
+			class_index |= EventRecord.PIEZO_1_CLASS;
+		}
+		if (piezo_2 >= limit[base + PIEZO_2_LEVEL]) {
+			class_index |= EventRecord.PIEZO_2_CLASS;
+		}
+		if (plasma_2_plus >= limit[base + PLASMA_2_PLUS_LEVEL]) {
+			class_index |= EventRecord.PLASMA_2_PLUS_CLASS;
+		}
+		if (delay_2 >= limit[base + PLASMA_1_PLUS_TO_PIEZO_MIN] &&
+			delay_2 <= limit[base + PLASMA_1_PLUS_TO_PIEZO_MAX]) {
+			class_index |= EventRecord.PLASMA_1_PLUS_TO_PIEZO_CLASS;
+		}
+		if (delay_3 >= limit[base + PLASMA_1_MINUS_TO_PIEZO_MIN] &&
+			delay_3 <= limit[base + PLASMA_1_MINUS_TO_PIEZO_MAX]) {
+			class_index |= EventRecord.PLASMA_1_MINUS_TO_PIEZO_CLASS;
+		}
+		if (delay_1 <= limit[base + PLASMA_1_PLUS_TO_MINUS_MAX]) {
+			class_index |= EventRecord.PLASMA_1_PLUS_TO_MINUS_CLASS;
+		}
+
+		return class_index;
+	}
+}
@@ -0,0 +1,223 @@
+package debie.particles;
+
+import static debie.particles.ClassificationLimits.*;
+import static debie.target.SensorUnitDev.NUM_SU;
+import debie.target.SensorUnitDev;
+
+/**
+ * A batch of event records, for reclassifying events after they have
+ * been downloaded, e.g. with new classification levels or quality
+ * coefficients. The fields used by the classification are held in one
+ * int array per field, and each classification step is a pass over one of
+ * these columns.
+ * <p>
+ * The passes have no branches and no table look-ups per record, so that
+ * the JIT compiler can vectorize them: the compares are done with sign
+ * arithmetic, and the limit of the Sensor Unit of each record is selected
+ * with two bit masks, kept as columns when the record is added, from the
+ * limits of the four Sensor Units. The quality terms are computed from the
+ * coefficients instead of looked up. Only the look-up of the class is left.
+ * The results are the same as those of EventRecord.classify for each
+ * record.
+ */
+public class EventBatch {
+
+	private final int capacity;
+	private int size;
+
+	/* Input columns, as in EventRecord */
+	public final byte[] SU_number;
+	public final int[] plasma_1_plus;
+	public final int[] plasma_1_minus;
+	public final int[] piezo_1;
+	public final int[] piezo_2;
+	public final int[] plasma_2_plus;
+	public final int[] delay_1;
+	public final int[] delay_2;
+	public final int[] delay_3;
+
+	/* Output columns */
+	public final int[] classification;
+	public final int[] quality_number;
+
+	/* Bits 0 and 1 of the Sensor Unit index of each record, as masks of
+	 * all ones or all zeros, to select the limits of the Sensor Unit */
+	private final int[] su_bit_0;
+	private final int[] su_bit_1;
+
+	/* Class indices, and the limits of the current pass per Sensor Unit */
+	private final int[] class_index;
+	private final int[] low  = new int[NUM_SU];
+	private final int[] high = new int[NUM_SU];
+
+	public EventBatch(int capacity) {
+		this.capacity = capacity;
+		SU_number      = new byte[capacity];
+		plasma_1_plus  = new int[capacity];
+		plasma_1_minus = new int[capacity];
+		piezo_1        = new int[capacity];
+		piezo_2        = new int[capacity];
+		plasma_2_plus  = new int[capacity];
+		delay_1        = new int[capacity];
+		delay_2        = new int[capacity];
+		delay_3        = new int[capacity];
+		classification = new int[capacity];
+		quality_number = new int[capacity];
+		su_bit_0       = new int[capacity];
+		su_bit_1       = new int[capacity];
+		class_index    = new int[capacity];
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/** Add a record in its telemetry layout (see EventRecord.pack).
+	 *  Returns false, and skips the record, if the batch is full or the
+	 *  record does not come from a valid Sensor Unit. */
+	public boolean add(byte[] src, int offset) {
+
+		int su = src[offset+2];
+
+		if (size == capacity || su < SensorUnitDev.SU_1 || su > SensorUnitDev.SU_4) {
+			return false;
+		}
+		SU_number[size]      = (byte)su;
+		plasma_1_plus[size]  = EventRecord.unpackWord(src, offset+10);
+		plasma_1_minus[size] = EventRecord.unpackWord(src, offset+12);
+		piezo_1[size]        = EventRecord.unpackWord(src, offset+14);
+		piezo_2[size]        = EventRecord.unpackWord(src, offset+16);
+		plasma_2_plus[size]  = EventRecord.unpackWord(src, offset+18);
+		delay_1[size]        = src[offset+21];
+		delay_2[size]        = EventRecord.unpackWord(src, offset+22);
+		delay_3[size]        = EventRecord.unpackWord(src, offset+24);
+		su_bit_0[size]       = -((su - SensorUnitDev.SU_1) & 1);
+		su_bit_1[size]       = -(((su - SensorUnitDev.SU_1) >> 1) & 1);
+		size++;
+		return true;
+	}
+
+	/** Purpose        : Classifies all events of the batch.
+	 *  Interface      : inputs      - classification limits and quality
+	 *                                 table, as in the telemetry data.
+	 *                               - self_test[i] tells whether Sensor
+	 *                                 Unit i was in self test; may be null.
+	 *                   outputs     - classification and quality_number.
+	 *  Algorithm      : as EventRecord.classify, one column at a time. */
+	public void classify(ClassificationLimits limits, QualityTable quality, boolean[] self_test) {
+
+		classify(limits, quality, self_test, 0, size);
+	}
+
+	/** Classify the events from .. to-1. */
+	public void classify(ClassificationLimits limits, QualityTable quality,
+			boolean[] self_test, int from, int to) {
+
+		for (int i = from; i < to; i++) {
+			class_index[i] = 0;
+		}
+
+		levelPass(limits, PLASMA_1_PLUS_LEVEL,  plasma_1_plus,  EventRecord.PLASMA_1_PLUS_CLASS, from, to);
+		levelPass(limits, PLASMA_1_MINUS_LEVEL, plasma_1_minus, EventRecord.PLASMA_1_MINUS_CLASS, from, to);
+		levelPass(limits, PIEZO_1_LEVEL,        piezo_1,        EventRecord.PIEZO_1_CLASS, from, to);
+		levelPass(limits, PIEZO_2_LEVEL,        piezo_2,        EventRecord.PIEZO_2_CLASS, from, to);
+		levelPass(limits, PLASMA_2_PLUS_LEVEL,  plasma_2_plus,  EventRecord.PLASMA_2_PLUS_CLASS, from, to);
+
+		windowPass(limits, PLASMA_1_PLUS_TO_PIEZO_MIN, PLASMA_1_PLUS_TO_PIEZO_MAX,
+				delay_2, EventRecord.PLASMA_1_PLUS_TO_PIEZO_CLASS, from, to);
+		windowPass(limits, PLASMA_1_MINUS_TO_PIEZO_MIN, PLASMA_1_MINUS_TO_PIEZO_MAX,
+				delay_3, EventRecord.PLASMA_1_MINUS_TO_PIEZO_CLASS, from, to);
+
+		setLimits(limits, PLASMA_1_PLUS_TO_MINUS_MAX, high);
+		int h0 = high[0], h1 = high[1], h2 = high[2], h3 = high[3];
+		int bit = EventRecord.PLASMA_1_PLUS_TO_MINUS_CLASS;
+		for (int i = from; i < to; i++) {
+			int h = select(su_bit_1[i], select(su_bit_0[i], h0, h1), select(su_bit_0[i], h2, h3));
+			class_index[i] |= bit & ((delay_1[i] - h - 1) >> 31);
+		}
+
+		for (int i = from; i < to; i++) {
+			classification[i] = EventRecord.EventClass[class_index[i]];
+		}
+		for (int i = from; i < to; i++) {
+			quality_number[i] = 25 * QualityTable.QUALITY_SCALE * classification[i];
+		}
+
+		termPass(quality, 0, plasma_1_plus, from, to);
+		termPass(quality, 1, plasma_1_minus, from, to);
+		termPass(quality, 2, piezo_1, from, to);
+		termPass(quality, 3, piezo_2, from, to);
+		termPass(quality, 4, plasma_2_plus, from, to);
+
+		for (int i = from; i < to; i++) {
+			quality_number[i] = QualityTable.toQualityNumber(quality_number[i]);
+		}
+		if (self_test != null) {
+			for (int i = from; i < to; i++) {
+				if (self_test[SU_number[i] - SensorUnitDev.SU_1]) {
+					quality_number[i] = EventRecord.MAX_QUALITY;
+				}
+			}
+		}
+	}
+
+	/** b if the mask is all ones, a if it is all zeros */
+	private static int select(int mask, int a, int b) {
+		return a ^ (mask & (a ^ b));
+	}
+
+	private void setLimits(ClassificationLimits limits, int which, int[] dst) {
+		for (int su = 0; su < NUM_SU; su++) {
+			dst[su] = limits.getLimit(su, which);
+		}
+	}
+
+	/** Set the class bit of the events with an amplitude at or above the
+	 *  classification level. */
+	private void levelPass(ClassificationLimits limits, int which, int[] amplitude, int bit,
+			int from, int to) {
+		setLimits(limits, which, low);
+		int l0 = low[0], l1 = low[1], l2 = low[2], l3 = low[3];
+		for (int i = from; i < to; i++) {
+			int level = select(su_bit_1[i], select(su_bit_0[i], l0, l1), select(su_bit_0[i], l2, l3));
+			/* amplitude >= level, without a branch: */
+			class_index[i] |= bit & ((level - amplitude[i] - 1) >> 31);
+		}
+	}
+
+	/** Set the class bit of the events with a delay inside the window. */
+	private void windowPass(ClassificationLimits limits, int min, int max, int[] delay, int bit,
+			int from, int to) {
+		setLimits(limits, min, low);
+		setLimits(limits, max, high);
+		int l0 = low[0], l1 = low[1], l2 = low[2], l3 = low[3];
+		int h0 = high[0], h1 = high[1], h2 = high[2], h3 = high[3];
+		for (int i = from; i < to; i++) {
+			int b0 = su_bit_0[i];
+			int b1 = su_bit_1[i];
+			int l = select(b1, select(b0, l0, l1), select(b0, l2, l3));
+			int h = select(b1, select(b0, h0, h1), select(b0, h2, h3));
+			/* low <= delay <= high, without a branch: */
+			class_index[i] |= bit & ((l - delay[i] - 1) >> 31) & ((delay[i] - h - 1) >> 31);
+		}
+	}
+
+	/** Add the amplitude term of one coefficient to the quality sums. The
+	 *  term is computed from the coefficient, as in QualityTable, and the
+	 *  rough logarithm is the bit length of the amplitude. */
+	private void termPass(QualityTable quality, int coeff, int[] amplitude, int from, int to) {
+		int c = quality.getCoefficient(coeff);
+		for (int i = from; i < to; i++) {
+			int log = 32 - Integer.numberOfLeadingZeros(amplitude[i]);
+			quality_number[i] += Math.min(c * log, QualityTable.MAX_TERM);
+		}
+	}
+}
@@ -24,10 +24,11 @@ package debie.particles;
 import debie.particles.SensorUnit.SensorUnitState;
 import debie.support.DebieSystem;
 import debie.support.Dpu;
+import debie.support.TelemetryObject;
 import debie.target.SensorUnitDev;
 import debie.telecommand.TelemetryData;
 
-public class EventRecord {
+public class EventRecord implements TelemetryObject {
 
 	/** Maximum value for an amplitude term in the quality formula.
 	 * Valid range: 1 - 255. */
@@ -61,7 +62,7 @@ public class EventRecord {
 	public static final int PLASMA_1_MINUS_TO_PIEZO_CLASS = 0x01;
 	public static final int PLASMA_1_PLUS_TO_MINUS_CLASS  = 0x04;
 
-	private static final int MAX_QUALITY = 255;
+	static final int MAX_QUALITY = 255;
 	
 	int       quality_number;    /* byte  0  XXX: was unsigned char */
 	int       classification;    /* byte  1  XXX: was unsigned char    */
@@ -115,7 +116,7 @@ public class EventRecord {
 		case 18: return plasma_2_plus & 0xff;
 		case 19: return (plasma_2_plus >> 8) & 0xff;
 		case 20: return rise_time & 0xff;
-		case 21: return delay_1;
+		case 21: return delay_1 & 0xff;
 		case 22: return delay_2 & 0xff;
 		case 23: return (delay_2 >> 8) & 0xff;
 		case 24: return delay_3 & 0xff;
@@ -126,6 +127,79 @@ public class EventRecord {
 		return 0;
 	}
 	
+	public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+
+		if (fromIndex == 0 && len == SIZE_IN_BYTES) {
+			pack(dst, off);
+		} else {
+			for (int i = 0; i < len; i++) { // @WCA loop <= 28
+				dst[off+i] = (byte)getByte(fromIndex+i);
+			}
+		}
+	}
+
+	/** Write the record in its telemetry layout (see getByte) to
+	 *  dst[offset] .. dst[offset+SIZE_IN_BYTES-1]. */
+	public void pack(byte[] dst, int offset) {
+		int time = hit_time.toInt();
+		dst[offset]    = (byte)quality_number;
+		dst[offset+1]  = (byte)classification;
+		dst[offset+2]  = SU_number;
+		dst[offset+3]  = 0; /* padding in original code */
+		dst[offset+4]  = (byte)time;
+		dst[offset+5]  = (byte)(time >> 8);
+		dst[offset+6]  = (byte)(time >> 16);
+		dst[offset+7]  = (byte)(time >> 24);
+		dst[offset+8]  = SU_temperature_1;
+		dst[offset+9]  = SU_temperature_2;
+		dst[offset+10] = (byte)plasma_1_plus;
+		dst[offset+11] = (byte)(plasma_1_plus >> 8);
+		dst[offset+12] = (byte)plasma_1_minus;
+		dst[offset+13] = (byte)(plasma_1_minus >> 8);
+		dst[offset+14] = (byte)piezo_1;
+		dst[offset+15] = (byte)(piezo_1 >> 8);
+		dst[offset+16] = (byte)piezo_2;
+		dst[offset+17] = (byte)(piezo_2 >> 8);
+		dst[offset+18] = (byte)plasma_2_plus;
+		dst[offset+19] = (byte)(plasma_2_plus >> 8);
+		dst[offset+20] = rise_time;
+		dst[offset+21] = delay_1;
+		dst[offset+22] = (byte)delay_2;
+		dst[offset+23] = (byte)(delay_2 >> 8);
+		dst[offset+24] = (byte)delay_3;
+		dst[offset+25] = (byte)(delay_3 >> 8);
+		dst[offset+26] = checksum;
+		dst[offset+27] = 0; /* padding in original code */
+	}
+
+	/** Read the record from its telemetry layout, as written by pack. */
+	public void unpack(byte[] src, int offset) {
+		quality_number   = src[offset] & 0xff;
+		classification   = src[offset+1] & 0xff;
+		SU_number        = src[offset+2];
+		hit_time.set((src[offset+4] & 0xff)
+				| (src[offset+5] & 0xff) << 8
+				| (src[offset+6] & 0xff) << 16
+				| (src[offset+7] & 0xff) << 24);
+		SU_temperature_1 = src[offset+8];
+		SU_temperature_2 = src[offset+9];
+		plasma_1_plus    = unpackWord(src, offset+10);
+		plasma_1_minus   = unpackWord(src, offset+12);
+		piezo_1          = unpackWord(src, offset+14);
+		piezo_2          = unpackWord(src, offset+16);
+		plasma_2_plus    = unpackWord(src, offset+18);
+		rise_time        = src[offset+20];
+		delay_1          = src[offset+21];
+		delay_2          = unpackWord(src, offset+22);
+		delay_3          = unpackWord(src, offset+24);
+		checksum         = src[offset+26];
+	}
+
+	/** A 16-bit field of the telemetry layout, low byte first */
+	static char unpackWord(byte[] src, int offset) {
+		return (char)((src[offset] & 0xff) | (src[offset+1] & 0xff) << 8);
+	}
+
 	/* getters/setters to provide access for TelecommandExecutionTask */
 	public int getQualityNumber() {
 		return quality_number;
@@ -198,7 +272,7 @@ public class EventRecord {
 		quality_number = eventRecord.quality_number;
 		classification = eventRecord.classification;
 		SU_number = eventRecord.SU_number;
-		hit_time = eventRecord.hit_time;
+		hit_time.set(eventRecord.hit_time);
 		SU_temperature_1 = eventRecord.SU_temperature_1;
 		SU_temperature_2 = eventRecord.SU_temperature_2;
 		plasma_1_plus = eventRecord.plasma_1_plus;
@@ -214,69 +288,11 @@ public class EventRecord {
 	}
 
 
-	/** An integer approximation (0..16) of the base-2 log of x
-	 * computed as the number of the most-significant non-zero bit.
-	 * When x = 0, returns zero.
-	 * When x > 0, returns floor(log2(x) + 1).
-	 * For example, when x =     1, returns  1.
-	 *              when x =     2, returns  2.
-	 *              when x =     7, returns  3.
-	 *              when x = x7FFF, returns 15.
-	 *              when x = x8000, returns 16. */
-	private int roughLogarithm (int x) {
-		int greatest_non_zero_bit;
-		int shifted;
-	
-		greatest_non_zero_bit = 0;
-		shifted = x;
-	
-		while (shifted != 0) { // @WCA loop <= 32
-			greatest_non_zero_bit++;
-			shifted >>>= 1;
-		}
-	
-		return greatest_non_zero_bit;
-	}
-
-	/** Purpose        : Calculates the ampltude term of the quality formula.
-	 *  Interface      : inputs      - parameter coeff defines number of the
-	 *                                 quality coefficient.
-	 *                               - parameter amplitude defines the signal 
-	 *                                 amplitude.
-	 *                   outputs     - quality term value is retruned.
-	 *                   subroutines - RoughLogarithm.
-	 *  Preconditions  : quality coefficients have valid values.
-	 *  Postconditions : none.
-	 *  Algorithm      : quality term is calculated according to following
-	 *                   formula :
-	 *                      coefficient[coeff]
-	 *                      * RoughLogaritm(amplitude)
-	 *                      / AMPLTUDE_DIVIDER
-	 *                   where coefficient[coeff] is the amplitude coefficient of
-	 *                   the quality term and AMPLTUDE_DIVIDER is a scaling
-	 *                   factor whose purpose is scale the result below 5.0.
-	 *                   However if the result would become larger than that,
-	 *                   5.0 is returned. */
-	private float getQualityTerm(int coeff, int amplitude) {
-		float quality;
-	
-		quality = 
-			(float)(tmData.getCoefficients()[coeff]
-					* roughLogarithm(amplitude))
-			/ AMPLITUDE_DIVIDER;
-	
-		if (quality > 5.0f) {
-			quality = 5.0f;
-		}
-	
-		return quality;
-	}
-
 	/** Purpose        : Calculates the quality number of a particle hit event
 	 *                   and stores in the event record.
 	 *  Interface      : inputs      - event record pointed by the parameter.
 	 *                   outputs     - event record pointed by the parameter.
-	 *                   subroutines - GetQualityTerm.
+	 *                   subroutines - QualityTable.getQualityNumber.
 	 *  Preconditions  : All components of the event record pointed by the
 	 *                   parameter which are used as input have valid values.
 	 *  Postconditions : quality_number component of the event record pointed
@@ -291,29 +307,13 @@ public class EventRecord {
 	 *                              detector
 	 *                   Divider is scaling factor whose value is determined by
 	 *                              the maximum value (5) of the latter terms
-	 *                   and i goes from 1 to 5. */
+	 *                   and i goes from 1 to 5.
+	 *                   The amplitude terms are read from the quality table
+	 *                   of the telemetry data, in fixed point. */
 	private void calculateQualityNumber() {
-		float quality;
-	
-		quality = 25.0f * classification;
-		/* First term of the quality formula. */
-	
-		quality += getQualityTerm(0, plasma_1_plus);
-		/* Add amplitude term for i=1 (see function algorithm). */
 	
-		quality += getQualityTerm(1, plasma_1_minus);
-		/* Add amplitude term for i=2 (see function algorithm). */
-	
-		quality += getQualityTerm(2, piezo_1);
-		/* Add amplitude term for i=3 (see function algorithm). */
-		
-		quality += getQualityTerm(3, piezo_2);
-		/* Add amplitude term for i=4 (see function algorithm). */
-		
-		quality += getQualityTerm(4, plasma_2_plus);
-		/* Add amplitude term for i=5 (see function algorithm). */
-		
-		quality_number = (int)(quality + 0.5f) & 0xff;
+		quality_number = tmData.getQualityTable().getQualityNumber(classification,
+				plasma_1_plus, plasma_1_minus, piezo_1, piezo_2, plasma_2_plus);
 		/* Store quality number to the event record */
 	}
 
@@ -328,7 +328,8 @@ public class EventRecord {
 	 *                   event record pointed by the parameter are computed.
 	 *  Algorithm      : - class index is determined by comparing signal.
 	 *                     amplitudes and time delays to classification
-	 *                     thresholds.
+	 *                     thresholds, as scaled in the classification
+	 *                     limits of the telemetry data.
 	 *                   - class number is read from a look-up table using the
 	 *                     class index and stored in the event record.
 	 *                   - CalculateQualityNumber is called. */
@@ -337,83 +338,12 @@ public class EventRecord {
 		int class_index;
 		/* Index for the class look-up table. */
 	
-		SensorUnitSettings limits = null;
-		/* Pointer to the struct holding classification thresholds. */
-	
-		class_index = 0;
-		/* Bits will be set below according to event attributes. */
-		
-		switch (SU_number) {
-			/* Select proper classification thresholds. */
-			
-		case SensorUnitDev.SU_1:
-			limits = tmData.getSensorUnit1();
-			break;
-	
-		case SensorUnitDev.SU_2:
-			limits = tmData.getSensorUnit2();
-			break;
-			
-		case SensorUnitDev.SU_3:
-			limits = tmData.getSensorUnit3();
-			break;
-			
-		case SensorUnitDev.SU_4:
-			limits = tmData.getSensorUnit4();
-			break;
-		}
-	
-	    if (plasma_1_plus >=
-			(limits.plasma_1_plus_classification * 256)) {
-			class_index |= PLASMA_1_PLUS_CLASS;
-			/* Set classification index bit for Plasma1+ peak amplitude. */ 
-		}
-	
-		if (plasma_1_minus >=
-			(limits.plasma_1_minus_classification * 256)) {
-			class_index |= PLASMA_1_MINUS_CLASS;
-			/* Set classification index bit for Plasma1- peak amplitude. */ 
-		}
-	
-		if (piezo_1 >=
-			(limits.piezo_1_classification * 256)) {
-			class_index |= PIEZO_1_CLASS;
-			/* Set classification index bit for Piezo1 peak amplitude. */ 
-		}
-	
-		if (piezo_2 >=
-			(limits.piezo_2_classification * 256)) {
-			class_index |= PIEZO_2_CLASS;
-			/* Set classification index bit for Piezo2 peak amplitude. */ 
-		}
-	
-		if (plasma_2_plus >=
-			(limits.plasma_2_plus_classification * 256)) {
-			class_index |= PLASMA_2_PLUS_CLASS;
-			/* Set classification index bit for Plasma2+ peak amplitude. */ 
-		}
-	
-		if (delay_2 >=
-			(limits.plasma_1_plus_to_piezo_min_time * 16) &&
-			delay_2 <=
-			(limits.plasma_1_plus_to_piezo_max_time * 16)) {
-			class_index |= PLASMA_1_PLUS_TO_PIEZO_CLASS;
-			/* Set classification index bit for Plasma1+ to Piezo delay. */ 
-		}
-	
-		if (delay_3 >=
-			(limits.plasma_1_minus_to_piezo_min_time * 16) &&
-			delay_3 <=
-			(limits.plasma_1_minus_to_piezo_max_time * 16)) {
-			class_index |= PLASMA_1_MINUS_TO_PIEZO_CLASS;
-			/* Set classification index bit for Plasma1- to Piezo delay. */ 
-		}
-	
-		if (delay_1 <=
-			limits.plasma_1_plus_to_minus_max_time) {
-			class_index |= PLASMA_1_PLUS_TO_MINUS_CLASS;
-			/* Set classification index bit for Plasma1+ to Plasma1- delay. */ 
-		}
+		class_index = tmData.getClassificationLimits().getClassIndex(
+				SU_number - SensorUnitDev.SU_1,
+				plasma_1_plus, plasma_1_minus, piezo_1, piezo_2, plasma_2_plus,
+				delay_1, delay_2, delay_3);
+		/* Bits are set by comparing the event with the classification */
+		/* thresholds of its Sensor Unit, scaled in advance.             */
 	
 		classification = EventClass[class_index];
 		/* Store classification number to the event record */
@@ -427,9 +357,10 @@ public class EventRecord {
 	}
 
 	/** Table for classifying event according to multiple measurements.
+	 *  Shared with EventBatch.
 	 *  @see code/classtab.h
 	 *  @see code/classtab.c */
-	private static final byte [] EventClass = {
+	static final byte [] EventClass = {
 		/* Que  Qui  P1  P2  Qle  dTei     dTep     dTip       */
 		0,   /*  0    0    0   0   0   OUTSIDE  OUTSIDE  OUTSIDE    */
 		0,   /*  0    0    0   0   0   OUTSIDE  OUTSIDE  INSIDE     */
@@ -0,0 +1,143 @@
+package debie.particles;
+
+import static debie.telecommand.TelecommandExecutionTask.NUM_QCOEFF;
+
+/**
+ * Integer version of the quality formula of the event classification.
+ * <p>
+ * The amplitude terms of the formula are
+ * <pre>
+ *    min(coefficient[i] * RoughLogarithm(amplitude) / AMPLITUDE_DIVIDER,
+ *        MAX_AMPLITUDE_TERM)
+ * </pre>
+ * With the default constants, AMPLITUDE_DIVIDER is 16, so every term is a
+ * multiple of 1/16, and so is their sum. The terms are therefore kept in
+ * units of 1/QUALITY_SCALE, where the float formula computes them without
+ * rounding, and the results are bit-identical to it. As the rough
+ * logarithm takes only 17 values, the terms are tabulated for each
+ * coefficient; a row is recomputed when its coefficient is set by
+ * telecommand.
+ * <p>
+ * XXX: the coefficients are signed bytes in TelemetryData, so coefficients
+ * above 127 give negative terms, as in the float version of the port.
+ */
+public class QualityTable {
+
+	/** Number of values of RoughLogarithm, 0..16 */
+	public static final int NUM_BUCKETS = 17;
+
+	/** Fixed-point scale of the terms; equal to AMPLITUDE_DIVIDER, which
+	 *  must be an integer. */
+	public static final int QUALITY_SCALE =
+		(EventRecord.DEFAULT_COEFF * 16) / EventRecord.MAX_AMPLITUDE_TERM;
+
+	/** Upper limit of an amplitude term, in units of 1/QUALITY_SCALE */
+	public static final int MAX_TERM = EventRecord.MAX_AMPLITUDE_TERM * QUALITY_SCALE;
+
+	/** Amplitude terms in units of 1/QUALITY_SCALE,
+	 *  indexed by coeff * NUM_BUCKETS + RoughLogarithm(amplitude) */
+	private final int[] term = new int[NUM_QCOEFF * NUM_BUCKETS];
+
+	/** The coefficients of the terms, as signed bytes */
+	private final int[] coefficient = new int[NUM_QCOEFF];
+
+	/** Recompute the terms of one coefficient. */
+	public void setCoefficient(int coeff, byte value) {
+
+		int base = coeff * NUM_BUCKETS;
+
+		coefficient[coeff] = value;
+
+		for (int i = 0; i < NUM_BUCKETS; i++) { // @WCA loop = 17
+			int t = value * i;
+			if (t > MAX_TERM) {
+				t = MAX_TERM;
+			}
+			term[base + i] = t;
+		}
+	}
+
+	/** An integer approximation (0..16) of the base-2 log of x
+	 * computed as the number of the most-significant non-zero bit.
+	 * When x = 0, returns zero.
+	 * When x > 0, returns floor(log2(x) + 1).
+	 * For example, when x =     1, returns  1.
+	 *              when x =     2, returns  2.
+	 *              when x =     7, returns  3.
+	 *              when x = x7FFF, returns 15.
+	 *              when x = x8000, returns 16. */
+	public static int roughLogarithm(int x) {
+		int greatest_non_zero_bit;
+		int shifted;
+
+		greatest_non_zero_bit = 0;
+		shifted = x;
+
+		while (shifted != 0) { // @WCA loop <= 32
+			greatest_non_zero_bit++;
+			shifted >>>= 1;
+		}
+
+		return greatest_non_zero_bit;
+	}
+
+	/** RoughLogarithm of the values 0..255 */
+	private static final byte[] LOG_BYTE = new byte[256];
+
+	static {
+		for (int i = 0; i < LOG_BYTE.length; i++) {
+			LOG_BYTE[i] = (byte)roughLogarithm(i);
+		}
+	}
+
+	/** RoughLogarithm of a 16-bit value, from the logarithm of its
+	 *  most significant non-zero byte. */
+	public static int roughLogarithm16(int x) {
+		int high = x >>> 8;
+
+		if (high != 0) {
+			return 8 + LOG_BYTE[high];
+		}
+		return LOG_BYTE[x];
+	}
+
+	/** The coefficient of the terms of coeff, as a signed byte; the term
+	 *  of a logarithm is min(coefficient * logarithm, MAX_TERM). */
+	public int getCoefficient(int coeff) {
+
+		return coefficient[coeff];
+	}
+
+	/** The amplitude term of coefficient coeff, in units of 1/QUALITY_SCALE;
+	 *  the amplitude is a 16-bit value. */
+	public int getQualityTerm(int coeff, int amplitude) {
+
+		return term[coeff * NUM_BUCKETS + roughLogarithm16(amplitude)];
+	}
+
+	/** The quality number of an event with the given class and signal
+	 *  amplitudes, in the order of the coefficients. */
+	public int getQualityNumber(int classification,
+			int plasma_1_plus, int plasma_1_minus,
+			int piezo_1, int piezo_2, int plasma_2_plus) {
+
+		int quality;
+
+		quality = 25 * QUALITY_SCALE * classification;
+		quality += getQualityTerm(0, plasma_1_plus);
+		quality += getQualityTerm(1, plasma_1_minus);
+		quality += getQualityTerm(2, piezo_1);
+		quality += getQualityTerm(3, piezo_2);
+		quality += getQualityTerm(4, plasma_2_plus);
+
+		return toQualityNumber(quality);
+	}
+
+	/** The quality number of a sum of terms in units of 1/QUALITY_SCALE */
+	public static int toQualityNumber(int quality) {
+
+		/* Rounded as (int)(quality + 0.5f); the division truncates towards
+		 * zero like the float conversion. */
+		return ((quality + QUALITY_SCALE / 2) / QUALITY_SCALE) & 0xff;
+	}
+}
@@ -22,6 +22,23 @@ public class SensorUnitSettings {
 	/* unsigned char */ public int plasma_1_minus_to_piezo_min_time;  /* word 14 */
 	/* unsigned char */ public int plasma_1_minus_to_piezo_max_time;  /* word 15 */
 
+	/* Indices of the settings, as in getByte and setByte */
+	public static final int PLUS_5_VOLTAGE                   =  0;
+	public static final int MINUS_5_VOLTAGE                  =  1;
+	public static final int PLASMA_1_PLUS_THRESHOLD          =  2;
+	public static final int PLASMA_1_MINUS_THRESHOLD         =  3;
+	public static final int PIEZO_THRESHOLD                  =  4;
+	public static final int PLASMA_1_PLUS_CLASSIFICATION     =  5;
+	public static final int PLASMA_1_MINUS_CLASSIFICATION    =  6;
+	public static final int PIEZO_1_CLASSIFICATION           =  7;
+	public static final int PIEZO_2_CLASSIFICATION           =  8;
+	public static final int PLASMA_2_PLUS_CLASSIFICATION     =  9;
+	public static final int PLASMA_1_PLUS_TO_MINUS_MAX_TIME  = 10;
+	public static final int PLASMA_1_PLUS_TO_PIEZO_MIN_TIME  = 11;
+	public static final int PLASMA_1_PLUS_TO_PIEZO_MAX_TIME  = 12;
+	public static final int PLASMA_1_MINUS_TO_PIEZO_MIN_TIME = 13;
+	public static final int PLASMA_1_MINUS_TO_PIEZO_MAX_TIME = 14;
+
 	/** Purpose        : Initializes classification parameter
 	 *  Interface      : inputs      - none.
 	 *                   outputs     - classification levels in telemetry_data.
@@ -68,22 +85,43 @@ public class SensorUnitSettings {
 	
 	public int getByte(int index) {
 		switch (index) {
-		case 0: return plus_5_voltage & 0xff;
-		case 1: return minus_5_voltage & 0xff;
-		case 2: return plasma_1_plus_threshold & 0xff;
-		case 3: return plasma_1_minus_threshold & 0xff;
-		case 4: return piezo_threshold & 0xff;
-		case 5: return plasma_1_plus_classification & 0xff;
-		case 6: return plasma_1_minus_classification & 0xff;
-		case 7: return piezo_1_classification;
-		case 8: return piezo_2_classification;
-		case 9: return plasma_2_plus_classification & 0xff;
-		case 10: return plasma_1_plus_to_minus_max_time & 0xff;
-		case 11: return plasma_1_plus_to_piezo_min_time & 0xff;
-		case 12: return plasma_1_plus_to_piezo_max_time & 0xff;
-		case 13: return plasma_1_minus_to_piezo_min_time & 0xff;
-		case 14: return plasma_1_minus_to_piezo_max_time & 0xff;
+		case PLUS_5_VOLTAGE: return plus_5_voltage & 0xff;
+		case MINUS_5_VOLTAGE: return minus_5_voltage & 0xff;
+		case PLASMA_1_PLUS_THRESHOLD: return plasma_1_plus_threshold & 0xff;
+		case PLASMA_1_MINUS_THRESHOLD: return plasma_1_minus_threshold & 0xff;
+		case PIEZO_THRESHOLD: return piezo_threshold & 0xff;
+		case PLASMA_1_PLUS_CLASSIFICATION: return plasma_1_plus_classification & 0xff;
+		case PLASMA_1_MINUS_CLASSIFICATION: return plasma_1_minus_classification & 0xff;
+		case PIEZO_1_CLASSIFICATION: return piezo_1_classification;
+		case PIEZO_2_CLASSIFICATION: return piezo_2_classification;
+		case PLASMA_2_PLUS_CLASSIFICATION: return plasma_2_plus_classification & 0xff;
+		case PLASMA_1_PLUS_TO_MINUS_MAX_TIME: return plasma_1_plus_to_minus_max_time & 0xff;
+		case PLASMA_1_PLUS_TO_PIEZO_MIN_TIME: return plasma_1_plus_to_piezo_min_time & 0xff;
+		case PLASMA_1_PLUS_TO_PIEZO_MAX_TIME: return plasma_1_plus_to_piezo_max_time & 0xff;
+		case PLASMA_1_MINUS_TO_PIEZO_MIN_TIME: return plasma_1_minus_to_piezo_min_time & 0xff;
+		case PLASMA_1_MINUS_TO_PIEZO_MAX_TIME: return plasma_1_minus_to_piezo_max_time & 0xff;
 		default: return 0;
 	}
 	}
+
+	/** Set the setting with the given index, as in getByte. */
+	public void setByte(int index, int value) {
+		switch (index) {
+		case PLUS_5_VOLTAGE: plus_5_voltage = value; break;
+		case MINUS_5_VOLTAGE: minus_5_voltage = value; break;
+		case PLASMA_1_PLUS_THRESHOLD: plasma_1_plus_threshold = value; break;
+		case PLASMA_1_MINUS_THRESHOLD: plasma_1_minus_threshold = value; break;
+		case PIEZO_THRESHOLD: piezo_threshold = value; break;
+		case PLASMA_1_PLUS_CLASSIFICATION: plasma_1_plus_classification = value; break;
+		case PLASMA_1_MINUS_CLASSIFICATION: plasma_1_minus_classification = value; break;
+		case PIEZO_1_CLASSIFICATION: piezo_1_classification = value; break;
+		case PIEZO_2_CLASSIFICATION: piezo_2_classification = value; break;
+		case PLASMA_2_PLUS_CLASSIFICATION: plasma_2_plus_classification = value; break;
+		case PLASMA_1_PLUS_TO_MINUS_MAX_TIME: plasma_1_plus_to_minus_max_time = value; break;
+		case PLASMA_1_PLUS_TO_PIEZO_MIN_TIME: plasma_1_plus_to_piezo_min_time = value; break;
+		case PLASMA_1_PLUS_TO_PIEZO_MAX_TIME: plasma_1_plus_to_piezo_max_time = value; break;
+		case PLASMA_1_MINUS_TO_PIEZO_MIN_TIME: plasma_1_minus_to_piezo_min_time = value; break;
+		case PLASMA_1_MINUS_TO_PIEZO_MAX_TIME: plasma_1_minus_to_piezo_max_time = value; break;
+		}
+	}
 }
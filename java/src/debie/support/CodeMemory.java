@@ -0,0 +1,308 @@
+package debie.support;
+
+/**
+ * Code memory image of the DPU, as read by the code checksum of the
+ * health monitoring.
+ * <p>
+ * The image is kept as 64-bit words, eight code bytes per word with the
+ * lowest address in the least significant byte, so that the checksum can
+ * fold eight bytes with one array load and one XOR. The XOR of a word,
+ * folded to eight bits, is the XOR of its eight bytes, so the result is
+ * the same 8-bit XOR as a byte-by-byte checksum.
+ * <p>
+ * The memory is divided in pages of PAGE_SIZE bytes, each with the
+ * checksum it should have: set when the image is loaded, and changed by
+ * patches. A patched page, or one suspected of an error, is marked to be
+ * checked before the others (see nextMarkedPage), so that the health
+ * monitoring need not wait for the end of its cycle to find an error, and
+ * can tell which page it is in.
+ * <p>
+ * The words are kept by page. A page that has not been written reads as
+ * zeros from a zero page shared by all code memories, and the pages of a
+ * code image can be shared by many code memories (see share), such as
+ * the instances of a fleet: a shared page is copied when it is first
+ * written, by a patch or a memory error. Reading and checksums do not
+ * allocate memory. Without Dpu.PAGED_MEMORY, all pages are allocated with
+ * the memory, and a shared image is copied, so that writes never allocate.
+ */
+public class CodeMemory {
+
+	/** Bytes per page, a multiple of 8 */
+	public static final int PAGE_SIZE = 256;
+
+	private static final int PAGE_BITS = 8;
+	private static final int PAGE_WORDS = PAGE_SIZE >> 3;
+
+	/* The page of every code memory that has not been written */
+	private static final long[] ZERO_PAGE = new long[PAGE_WORDS];
+
+	private final long[][] pages;
+	private final int size;
+
+	/* Pages allocated by this memory, which it may write; the others are
+	 * the zero page or shared with another memory. */
+	private final boolean[] owned;
+	private int allocated;
+
+	/* Checksum of each page, as loaded and patched */
+	private final byte[] page_reference;
+
+	/* Pages to be checked first, a bit per page */
+	private final int[] marked;
+
+	/** size: number of code bytes, a multiple of PAGE_SIZE */
+	public CodeMemory(int size) {
+		this.size = size;
+		this.pages = new long[size >> PAGE_BITS][];
+		this.owned = new boolean[pages.length];
+		this.page_reference = new byte[pages.length];
+		this.marked = new int[(pages.length + 31) >> 5];
+
+		for (int i = 0; i < pages.length; i++) {
+			if (Dpu.PAGED_MEMORY) {
+				pages[i] = ZERO_PAGE;
+			} else {
+				pages[i] = new long[PAGE_WORDS];
+				owned[i] = true;
+				allocated++;
+			}
+		}
+	}
+
+	public int getSize() {
+
+		return size;
+	}
+
+	public int getPages() {
+
+		return page_reference.length;
+	}
+
+	public byte getByte(int addr) {
+
+		return (byte)(pages[addr >> PAGE_BITS][(addr >> 3) & (PAGE_WORDS - 1)]
+			>>> ((addr & 7) << 3));
+	}
+
+	/** Write a byte; a byte that does not change does not copy its page. */
+	public void setByte(int addr, byte value) {
+
+		if (getByte(addr) == value) return;
+
+		long[] page = ownPage(addr >> PAGE_BITS);
+		int w = (addr >> 3) & (PAGE_WORDS - 1);
+		int shift = (addr & 7) << 3;
+		page[w] = (page[w] & ~(0xFFL << shift)) | ((long)(value & 0xff) << shift);
+	}
+
+	/** The given page, copied first if this memory does not own it */
+	private long[] ownPage(int page) {
+
+		if (!owned[page]) {
+			long[] copy = new long[PAGE_WORDS];
+			System.arraycopy(pages[page], 0, copy, 0, PAGE_WORDS);
+			pages[page] = copy;
+			owned[page] = true;
+			allocated++;
+		}
+		return pages[page];
+	}
+
+	/** Purpose        : Load a code image.
+	 *  Interface      : input:   - image[0] .. image[length-1]
+	 *                   output:  - the code memory
+	 *  Preconditions  : none
+	 *  Postconditions : The code memory holds the image, truncated to all
+	 *                   but its last byte, and zeros after it. The last
+	 *                   byte makes the checksum of the memory zero.
+	 *  Algorithm      : - copy the image, a byte at a time
+	 *                   - set the last byte to the checksum of the rest
+	 *
+	 * The last byte is the constant of the PROM that ensures that its
+	 * checksum is zero (see Dpu.INITIAL_CHECKSUM_VALUE).
+	 */
+	public void load(byte[] image, int length) {
+
+		if (length > size - 1) length = size - 1;
+
+		for (int i = 0; i < pages.length; i++) {
+			if (owned[i]) {
+				for (int w = 0; w < PAGE_WORDS; w++) pages[i][w] = 0;
+			} else {
+				pages[i] = ZERO_PAGE;
+			}
+		}
+		for (int i = 0; i < length; i++) {
+			setByte(i, image[i]);
+		}
+		setByte(size - 1, (byte)checksum(0, size - 2));
+
+		for (int page = 0; page < page_reference.length; page++) {
+			acceptPage(page);
+		}
+		for (int i = 0; i < marked.length; i++) {
+			marked[i] = 0;
+		}
+	}
+
+	/** Purpose        : Share the code image of another code memory.
+	 *  Interface      : input:   - image, a code memory of the same size
+	 *                   output:  - the code memory, the page checksums
+	 *  Preconditions  : The image is loaded.
+	 *  Postconditions : This memory reads as the image, and no page is
+	 *                   marked. The pages of the image are copied by either
+	 *                   memory when it writes them.
+	 *  Algorithm      : - take the pages of the image, which neither memory
+	 *                     owns any more; without PAGED_MEMORY, copy them
+	 *                   - copy the page checksums
+	 */
+	public void share(CodeMemory image) {
+
+		synchronized (image) {
+			for (int i = 0; i < pages.length; i++) {
+				if (Dpu.PAGED_MEMORY) {
+					image.owned[i] = false;
+					pages[i] = image.pages[i];
+					owned[i] = false;
+				} else {
+					System.arraycopy(image.pages[i], 0, pages[i], 0, PAGE_WORDS);
+				}
+				page_reference[i] = image.page_reference[i];
+			}
+			if (Dpu.PAGED_MEMORY) {
+				image.allocated = 0;
+				allocated = 0;
+			}
+		}
+		for (int i = 0; i < marked.length; i++) {
+			marked[i] = 0;
+		}
+	}
+
+	/** Purpose        : Patch a byte of code.
+	 *  Interface      : input:   - addr, value
+	 *                   output:  - the code memory, the checksum of the
+	 *                              page, which is marked
+	 *  Preconditions  : 0 <= addr < size
+	 *  Postconditions : The page is checked before the others.
+	 *  Algorithm      : - change the checksum of the page by the XOR of
+	 *                    the old and new value
+	 *                  - write the byte
+	 *
+	 * Unlike setByte, which models a memory error, the patched page still
+	 * checks out.
+	 */
+	public void patch(int addr, byte value) {
+
+		int page = addr / PAGE_SIZE;
+
+		page_reference[page] ^= (byte)(getByte(addr) ^ value);
+		setByte(addr, value);
+		markPage(page);
+	}
+
+	/** Checksum of the given page */
+	public int pageChecksum(int page) {
+
+		long[] words = pages[page];
+		long sum = 0;
+
+		for (int w = 0; w < PAGE_WORDS; w++) { // @WCA loop = PAGE_WORDS
+			sum ^= words[w];
+		}
+		return fold(sum);
+	}
+
+	/** Checksum the given page should have */
+	public int getPageReference(int page) {
+
+		return page_reference[page] & 0xff;
+	}
+
+	/** Take the current contents of the page as correct */
+	public void acceptPage(int page) {
+
+		page_reference[page] = (byte)pageChecksum(page);
+	}
+
+	/** Mark the page to be checked before the others, for example as
+	 *  suspected of a memory error */
+	public void markPage(int page) {
+
+		marked[page >> 5] |= 1 << (page & 31);
+	}
+
+	public boolean isMarked(int page) {
+
+		return (marked[page >> 5] & (1 << (page & 31))) != 0;
+	}
+
+	/** The lowest marked page, which is no longer marked, or -1 if no
+	 *  page is marked */
+	public int nextMarkedPage() {
+
+		for (int i = 0; i < marked.length; i++) { // @WCA loop <= 4
+			int bits = marked[i];
+			if (bits != 0) {
+				int bit = 0;
+				while ((bits & (1 << bit)) == 0) { // @WCA loop <= 31
+					bit++;
+				}
+				marked[i] = bits & ~(1 << bit);
+				return (i << 5) + bit;
+			}
+		}
+		return -1;
+	}
+
+	/** Purpose        : Checksum of a part of the code memory.
+	 *  Interface      : input:   - start, end: first and last address
+	 *                   output:  - return value, the XOR of the bytes
+	 *  Preconditions  : 0 <= start, end < size
+	 *  Postconditions : none
+	 *  Algorithm      : - XOR the bytes up to the first word boundary
+	 *                   - XOR the whole words in between
+	 *                   - XOR the bytes after the last word boundary
+	 *                   - fold the 64-bit XOR to 8 bits
+	 */
+	public int checksum(int start, int end) {
+
+		long sum = 0;
+		int addr = start;
+
+		for (; addr <= end && (addr & 7) != 0; addr++) { // @WCA loop <= 7
+			sum ^= (long)(getByte(addr) & 0xff);
+		}
+		for (; addr + 7 <= end; addr += 8) {
+			// @WCA loop <= debie.health.HealthMonitoringTask.CHECK_WORDS
+			sum ^= pages[addr >> PAGE_BITS][(addr >> 3) & (PAGE_WORDS - 1)];
+		}
+		for (; addr <= end; addr++) { // @WCA loop <= 7
+			sum ^= (long)(getByte(addr) & 0xff);
+		}
+		return fold(sum);
+	}
+
+	/** The XOR of the eight bytes of a word */
+	private static int fold(long sum) {
+
+		sum ^= sum >>> 32;
+		sum ^= sum >>> 16;
+		sum ^= sum >>> 8;
+		return (int)sum & 0xff;
+	}
+
+	/** Number of pages allocated by this memory */
+	public int getAllocatedPages() {
+
+		return allocated;
+	}
+
+	/** Bytes in use for this memory: the allocated pages, the page table
+	 *  and the page checksums, without object headers */
+	public int getFootprint() {
+
+		return allocated * PAGE_SIZE + pages.length * (4 + 1 + 1) + marked.length * 4;
+	}
+}
@@ -5,6 +5,7 @@ import debie.particles.AcquisitionTask;
 import debie.particles.HitTriggerTask;
 import debie.support.Dpu.Time;
 import debie.target.AdConverter;
+import debie.target.HwIf;
 import debie.target.SensorUnitDev;
 import debie.target.TcTmDev;
 import debie.telecommand.TelecommandExecutionTask;
@@ -13,7 +14,9 @@ import debie.telecommand.TelemetryData;
 /**
  *  This is the interface used to communicate with other modules in the
  *  DEBIE system. It provides references for all tasks, mailboxes and
- *  hardware used.
+ *  hardware used. All state of one DEBIE instance, including the DPU
+ *  memories, is reached through its DebieSystem; there are no static
+ *  references to a system.
  *  
  *  TODO: Discussion: Is this a good idea w.r.t. encapsulation?
  */
@@ -34,4 +37,7 @@ public interface DebieSystem {
 	public SensorUnitDev            getSensorUnitDevice();
 	public TcTmDev                  getTcTmDevice();
 	public Time                     getInternalTime(); 
+
+	public Dpu                      getDpu();
+	public HwIf                     getHwIf();
 }
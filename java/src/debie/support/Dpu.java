@@ -1,6 +1,7 @@
 package debie.support;
 
 import debie.harness.Harness;
+import debie.health.HealthMonitoringTask;
 
 public class Dpu {
 	public static final int SAME = 1;
@@ -46,9 +47,12 @@ public class Dpu {
 	/* It is zero, since one code byte is dedicated to a constant  */
 	/* that ensures that the checksum of the PROM is zero.         */
 
-	private static DebieSystem system;
-	public static void setSystem(DebieSystem sys) {
-		system = sys;
+	/* The state of the DPU is kept per instance, so that several DEBIE
+	 * systems can be hosted in one JVM. Each DebieSystem owns one Dpu. */
+	private final DebieSystem system;
+
+	public Dpu(DebieSystem system) {
+		this.system = system;
 	}
 
 	/*type definitions*/
@@ -74,7 +78,7 @@ public class Dpu {
 	 * set in Init_DPU, which is called from the startup module
 	 * before the variable initialisation code.
 	 */
-	private static ResetClass  s_w_reset;
+	private ResetClass  s_w_reset;
 
 	/**
 	 * Purpose        : Reset class is returned.
@@ -86,7 +90,7 @@ public class Dpu {
 	 * Algorithm      : value of s_w_reset is returned and s_w_reset is set to
 	 *                  error value.
 	 */
-	public static ResetClass getResetClass() {
+	public ResetClass getResetClass() {
 		ResetClass occurred_reset = s_w_reset;
 		s_w_reset = ResetClass.error_e;
 		return occurred_reset;
@@ -97,7 +101,7 @@ public class Dpu {
 	   SRAM_e
 	};
 
-	private static MemoryConfiguration memory_mode;
+	private MemoryConfiguration memory_mode;
 		
 	/**
 	 * Purpose        : Information about selected program memory is acquired
@@ -108,7 +112,7 @@ public class Dpu {
 	 * Algorithm      : Information about current memory  configuration is
 	 *                  stored in a variable.
 	 */
-	public static MemoryConfiguration getMemoryConfiguration() {
+	public MemoryConfiguration getMemoryConfiguration() {
 		return memory_mode;
 	}
 
@@ -124,7 +128,7 @@ public class Dpu {
 	 * Algorithm      : Memory configuration is selected with the output at the
 	 *                  I/O port 1.
 	 */
-	public static void setMemoryConfiguration(MemoryConfiguration memory) {
+	public void setMemoryConfiguration(MemoryConfiguration memory) {
 // TODO port
 //		switch (memory)	{
 //		case PROM_e:
@@ -179,6 +183,12 @@ public class Dpu {
 			return (internal_repr >> (index<<3)) & 0xff;
 		}
 
+		public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+			for (int i = 0; i < len; i++) { // @WCA loop <= 4
+				dst[off+i] = (byte)getByte(fromIndex+i);
+			}
+		}
+
 		public int toInt() {
 			
 			return internal_repr;
@@ -197,10 +207,10 @@ public class Dpu {
 	 * patched, set to 1 when next checksum calculation
 	 * period is started.
 	 */
-	/* unsigned char */ public static int code_not_patched;
+	/* unsigned char */ public int code_not_patched;
 
 	/** Expected code checksum. Zero for unpatched code. */
-	/* unsigned char */ public static int reference_checksum;
+	/* unsigned char */ public int reference_checksum;
 
 	public static boolean patchExecCommandOk(int execution_command) {
 		// XXX: avoid lookupswitch
@@ -231,7 +241,7 @@ public class Dpu {
 	 * Postconditions :  Desired part of the memory is copied.
 	 * Algorithm      :  Bytes are copied.
 	 */
-	public static void patchCode(MemoryPatchVariables patch_variables) {
+	public void patchCode(MemoryPatchVariables patch_variables) {
 		
 		/* unsigned char */ int old_checksum;
 		/* Checksum calculated from the old contents of the pachted memory. */
@@ -259,12 +269,16 @@ public class Dpu {
 		
 		/* Memory block is copied from SRAM3 to SRAM1. */
         
+		// XXX: in the C code SRAM1, written here through data addresses,
+		//      holds the program copy; here the code memory is patched, and
+		//      the data memory too.
 		for (int i=0 ; i < patch_variables.data_amount ; i++) {
-			old_checksum ^= getDataByte(patch_variables.destination + i);
-			patch_value   = patch_variables.source[i];
+			old_checksum ^= getCodeByte(patch_variables.destination + i) & 0xff;
+			patch_value   = patch_variables.source[i] & 0xff;
 			new_checksum ^= patch_value;
 
 			setDataByte(patch_variables.destination + i, (byte)patch_value);
+			code_memory.patch(patch_variables.destination + i, (byte)patch_value);
 		}
 		
 		reference_checksum ^= (old_checksum ^ new_checksum);
@@ -336,38 +350,100 @@ public class Dpu {
 	/* Function prototypes: */
 //	extern void Init_DPU (reset_class_t reset_class);
 
-	public static void reboot(ResetClass boot_type) {
+	public void reboot(ResetClass boot_type) {
 		if (Harness.TRACE) Harness.trace(String.format("[Dpu] Reboot %d", boot_type.ordinal())); 
 		
-		if (boot_type == ResetClass.checksum_reset_e) {
+		if (boot_type == ResetClass.checksum_reset_e && !HealthMonitoringTask.PAGE_CHECKSUM) {
 			/* Make it not happen (at once) again: */
+			/* (The page checksum accepts the page in error instead.) */
 			reference_checksum = system.getHealthMonitoringTask().getCodeChecksum();		   
 		}		
 
 //		System.out.println("Target Reboot.");
 	}
 
-	private static byte data_memory[] = new byte[0x8000];
+	/** Select paged memory: the pages of the data and code memory are
+	 * allocated when first written (see PagedMemory and CodeMemory), so
+	 * that the many instances of a host fleet keep only the pages they
+	 * use. Without it every page is allocated with the memory, and no
+	 * memory is allocated after initialization, as on the target. */
+	public static final boolean PAGED_MEMORY = true;
+
+	/* Bytes of data memory */
+	public static final int DATA_MEMORY_SIZE = 0x8000;
+
+	/* With PAGED_MEMORY, pages are allocated when first written */
+	private final PagedMemory data_memory = new PagedMemory(DATA_MEMORY_SIZE);
 	
-	public static void setDataByte(int addr, byte value) {
+	public void setDataByte(int addr, byte value) {
 		if (Harness.TRACE) Harness.trace(String.format("[Dpu] Set_Data_Byte 0x%x to %d = 0x%x",
 													   addr, (int)value & 0xff, (int)value & 0xff));
 		
-		data_memory[addr] = value;
+		data_memory.setByte(addr, value);
 	}
 	
-	public static byte getDataByte(int addr) {
-		byte value = data_memory[addr];
+	public byte getDataByte(int addr) {
+		byte value = data_memory.getByte(addr);
 		if (Harness.TRACE) Harness.trace(String.format("[Dpu] Get_Data_Byte 0x%x is %d = 0x%x",
 													   addr, (int)value & 0xff, (int)value & 0xff));
 		return value;
 	}
 
-	public static byte getCodeByte(int addr) {
+	/* Bytes of code memory, up to CODE_MEMORY_END of the health monitoring */
+	public static final int CODE_MEMORY_SIZE = 0x8000;
+
+	private final CodeMemory code_memory = new CodeMemory(CODE_MEMORY_SIZE);
+
+	public byte getCodeByte(int addr) {
 //		if (Harness.TRACE) Harness.trace(String.format("getCodeByte 0x%x", addr));
 		/* This would be to much output. Skip. */
 		
-		return 0;
+		return code_memory.getByte(addr);
+	}
+
+	/** Write a code byte, bypassing patching: the checksum of the page
+	 *  is not changed, as for a memory error. */
+	public void setCodeByte(int addr, byte value) {
+
+		code_memory.setByte(addr, value);
+	}
+
+	public CodeMemory getCodeMemory() {
+
+		return code_memory;
+	}
+
+	/** XOR of the code bytes from start to end, see CodeMemory.checksum */
+	public int getCodeChecksum(int start, int end) {
+
+		return code_memory.checksum(start, end);
+	}
+
+	/** Load a code image, such as the built class or JOP image file, into
+	 *  code memory. The last byte of code memory is set so that the
+	 *  checksum of the code memory is INITIAL_CHECKSUM_VALUE. */
+	public void loadCodeImage(byte[] image, int length) {
+
+		code_memory.load(image, length);
+	}
+
+	/** Share a loaded code image, such as one loaded for a fleet of DPUs,
+	 *  instead of loading a copy: a page of the image is copied into this
+	 *  code memory when first written. */
+	public void shareCodeImage(CodeMemory image) {
+
+		code_memory.share(image);
+	}
+
+	public PagedMemory getDataMemory() {
+
+		return data_memory;
+	}
+
+	/** Bytes in use for the data and code memory of this DPU */
+	public int getMemoryFootprint() {
+
+		return data_memory.getFootprint() + code_memory.getFootprint();
 	}
 
 	/* Assembly-language function prototypes (asmfuncs.a51): */
@@ -21,6 +21,9 @@ public class KernelObjects {
 	public static final byte TCTM_MAILBOX = 0;
 	public static final byte ACQUISITION_MAILBOX = 1;
 
+	/** Number of mailboxes of the kernel (RTX-51 has 8) */
+	public static final int NUM_MAILBOXES = 8;
+
 	/* ISR source numbers */
 
 	public static final byte TC_ISR_SOURCE = 0;
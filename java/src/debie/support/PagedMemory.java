@@ -0,0 +1,80 @@
+package debie.support;
+
+/**
+ * Byte-addressed memory of the DPU, such as its data memory, kept in
+ * pages of PAGE_SIZE bytes that are allocated when first written.
+ * <p>
+ * A page that has not been written reads as zeros from a zero page shared
+ * by all memories, which is never written. Writing a byte with the value
+ * it already has does not allocate its page, so clearing memory that was
+ * never used costs nothing. Many instances of the system can run in one
+ * JVM, and most of their pages are never touched.
+ * <p>
+ * Reading does not allocate memory; the first write to a page allocates
+ * it. Without Dpu.PAGED_MEMORY, all pages are allocated with the memory.
+ */
+public class PagedMemory {
+
+	/** Bytes per page */
+	public static final int PAGE_SIZE = 256;
+
+	private static final int PAGE_BITS = 8;
+
+	/* The page of every memory that has not been written */
+	private static final byte[] ZERO_PAGE = new byte[PAGE_SIZE];
+
+	private final byte[][] pages;
+	private final int size;
+
+	private int allocated;
+
+	/** size: number of bytes, a multiple of PAGE_SIZE */
+	public PagedMemory(int size) {
+		this.size = size;
+		this.pages = new byte[size >> PAGE_BITS][];
+		for (int i = 0; i < pages.length; i++) {
+			if (Dpu.PAGED_MEMORY) {
+				pages[i] = ZERO_PAGE;
+			} else {
+				pages[i] = new byte[PAGE_SIZE];
+				allocated++;
+			}
+		}
+	}
+
+	public int getSize() {
+
+		return size;
+	}
+
+	public byte getByte(int addr) {
+
+		return pages[addr >> PAGE_BITS][addr & (PAGE_SIZE - 1)];
+	}
+
+	public void setByte(int addr, byte value) {
+
+		byte[] page = pages[addr >> PAGE_BITS];
+
+		if (page == ZERO_PAGE) {
+			if (value == 0) return;
+			page = new byte[PAGE_SIZE];
+			pages[addr >> PAGE_BITS] = page;
+			allocated++;
+		}
+		page[addr & (PAGE_SIZE - 1)] = value;
+	}
+
+	/** Number of pages allocated */
+	public int getAllocatedPages() {
+
+		return allocated;
+	}
+
+	/** Bytes in use for this memory: the allocated pages and the page
+	 *  table, without object headers */
+	public int getFootprint() {
+
+		return allocated * PAGE_SIZE + pages.length * 4;
+	}
+}
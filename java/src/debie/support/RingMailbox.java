@@ -0,0 +1,136 @@
+package debie.support;
+
+import debie.telecommand.TelemetryData;
+
+/**
+ * Mailbox that queues up to {@code depth} messages in a ring buffer,
+ * instead of storing a single message as the RTX-51 simulation in the
+ * harness does. Messages are received in the order they were sent.
+ * <p>
+ * There is one sender (a task or an ISR) and one receiver (the task
+ * owning the mailbox): the sender only advances {@code tail}, the
+ * receiver only advances {@code head}, so no locking is needed.
+ * The buffer is allocated in the constructor; sending and receiving
+ * do not allocate memory.
+ * <p>
+ * If the mailbox is full, the message is dropped and the overflow is
+ * reported to telemetry. The largest number of queued messages is
+ * reported to telemetry as well (see TelemetryData.getMailHighWater).
+ * The HostSystem queues the mail of the TC and TM interrupts in one (see
+ * HostRingMailbox).
+ */
+public class RingMailbox extends Mailbox {
+
+	/** Default number of queued messages */
+	public static final int DEFAULT_DEPTH = 8;
+
+	private final char[] ring;
+	private final int depth;
+
+	/* Positions of the next message to send (tail) and to receive
+	 * (head). Both run from 0 to 2*depth-1 and wrap around, so that a
+	 * full ring (tail - head == depth) can be told from an empty one
+	 * (tail == head) without a shared counter. */
+	private volatile int head;
+	private volatile int tail;
+
+	private final TelemetryData telemetry_data;
+
+	public RingMailbox(byte mailbox_number, int depth, DebieSystem system) {
+		super(mailbox_number);
+		this.depth = depth;
+		this.ring = new char[depth];
+		this.telemetry_data = system.getTelemetryData();
+	}
+
+	public RingMailbox(byte mailbox_number, DebieSystem system) {
+		this(mailbox_number, DEFAULT_DEPTH, system);
+	}
+
+	/** Purpose        : Send mail to this mailbox.
+	 *  Interface      : input:   - message, timeout (ignored, sending never blocks)
+	 *                   output:  - mail overflow count and high-water mark in
+	 *                              telemetry_data
+	 *  Preconditions  : none
+	 *  Postconditions : Mail is queued, or counted as overflow if the
+	 *                   mailbox is full.
+	 *  Algorithm      : - if the ring is full, report overflow
+	 *                   - else store message at tail and advance tail */
+	@Override
+	public void sendTaskMail(char message, byte timeout) {
+		
+		int t = tail;
+		int count = count(head, t);
+
+		if (count >= depth) {
+			telemetry_data.reportMailOverflow(mailbox_number);
+		} else {
+			ring[slot(t)] = message;
+			tail = next(t);
+			telemetry_data.reportMailCount(mailbox_number, count + 1);
+		}
+	}
+
+	@Override
+	public void sendISRMail(char message) {
+		
+		sendTaskMail(message, (byte)0);
+	}
+
+	/** Purpose        : Mail is taken from this mailbox.
+	 *  Interface      : Result is stored in message, wait_result and
+	 *                   execution_result.
+	 *  Preconditions  : none
+	 *  Postconditions : The oldest message is received, or timeout has
+	 *                   occurred if the mailbox is empty.
+	 *  Algorithm      : - if head != tail, take message at head and advance head
+	 *                   - else report TIMEOUT_OCCURRED */
+	@Override
+	public void waitMail() {
+		
+		int h = head;
+
+		if (h != tail) {
+			message = ring[slot(h)];
+			head = next(h);
+			wait_result = MSG_RECEIVED;
+			execution_result = MSG_RECEIVED;
+		} else {
+			wait_result = TIMEOUT_OCCURRED;
+			execution_result = TIMEOUT_OCCURRED;
+			message = 0;
+		}
+	}
+
+	/** Discard all queued messages (receiver side). */
+	public void flushMail() {
+		
+		head = tail;
+	}
+
+	/** Number of queued messages */
+	public int getMailCount() {
+		
+		return count(head, tail);
+	}
+
+	public int getDepth() {
+		
+		return depth;
+	}
+
+	private int count(int h, int t) {
+		
+		return t >= h ? t - h : t - h + 2 * depth;
+	}
+
+	private int slot(int position) {
+		
+		return position < depth ? position : position - depth;
+	}
+
+	private int next(int position) {
+		
+		return position + 1 < 2 * depth ? position + 1 : 0;
+	}
+}
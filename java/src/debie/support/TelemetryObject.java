@@ -6,4 +6,9 @@ public interface TelemetryObject {
 	// SIZE_IN_BYTES
 	// INDEX_BITS (number of bits needed to keep track of serialization state)
 	public int getByte(int index);
+
+	/** Block transfer: copy {@code len} telemetry bytes, starting at
+	 *  {@code fromIndex}, to {@code dst[off] .. dst[off+len-1]}.
+	 *  Equivalent to {@code dst[off+i] = (byte)getByte(fromIndex+i)}. */
+	public void copyTo(int fromIndex, byte[] dst, int off, int len);
 }
@@ -1,7 +1,6 @@
 package debie.target;
 
 import debie.support.DebieSystem;
-import debie.support.Dpu;
 import debie.target.SensorUnitDev.Delays;
 import debie.telecommand.TelemetryData;
 
@@ -19,13 +18,14 @@ public class HwIf {
 	 * the RAM test and so would destroy its results.
 	 * These variables are set by Init_DPU, which is called from
 	 * the startup module. */
-	private static char failed_code_address;
-	private static char failed_data_address;	
+	private char failed_code_address;
+	private char failed_data_address;	
 	private static final int NO_RAM_FAILURE = 0xffff;
 	
-	private static DebieSystem system;
-	public static void setSystem(DebieSystem sys) {
-		system = sys;
+	private final DebieSystem system;
+
+	public HwIf(DebieSystem system) {
+		this.system = system;
 	}
 	
 	/* Same as in the original DEBIE-1 SW */
@@ -37,8 +37,8 @@ public class HwIf {
 	 *  Postconditions :  Data is gained.
 	 *  Algorithm      :  Counter is read with XBYTE.
 	 */
-	public static byte readRiseTimeCounter() {
-		return Dpu.getDataByte(system.getSensorUnitDevice().getRiseTimeCounter());
+	public byte readRiseTimeCounter() {
+		return system.getDpu().getDataByte(system.getSensorUnitDevice().getRiseTimeCounter());
 	}
 
 	/**
@@ -58,7 +58,7 @@ public class HwIf {
 	 * task uses  ResetPeakDetector HealthMonitoringTask is disabled because
 	 * it is of lower priority .
 	 */
-	public static void resetPeakDetector(int unit) {
+	public void resetPeakDetector(int unit) {
 		system.getTaskControl().disableInterruptMaster();
 	     /* Disable all interrupts */
 
@@ -78,7 +78,7 @@ public class HwIf {
 	 * Postconditions :  Counters are read.
 	 * Algorithm      :  MSB and LSB are combined to form an 16 bit int.
 	 */
-	public static void readDelayCounters(Delays delay) {
+	public void readDelayCounters(Delays delay) {
 		int msb, lsb;
 		   
 		SensorUnitDev suDev = system.getSensorUnitDevice();
@@ -104,7 +104,7 @@ public class HwIf {
 	 * Algorithm      :  The counter reset output bit at the I/O port 1 is set
 	 *                   first and then high.
 	 */
-	public static void resetDelayCounters() {
+	public void resetDelayCounters() {
 //		SET_COUNTER_RESET(LOW);
 		/* Counters are reset by setting CNTR_RS bit to low in port 1 */
 
@@ -126,7 +126,7 @@ public class HwIf {
 	 *                   and failed_data_address.
 	 *                   Note that the TM addresses are zero for "no failure".
 	 *  Algorithm      : see below. */
-	public static void signalMemoryErrors() {
+	public void signalMemoryErrors() {
 		
 		TelemetryData tmData = system.getTelemetryData();
 		
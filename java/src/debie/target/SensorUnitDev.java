@@ -136,6 +136,13 @@ public abstract class SensorUnitDev {
 	public int SU_ctrl_register = 0;
 
 	private int SU_self_test_channel;
+
+	/** The DPU whose data memory holds the SU control registers. */
+	protected final Dpu dpu;
+
+	protected SensorUnitDev(Dpu dpu) {
+		this.dpu = dpu;
+	}
 	
 	/** This array stores the value to be used when analog switch bit
 	 * corresponding to a given SU is set.                           
@@ -193,7 +200,7 @@ public abstract class SensorUnitDev {
 		break;
 		}
 
-		Dpu.setDataByte(SU_CONTROL, (byte)SU_ctrl_register);    
+		dpu.setDataByte(SU_CONTROL, (byte)SU_ctrl_register);    
 
 		// NOTE: Moved telemetry_data status update to the only call site 'Start_SU_SwitchingOn' 
 	}
@@ -249,7 +256,7 @@ public abstract class SensorUnitDev {
 		break;
 		}
 
-		Dpu.setDataByte(SU_CONTROL, (byte)SU_ctrl_register);       
+		dpu.setDataByte(SU_CONTROL, (byte)SU_ctrl_register);       
 
 		// NOTE: Moved telemetry_data status update to the only call site 'Start_SU_SwitchingOff' 
 	}
@@ -312,13 +319,13 @@ public abstract class SensorUnitDev {
 			int channel = setting.channel;
 			/*channel is selected*/
 			if (channel == PLASMA_1_PLUS) {
-				Dpu.setDataByte(setting.base + 0, (byte)setting.level);
+				dpu.setDataByte(setting.base + 0, (byte)setting.level);
 
 			} else if (channel == PLASMA_1_MINUS) {
-				Dpu.setDataByte(setting.base + 1, (byte)setting.level);
+				dpu.setDataByte(setting.base + 1, (byte)setting.level);
 
 			} else if (channel == PZT_1_2) {
-				Dpu.setDataByte(setting.base + 2, (byte)setting.level);
+				dpu.setDataByte(setting.base + 2, (byte)setting.level);
 
 			} else {
 				setting.execution_result = CHANNEL_NOT_SELECTED;
@@ -329,17 +336,17 @@ public abstract class SensorUnitDev {
 //			{
 //			case PLASMA_1_PLUS:
 //			{
-//				Dpu.setDataByte(setting.base + 0, (byte)setting.level);
+//				dpu.setDataByte(setting.base + 0, (byte)setting.level);
 //				break;
 //			}
 //			case PLASMA_1_MINUS:
 //			{
-//				Dpu.setDataByte(setting.base + 1, (byte)setting.level);
+//				dpu.setDataByte(setting.base + 1, (byte)setting.level);
 //				break;
 //			}
 //			case PZT_1_2:
 //			{
-//				Dpu.setDataByte(setting.base + 2, (byte)setting.level);
+//				dpu.setDataByte(setting.base + 2, (byte)setting.level);
 //				break;
 //			}
 //			default:
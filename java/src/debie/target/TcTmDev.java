@@ -42,6 +42,10 @@ public interface TcTmDev {
 	void  writeTmLsb(/* unsigned char */ int value);
 	void  writeTmMsb(/* unsigned char */ int value);
 
+	/** Block write: send src[off] .. src[off+len-1] to TM as consecutive
+	 *  MSB/LSB pairs, as if written by writeTmMsb/writeTmLsb. len is even. */
+	void  writeTmBlock(byte[] src, int off, int len);
+
 	/*    TC timer operations : isr_ctrl.h  (FIXME: is this the right place?)   */
 
 	/* unsigned char */ int getTimerOverflowFlag();
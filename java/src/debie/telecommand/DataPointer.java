@@ -5,10 +5,12 @@ import debie.support.TelemetryObject;
 
 /** Emulate a pointer to plain data memory */
 public class DataPointer implements TelemetryObject {
+	private final Dpu dpu;
 	private int base;
 	
-	public DataPointer(int base) {
+	public DataPointer(Dpu dpu, int base) {
 		
+		this.dpu = dpu;
 		this.base = base;
 	}
 	
@@ -19,6 +21,13 @@ public class DataPointer implements TelemetryObject {
 	
 	public int getByte(int addr) {
 		
-		return Dpu.getDataByte(base+addr);
+		return dpu.getDataByte(base+addr);
+	}
+
+	public void copyTo(int addr, byte[] dst, int off, int len) {
+		
+		for (int i = 0; i < len; i++) { // @WCA loop <= 32
+			dst[off+i] = dpu.getDataByte(base+addr+i);
+		}
 	}
 }
@@ -0,0 +1,161 @@
+/*
+  This file is part of JOP, the Java Optimized Processor
+    see <http://www.jopdesign.com/>
+
+  Copyright (C) 2011, Benedikt Huber (benedikt@vmars.tuwien.ac.at)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package debie.telecommand;
+
+import static debie.target.SensorUnitDev.NUM_SU;
+import static debie.telecommand.TelecommandExecutionTask.NUM_CLASSES;
+import static debie.target.HwIf.MAX_EVENTS;
+
+import debie.particles.EventRecord;
+import debie.support.DebieSystem;
+
+/** Science Data File with one EventRecord object per slot, as in the
+ *  original port. */
+public class ObjectScienceDataFile extends ScienceDataFile {
+
+	/* byte: 0-1 */
+	char /*unsigned short int*/ length;
+	
+	/* byte: 2-(2+NUM_SU*NUM_CLASSES-1) */
+	private char[][] /*unsigned char*/ event_counter = new char[NUM_SU][NUM_CLASSES];
+	
+	/* byte: (2+NUM_SU*NUM_CLASSES) */
+	byte /*unsigned char*/  not_used;
+
+	/* byte: (3+NUM_SU*NUM_CLASSES) */
+	int /*unsigned char*/  counter_checksum;
+	
+	/* byte: (4+NUM_SU*NUM_CLASSES)-(4+NUM_SU*NUM_CLASSES+MAX_EVENTS*26-1) */	
+	EventRecord[] event = new EventRecord[MAX_EVENTS];
+
+	
+	public ObjectScienceDataFile(DebieSystem system) {
+		
+		/* Java only: Array initialization */
+		for(int i = 0; i < event.length; ++i) {
+			event[i] = new EventRecord(system);
+		}
+	}	
+
+	public void setLength(char length) {
+		
+		this.length = length;
+	}
+
+	public int getEventCounter(int sensor_unit, int classification) {
+		
+		return event_counter[sensor_unit][classification];
+	}
+
+	public void setEventCounter(int sensor_unit, int classification, char counter) {
+		
+		event_counter[sensor_unit][classification] = counter;
+	}
+
+	public void resetEventCounters(int i) {
+		
+		for(/* DIRECT_INTERNAL uint_least8_t */ int j=0;j<NUM_CLASSES;j++)
+		{
+			event_counter[i][j] = 0;
+		}
+	}
+
+	public void setNotUsed(byte not_used) {
+		
+		this.not_used = not_used;
+	}
+
+	public int getCounterChecksum() {
+		
+		return counter_checksum;
+	}
+
+	public void setCounterChecksum(int checksum) {
+		
+		counter_checksum = checksum;
+	}
+
+	public int getQualityNumber(int slot) {
+		
+		return event[slot].getQualityNumber();
+	}
+
+	public void setQualityNumber(int slot, int quality_number) {
+		
+		event[slot].setQualityNumber(quality_number);
+	}
+
+	public int getHitTime(int slot) {
+		
+		return event[slot].getHitTime().toInt();
+	}
+
+	protected void storeRecord(int slot, EventRecord record) {
+		
+		event[slot].copyFrom(record);
+	}
+		
+	public int getByte(int index) {
+
+		if (index == 0) return length & 0xff;
+		else if (index == 1) return (length >> 8) & 0xff;
+		else if (index < 2+NUM_SU*NUM_CLASSES) {
+			int realIdx = index - 2;
+			int suIdx = realIdx/NUM_CLASSES;
+			int classIdx = realIdx - (suIdx * NUM_CLASSES);
+			return event_counter[suIdx][classIdx] & 0xff;
+		} else if (index == 2+NUM_SU*NUM_CLASSES) return not_used & 0xff;
+		else if (index == 3+NUM_SU*NUM_CLASSES) return counter_checksum & 0xff;
+		else if (index < 4 + NUM_SU*NUM_CLASSES + MAX_EVENTS*EventRecord.SIZE_IN_BYTES) {
+			int realIdx = index - (4+NUM_SU*NUM_CLASSES);
+			int eventIdx = realIdx/EventRecord.SIZE_IN_BYTES;
+			int recordIdx = realIdx - (eventIdx * EventRecord.SIZE_IN_BYTES);
+			return event[eventIdx].getByte(recordIdx);
+		}
+		else return 0;
+	}
+
+	public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+
+		int index = fromIndex;
+		int end   = fromIndex + len;
+
+		/* Header bytes one at a time, then whole or partial event records */
+		while (index < end && index < BYTE_INDEX_EVENT_RECORDS) { // @WCA loop <= 44
+			dst[off++] = (byte)getByte(index++);
+		}
+		while (index < end && index < sizeInBytes()) { // @WCA loop <= debie.target.HwIf.MAX_EVENTS
+			int realIdx = index - BYTE_INDEX_EVENT_RECORDS;
+			int eventIdx = realIdx/EventRecord.SIZE_IN_BYTES;
+			int recordIdx = realIdx - (eventIdx * EventRecord.SIZE_IN_BYTES);
+			int n = EventRecord.SIZE_IN_BYTES - recordIdx;
+			if (n > end - index) n = end - index;
+			event[eventIdx].copyTo(recordIdx, dst, off, n);
+			off   += n;
+			index += n;
+		}
+		while (index < end) { // @WCA loop <= 1
+			dst[off++] = 0;
+			index++;
+		}
+	}
+
+}
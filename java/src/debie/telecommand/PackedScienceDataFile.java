@@ -0,0 +1,126 @@
+/*
+  This file is part of JOP, the Java Optimized Processor
+    see <http://www.jopdesign.com/>
+
+  Copyright (C) 2011, Benedikt Huber (benedikt@vmars.tuwien.ac.at)
+
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package debie.telecommand;
+
+import static debie.telecommand.TelecommandExecutionTask.NUM_CLASSES;
+
+import debie.particles.EventRecord;
+
+/** Science Data File kept in a single byte array in its telemetry (wire)
+ *  layout. Event records are not objects, but are addressed by the byte
+ *  offset of their slot, so fetching a telemetry byte is a single array
+ *  load, and the whole file is one object on the heap. */
+public class PackedScienceDataFile extends ScienceDataFile {
+
+	/* Offsets within an event record, see EventRecord.getByte() */
+	private static final int QUALITY_NUMBER_OFFSET = 0;
+	private static final int HIT_TIME_OFFSET       = 4;
+
+	private final byte[] image = new byte[sizeInBytes()];
+
+	private static int slotOffset(int slot) {
+		
+		return BYTE_INDEX_EVENT_RECORDS + slot * EventRecord.SIZE_IN_BYTES;
+	}
+
+	public void setLength(char length) {
+		
+		image[BYTE_INDEX_LENGTH]     = (byte)length;
+		image[BYTE_INDEX_LENGTH + 1] = (byte)(length >> 8);
+	}
+
+	public int getEventCounter(int sensor_unit, int classification) {
+		
+		return image[BYTE_INDEX_EVENT_COUNTERS + sensor_unit * NUM_CLASSES + classification] & 0xff;
+	}
+
+	public void setEventCounter(int sensor_unit, int classification, char counter) {
+		
+		image[BYTE_INDEX_EVENT_COUNTERS + sensor_unit * NUM_CLASSES + classification] = (byte)counter;
+	}
+
+	public void resetEventCounters(int sensor_unit) {
+		
+		int base = BYTE_INDEX_EVENT_COUNTERS + sensor_unit * NUM_CLASSES;
+		for (int j = 0; j < NUM_CLASSES; j++) {
+			image[base + j] = 0;
+		}
+	}
+
+	public void setNotUsed(byte not_used) {
+		
+		image[BYTE_INDEX_NOT_USED] = not_used;
+	}
+
+	public int getCounterChecksum() {
+		
+		return image[BYTE_INDEX_COUNTER_CHECKSUM] & 0xff;
+	}
+
+	public void setCounterChecksum(int checksum) {
+		
+		image[BYTE_INDEX_COUNTER_CHECKSUM] = (byte)checksum;
+	}
+
+	public int getQualityNumber(int slot) {
+		
+		return image[slotOffset(slot) + QUALITY_NUMBER_OFFSET] & 0xff;
+	}
+
+	public void setQualityNumber(int slot, int quality_number) {
+		
+		image[slotOffset(slot) + QUALITY_NUMBER_OFFSET] = (byte)quality_number;
+	}
+
+	public int getHitTime(int slot) {
+		
+		int offset = slotOffset(slot) + HIT_TIME_OFFSET;
+		return (image[offset] & 0xff)
+			| ((image[offset+1] & 0xff) << 8)
+			| ((image[offset+2] & 0xff) << 16)
+			| (image[offset+3] << 24);
+	}
+
+	protected void storeRecord(int slot, EventRecord record) {
+		
+		record.pack(image, slotOffset(slot));
+	}
+
+	public int getByte(int index) {
+		
+		if (index < image.length) return image[index] & 0xff;
+		else return 0;
+	}
+
+	public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+
+		int n = image.length - fromIndex;
+		if (n > len) n = len;
+		if (n > 0) {
+			System.arraycopy(image, fromIndex, dst, off, n);
+		} else {
+			n = 0;
+		}
+		for (int i = n; i < len; i++) { // @WCA loop <= 1
+			dst[off+i] = 0;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package debie.telecommand;
+
+/** Priority index over the event slots of the Science Data File.
+ *  Slots are kept in a binary min-heap ordered by (quality number,
+ *  hit time, slot index), which is the same order in which the
+ *  original linear search in FindMinQualityRecord selects the record
+ *  to be replaced: lowest quality first, then the oldest hit, then
+ *  the lowest slot index.
+ *  The keys are cached here, so that heap operations do not need to
+ *  dereference the event records. No memory is allocated after
+ *  construction. */
+public class QualityIndex {
+
+	/* Slot indices, in heap order. */
+	private final int[] heap;
+
+	/* Position of each slot in the heap, or NOT_INDEXED. */
+	private final int[] position;
+
+	/* Cached keys of each slot. */
+	private final int[] quality;
+	private final int[] time;
+
+	/* Number of slots in the heap. */
+	private int size;
+
+	private static final int NOT_INDEXED = -1;
+
+	public QualityIndex(int capacity) {
+
+		heap     = new int[capacity];
+		position = new int[capacity];
+		quality  = new int[capacity];
+		time     = new int[capacity];
+		clear();
+	}
+
+	/** Remove all slots from the index. */
+	public void clear() {
+
+		for (int i = 0; i < position.length; i++) { // @WCA loop <= debie.target.HwIf.MAX_EVENTS
+			position[i] = NOT_INDEXED;
+		}
+		size = 0;
+	}
+
+	/** Number of slots in the index. */
+	public int size() {
+
+		return size;
+	}
+
+	/** Insert the given slot, or update its keys if it is already indexed. */
+	public void update(int slot, int quality_number, int hit_time) {
+
+		int pos = position[slot];
+
+		quality[slot] = quality_number;
+		time[slot]    = hit_time;
+
+		if (pos == NOT_INDEXED) {
+			pos = size;
+			size++;
+			heap[pos] = slot;
+			position[slot] = pos;
+			siftUp(pos);
+		} else {
+			siftDown(siftUp(pos));
+		}
+	}
+
+	/** Slot with the lowest quality number (the oldest one among equals),
+	 *  or 0 if the index is empty. */
+	public int minSlot() {
+
+		return size > 0 ? heap[0] : 0;
+	}
+
+	/** true if slot a should be replaced before slot b */
+	private boolean less(int a, int b) {
+
+		if (quality[a] != quality[b]) return quality[a] < quality[b];
+		if (time[a] != time[b])       return time[a] < time[b];
+		return a < b;
+	}
+
+	private int siftUp(int pos) {
+
+		int slot = heap[pos];
+
+		while (pos > 0) { // @WCA loop <= 11
+			int parent = (pos - 1) >> 1;
+			if (!less(slot, heap[parent])) break;
+			heap[pos] = heap[parent];
+			position[heap[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = slot;
+		position[slot] = pos;
+		return pos;
+	}
+
+	private void siftDown(int pos) {
+
+		int slot = heap[pos];
+
+		for (;;) { // @WCA loop <= 11
+			int child = (pos << 1) + 1;
+			if (child >= size) break;
+			if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+			if (!less(heap[child], slot)) break;
+			heap[pos] = heap[child];
+			position[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = slot;
+		position[slot] = pos;
+	}
+}
@@ -0,0 +1,133 @@
+package debie.telecommand;
+
+/** Order of the event slots of the Science Data File for download:
+ *  highest quality number first, and among equal quality numbers the
+ *  most recently stored record first.
+ *  Each quality number has a doubly linked list of its slots, and a
+ *  bitmap tells which lists are not empty, so that storing a record is
+ *  O(1) and stepping to the next slot scans at most the bitmap. No
+ *  memory is allocated after construction. */
+public class QualityOrder {
+
+	/* Quality numbers are unsigned bytes */
+	private static final int QUALITIES = 256;
+
+	public static final int NO_SLOT = -1;
+
+	/* First slot of each quality number, or NO_SLOT. */
+	private final int[] head = new int[QUALITIES];
+
+	/* Non-empty lists, quality q in bit (q & 31) of word (q >> 5). */
+	private final int[] occupied = new int[QUALITIES >> 5];
+
+	/* Links of each slot, and the list it is in, or NO_SLOT. */
+	private final int[] next;
+	private final int[] prev;
+	private final int[] quality;
+
+	/* Number of slots in the lists. */
+	private int size;
+
+	public QualityOrder(int capacity) {
+
+		next    = new int[capacity];
+		prev    = new int[capacity];
+		quality = new int[capacity];
+		clear();
+	}
+
+	/** Remove all slots from the order. */
+	public void clear() {
+
+		for (int q = 0; q < QUALITIES; q++) { // @WCA loop <= 256
+			head[q] = NO_SLOT;
+		}
+		for (int i = 0; i < occupied.length; i++) { // @WCA loop <= 8
+			occupied[i] = 0;
+		}
+		for (int i = 0; i < quality.length; i++) { // @WCA loop <= debie.target.HwIf.MAX_EVENTS
+			quality[i] = NO_SLOT;
+		}
+		size = 0;
+	}
+
+	/** Number of slots in the order. */
+	public int size() {
+
+		return size;
+	}
+
+	/** Order the given slot as the most recent one of its quality number. */
+	public void update(int slot, int quality_number) {
+
+		quality_number &= 0xff;
+
+		if (quality[slot] != NO_SLOT) {
+			remove(slot);
+		}
+
+		int first = head[quality_number];
+		next[slot] = first;
+		prev[slot] = NO_SLOT;
+		if (first != NO_SLOT) {
+			prev[first] = slot;
+		}
+		head[quality_number] = slot;
+		quality[slot] = quality_number;
+		occupied[quality_number >> 5] |= 1 << (quality_number & 31);
+		size++;
+	}
+
+	private void remove(int slot) {
+
+		int q = quality[slot];
+
+		if (prev[slot] != NO_SLOT) {
+			next[prev[slot]] = next[slot];
+		} else {
+			head[q] = next[slot];
+			if (head[q] == NO_SLOT) {
+				occupied[q >> 5] &= ~(1 << (q & 31));
+			}
+		}
+		if (next[slot] != NO_SLOT) {
+			prev[next[slot]] = prev[slot];
+		}
+		quality[slot] = NO_SLOT;
+		size--;
+	}
+
+	/** The first slot in download order, or NO_SLOT */
+	public int first() {
+
+		return headBelow(QUALITIES);
+	}
+
+	/** The slot after the given one in download order, or NO_SLOT */
+	public int next(int slot) {
+
+		if (next[slot] != NO_SLOT) return next[slot];
+		return headBelow(quality[slot]);
+	}
+
+	/** The first slot of the highest quality number below the given one,
+	 *  or NO_SLOT. */
+	private int headBelow(int quality_number) {
+
+		int q = quality_number - 1;
+
+		while (q >= 0) { // @WCA loop <= 8
+			int bits = occupied[q >> 5] & (-1 >>> (31 - (q & 31)));
+			if (bits != 0) {
+				/* Highest bit set: */
+				int bit = 31;
+				while ((bits & (1 << bit)) == 0) { // @WCA loop <= 31
+					bit--;
+				}
+				return head[(q & ~31) + bit];
+			}
+			q = (q & ~31) - 1;
+		}
+		return NO_SLOT;
+	}
+}
@@ -0,0 +1,107 @@
+package debie.telecommand;
+
+import debie.particles.EventRecord;
+
+/** Compact encoding of one event record, from its telemetry
+ *  layout (see EventRecord.pack).
+ *  Each record is encoded on its own, so that telemetry can encode one
+ *  record at a time:
+ *  <pre>
+ *  mask                    bit i set if 16-bit field i is not zero,
+ *                          RAW if the record is sent as is
+ *  quality, class, SU      1 byte each
+ *  hit time                varint
+ *  temperature 1, 2        1 byte each
+ *  16-bit fields           varint, for each bit set in mask
+ *  rise time, delay 1,
+ *  checksum                1 byte each
+ *  </pre>
+ *  The 16-bit fields are the five amplitudes, delay 2 and delay 3. The
+ *  padding bytes are not sent. A varint holds 7 bits per byte, least
+ *  significant first, with the top bit set in all but the last byte.
+ *  A record whose encoding would not be smaller than its layout, or
+ *  whose padding is not zero, is sent as RAW and its layout.
+ *  See ScienceDecoder for the decoding. */
+public class RecordCodec {
+
+	/* Encoded record sent as is */
+	public static final int RAW = 0x80;
+
+	/* Bytes of an encoded record: mask and raw layout at most, mask,
+	 * fixed bytes and a one-byte hit time at least */
+	public static final int MAX_SIZE = 1 + EventRecord.SIZE_IN_BYTES;
+	public static final int MIN_SIZE = 1 + 3 + 1 + 2 + 3;
+
+	/* Bytes of the encoding tried before falling back to RAW */
+	public static final int BUFFER_SIZE = 1 + 3 + 5 + 2 + 7 * 3 + 3;
+
+	/* Offsets in the record layout */
+	static final int QUALITY    = 0;
+	static final int PAD_1      = 3;
+	static final int HIT_TIME   = 4;
+	static final int TEMP_1     = 8;
+	static final int RISE_TIME  = 20;
+	static final int CHECKSUM   = 26;
+	static final int PAD_2      = 27;
+
+	/* Offsets of the 16-bit fields, one per mask bit */
+	static final int[] WORD_FIELDS = { 10, 12, 14, 16, 18, 22, 24 };
+
+	/** Encode the record at the given byte offset of a Science Data File
+	 *  into dst, which holds BUFFER_SIZE bytes; returns the encoded size. */
+	public static int encode(ScienceDataFile src, int offset, byte[] dst) {
+
+		int mask = 0;
+		int n = 1;
+
+		dst[n++] = (byte)src.getByte(offset + QUALITY);
+		dst[n++] = (byte)src.getByte(offset + QUALITY + 1);
+		dst[n++] = (byte)src.getByte(offset + QUALITY + 2);
+
+		int time = src.getByte(offset + HIT_TIME)
+			| src.getByte(offset + HIT_TIME + 1) << 8
+			| src.getByte(offset + HIT_TIME + 2) << 16
+			| src.getByte(offset + HIT_TIME + 3) << 24;
+		n = putVarint(time, dst, n);
+
+		dst[n++] = (byte)src.getByte(offset + TEMP_1);
+		dst[n++] = (byte)src.getByte(offset + TEMP_1 + 1);
+
+		for (int i = 0; i < WORD_FIELDS.length; i++) { // @WCA loop <= 7
+			int word = src.getByte(offset + WORD_FIELDS[i])
+				| src.getByte(offset + WORD_FIELDS[i] + 1) << 8;
+			if (word != 0) {
+				mask |= 1 << i;
+				n = putVarint(word, dst, n);
+			}
+		}
+
+		dst[n++] = (byte)src.getByte(offset + RISE_TIME);
+		dst[n++] = (byte)src.getByte(offset + RISE_TIME + 1);
+		dst[n++] = (byte)src.getByte(offset + CHECKSUM);
+
+		if (n >= MAX_SIZE
+			|| src.getByte(offset + PAD_1) != 0
+			|| src.getByte(offset + PAD_2) != 0)
+		{
+			/* Not smaller: send the layout */
+			mask = RAW;
+			n = 1;
+			for (int i = 0; i < EventRecord.SIZE_IN_BYTES; i++) { // @WCA loop <= 28
+				dst[n++] = (byte)src.getByte(offset + i);
+			}
+		}
+		dst[0] = (byte)mask;
+		return n;
+	}
+
+	private static int putVarint(int value, byte[] dst, int n) {
+
+		while ((value & ~0x7F) != 0) { // @WCA loop <= 4
+			dst[n++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		dst[n++] = (byte)value;
+		return n;
+	}
+}
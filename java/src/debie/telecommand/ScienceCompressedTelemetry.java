@@ -0,0 +1,97 @@
+package debie.telecommand;
+
+import static debie.target.HwIf.MAX_EVENTS;
+
+import debie.support.TelemetryObject;
+
+/** Compressed science telemetry of the used event records, in slot order.
+ *  The wire layout is the header of the Science Data File (length, event
+ *  counters, not used, counter checksum), followed by the records encoded
+ *  by RecordCodec, and a zero byte if needed to make the length even.
+ *  The TC interrupt only selects the records to send (prepare); the size
+ *  is found by the Telecommand Execution task (start), by encoding each
+ *  record once, before the TM interrupt is enabled. The Science Data
+ *  acquisition does not encode the records it stores. The records are
+ *  encoded again as they are sent, one at a time into a small buffer, so
+ *  that a TM interrupt encodes at most one record: the bytes must be read
+ *  in telemetry order, and a byte out of that order reads as zero.
+ *  See ScienceDecoder for the ground side. */
+public class ScienceCompressedTelemetry implements TelemetryObject {
+
+	/* Bytes of the header, as in the Science Data File */
+	public static final int HEADER_SIZE = ScienceDataFile.BYTE_INDEX_EVENT_RECORDS;
+
+	/* Bytes of the telemetry of every slot, each record encoded as RAW,
+	 * with the padding; the largest block that copyTo is given */
+	public static final int MAX_SIZE_IN_BYTES =
+		HEADER_SIZE + MAX_EVENTS * RecordCodec.MAX_SIZE + 1;
+
+	private ScienceDataFile file;
+
+	/* Number of records, and of bytes up to the end of the last one */
+	private int records;
+	private int end;
+
+	/* The record in the buffer: its slot and first telemetry byte */
+	private final byte[] buffer = new byte[RecordCodec.BUFFER_SIZE];
+	private int buffer_slot;
+	private int buffer_start;
+	private int buffer_length;
+
+	/** Select the first records of the given file for telemetry; called
+	 *  from the TC interrupt, so it does not loop over the records. */
+	public void prepare(ScienceDataFile file, int records) {
+
+		this.file = file;
+		this.records = records;
+	}
+
+	/** Start telemetry of the prepared records; returns the size of the
+	 *  telemetry in bytes. */
+	public int start() {
+
+		end = HEADER_SIZE;
+		for (int slot = 0; slot < records; slot++) { // @WCA loop <= debie.target.HwIf.MAX_EVENTS
+			end += RecordCodec.encode(file, file.getEventByteOffset(slot), buffer);
+		}
+
+		rewind();
+
+		return (end + 1) & ~1;
+	}
+
+	/** No record in the buffer; the next one is the first */
+	private void rewind() {
+
+		buffer_slot   = -1;
+		buffer_start  = HEADER_SIZE;
+		buffer_length = 0;
+	}
+
+	public int getByte(int index) {
+
+		if (index < HEADER_SIZE) return file.getByte(index);
+		if (index >= end) return 0;
+
+		/* Not in telemetry order: */
+		if (index < buffer_start) return 0;
+
+		if (index >= buffer_start + buffer_length && buffer_slot + 1 < records) {
+			/* The next record */
+			buffer_start += buffer_length;
+			buffer_slot++;
+			buffer_length = RecordCodec.encode(file,
+				file.getEventByteOffset(buffer_slot), buffer);
+		}
+		if (index >= buffer_start + buffer_length) return 0;
+
+		return buffer[index - buffer_start] & 0xff;
+	}
+
+	public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+
+		for (int i = 0; i < len; i++) { // @WCA loop <= debie.telecommand.ScienceCompressedTelemetry.MAX_SIZE_IN_BYTES
+			dst[off+i] = (byte)getByte(fromIndex+i);
+		}
+	}
+}
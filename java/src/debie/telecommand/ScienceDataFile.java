@@ -28,58 +28,56 @@ import debie.particles.EventRecord;
 import debie.support.DebieSystem;
 import debie.support.TelemetryObject;
 
-public class ScienceDataFile implements TelemetryObject {
+/** The Science Data File, as sent by science telemetry.
+ *  Event records are addressed by their slot index; implementations
+ *  are free to choose the storage layout, as long as getByte() yields
+ *  the telemetry (wire) layout below. */
+public abstract class ScienceDataFile implements TelemetryObject {
 
-	/* byte: 0-1 */
-	char /*unsigned short int*/ length;
-	
-	/* byte: 2-(2+NUM_SU*NUM_CLASSES-1) */
-	private char[][] /*unsigned char*/ event_counter = new char[NUM_SU][NUM_CLASSES];
-	
-	/* byte: (2+NUM_SU*NUM_CLASSES) */
-	byte /*unsigned char*/  not_used;
+	/* Select the storage layout of the Science Data File. The packed
+	 * layout keeps the whole file in one byte array in wire format;
+	 * the object layout keeps one EventRecord per slot. */
+	public static final boolean PACKED_LAYOUT = true;
 
-	/* byte: (3+NUM_SU*NUM_CLASSES) */
-	int /*unsigned char*/  counter_checksum;
-	
-	/* byte: (4+NUM_SU*NUM_CLASSES)-(4+NUM_SU*NUM_CLASSES+MAX_EVENTS*26-1) */	
-	EventRecord[] event = new EventRecord[MAX_EVENTS];
+	public static ScienceDataFile create(DebieSystem system) {
 
-	
-	public ScienceDataFile(DebieSystem system) {
-		
-		/* Java only: Array initialization */
-		for(int i = 0; i < event.length; ++i) {
-			event[i] = new EventRecord(system);
-		}
-	}	
-
-	public int getEventCounter(int sensor_unit, int classification) {
-		
-		return event_counter[sensor_unit][classification];
-	}
-
-	public void setEventCounter(int sensor_unit, int classification, char counter) {
-		
-		event_counter[sensor_unit][classification] = counter;
+		return create(system, PACKED_LAYOUT);
 	}
 
-	public void resetEventCounters(int i) {
+	/** Java only: a Science Data File of the given layout, so that the
+	 *  host tests can run against both. */
+	public static ScienceDataFile create(DebieSystem system, boolean packed_layout) {
 		
-		for(/* DIRECT_INTERNAL uint_least8_t */ int j=0;j<NUM_CLASSES;j++)
-		{
-			event_counter[i][j] = 0;
+		if (packed_layout) {
+			return new PackedScienceDataFile();
+		} else {
+			return new ObjectScienceDataFile(system);
 		}
 	}
-		
+
+	/* Wire layout */
+	
+	/* byte: 0-1 */
+	protected static final int BYTE_INDEX_LENGTH = 0;
+
+	/* byte: 2-(2+NUM_SU*NUM_CLASSES-1) */
+	protected static final int BYTE_INDEX_EVENT_COUNTERS = 2;
+
+	/* byte: (2+NUM_SU*NUM_CLASSES) */
+	protected static final int BYTE_INDEX_NOT_USED = 2 + (NUM_SU * NUM_CLASSES);
+
+	/* byte: (3+NUM_SU*NUM_CLASSES) */
+	protected static final int BYTE_INDEX_COUNTER_CHECKSUM = 3 + (NUM_SU * NUM_CLASSES);
+
+	/* byte: (4+NUM_SU*NUM_CLASSES)-(4+NUM_SU*NUM_CLASSES+MAX_EVENTS*EventRecord.SIZE_IN_BYTES-1) */
+	protected static final int BYTE_INDEX_EVENT_RECORDS = 4 + (NUM_SU * NUM_CLASSES);
+
 	/* Serialization */
-	private static final int SIZE_IN_BYTES = 4+NUM_SU*NUM_CLASSES + MAX_EVENTS*26;
+	private static final int SIZE_IN_BYTES = BYTE_INDEX_EVENT_RECORDS + MAX_EVENTS*EventRecord.SIZE_IN_BYTES;
 	public static final int INDEX_BITS = 7;
 	public static int sizeInBytes() { return SIZE_IN_BYTES; }
 	public static int indexBits()   { return INDEX_BITS; }
 
-	private static final int BYTE_INDEX_EVENT_RECORDS = 4 + (NUM_SU * NUM_CLASSES);
-
 	/** for byte-wise telemetry transmission, we need to know at which byte index
 	 *  a certain event record starts. */
 	public int getEventByteOffset(int free_slot_index) {
@@ -87,24 +85,116 @@ public class ScienceDataFile implements TelemetryObject {
 		return BYTE_INDEX_EVENT_RECORDS + (free_slot_index * EventRecord.sizeInBytes()); 
 	}
 
-	public int getByte(int index) {
-
-		if (index == 0) return length & 0xff;
-		else if (index == 1) return (length >> 8) & 0xff;
-		else if (index < 2+NUM_SU*NUM_CLASSES) {
-			int realIdx = index - 2;
-			int suIdx = realIdx/NUM_CLASSES;
-			int classIdx = realIdx - (suIdx * NUM_CLASSES);
-			return event_counter[suIdx][classIdx] & 0xff;
-		} else if (index == 2+NUM_SU*NUM_CLASSES) return not_used & 0xff;
-		else if (index == 3+NUM_SU*NUM_CLASSES) return counter_checksum & 0xff;
-		else if (index < 4 + NUM_SU*NUM_CLASSES + MAX_EVENTS*EventRecord.SIZE_IN_BYTES) {
-			int realIdx = index - (4+NUM_SU*NUM_CLASSES);
-			int eventIdx = realIdx/EventRecord.SIZE_IN_BYTES;
-			int recordIdx = realIdx - (eventIdx * EventRecord.SIZE_IN_BYTES);
-			return event[eventIdx].getByte(recordIdx);
+	/* Header */
+	
+	public abstract void setLength(char /*unsigned short int*/ length);
+
+	public abstract int getEventCounter(int sensor_unit, int classification);
+
+	public abstract void setEventCounter(int sensor_unit, int classification, char counter);
+
+	public abstract void resetEventCounters(int sensor_unit);
+
+	public abstract void setNotUsed(byte /*unsigned char*/ not_used);
+
+	public abstract int getCounterChecksum();
+
+	public abstract void setCounterChecksum(int /*unsigned char*/ checksum);
+
+	/* Event records */
+
+	public abstract int getQualityNumber(int slot);
+
+	public abstract void setQualityNumber(int slot, int quality_number);
+
+	/** hit time of the event record in the given slot */
+	public abstract int /*dpu_time_t*/ getHitTime(int slot);
+
+	/** XXX: replaces STRUCT_ASSIGN (science_data.event[slot], record) */
+	public void storeEvent(int slot, EventRecord record) {
+
+		storeRecord(slot, record);
+
+		markDirty(slot);
+		quality_order.update(slot, getQualityNumber(slot));
+	}
+
+	/** copy the record to the given slot, in the layout of the file */
+	protected abstract void storeRecord(int slot, EventRecord record);
+
+	/* Download order of the stored records, see QualityOrder */
+	private final QualityOrder quality_order = new QualityOrder(MAX_EVENTS);
+
+	public QualityOrder getQualityOrder() {
+
+		return quality_order;
+	}
+
+	/** Forget the stored records: their changed marks and download
+	 *  order. The records themselves are not cleared. */
+	public void clearRecords() {
+
+		clearDirty();
+		quality_order.clear();
+	}
+
+	/* Dirty slots: event records changed since the last delta telemetry */
+
+	/* One bit per slot, slot i in bit (i & 31) of word (i >> 5) */
+	private final int[] dirty = new int[(MAX_EVENTS + 31) >> 5];
+
+	/* Number of bits set in dirty */
+	private int dirty_count;
+
+	/** mark the event record in the given slot as changed */
+	public void markDirty(int slot) {
+
+		int bit = 1 << (slot & 31);
+		if ((dirty[slot >> 5] & bit) == 0) {
+			dirty[slot >> 5] |= bit;
+			dirty_count++;
 		}
-		else return 0;
 	}
-	
+
+	public boolean isDirty(int slot) {
+
+		return (dirty[slot >> 5] & (1 << (slot & 31))) != 0;
+	}
+
+	/** number of changed event records */
+	public int getDirtyCount() {
+
+		return dirty_count;
+	}
+
+	public void clearDirty() {
+
+		for (int i = 0; i < dirty.length; i++) { // @WCA loop <= 40
+			dirty[i] = 0;
+		}
+		dirty_count = 0;
+	}
+
+	/** the first changed slot from the given one on, or MAX_EVENTS if none */
+	public int nextDirtySlot(int slot) {
+
+		int word = slot >> 5;
+		if (word >= dirty.length) return MAX_EVENTS;
+
+		/* Bits of the slots before the given one are masked out: */
+		int bits = dirty[word] & (-1 << (slot & 31));
+
+		while (bits == 0) { // @WCA loop <= 40
+			word++;
+			if (word >= dirty.length) return MAX_EVENTS;
+			bits = dirty[word];
+		}
+
+		slot = word << 5;
+		while ((bits & 1) == 0) { // @WCA loop <= 31
+			bits >>>= 1;
+			slot++;
+		}
+		return slot;
+	}
 }
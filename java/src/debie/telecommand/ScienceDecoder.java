@@ -0,0 +1,122 @@
+package debie.telecommand;
+
+import debie.particles.EventRecord;
+
+/** Decoder of the compressed science telemetry, for the ground (host)
+ *  side: restores the Science Data File layout, as a full Science Data
+ *  dump would have sent it, from the octets of a ScienceCompressedTelemetry.
+ *  See RecordCodec for the encoding of the records. */
+public class ScienceDecoder {
+
+	/* Position in the source after the last getVarint, or -1 */
+	private int pos;
+
+	/* Number of records decoded by the last decode */
+	private int records;
+
+	public int getRecords() {
+
+		return records;
+	}
+
+	/** Decode the compressed telemetry in src[0] .. src[len-1], including
+	 *  the header, into the Science Data File layout in dst; returns the
+	 *  bytes of the layout, or -1 if the telemetry is malformed or does
+	 *  not fit in dst. */
+	public int decode(byte[] src, int len, byte[] dst) {
+
+		int header = ScienceDataFile.BYTE_INDEX_EVENT_RECORDS;
+
+		records = 0;
+		if (len < header || dst.length < header) return -1;
+
+		System.arraycopy(src, 0, dst, 0, header);
+
+		int off  = header;
+		int doff = header;
+
+		/* Records are at least MIN_SIZE bytes; a shorter rest is padding. */
+		while (len - off >= RecordCodec.MIN_SIZE) {
+			if (dst.length - doff < EventRecord.SIZE_IN_BYTES) return -1;
+
+			int n = decodeRecord(src, off, len, dst, doff);
+			if (n < 0) return -1;
+
+			off  += n;
+			doff += EventRecord.SIZE_IN_BYTES;
+			records++;
+		}
+
+		/* Length of the layout in 16-bit words, as in a full dump: */
+		dst[ScienceDataFile.BYTE_INDEX_LENGTH]     = (byte)(doff / 2);
+		dst[ScienceDataFile.BYTE_INDEX_LENGTH + 1] = (byte)(doff / 2 >> 8);
+
+		return doff;
+	}
+
+	/** Decode the record encoded at src[off] .. src[end-1] into its layout
+	 *  at dst[doff]; returns the encoded size, or -1 if it is malformed. */
+	public int decodeRecord(byte[] src, int off, int end, byte[] dst, int doff) {
+
+		if (off >= end) return -1;
+
+		int mask = src[off] & 0xff;
+		pos = off + 1;
+
+		for (int i = 0; i < EventRecord.SIZE_IN_BYTES; i++) {
+			dst[doff + i] = 0;
+		}
+
+		if (mask == RecordCodec.RAW) {
+			if (end - pos < EventRecord.SIZE_IN_BYTES) return -1;
+			System.arraycopy(src, pos, dst, doff, EventRecord.SIZE_IN_BYTES);
+			return RecordCodec.MAX_SIZE;
+		}
+		if ((mask & RecordCodec.RAW) != 0 || end - pos < 3) return -1;
+
+		dst[doff + RecordCodec.QUALITY]     = src[pos++];
+		dst[doff + RecordCodec.QUALITY + 1] = src[pos++];
+		dst[doff + RecordCodec.QUALITY + 2] = src[pos++];
+
+		int time = getVarint(src, end);
+		if (pos < 0 || end - pos < 2) return -1;
+		putWord(time, dst, doff + RecordCodec.HIT_TIME);
+		putWord(time >>> 16, dst, doff + RecordCodec.HIT_TIME + 2);
+
+		dst[doff + RecordCodec.TEMP_1]     = src[pos++];
+		dst[doff + RecordCodec.TEMP_1 + 1] = src[pos++];
+
+		for (int i = 0; i < RecordCodec.WORD_FIELDS.length; i++) {
+			if ((mask & (1 << i)) != 0) {
+				int word = getVarint(src, end);
+				if (pos < 0 || word > 0xFFFF) return -1;
+				putWord(word, dst, doff + RecordCodec.WORD_FIELDS[i]);
+			}
+		}
+
+		if (end - pos < 3) return -1;
+		dst[doff + RecordCodec.RISE_TIME]     = src[pos++];
+		dst[doff + RecordCodec.RISE_TIME + 1] = src[pos++];
+		dst[doff + RecordCodec.CHECKSUM]      = src[pos++];
+
+		return pos - off;
+	}
+
+	private int getVarint(byte[] src, int end) {
+
+		int value = 0;
+		for (int shift = 0; shift < 35 && pos < end; shift += 7) {
+			int b = src[pos++] & 0xff;
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		pos = -1;
+		return 0;
+	}
+
+	private static void putWord(int word, byte[] dst, int off) {
+
+		dst[off]     = (byte)word;
+		dst[off + 1] = (byte)(word >> 8);
+	}
+}
@@ -0,0 +1,22 @@
+package debie.telecommand;
+
+/** Science telemetry of the event records changed since the last delta
+ *  telemetry, see ScienceDataFile.markDirty, in slot order.
+ *  Stepping to the next changed slot scans at most the dirty bitmap. */
+public class ScienceDeltaTelemetry extends ScienceEntryTelemetry {
+
+	protected int entryCount() {
+
+		return file.getDirtyCount();
+	}
+
+	protected int firstSlot() {
+
+		return file.nextDirtySlot(0);
+	}
+
+	protected int nextSlot(int slot) {
+
+		return file.nextDirtySlot(slot + 1);
+	}
+}
@@ -0,0 +1,97 @@
+package debie.telecommand;
+
+import static debie.target.HwIf.MAX_EVENTS;
+
+import debie.particles.EventRecord;
+import debie.support.TelemetryObject;
+
+/** Science telemetry of a sequence of event records of a Science Data
+ *  File, each sent with its slot index.
+ *  The wire layout is the header of the Science Data File (length, event
+ *  counters, not used, counter checksum), followed by one entry per
+ *  record: the slot index (LSB, MSB) and the event record.
+ *  Entries are located by stepping a cursor from one slot of the
+ *  sequence to the next, so that sending the bytes in order costs one
+ *  step of the sequence per entry. The bytes must be read in telemetry
+ *  order: the entries out of that order read as zero. */
+public abstract class ScienceEntryTelemetry implements TelemetryObject {
+
+	/* Bytes of one entry: slot index and event record */
+	public static final int ENTRY_SIZE = 2 + EventRecord.SIZE_IN_BYTES;
+
+	/* Bytes of the header, as in the Science Data File */
+	public static final int HEADER_SIZE = ScienceDataFile.BYTE_INDEX_EVENT_RECORDS;
+
+	/* Bytes of the telemetry with an entry for every slot; the largest
+	 * block that copyTo is given */
+	public static final int MAX_SIZE_IN_BYTES = HEADER_SIZE + MAX_EVENTS * ENTRY_SIZE;
+
+	protected ScienceDataFile file;
+
+	/* Number of entries */
+	private int entries;
+
+	/* Entry number and slot of the last located entry */
+	private int cursor_entry;
+	private int cursor_slot;
+
+	/** Number of slots in the sequence */
+	protected abstract int entryCount();
+
+	/** The first slot of the sequence */
+	protected abstract int firstSlot();
+
+	/** The slot after the given one in the sequence */
+	protected abstract int nextSlot(int slot);
+
+	/** Start telemetry of the given file; returns the size of the
+	 *  telemetry in bytes. */
+	public int start(ScienceDataFile file) {
+
+		this.file = file;
+		entries = entryCount();
+		cursor_entry = 0;
+		cursor_slot  = firstSlot();
+
+		return HEADER_SIZE + entries * ENTRY_SIZE;
+	}
+
+	/** slot of the given entry, or -1 if it is not the entry of the
+	 *  cursor or the next one */
+	private int slotOf(int entry) {
+
+		if (entry == cursor_entry + 1 && cursor_slot >= 0 && cursor_slot < MAX_EVENTS) {
+			cursor_slot = nextSlot(cursor_slot);
+			cursor_entry++;
+		}
+		if (entry != cursor_entry) {
+			/* Not in telemetry order */
+			return -1;
+		}
+		return cursor_slot;
+	}
+
+	public int getByte(int index) {
+
+		if (index < HEADER_SIZE) return file.getByte(index);
+
+		int entry  = (index - HEADER_SIZE) / ENTRY_SIZE;
+		int offset = (index - HEADER_SIZE) - entry * ENTRY_SIZE;
+
+		if (entry >= entries) return 0;
+
+		int slot = slotOf(entry);
+		if (slot < 0 || slot >= MAX_EVENTS) return 0;
+
+		if (offset == 0)      return slot & 0xff;
+		else if (offset == 1) return (slot >> 8) & 0xff;
+		else return file.getByte(file.getEventByteOffset(slot) + offset - 2);
+	}
+
+	public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+
+		for (int i = 0; i < len; i++) { // @WCA loop <= debie.telecommand.ScienceEntryTelemetry.MAX_SIZE_IN_BYTES
+			dst[off+i] = (byte)getByte(fromIndex+i);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package debie.telecommand;
+
+/** Science telemetry of all event records, highest quality number first
+ *  and among equal quality numbers the most recent first, so that a dump
+ *  cut short has sent the best records. The order is maintained as the
+ *  records are stored, see QualityOrder. */
+public class ScienceQualityTelemetry extends ScienceEntryTelemetry {
+
+	protected int entryCount() {
+
+		return file.getQualityOrder().size();
+	}
+
+	protected int firstSlot() {
+
+		return file.getQualityOrder().first();
+	}
+
+	protected int nextSlot(int slot) {
+
+		return file.getQualityOrder().next(slot);
+	}
+}
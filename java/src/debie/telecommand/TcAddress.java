@@ -17,6 +17,12 @@ public class TcAddress {
 
 	public static final int SEND_STATUS_REGISTER =                   0x05;
 	public static final int SEND_SCIENCE_DATA_FILE =                 0x06;
+	/* Java only: changed event records, see ScienceDeltaTelemetry */
+	public static final int SEND_SCIENCE_DATA_DELTA =                0x07;
+	/* Java only: event records by quality, see ScienceQualityTelemetry */
+	public static final int SEND_SCIENCE_DATA_BY_QUALITY =           0x08;
+	/* Java only: compressed event records, see ScienceCompressedTelemetry */
+	public static final int SEND_SCIENCE_DATA_COMPRESSED =           0x11;
 
 	public static final int SET_TIME_BYTE_0 =                        0x0C;
 	public static final int SET_TIME_BYTE_1 =                        0x0D;
@@ -5,6 +5,7 @@ import debie.particles.AcquisitionTask;
 import debie.particles.EventRecord;
 import debie.particles.SensorUnit;
 import debie.particles.SensorUnit.SensorUnitState;
+import debie.particles.SensorUnitSettings;
 import debie.support.DebieSystem;
 import debie.support.Dpu;
 import debie.support.KernelObjects;
@@ -67,8 +68,19 @@ public class TelecommandExecutionTask {
 
 	public static final int TM_READY = 0xFFFF;
 
+	/* Default number of events that can wait in event_queue. */
 	public static final int MAX_QUEUE_LENGTH = 10;
 
+	/* Java only: upper limit of the configured event_queue_size, */
+	/* which bounds the loops over the queue.                     */
+	public static final int MAX_EVENT_QUEUE_SIZE = 64;
+
+	/* Select how events are recorded during Science Telemetry. With     */
+	/* the snapshot, the Science Data File being sent is frozen, and new */
+	/* events are recorded in a second Science Data File; otherwise they */
+	/* wait in event_queue, which holds at most event_queue_size events. */
+	public static final boolean SNAPSHOT_SCIENCE_TM = true;
+
 	/*--- Ported from tc_hand.c:38-67 */
 	private static int TC_ADDRESS(int TC_WORD) { return ((TC_WORD) >> 9); }
 	private static int TC_CODE(int TC_WORD)    { return ((TC_WORD) &  255); }
@@ -100,7 +112,7 @@ public class TelecommandExecutionTask {
 	/* Timeout 100 x 10 ms = 1s. */
 
 	// XXX: pulled out of tcInterruptService, which breaks re-entrance, but avoids memory allocation
-	private final DataPointer data_pointer = new DataPointer(0);
+	private final DataPointer data_pointer;
 	
 	/* State of Telecommand Execution task */
 	public static enum TC_State {
@@ -119,6 +131,25 @@ public class TelecommandExecutionTask {
 	//EXTERNAL science_data_file_t LOCATION(SCIENCE_DATA_START_ADDRESS)
 	public ScienceDataFile science_data;
 
+	/* Java only: the other Science Data File. During Science Telemetry */
+	/* with SNAPSHOT_SCIENCE_TM, the frozen file being sent; otherwise  */
+	/* a cleared file, which clearEvents swaps with science_data.       */
+	private ScienceDataFile science_spare;
+
+	/* Java only: telemetry of the changed event records of science_data */
+	private final ScienceDeltaTelemetry science_delta = new ScienceDeltaTelemetry();
+
+	/* Java only: telemetry of the event records of science_data, best first */
+	private final ScienceQualityTelemetry science_by_quality = new ScienceQualityTelemetry();
+
+	/* Java only: compressed telemetry of the event records of science_data */
+	private final ScienceCompressedTelemetry science_compressed = new ScienceCompressedTelemetry();
+
+	/* Java only: the Science Telemetry in progress sends science_delta. */
+	/* The changed records are not frozen by a snapshot, so new events  */
+	/* wait in event_queue until the telemetry ends.                    */
+	private boolean delta_science_tm;
+
 	/* This variable is used to speed up certain    */
 	/* Functional Test by adding the possibility    */
 	/* to restrict the amount of events.            */
@@ -141,11 +172,22 @@ public class TelecommandExecutionTask {
 	/* but during Science Telemetry there can be stored  */
 	/* several older events which are copied to the      */
 	/* Science Data memory after telemetry ends.         */
+	/* Java only: a ring of event_queue_size + 1 records */
+	/* allocated in the constructor. The queued events   */
+	/* start from event_queue_head, and the event being  */
+	/* collected follows the last one, so a full queue   */
+	/* still has a free record, whose event is dropped.  */
 	private EventRecord[] event_queue; /* Initialized in the constructor */
 
+	/* Java only: number of events that can be queued */
+	private final int event_queue_size;
+
+	/* Java only: position of the first queued event */
+	private int event_queue_head;
+
 	/* Number of event records stored in the queue.    */
 	/* These records are stored into event_queue table */
-	/* in order starting from the first element.       */
+	/* in order starting from event_queue_head.        */
 	/* Initialised to zero on power-up.                */
 	private /* uint_least8_t */ int event_queue_length;
 
@@ -160,6 +202,14 @@ public class TelecommandExecutionTask {
 	/* Science Data memory after telemetry ends.         */
 	private /* uint_least16_t */ int free_slot_index;
 
+	/* Java only: index over the used event records in the Science Data */
+	/* memory, ordered by quality number and hit time. Replaces the     */
+	/* linear search in FindMinQualityRecord.                           */
+	private QualityIndex quality_index = new QualityIndex(HwIf.MAX_EVENTS);
+
+	/* Java only: the index of science_spare, cleared with it. */
+	private QualityIndex spare_quality_index = new QualityIndex(HwIf.MAX_EVENTS);
+
 	/*--- Ported from tc_hand.c:78-89 */
 	/* Type definitions */
 	
@@ -197,6 +247,20 @@ public class TelecommandExecutionTask {
 	/* Look-up table for all possible 128 TC address values (domain: ALL_INVALID(0) - ONLY_EVEN(4) ) */
 	private /*unsigned char[] */ byte[] TC_look_up = new byte[128];
 
+	/* Possible results of decoding a TC word:                   */
+
+	private static final int TC_ACCEPTED =   0;
+	private static final int TC_PARITY =     1;
+	private static final int TC_INVALID =    2;
+
+	/* Error status bits of each decoding result                 */
+	private static final int[] TC_DECODE_STATUS =
+		{ 0, TcTmDev.PARITY_ERROR, TcTmDev.TC_ERROR, 0 };
+
+	/* Decoding results of all 65536 TC words, 2 bits per word, 16 words */
+	/* per element; built from TC_look_up by initTcLookup.               */
+	private int[] TC_decode = new int[0x10000 / 16];
+
 	/* internal state of the Telecommand Execution task */
 	private TC_State TC_state = TC_State.TC_handling_e; /* 0 ~ TC_handling_e */
 
@@ -241,9 +305,20 @@ public class TelecommandExecutionTask {
 	 * Postconditions : TelecommandExecutionTask is operational.
 	 * Algorithm      : - initialize task variables.
 	 */
-	public TelecommandExecutionTask(DebieSystem system) {
+	/** event_queue_size: number of events that can wait in the event
+	 *  queue during Science Telemetry, see SNAPSHOT_SCIENCE_TM; limited
+	 *  to 0..MAX_EVENT_QUEUE_SIZE. */
+	public TelecommandExecutionTask(DebieSystem system, int event_queue_size) {
+
+		this(system, event_queue_size, ScienceDataFile.PACKED_LAYOUT);
+	}
 
-		science_data = new ScienceDataFile(system);
+	/** packed_layout: the layout of the Science Data Files, see
+	 *  ScienceDataFile.create */
+	public TelecommandExecutionTask(DebieSystem system, int event_queue_size, boolean packed_layout) {
+
+		science_data = ScienceDataFile.create(system, packed_layout);
+		science_spare = ScienceDataFile.create(system, packed_layout);
 		
 		this.taskControl = system.getTaskControl();
 		
@@ -252,9 +327,11 @@ public class TelecommandExecutionTask {
 		this.tcMailbox = system.getTcTmMailbox();
 		this.tctmDev = system.getTcTmDevice();
 		this.system = system;
+		this.data_pointer = new DataPointer(system.getDpu(), 0);
 		this.received_command = new Telecommand(0,TcAddress.UNUSED_TC_ADDRESS, 0);
 
 		initTcLookup();
+		initTcHandlers();
 
 		TC_state            = TC_State.TC_handling_e;
 
@@ -270,13 +347,24 @@ public class TelecommandExecutionTask {
 		taskControl.disableInterrupt(KernelObjects.TM_ISR_SOURCE);
 		taskControl.enableInterrupt(KernelObjects.TC_ISR_SOURCE);
 		
-		/* [Java version only] Initialize the EventRecord list */
-		event_queue	= new EventRecord[MAX_QUEUE_LENGTH];
-		for(int i = 0; i < MAX_QUEUE_LENGTH; ++i) {
+		/* [Java version only] Initialize the EventRecord ring */
+		if (event_queue_size > MAX_EVENT_QUEUE_SIZE) {
+			event_queue_size = MAX_EVENT_QUEUE_SIZE;
+		} else if (event_queue_size < 0) {
+			event_queue_size = 0;
+		}
+		this.event_queue_size = event_queue_size;
+		event_queue	= new EventRecord[event_queue_size + 1];
+		for(int i = 0; i < event_queue.length; ++i) {
 			event_queue[i] = new EventRecord(system);
 		}
 	}
 
+	public TelecommandExecutionTask(DebieSystem system) {
+
+		this(system, MAX_QUEUE_LENGTH);
+	}
+
 	/*--- [2] Definitions from   telem.c: 74 ---*/
 
 	/**  Purpose        : Returns pointer to free event record in event queue. 
@@ -286,22 +374,24 @@ public class TelecommandExecutionTask {
 	 *                  subroutines - none
 	 * Preconditions  : none.
 	 * Postconditions : none.
-	 * Algorithm      : -If the queue is not full
-	 *                     -return pointer to the next free record
-	 *                  -else
-	 *                     -return pointer to the last record
+	 * Algorithm      : -return pointer to the record after the last
+	 *                   queued one. If the queue is full, this record
+	 *                   is not queued, see recordEvent.
+	 *
+	 * XXX: the C code returns the last record of a full queue, so that
+	 *      each later event overwrites the last queued one.
 	 */
 	public EventRecord getFreeRecord() {
 		
-		if (event_queue_length < MAX_QUEUE_LENGTH)
-		{
-			return event_queue[event_queue_length];
-		}
+		return queuedEvent(event_queue_length);
+	}
 
-		else
-		{
-			return event_queue[MAX_QUEUE_LENGTH - 1];
-		}
+	/** the i:th event record of the ring, counting from the first queued */
+	private EventRecord queuedEvent(int i) {
+
+		int position = event_queue_head + i;
+		if (position >= event_queue.length) position -= event_queue.length;
+		return event_queue[position];
 	}
 
 	/** Purpose        : Waits for and handles one Telecommand from the TC ISR
@@ -317,13 +407,17 @@ public class TelecommandExecutionTask {
 	 *                  - if mail is "TM_READY" and TC state is either
 	 *                    "SC_TM_e" or "memory_dump_e".
 	 *                    - if TC state is "SC_TM_e"
-	 *                       - call ClearEvents function
+	 *                       - call endDeltaScienceTm after delta telemetry,
+	 *                         else releaseScienceSnapshot, or ClearEvents
+	 *                         without SNAPSHOT_SCIENCE_TM
 	 *                    - set TC state to TC handling
 	 *                  - else switch TC state
 	 *                    - case ReadMemory_e  : Check received TC's address
 	 *                    - case WriteMemory_e : call WriteMemory function
 	 *                    - case MemoryPatch_e : call MemoryPatch function
 	 *                    - case TC_Handling : call ExecuteCommand
+	 *                    - case SC_TM_e     : call startCompressedScienceTm
+	 *                                         for a compressed Science TM
 	 *                NOTE:   case register_TM_e is left out because
 	 *                        operation of SEND_STATUS_REGISTER TC does not
 	 *                        require any functionalites of this task.  
@@ -370,7 +464,18 @@ public class TelecommandExecutionTask {
 
 				if (TC_state == TC_State.SC_TM_e)
 				{
-					clearEvents();
+					if (delta_science_tm)
+					{
+						endDeltaScienceTm();
+					}
+					else if (SNAPSHOT_SCIENCE_TM)
+					{
+						releaseScienceSnapshot();
+					}
+					else
+					{
+						clearEvents();
+					}
 				}
 
 				TC_state = TC_State.TC_handling_e;
@@ -407,6 +512,9 @@ public class TelecommandExecutionTask {
 					memoryPatch(received_command);
 				} else if (TC_state == TC_State.TC_handling_e) {
 					executeCommand(received_command);			
+				} else if (TC_state == TC_State.SC_TM_e &&
+						received_command.TC_address == TcAddress.SEND_SCIENCE_DATA_COMPRESSED) {
+					startCompressedScienceTm();
 				}
 			}
 			previous_TC.copyFrom(received_command);
@@ -418,414 +526,9 @@ public class TelecommandExecutionTask {
 		}
 	}
 
-	// XXX: pulled out of updateTarget, which breaks re-entrance, but avoids memory allocation
+	// XXX: pulled out of the SetThreshold handlers, which breaks re-entrance, but avoids memory allocation
 	private final TriggerSet new_threshold = new TriggerSet();
 	
-	/** Purpose         : Updates a HW register or some gl42obal variable according
-	 *                   to the parameter "command"
-	 * Interface       : inputs  - Parameter "command" containing received
-	 *                             telecommand
-	 *                   outputs - telemetry data
-	 * Preconditions  : The parameter "command" contains a valid telecommand
-	 * Postconditions  : A HW register or global variable is updated (depend on
-	 *                   "command")
-	 * Algorithm       : - switch "command"
-	 *                     - case Set Coefficient:
-	 *                          set given quality coefficient value in telemetry
-	 *                          according to "command"
-	 *                     - case Min/Max Time:
-	 *                          set Min/Max Time according to "command"
-	 *                     - case Classification Level:
-	 *                          set classification level according to "command"
-	 *                     - case Error Status Clear:
-	 *                          clear error indicating bits from telemetry
-	 *                     - case Set Time Byte:
-	 *                          set Debie time byte# according to "command"
-	 *                     - case Clear Watchdog/Checksum Failure counter
-	 *                          clear Watchdog/Checksum Failure counter
-	 *                     - case Switch SU # On/Off/SelfTest
-	 *                          switch SU to On/Off/SelfTest according to
-	 *                          "command"
-	 *                     - case Set Threshold
-	 *                          set Threshold according to "command"
-	 */
-	void updateTarget(Telecommand command) {
-		
-		int /* sensor_index_t */ SU_index;
-
-		SU_index = ((command.TC_address) >> 4) - 2;
-
-		switch (command.TC_address)
-		{
-		case TcAddress.SET_COEFFICIENT_1:
-		case TcAddress.SET_COEFFICIENT_2:
-		case TcAddress.SET_COEFFICIENT_3:
-		case TcAddress.SET_COEFFICIENT_4:
-		case TcAddress.SET_COEFFICIENT_5:
-
-			telemetry_data.coefficient[(command.TC_address)&0x07] =
-				(byte) command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1E_1I_MAX_TIME:
-		case TcAddress.SET_SU_2_PLASMA_1E_1I_MAX_TIME:
-		case TcAddress.SET_SU_3_PLASMA_1E_1I_MAX_TIME:
-		case TcAddress.SET_SU_4_PLASMA_1E_1I_MAX_TIME:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_plus_to_minus_max_time =
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1E_PZT_MIN_TIME:
-		case TcAddress.SET_SU_2_PLASMA_1E_PZT_MIN_TIME:
-		case TcAddress.SET_SU_3_PLASMA_1E_PZT_MIN_TIME:
-		case TcAddress.SET_SU_4_PLASMA_1E_PZT_MIN_TIME:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_plus_to_piezo_min_time =
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1E_PZT_MAX_TIME:
-		case TcAddress.SET_SU_2_PLASMA_1E_PZT_MAX_TIME:
-		case TcAddress.SET_SU_3_PLASMA_1E_PZT_MAX_TIME:
-		case TcAddress.SET_SU_4_PLASMA_1E_PZT_MAX_TIME:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_plus_to_piezo_max_time =
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1I_PZT_MIN_TIME:
-		case TcAddress.SET_SU_2_PLASMA_1I_PZT_MIN_TIME:
-		case TcAddress.SET_SU_3_PLASMA_1I_PZT_MIN_TIME:
-		case TcAddress.SET_SU_4_PLASMA_1I_PZT_MIN_TIME:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_minus_to_piezo_min_time =
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1I_PZT_MAX_TIME:
-		case TcAddress.SET_SU_2_PLASMA_1I_PZT_MAX_TIME:
-		case TcAddress.SET_SU_3_PLASMA_1I_PZT_MAX_TIME:
-		case TcAddress.SET_SU_4_PLASMA_1I_PZT_MAX_TIME:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_minus_to_piezo_max_time =
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1P_CLASS_LEVEL:
-		case TcAddress.SET_SU_2_PLASMA_1P_CLASS_LEVEL:
-		case TcAddress.SET_SU_3_PLASMA_1P_CLASS_LEVEL:
-		case TcAddress.SET_SU_4_PLASMA_1P_CLASS_LEVEL:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_plus_classification = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1M_CLASS_LEVEL:
-		case TcAddress.SET_SU_2_PLASMA_1M_CLASS_LEVEL:
-		case TcAddress.SET_SU_3_PLASMA_1M_CLASS_LEVEL:
-		case TcAddress.SET_SU_4_PLASMA_1M_CLASS_LEVEL:
-
-			telemetry_data.getSuConfig(SU_index).plasma_1_minus_classification = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_2P_CLASS_LEVEL:
-		case TcAddress.SET_SU_2_PLASMA_2P_CLASS_LEVEL:
-		case TcAddress.SET_SU_3_PLASMA_2P_CLASS_LEVEL:
-		case TcAddress.SET_SU_4_PLASMA_2P_CLASS_LEVEL:
-
-			telemetry_data.getSuConfig(SU_index).plasma_2_plus_classification = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PIEZO_1_CLASS_LEVEL:
-		case TcAddress.SET_SU_2_PIEZO_1_CLASS_LEVEL:
-		case TcAddress.SET_SU_3_PIEZO_1_CLASS_LEVEL:
-		case TcAddress.SET_SU_4_PIEZO_1_CLASS_LEVEL:
-
-			telemetry_data.getSuConfig(SU_index).piezo_1_classification = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PIEZO_2_CLASS_LEVEL:
-		case TcAddress.SET_SU_2_PIEZO_2_CLASS_LEVEL:
-		case TcAddress.SET_SU_3_PIEZO_2_CLASS_LEVEL:
-		case TcAddress.SET_SU_4_PIEZO_2_CLASS_LEVEL:
-
-			telemetry_data.getSuConfig(SU_index).piezo_2_classification = 
-				command.TC_code;
-			break;
-
-		case TcAddress.ERROR_STATUS_CLEAR:
-
-			telemetry_data.clearErrorStatus();
-			telemetry_data.clearRTXErrors();
-			telemetry_data.clearSoftwareError();
-			telemetry_data.clearModeStatusError();
-			telemetry_data.clearSUError();
-
-			/* Clear Error Status register, RTX and software error indicating bits  */
-			/* and Mode and SU Status registers.                                   */
-
-			break;
-
-
-		case TcAddress.SET_TIME_BYTE_3:
-
-			// new_time = ((dpu_time_t) command.TC_code) << 24;
-			// COPY (internal_time, new_time);
-			system.getInternalTime().updateWithMask(0xFFFFFFFF, (int)command.TC_code << 24);
-			TC_timeout = SET_TIME_TC_TIMEOUT;
-
-			break;
-
-		case TcAddress.SET_TIME_BYTE_2:
-
-			if (previous_TC.TC_address == TcAddress.SET_TIME_BYTE_3)
-			{
-				system.getInternalTime().updateWithMask(0x00FFFFFF, (int)command.TC_code << 16);
-				TC_timeout = SET_TIME_TC_TIMEOUT;
-			}
-
-			else
-			{
-				setTCError();
-			}
-
-			break;
-
-		case TcAddress.SET_TIME_BYTE_1:
-
-			if (previous_TC.TC_address == TcAddress.SET_TIME_BYTE_2)
-			{
-				system.getInternalTime().updateWithMask(0x0000FFFF, (int)command.TC_code << 8);
-				TC_timeout = SET_TIME_TC_TIMEOUT;
-			}
-
-			else
-			{
-				setTCError();
-			}
-
-			break;
-
-		case TcAddress.SET_TIME_BYTE_0:
-
-			if (previous_TC.TC_address == TcAddress.SET_TIME_BYTE_1)
-			{
-				system.getInternalTime().updateWithMask(0x000000FF, (int)command.TC_code);
-			}
-
-			else
-			{
-				setTCError();
-			}
-
-			break;
-
-		case TcAddress.CLEAR_WATCHDOG_FAILURES:
-
-			telemetry_data.watchdog_failures = 0;
-			break;
-
-		case TcAddress.CLEAR_CHECKSUM_FAILURES:
-
-			telemetry_data.checksum_failures = 0;
-			break;
-
-		case TcAddress.SWITCH_SU_1:
-		case TcAddress.SWITCH_SU_2:
-		case TcAddress.SWITCH_SU_3:
-		case TcAddress.SWITCH_SU_4:
-
-			if (telemetry_data.getMode() != TelemetryData.ACQUISITION)
-			{
-				SU_setting.number = SU_index + SensorUnitDev.SU_1;
-
-				// XXX: avoid lookupswitch
-				int TC_code = command.TC_code;
-				
-//				switch (command.TC_code)
-//				{
-//				case TcAddress.ON_VALUE:
-//					startSensorUnitSwitchingOn(SU_index, SU_setting);
-//					break;
-//
-//				case TcAddress.OFF_VALUE:
-//					setSensorUnitOff(SU_index, SU_setting);
-//					break;
-//
-//				case TcAddress.SELF_TEST:
-//					SU_setting.state                 = SensorUnitState.self_test_mon_e;
-//					SU_setting.expected_source_state = SensorUnitState.on_e;
-//					switchSensorUnitState (SU_setting);
-//					break;
-//				}
-				if (TC_code == TcAddress.ON_VALUE) {
-					startSensorUnitSwitchingOn(SU_index, SU_setting);
-					
-				} else if (TC_code == TcAddress.OFF_VALUE) {
-					setSensorUnitOff(SU_index, SU_setting);
-					
-				} else if (TC_code == TcAddress.SELF_TEST) {
-					SU_setting.state                 = SensorUnitState.self_test_mon_e;
-					SU_setting.expected_source_state = SensorUnitState.on_e;
-					switchSensorUnitState (SU_setting);
-				}
-				
-				
-				if (SU_setting.execution_result == SensorUnitDev.SU_STATE_TRANSITION_FAILED)
-				{
-					/* The requested SU state transition failed. */
-
-					setTCError();
-				}
-
-			}
-
-			else
-
-			{
-				setTCError();
-			}
-
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1P_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_1;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_PLUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_1.plasma_1_plus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_2_PLASMA_1P_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_2;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_PLUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_2.plasma_1_plus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_3_PLASMA_1P_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_3;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_PLUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_3.plasma_1_plus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_4_PLASMA_1P_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_4;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_PLUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_4.plasma_1_plus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PLASMA_1M_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_1;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_MINUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_1.plasma_1_minus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_2_PLASMA_1M_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_2;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_MINUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_2.plasma_1_minus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_3_PLASMA_1M_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_3;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_MINUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_3.plasma_1_minus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_4_PLASMA_1M_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_4;
-			new_threshold.channel     = SensorUnitDev.PLASMA_1_MINUS;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_4.plasma_1_minus_threshold = 
-				command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_1_PIEZO_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_1;
-			new_threshold.channel     = SensorUnitDev.PZT_1_2;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_1.piezo_threshold = command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_2_PIEZO_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_2;
-			new_threshold.channel     = SensorUnitDev.PZT_1_2;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_2.piezo_threshold = command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_3_PIEZO_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_3;
-			new_threshold.channel     = SensorUnitDev.PZT_1_2;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_3.piezo_threshold = command.TC_code;
-			break;
-
-		case TcAddress.SET_SU_4_PIEZO_THRESHOLD:
-
-			new_threshold.sensor_unit = SensorUnitDev.SU_4;
-			new_threshold.channel     = SensorUnitDev.PZT_1_2;
-			new_threshold.level       = command.TC_code;
-			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
-
-			telemetry_data.sensor_unit_4.piezo_threshold = command.TC_code;
-			break;
-
-		default:
-			/* Telecommands that will not be implemented in the Prototype SW */
-			break;
-		}
-	}
-
 	// XXX: pulled out of memoryPatch, which breaks re-entrance, but avoids memory allocation
 	private final Dpu.MemoryPatchVariables patch_info = new Dpu.MemoryPatchVariables();
 	 
@@ -899,8 +602,9 @@ public class TelecommandExecutionTask {
 		        	 /* Write to the data memory. */
 
 		        	 if (address <= (Dpu.END_SRAM3 - MEM_BUFFER_SIZE + 1)) {
+		                  Dpu dpu = system.getDpu();
 		                  for(int i=0; i<MEM_BUFFER_SIZE; i++) {
-		                	  Dpu.setDataByte(address + i, memory_transfer_buffer[i]);
+		                	  dpu.setDataByte(address + i, memory_transfer_buffer[i]);
 		                  }
 
 		        	 } else {
@@ -914,7 +618,7 @@ public class TelecommandExecutionTask {
 		        			 (Dpu.patchExecCommandOk(TC_msb))) {
 		        		 /* Destination section resides in SRAM1.   */
 		 
-		        		 Dpu.code_not_patched = 0;
+		        		 system.getDpu().code_not_patched = 0;
 		        		 /* Next code checksum not valid, because code memory */
 		        		 /* will be patched.                                  */
 
@@ -925,7 +629,7 @@ public class TelecommandExecutionTask {
 		        		 /* Set parameters for the MemoryPatch function   */
 		        		 /* (see definition of memory_patch_variables_t). */
 
-		        		 Dpu.patchCode(patch_info);
+		        		 system.getDpu().patchCode(patch_info);
 		        		 /* May or may not return here. */
 
 		        	 } else {
@@ -992,347 +696,492 @@ public class TelecommandExecutionTask {
 		}
 	}		
 
-	// XXX: pulled out of executeCommand/updateTarget, which breaks re-entrance, but avoids memory allocation	
+	// XXX: pulled out of the TC handlers, which breaks re-entrance, but avoids memory allocation	
 	private final SensorUnit SU_setting = new SensorUnit(); /* bad name choice (original from DEBIE) */
 
 	/** Purpose        : Executes telecommand
 	 * Interface      : inputs      - Parameter "command" containing received
 	 *                                telecommand
-	 *                  outputs     - TC_state
-	 *                                address_MSB
-	 *                                memory_type
-	 *                  subroutines - UpdateTarget
-	 *                                StartAcquisition
-	 *                                StopAcquisition
-	 *                                SoftReset
-	 *                                Set_TC_Error
-	 *                                Switch_SU_State
-	 *                                Reboot
-	 *                                SetMode
-	 *                                UpdateTarget
+	 *                  outputs     - see the TC handlers
 	 * Preconditions  : The parameter "command" contains a valid telecommand
 	 *                  TC_state is TC_handling
 	 * Postconditions : Telecommand is executed
-	 *                  TC_state updated when appropriate (depend on "command")
-	 *                  HW registers modified when appropriate (depend on
-	 *                  "command")
-	 *                  Global variables modified when appropriate (depend on
-	 *                  "command")
-	 * Algorithm      : - switch "command"
-	 *                    - case Send Sciece Data File : set TC_state to SC_TM
-	 *                    - case Send Status Register  : set TC_state to
-	 *                         RegisterTM
-	 *                    - case Read Data Memory MSB  : memorize the address
-	 *                         MSB given in the TC_code and set TC_state to
-	 *                         read_memory
-	 *                    - case Write Code Memory MSB : memorize the address
-	 *                         MSB given in the TC_code, memorize code
-	 *                         destination selection and set TC_state to
-	 *                         write_memory
-	 *                    - case Write Data Memory MSB : memorize the address
-	 *                         MSB given in the TC_code, memorize data
-	 *                         destination selection and set TC_state to
-	 *                         write_memory
-	 *                    - case Read/Write Memory LSB : ignore telecommand
-	 *                    - case Soft Reset            : call SoftReset
-	 *                    - case Start Acquisition     : call StartAcquisition
-	 *                    - case Stop Acquisition      : call StopAcquisition
-	 *                    - default : call UpdateTarget
+	 * Algorithm      : - call the handler of the TC address in TC_handler
+	 *
+	 * XXX: the C code switches on the TC address in ExecuteCommand and
+	 *      UpdateTarget. Here each TC address has a handler object, created
+	 *      by initTcHandlers, so that the cost of the dispatch does not
+	 *      depend on the TC address, and no lookupswitch is needed.
 	 */
 	private void executeCommand(Telecommand command) {
 
-		{
+		TC_handler[command.TC_address].execute(command);
+	}
+
+	/** Execution of the telecommands with one TC address */
+	private abstract class TcHandler {
+		abstract void execute(Telecommand command);
+	}
+
+	/** Telecommands handled elsewhere (Send Science Data File, Send
+	 *  Status Register, Read Data Memory LSB), or not implemented. */
+	private class NoAction extends TcHandler {
+		void execute(Telecommand command) {
+		}
+	}
+
+	/** Read Data Memory MSB: memorize the address MSB given in the
+	 *  TC_code and set TC_state to read_memory. */
+	private class ReadMemoryMsb extends TcHandler {
+		void execute(Telecommand command) {
+			address_MSB = command.TC_code;
+			TC_state    = TC_State.read_memory_e;
+		}
+	}
+
+	/** Write Code/Data Memory MSB: memorize the address MSB given in the
+	 *  TC_code, memorize the destination selection and set TC_state to
+	 *  write_memory. */
+	private class WriteMemoryMsb extends TcHandler {
+		private final MemoryType type;
+
+		WriteMemoryMsb(MemoryType type) {
+			this.type = type;
+		}
+
+		void execute(Telecommand command) {
+			if (telemetry_data.getMode() == TelemetryData.STAND_BY)
+			{
+				address_MSB    = command.TC_code;
+				memory_type    = type;
+				TC_timeout     = WRITE_MEMORY_TIMEOUT;
+				write_checksum = ((command.TC_word) >> 8) ^ (command.TC_code);
+				TC_state       = TC_State.write_memory_e;
+			}
+			else
+			{
+				setTCError();
+			}
+		}
+	}
+
+	/** Write Code/Data Memory LSB: only valid in the write_memory state,
+	 *  where writeMemory handles it. */
+	private class WriteMemoryLsb extends TcHandler {
+		void execute(Telecommand command) {
+			if (TC_state != TC_State.write_memory_e)
+			{
+				setTCError();
+			}
+		}
+	}
+
+	/** Soft Reset: reboot. */
+	private class SoftReset extends TcHandler {
+		void execute(Telecommand command) {
+			system.getDpu().reboot(Dpu.ResetClass.soft_reset_e);
+			/* Software is rebooted, no return to this point. */
+		}
+	}
+
+	/** Start Acquisition: switch the SUs to acquisition, unless an SU is
+	 *  being switched on or the mode is not stand-by. */
+	private class StartAcquisition extends TcHandler {
+		void execute(Telecommand command) {
 			int /* unsigned char */ error_flag;
 			int /* sensor_number_t */  i;
 
-			// XXX: avoid lookupswitch
-			int TC_address = command.TC_address;
-			
-			if (TC_address == TcAddress.SEND_SCIENCE_DATA_FILE) {
-				
-			} else if (TC_address == TcAddress.SEND_STATUS_REGISTER) {
-				
-			} else if (TC_address == TcAddress.READ_DATA_MEMORY_MSB) {
-				address_MSB = command.TC_code;
-				TC_state    = TC_State.read_memory_e;
-				
-			} else if (TC_address == TcAddress.WRITE_CODE_MEMORY_MSB) {
-				if (telemetry_data.getMode() == TelemetryData.STAND_BY)
-				{
-					address_MSB    = command.TC_code;
-					memory_type    = MemoryType.Code;
-					TC_timeout     = WRITE_MEMORY_TIMEOUT;
-					write_checksum = ((command.TC_word) >> 8) ^ (command.TC_code);
-					TC_state       = TC_State.write_memory_e;
-				}
-				else
-				{
-					setTCError();
-				}
-			} else if (TC_address == TcAddress.WRITE_DATA_MEMORY_MSB) {
-				if (telemetry_data.getMode() == TelemetryData.STAND_BY)
-				{
-					address_MSB = command.TC_code;
-					memory_type = MemoryType.Data;
-					TC_timeout     = WRITE_MEMORY_TIMEOUT;
-					write_checksum = ((command.TC_word) >> 8) ^ (command.TC_code);
-					TC_state    = TC_State.write_memory_e;
-				}
-				else
+			error_flag = 0;
+
+			for (i=SensorUnitDev.SU_1; i<=SensorUnitDev.SU_4; i++)
+			{		        	 
+				if ((readSensorUnit(i) == SensorUnitState.start_switching_e) ||
+						(readSensorUnit(i) == SensorUnitState.switching_e))
 				{
-					setTCError();
+					/* SU is being switched on. */
+
+					error_flag = 1;
+					/* StartAcquisition TC has to be rejected. */
 				}
-			} else if (TC_address == TcAddress.READ_DATA_MEMORY_LSB) {
-				
-			} else if (TC_address == TcAddress.WRITE_CODE_MEMORY_LSB
-					|| TC_address == TcAddress.WRITE_DATA_MEMORY_LSB) {
-				if (TC_state != TC_State.write_memory_e)
-				{
-					setTCError();
+			}
+
+			if ((telemetry_data.getMode() == TelemetryData.STAND_BY) && (error_flag == 0))
+			{
+				SU_setting.state              = SensorUnitState.acquisition_e;
+				SU_setting.expected_source_state = SensorUnitState.on_e;
+
+				SU_setting.number = SensorUnitDev.SU_1;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 1 to Acquisition state. */
+
+				SU_setting.number = SensorUnitDev.SU_2;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 2 to Acquisition state. */
+
+				SU_setting.number = SensorUnitDev.SU_3;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 3 to Acquisition state. */
+
+				SU_setting.number = SensorUnitDev.SU_4;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 4 to Acquisition state. */
+
+				taskControl.clearHitTriggerISRFlag();
+
+				system.getHwIf().resetDelayCounters();
+				/* Resets the SU logic that generates Hit Triggers.    */
+				/* Brings T2EX to a high level, making a new falling   */
+				/* edge possible.                                      */
+				/* This statement must come after the above "clear",   */
+				/* because a reversed order could create a deadlock    */
+				/* situation.                                          */
+
+				system.getHealthMonitoringTask().setMode(TelemetryData.ACQUISITION);
+			}
+			else
+			{
+				setTCError();
+			}
+		}
+	}
+
+	/** Stop Acquisition: switch the SUs from acquisition to on. */
+	private class StopAcquisition extends TcHandler {
+		void execute(Telecommand command) {
+			if (telemetry_data.getMode() == TelemetryData.ACQUISITION)
+			{
+				SU_setting.state              = SensorUnitState.on_e;
+				SU_setting.expected_source_state = SensorUnitState.acquisition_e;
+
+				SU_setting.number = SensorUnitDev.SU_1;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 1 to On state. */
+
+				SU_setting.number = SensorUnitDev.SU_2;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 2 to On state. */
+
+				SU_setting.number = SensorUnitDev.SU_3;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 3 to On state. */
+
+				SU_setting.number = SensorUnitDev.SU_4;
+				switchSensorUnitState (SU_setting);
+				/* Try to switch SU 4 to On state. */
+
+				system.getHealthMonitoringTask().setMode(TelemetryData.STAND_BY);
+			}
+
+			else
+			{
+				setTCError();
+			}
+		}
+	}
+
+	/** Set Coefficient: set the quality coefficient given by the TC
+	 *  address. */
+	private class SetCoefficient extends TcHandler {
+		void execute(Telecommand command) {
+			telemetry_data.setCoefficient((command.TC_address)&0x07,
+				command.TC_code);
+		}
+	}
+
+	/** Min/Max Time and Classification Level: set the setting of an SU,
+	 *  and rescale the classification limits of the SU. */
+	private class SetClassification extends TcHandler {
+		private final int SU_index;
+		private final int setting;
+
+		SetClassification(int SU_index, int setting) {
+			this.SU_index = SU_index;
+			this.setting = setting;
+		}
+
+		void execute(Telecommand command) {
+			telemetry_data.getSuConfig(SU_index).setByte(setting, command.TC_code);
+			telemetry_data.updateClassificationLimits(SU_index);
+		}
+	}
+
+	/** Set Threshold: set the trigger level of an SU channel, and record
+	 *  it in the settings of the SU. */
+	private class SetThreshold extends TcHandler {
+		private final int SU_index;
+		private final int channel;
+		private final int setting;
+
+		SetThreshold(int SU_index, int channel, int setting) {
+			this.SU_index = SU_index;
+			this.channel = channel;
+			this.setting = setting;
+		}
+
+		void execute(Telecommand command) {
+			new_threshold.sensor_unit = SU_index + SensorUnitDev.SU_1;
+			new_threshold.channel     = channel;
+			new_threshold.level       = command.TC_code;
+			system.getSensorUnitDevice().setTriggerLevel(new_threshold);
+
+			telemetry_data.getSuConfig(SU_index).setByte(setting, command.TC_code);
+		}
+	}
+
+	/** Error Status Clear: clear error indicating bits from telemetry. */
+	private class ErrorStatusClear extends TcHandler {
+		void execute(Telecommand command) {
+			telemetry_data.clearErrorStatus();
+			telemetry_data.clearRTXErrors();
+			telemetry_data.clearSoftwareError();
+			telemetry_data.clearModeStatusError();
+			telemetry_data.clearSUError();
+
+			/* Clear Error Status register, RTX and software error indicating bits  */
+			/* and Mode and SU Status registers.                                   */
+		}
+	}
+
+	/** Set Time Byte: set a byte of the Debie time. Bytes 2 .. 0 must
+	 *  follow the TC of the next more significant byte, and all but the
+	 *  last TC start a timeout for the next one. */
+	private class SetTimeByte extends TcHandler {
+		private final int mask;
+		private final int shift;
+		private final int previous_address;
+
+		SetTimeByte(int mask, int shift, int previous_address) {
+			this.mask = mask;
+			this.shift = shift;
+			this.previous_address = previous_address;
+		}
+
+		void execute(Telecommand command) {
+			if (previous_address == TcAddress.UNUSED_TC_ADDRESS
+					|| previous_TC.TC_address == previous_address)
+			{
+				system.getInternalTime().updateWithMask(mask, (int)command.TC_code << shift);
+				if (shift != 0) {
+					TC_timeout = SET_TIME_TC_TIMEOUT;
 				}
-			} else if (TC_address == TcAddress.SOFT_RESET) {
-				Dpu.reboot(Dpu.ResetClass.soft_reset_e);
-				/* Software is rebooted, no return to this point. */
-				
-			} else if (TC_address == TcAddress.START_ACQUISITION) {
-				error_flag = 0;
+			}
 
-				for (i=SensorUnitDev.SU_1; i<=SensorUnitDev.SU_4; i++)
-				{		        	 
-					if ((readSensorUnit(i) == SensorUnitState.start_switching_e) ||
-							(readSensorUnit(i) == SensorUnitState.switching_e))
-					{
-						/* SU is being switched on. */
+			else
+			{
+				setTCError();
+			}
+		}
+	}
 
-						error_flag = 1;
-						/* StartAcquisition TC has to be rejected. */
-					}
-				}
+	/** Clear Watchdog Failure counter */
+	private class ClearWatchdogFailures extends TcHandler {
+		void execute(Telecommand command) {
+			telemetry_data.watchdog_failures = 0;
+		}
+	}
 
-				if ((telemetry_data.getMode() == TelemetryData.STAND_BY) && (error_flag == 0))
-				{
-					SU_setting.state              = SensorUnitState.acquisition_e;
-					SU_setting.expected_source_state = SensorUnitState.on_e;
+	/** Clear Checksum Failure counter */
+	private class ClearChecksumFailures extends TcHandler {
+		void execute(Telecommand command) {
+			telemetry_data.checksum_failures = 0;
+		}
+	}
 
-					SU_setting.number = SensorUnitDev.SU_1;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 1 to Acquisition state. */
+	/** Switch SU On/Off/SelfTest according to the TC code; not allowed in
+	 *  acquisition mode. */
+	private class SwitchSensorUnit extends TcHandler {
+		private final int SU_index;
 
-					SU_setting.number = SensorUnitDev.SU_2;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 2 to Acquisition state. */
+		SwitchSensorUnit(int SU_index) {
+			this.SU_index = SU_index;
+		}
 
-					SU_setting.number = SensorUnitDev.SU_3;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 3 to Acquisition state. */
+		void execute(Telecommand command) {
+			if (telemetry_data.getMode() != TelemetryData.ACQUISITION)
+			{
+				SU_setting.number = SU_index + SensorUnitDev.SU_1;
 
-					SU_setting.number = SensorUnitDev.SU_4;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 4 to Acquisition state. */
+				// XXX: avoid lookupswitch
+				int TC_code = command.TC_code;
 
-					taskControl.clearHitTriggerISRFlag();
+				if (TC_code == TcAddress.ON_VALUE) {
+					startSensorUnitSwitchingOn(SU_index, SU_setting);
 
-					HwIf.resetDelayCounters();
-					/* Resets the SU logic that generates Hit Triggers.    */
-					/* Brings T2EX to a high level, making a new falling   */
-					/* edge possible.                                      */
-					/* This statement must come after the above "clear",   */
-					/* because a reversed order could create a deadlock    */
-					/* situation.                                          */
+				} else if (TC_code == TcAddress.OFF_VALUE) {
+					setSensorUnitOff(SU_index, SU_setting);
 
-					system.getHealthMonitoringTask().setMode(TelemetryData.ACQUISITION);
+				} else if (TC_code == TcAddress.SELF_TEST) {
+					SU_setting.state                 = SensorUnitState.self_test_mon_e;
+					SU_setting.expected_source_state = SensorUnitState.on_e;
+					switchSensorUnitState (SU_setting);
 				}
-				else
+
+				if (SU_setting.execution_result == SensorUnitDev.SU_STATE_TRANSITION_FAILED)
 				{
+					/* The requested SU state transition failed. */
+
 					setTCError();
 				}
-			} else if (TC_address == TcAddress.STOP_ACQUISITION) {
-				if (telemetry_data.getMode() == TelemetryData.ACQUISITION)
-				{
-					SU_setting.state              = SensorUnitState.on_e;
-					SU_setting.expected_source_state = SensorUnitState.acquisition_e;
 
-					SU_setting.number = SensorUnitDev.SU_1;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 1 to On state. */
+			}
 
-					SU_setting.number = SensorUnitDev.SU_2;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 2 to On state. */
+			else
+			{
+				setTCError();
+			}
+		}
+	}
 
-					SU_setting.number = SensorUnitDev.SU_3;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 3 to On state. */
+	/* Handlers indexed by TC address, see initTcHandlers */
+	private final TcHandler[] TC_handler = new TcHandler[128];
 
-					SU_setting.number = SensorUnitDev.SU_4;
-					switchSensorUnitState (SU_setting);
-					/* Try to switch SU 4 to On state. */
+	/** Purpose        : Creates the handlers of all TC addresses
+	 * Interface      : inputs  - none
+	 *                  outputs - TC_handler
+	 * Preconditions  : none
+	 * Postconditions : TC_handler is initialized
+	 * Algorithm      : - set all elements to a handler doing nothing
+	 *                  - set each element of a TC address executed by this
+	 *                    task to its handler
+	 */
+	private void initTcHandlers() {
 
-					system.getHealthMonitoringTask().setMode(TelemetryData.STAND_BY);
-				}
+		int /* uint_least8_t */ i;
+		TcHandler no_action = new NoAction();
+		TcHandler set_coefficient = new SetCoefficient();
+		TcHandler write_memory_lsb = new WriteMemoryLsb();
+
+		for(i=0; i<128; i++) TC_handler[i] = no_action;
+
+		TC_handler[TcAddress.READ_DATA_MEMORY_MSB]   = new ReadMemoryMsb();
+		TC_handler[TcAddress.WRITE_CODE_MEMORY_MSB]  = new WriteMemoryMsb(MemoryType.Code);
+		TC_handler[TcAddress.WRITE_DATA_MEMORY_MSB]  = new WriteMemoryMsb(MemoryType.Data);
+		TC_handler[TcAddress.WRITE_CODE_MEMORY_LSB]  = write_memory_lsb;
+		TC_handler[TcAddress.WRITE_DATA_MEMORY_LSB]  = write_memory_lsb;
+		TC_handler[TcAddress.SOFT_RESET]             = new SoftReset();
+		TC_handler[TcAddress.START_ACQUISITION]      = new StartAcquisition();
+		TC_handler[TcAddress.STOP_ACQUISITION]       = new StopAcquisition();
+
+		TC_handler[TcAddress.SET_COEFFICIENT_1]      = set_coefficient;
+		TC_handler[TcAddress.SET_COEFFICIENT_2]      = set_coefficient;
+		TC_handler[TcAddress.SET_COEFFICIENT_3]      = set_coefficient;
+		TC_handler[TcAddress.SET_COEFFICIENT_4]      = set_coefficient;
+		TC_handler[TcAddress.SET_COEFFICIENT_5]      = set_coefficient;
+
+		TC_handler[TcAddress.ERROR_STATUS_CLEAR]     = new ErrorStatusClear();
+
+		TC_handler[TcAddress.SET_TIME_BYTE_3] =
+			new SetTimeByte(0xFFFFFFFF, 24, TcAddress.UNUSED_TC_ADDRESS);
+		TC_handler[TcAddress.SET_TIME_BYTE_2] =
+			new SetTimeByte(0x00FFFFFF, 16, TcAddress.SET_TIME_BYTE_3);
+		TC_handler[TcAddress.SET_TIME_BYTE_1] =
+			new SetTimeByte(0x0000FFFF,  8, TcAddress.SET_TIME_BYTE_2);
+		TC_handler[TcAddress.SET_TIME_BYTE_0] =
+			new SetTimeByte(0x000000FF,  0, TcAddress.SET_TIME_BYTE_1);
+
+		TC_handler[TcAddress.CLEAR_WATCHDOG_FAILURES] = new ClearWatchdogFailures();
+		TC_handler[TcAddress.CLEAR_CHECKSUM_FAILURES] = new ClearChecksumFailures();
+
+		initSuHandlers(0,
+			TcAddress.SWITCH_SU_1,
+			TcAddress.SET_SU_1_PLASMA_1P_THRESHOLD,
+			TcAddress.SET_SU_1_PLASMA_1M_THRESHOLD,
+			TcAddress.SET_SU_1_PIEZO_THRESHOLD,
+			TcAddress.SET_SU_1_PLASMA_1P_CLASS_LEVEL,
+			TcAddress.SET_SU_1_PLASMA_1M_CLASS_LEVEL,
+			TcAddress.SET_SU_1_PIEZO_1_CLASS_LEVEL,
+			TcAddress.SET_SU_1_PIEZO_2_CLASS_LEVEL,
+			TcAddress.SET_SU_1_PLASMA_2P_CLASS_LEVEL,
+			TcAddress.SET_SU_1_PLASMA_1E_1I_MAX_TIME,
+			TcAddress.SET_SU_1_PLASMA_1E_PZT_MIN_TIME,
+			TcAddress.SET_SU_1_PLASMA_1E_PZT_MAX_TIME,
+			TcAddress.SET_SU_1_PLASMA_1I_PZT_MIN_TIME,
+			TcAddress.SET_SU_1_PLASMA_1I_PZT_MAX_TIME);
+		initSuHandlers(1,
+			TcAddress.SWITCH_SU_2,
+			TcAddress.SET_SU_2_PLASMA_1P_THRESHOLD,
+			TcAddress.SET_SU_2_PLASMA_1M_THRESHOLD,
+			TcAddress.SET_SU_2_PIEZO_THRESHOLD,
+			TcAddress.SET_SU_2_PLASMA_1P_CLASS_LEVEL,
+			TcAddress.SET_SU_2_PLASMA_1M_CLASS_LEVEL,
+			TcAddress.SET_SU_2_PIEZO_1_CLASS_LEVEL,
+			TcAddress.SET_SU_2_PIEZO_2_CLASS_LEVEL,
+			TcAddress.SET_SU_2_PLASMA_2P_CLASS_LEVEL,
+			TcAddress.SET_SU_2_PLASMA_1E_1I_MAX_TIME,
+			TcAddress.SET_SU_2_PLASMA_1E_PZT_MIN_TIME,
+			TcAddress.SET_SU_2_PLASMA_1E_PZT_MAX_TIME,
+			TcAddress.SET_SU_2_PLASMA_1I_PZT_MIN_TIME,
+			TcAddress.SET_SU_2_PLASMA_1I_PZT_MAX_TIME);
+		initSuHandlers(2,
+			TcAddress.SWITCH_SU_3,
+			TcAddress.SET_SU_3_PLASMA_1P_THRESHOLD,
+			TcAddress.SET_SU_3_PLASMA_1M_THRESHOLD,
+			TcAddress.SET_SU_3_PIEZO_THRESHOLD,
+			TcAddress.SET_SU_3_PLASMA_1P_CLASS_LEVEL,
+			TcAddress.SET_SU_3_PLASMA_1M_CLASS_LEVEL,
+			TcAddress.SET_SU_3_PIEZO_1_CLASS_LEVEL,
+			TcAddress.SET_SU_3_PIEZO_2_CLASS_LEVEL,
+			TcAddress.SET_SU_3_PLASMA_2P_CLASS_LEVEL,
+			TcAddress.SET_SU_3_PLASMA_1E_1I_MAX_TIME,
+			TcAddress.SET_SU_3_PLASMA_1E_PZT_MIN_TIME,
+			TcAddress.SET_SU_3_PLASMA_1E_PZT_MAX_TIME,
+			TcAddress.SET_SU_3_PLASMA_1I_PZT_MIN_TIME,
+			TcAddress.SET_SU_3_PLASMA_1I_PZT_MAX_TIME);
+		initSuHandlers(3,
+			TcAddress.SWITCH_SU_4,
+			TcAddress.SET_SU_4_PLASMA_1P_THRESHOLD,
+			TcAddress.SET_SU_4_PLASMA_1M_THRESHOLD,
+			TcAddress.SET_SU_4_PIEZO_THRESHOLD,
+			TcAddress.SET_SU_4_PLASMA_1P_CLASS_LEVEL,
+			TcAddress.SET_SU_4_PLASMA_1M_CLASS_LEVEL,
+			TcAddress.SET_SU_4_PIEZO_1_CLASS_LEVEL,
+			TcAddress.SET_SU_4_PIEZO_2_CLASS_LEVEL,
+			TcAddress.SET_SU_4_PLASMA_2P_CLASS_LEVEL,
+			TcAddress.SET_SU_4_PLASMA_1E_1I_MAX_TIME,
+			TcAddress.SET_SU_4_PLASMA_1E_PZT_MIN_TIME,
+			TcAddress.SET_SU_4_PLASMA_1E_PZT_MAX_TIME,
+			TcAddress.SET_SU_4_PLASMA_1I_PZT_MIN_TIME,
+			TcAddress.SET_SU_4_PLASMA_1I_PZT_MAX_TIME);
+	}
 
-				else
-				{
-					setTCError();
-				}
-			} else {
-				updateTarget(command);
-			}
-// XXX: Work around broken switch for enums
-//			switch (command.TC_address)
-//			{
-//			case TcAddress.SEND_SCIENCE_DATA_FILE:
-//				break;
-//
-//			case TcAddress.SEND_STATUS_REGISTER:
-//				break;
-//
-//			case TcAddress.READ_DATA_MEMORY_MSB:
-//				address_MSB = command.TC_code;
-//				TC_state    = TC_State.read_memory_e;
-//				break;
-//
-//			case TcAddress.WRITE_CODE_MEMORY_MSB:
-//				if (telemetry_data.getMode() == TelemetryData.STAND_BY)
-//				{
-//					address_MSB    = command.TC_code;
-//					memory_type    = MemoryType.Code;
-//					TC_timeout     = WRITE_MEMORY_TIMEOUT;
-//					write_checksum = ((command.TC_word) >> 8) ^ (command.TC_code);
-//					TC_state       = TC_State.write_memory_e;
-//				}
-//
-//				else
-//				{
-//					setTCError();
-//				}
-//
-//				break;
-//
-//			case TcAddress.WRITE_DATA_MEMORY_MSB:
-//				if (telemetry_data.getMode() == TelemetryData.STAND_BY)
-//				{
-//					address_MSB = command.TC_code;
-//					memory_type = MemoryType.Data;
-//					TC_timeout     = WRITE_MEMORY_TIMEOUT;
-//					write_checksum = ((command.TC_word) >> 8) ^ (command.TC_code);
-//					TC_state    = TC_State.write_memory_e;
-//				}
-//
-//				else
-//				{
-//					setTCError();
-//				}
-//
-//				break;
-//
-//			case TcAddress.READ_DATA_MEMORY_LSB:
-//				break;
-//
-//			case TcAddress.WRITE_CODE_MEMORY_LSB:
-//			case TcAddress.WRITE_DATA_MEMORY_LSB:
-//				if (TC_state != TC_State.write_memory_e)
-//				{
-//					setTCError();
-//				}
-//				break;
-//
-//			case TcAddress.SOFT_RESET:
-//				Dpu.reboot(Dpu.ResetClass.soft_reset_e);
-//				/* Software is rebooted, no return to this point. */
-//
-//				break;
-//
-//			case TcAddress.START_ACQUISITION:
-//				error_flag = 0;
-//
-//				for (i=SensorUnitDev.SU_1; i<=SensorUnitDev.SU_4; i++)
-//				{		        	 
-//					if ((readSensorUnit(i) == SensorUnitState.start_switching_e) ||
-//							(readSensorUnit(i) == SensorUnitState.switching_e))
-//					{
-//						/* SU is being switched on. */
-//
-//						error_flag = 1;
-//						/* StartAcquisition TC has to be rejected. */
-//					}
-//				}
-//
-//				if ((telemetry_data.getMode() == TelemetryData.STAND_BY) && (error_flag == 0))
-//				{
-//					SU_setting.state              = SensorUnitState.acquisition_e;
-//					SU_setting.expected_source_state = SensorUnitState.on_e;
-//
-//					SU_setting.number = SensorUnitDev.SU_1;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 1 to Acquisition state. */
-//
-//					SU_setting.number = SensorUnitDev.SU_2;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 2 to Acquisition state. */
-//
-//					SU_setting.number = SensorUnitDev.SU_3;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 3 to Acquisition state. */
-//
-//					SU_setting.number = SensorUnitDev.SU_4;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 4 to Acquisition state. */
-//
-//					taskControl.clearHitTriggerISRFlag();
-//
-//					HwIf.resetDelayCounters();
-//					/* Resets the SU logic that generates Hit Triggers.    */
-//					/* Brings T2EX to a high level, making a new falling   */
-//					/* edge possible.                                      */
-//					/* This statement must come after the above "clear",   */
-//					/* because a reversed order could create a deadlock    */
-//					/* situation.                                          */
-//
-//					system.getHealthMonitoringTask().setMode(TelemetryData.ACQUISITION);
-//				}
-//
-//				else
-//				{
-//					setTCError();
-//				}
-//				break;
-//
-//			case TcAddress.STOP_ACQUISITION:
-//				if (telemetry_data.getMode() == TelemetryData.ACQUISITION)
-//				{
-//					SU_setting.state              = SensorUnitState.on_e;
-//					SU_setting.expected_source_state = SensorUnitState.acquisition_e;
-//
-//					SU_setting.number = SensorUnitDev.SU_1;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 1 to On state. */
-//
-//					SU_setting.number = SensorUnitDev.SU_2;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 2 to On state. */
-//
-//					SU_setting.number = SensorUnitDev.SU_3;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 3 to On state. */
-//
-//					SU_setting.number = SensorUnitDev.SU_4;
-//					switchSensorUnitState (SU_setting);
-//					/* Try to switch SU 4 to On state. */
-//
-//					system.getHealthMonitoringTask().setMode(TelemetryData.STAND_BY);
-//				}
-//
-//				else
-//				{
-//					setTCError();
-//				}
-//				break;
-//
-//			default:
-//				updateTarget(command);
-//			}
-		}            		
+	/** The handlers of the TCs of one SU, given their TC addresses */
+	private void initSuHandlers(int SU_index, int switch_su,
+			int plasma_1p_threshold, int plasma_1m_threshold, int piezo_threshold,
+			int plasma_1p_class_level, int plasma_1m_class_level,
+			int piezo_1_class_level, int piezo_2_class_level, int plasma_2p_class_level,
+			int plasma_1e_1i_max_time, int plasma_1e_pzt_min_time, int plasma_1e_pzt_max_time,
+			int plasma_1i_pzt_min_time, int plasma_1i_pzt_max_time) {
+
+		TC_handler[switch_su] = new SwitchSensorUnit(SU_index);
+
+		TC_handler[plasma_1p_threshold] = new SetThreshold(SU_index,
+			SensorUnitDev.PLASMA_1_PLUS, SensorUnitSettings.PLASMA_1_PLUS_THRESHOLD);
+		TC_handler[plasma_1m_threshold] = new SetThreshold(SU_index,
+			SensorUnitDev.PLASMA_1_MINUS, SensorUnitSettings.PLASMA_1_MINUS_THRESHOLD);
+		TC_handler[piezo_threshold] = new SetThreshold(SU_index,
+			SensorUnitDev.PZT_1_2, SensorUnitSettings.PIEZO_THRESHOLD);
+
+		TC_handler[plasma_1p_class_level] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_PLUS_CLASSIFICATION);
+		TC_handler[plasma_1m_class_level] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_MINUS_CLASSIFICATION);
+		TC_handler[piezo_1_class_level] = new SetClassification(SU_index,
+			SensorUnitSettings.PIEZO_1_CLASSIFICATION);
+		TC_handler[piezo_2_class_level] = new SetClassification(SU_index,
+			SensorUnitSettings.PIEZO_2_CLASSIFICATION);
+		TC_handler[plasma_2p_class_level] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_2_PLUS_CLASSIFICATION);
+
+		TC_handler[plasma_1e_1i_max_time] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_PLUS_TO_MINUS_MAX_TIME);
+		TC_handler[plasma_1e_pzt_min_time] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_PLUS_TO_PIEZO_MIN_TIME);
+		TC_handler[plasma_1e_pzt_max_time] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_PLUS_TO_PIEZO_MAX_TIME);
+		TC_handler[plasma_1i_pzt_min_time] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_MINUS_TO_PIEZO_MIN_TIME);
+		TC_handler[plasma_1i_pzt_max_time] = new SetClassification(SU_index,
+			SensorUnitSettings.PLASMA_1_MINUS_TO_PIEZO_MAX_TIME);
 	}
 	
 	/** Purpose        :  To find out whether given Sensor Unit is switched on or
@@ -1451,6 +1300,7 @@ public class TelecommandExecutionTask {
 			/* Start to send TM data registers starting from the first ones */
 		{
 			telemetry_object = telemetry_data;
+			telemetry_index = 0;
 			tctmDev.writeTmMsb (telemetryPointerNext());
 			telemetry_index++;
 			tctmDev.writeTmLsb (telemetryPointerNext());
@@ -1479,6 +1329,7 @@ public class TelecommandExecutionTask {
 	 * Algorithm      : - set all elements in table to ALL_INVALID
 	 *                  - set each element corresponding valid TC address
 	 *                    to proper value
+	 *                  - decode all TC words into TC_decode
 	 */
 	void initTcLookup() {
 		
@@ -1495,6 +1346,9 @@ public class TelecommandExecutionTask {
 
 		TC_look_up[TcAddress.SEND_STATUS_REGISTER]         = ONLY_EVEN;
 		TC_look_up[TcAddress.SEND_SCIENCE_DATA_FILE]       = ONLY_EQUAL;
+		TC_look_up[TcAddress.SEND_SCIENCE_DATA_DELTA]      = ONLY_EQUAL;
+		TC_look_up[TcAddress.SEND_SCIENCE_DATA_BY_QUALITY] = ONLY_EQUAL;
+		TC_look_up[TcAddress.SEND_SCIENCE_DATA_COMPRESSED] = ONLY_EQUAL;
 
 		TC_look_up[TcAddress.SET_TIME_BYTE_0]              = ALL_VALID;
 		TC_look_up[TcAddress.SET_TIME_BYTE_1]              = ALL_VALID;
@@ -1589,6 +1443,20 @@ public class TelecommandExecutionTask {
 		TC_look_up[TcAddress.SET_COEFFICIENT_4]               = ALL_VALID;
 		TC_look_up[TcAddress.SET_COEFFICIENT_5]               = ALL_VALID;
 
+		for(i=0; i<TC_decode.length; i++) TC_decode[i] = 0;
+
+		for(i=0; i<0x10000; i++) { // @WCA loop = 65536
+			int result;
+
+			switch (checkTC(i >> 8, i & 0xFF)) {
+			case 0:                    result = TC_ACCEPTED; break;
+			case TcTmDev.PARITY_ERROR: result = TC_PARITY;   break;
+			default:                   result = TC_INVALID;  break;
+			}
+			TC_decode[i >> 4] |= result << ((i & 15) << 1);
+		}
+		/* Decode every TC word once, for decode_TC. */
+
 	}
 
 
@@ -1702,7 +1570,16 @@ public class TelecommandExecutionTask {
 		handleTC(TC_address, TC_code, tmp_error_status);
 
 	}
-	private int decode_TC(int TC_address, int TC_code, int TC_word) {
+	/** Purpose        : Checks the parity, address and code of a TC
+	 * Interface      : inputs  - TC address (with parity bit) and code
+	 *                            TC_look_up table
+	 *                  outputs - error status bits, zero if TC is valid
+	 * Algorithm      : - Calculate parity
+	 *                  - If parity not Ok, return parity error
+	 *                  - Else check the TC code according to the TC
+	 *                    address type in TC_look_up
+	 */
+	private int checkTC(int TC_address, int TC_code) {
 
 		int tmp_error_status;
 		int /* unsigned char */ par8, par4, par2, par1;
@@ -1738,7 +1615,6 @@ public class TelecommandExecutionTask {
 
 			case ALL_VALID:
 				/* All TC Codes are valid */
-				tcMailbox.sendISRMail((char)TC_word);
 				break;
 
 			case ONLY_EQUAL:
@@ -1747,11 +1623,6 @@ public class TelecommandExecutionTask {
 				{
 					tmp_error_status |= TcTmDev.TC_ERROR;
 				}
-
-				else
-				{
-					tcMailbox.sendISRMail((char)TC_word);
-				}
 				break;
 
 			case ON_OFF_TC:
@@ -1761,11 +1632,6 @@ public class TelecommandExecutionTask {
 				{
 					tmp_error_status |= TcTmDev.TC_ERROR;
 				}
-
-				else
-				{
-					tcMailbox.sendISRMail((char)TC_word);
-				}
 				break;
 
 			case ONLY_EVEN:
@@ -1774,14 +1640,32 @@ public class TelecommandExecutionTask {
 				{
 					tmp_error_status |= TcTmDev.TC_ERROR;
 				}
-
-				else
-				{
-					tcMailbox.sendISRMail((char)TC_word);
-				}
 				break;  
 			}
 		}
+		return tmp_error_status;
+	}
+
+	/** The error status bits of a TC word, from the decode table;
+	 *  zero if the TC is valid. */
+	public int getTcStatus(int TC_word) {
+		
+		return TC_DECODE_STATUS[(TC_decode[TC_word >> 4] >> ((TC_word & 15) << 1)) & 3];
+	}
+
+	private int decode_TC(int TC_address, int TC_code, int TC_word) {
+
+		int tmp_error_status;
+
+		tmp_error_status = getTcStatus(TC_word);
+		/* Parity, address and code checked in one look-up */
+
+		if (tmp_error_status == 0)
+		{
+			tcMailbox.sendISRMail((char)TC_word);
+		}
+
+		TC_address >>= 1;
 
 		if (((TC_address != TcAddress.SEND_STATUS_REGISTER) 
 				|| (tmp_error_status != 0)) 
@@ -1837,9 +1721,13 @@ public class TelecommandExecutionTask {
 			}
 		}
 
-		else if (TC_address == TcAddress.SEND_SCIENCE_DATA_FILE)
+		else if ((TC_address == TcAddress.SEND_SCIENCE_DATA_FILE) ||
+				(TC_address == TcAddress.SEND_SCIENCE_DATA_DELTA) ||
+				(TC_address == TcAddress.SEND_SCIENCE_DATA_BY_QUALITY) ||
+				(TC_address == TcAddress.SEND_SCIENCE_DATA_COMPRESSED))
 		{
-			/* Send Science Data File TC accepted. */
+			/* Send Science Data File, Delta, By Quality or Compressed */
+			/* TC accepted.                                            */
 
 			if (telemetry_data.getMode() == TelemetryData.DPU_SELF_TEST)
 			{
@@ -1853,30 +1741,79 @@ public class TelecommandExecutionTask {
 
 			else  
 			{
-				telemetry_object = science_data;
-				telemetry_index = 0; /* was: (EXTERNAL unsigned char *)&science_data; */
-				telemetry_end_index = science_data.getEventByteOffset(free_slot_index) - 1;
-				/* was:  ((EXTERNAL unsigned char *) &(science_data.event[free_slot_index])) - 1; */
+				delta_science_tm = (TC_address == TcAddress.SEND_SCIENCE_DATA_DELTA);
 
-				/* Science telemetry stops to the end of the last used event */
-				/* record of the Science Data memory.                        */
+				if (TC_address == TcAddress.SEND_SCIENCE_DATA_COMPRESSED)
+				{
+					science_compressed.prepare(science_data, free_slot_index);
+					TC_state = TC_State.SC_TM_e;
 
-				science_data.length = /* (unsigned short int) */ (char)
-				((telemetry_end_index - telemetry_index + 1)/2);
-				/* Store the current length of used science data. */  
+					/* The length of the compressed telemetry takes a */
+					/* pass over the records, so the TC Execution     */
+					/* task finds it, sends the first bytes and       */
+					/* enables the TM interrupt, see                  */
+					/* startCompressedScienceTm.                      */
 
-				tctmDev.clearTmInterruptFlag();
+					if (SNAPSHOT_SCIENCE_TM)
+					{
+						swapScienceData();
+					}
+				}
+				else
+				{
+					if (delta_science_tm)
+					{
+						telemetry_object = science_delta;
+						telemetry_index = 0;
+						telemetry_end_index = science_delta.start(science_data) - 1;
+
+						/* Science telemetry stops to the end of the last */
+						/* changed event record.                          */
+					}
+					else if (TC_address == TcAddress.SEND_SCIENCE_DATA_BY_QUALITY)
+					{
+						telemetry_object = science_by_quality;
+						telemetry_index = 0;
+						telemetry_end_index = science_by_quality.start(science_data) - 1;
+
+						/* Science telemetry stops to the end of the used */
+						/* event record of the lowest quality.            */
+					}
+					else
+					{
+						telemetry_object = science_data;
+						telemetry_index = 0; /* was: (EXTERNAL unsigned char *)&science_data; */
+						telemetry_end_index = science_data.getEventByteOffset(free_slot_index) - 1;
+						/* was:  ((EXTERNAL unsigned char *) &(science_data.event[free_slot_index])) - 1; */
 
-				tctmDev.writeTmMsb (telemetryPointerNext());
-				telemetry_index++;
-				tctmDev.writeTmLsb (telemetryPointerNext());
-				telemetry_index++;
+						/* Science telemetry stops to the end of the last used event */
+						/* record of the Science Data memory.                        */
+					}
 
-				TC_state = TC_State.SC_TM_e;
+					science_data.setLength(/* (unsigned short int) */ (char)
+					((telemetry_end_index - telemetry_index + 1)/2));
+					/* Store the current length of used science data. */  
 
-				taskControl.setInterruptMask(TcTmDev.TM_ISR_MASK);
-				/* Enable TM interrupt mask. Note that EnableInterrupt */
-				/* cannot be called from a C51 ISR.                    */
+					tctmDev.clearTmInterruptFlag();
+
+					tctmDev.writeTmMsb (telemetryPointerNext());
+					telemetry_index++;
+					tctmDev.writeTmLsb (telemetryPointerNext());
+					telemetry_index++;
+
+					TC_state = TC_State.SC_TM_e;
+
+					if (SNAPSHOT_SCIENCE_TM && !delta_science_tm)
+					{
+						swapScienceData();
+						/* The Science Data File being sent is frozen, and */
+						/* new events are recorded in the other one.       */
+					}
+
+					taskControl.setInterruptMask(TcTmDev.TM_ISR_MASK);
+					/* Enable TM interrupt mask. Note that EnableInterrupt */
+					/* cannot be called from a C51 ISR.                    */
+				}
 			}
 		}
 
@@ -1948,7 +1885,7 @@ public class TelecommandExecutionTask {
 	{
 		/*dpu_time_t INDIRECT_INTERNAL*/ int hit_time;
 		/* Hit time. */
-		hit_time = science_data.event[event_number].getHitTime().toInt();
+		hit_time = science_data.getHitTime(event_number);
 		// FIXME: is this the right way to port this to Java
 		//COPY (hit_time, science_data.event[event_number].hit_time);
 
@@ -1970,28 +1907,42 @@ public class TelecommandExecutionTask {
 	 *                  subroutines - FindMinQualityRecord
 	 *                                IncrementCounters
 	 * Preconditions  : none.
-	 * Postconditions : If Science telemetry is not in progress, event data is
-	 *                  stored in its proper place in the science data,
+	 * Postconditions : If Science telemetry is not in progress, or the
+	 *                  Science Data File being sent is a snapshot, event data
+	 *                  is stored in its proper place in the science data,
 	 *                  otherwise event data is left in the queue and one record
 	 *                  is reserved from the queue unless it is already full.
 	 * Algorithm      : If there is room in the Science Data memory, the event
 	 *                  data is tried to be stored there, otherwise the event
 	 *                  with the lowest quality is searched and tried to be
-	 *                  replaced. If the Science telemetry is in progress the
-	 *                  event data is left in the queue and the length of the
-	 *                  queue is incremented unless the queue is already full.
-	 *                  If the Science telemetry is not in progress the event
+	 *                  replaced. If the Science telemetry is in progress
+	 *                  without a snapshot the event data is left in
+	 *                  the queue and the length of the queue is incremented
+	 *                  unless the queue is already full. Otherwise the event
 	 *                  data is copied to the Science Data to the location
 	 *                  defined earlier as described above.
+	 *
+	 * XXX: the Science Data File and its index are fetched while interrupts
+	 *      are disabled, as the TC ISR may swap them to start a snapshot.
 	 */
 	public void recordEvent() {
 		
 		/* uint_least16_t INDIRECT_INTERNAL */ int record_index;
+		ScienceDataFile store;
+		QualityIndex index;
+		EventRecord event;
+
+		boolean queue_event;
+		/* Science telemetry is in progress, and is sent from the live */
+		/* Science Data memory, see scienceDataSent.                   */
+
 		taskControl.disableInterruptMaster();
 
 		record_index = free_slot_index;
 
-		if (record_index >= max_events && TC_state != TC_State.SC_TM_e)
+		queue_event = scienceDataSent();
+
+		if (record_index >= max_events && !queue_event)
 		{
 			/* Science Data memory was full and Science TM was not in progress */
 
@@ -2000,9 +1951,11 @@ public class TelecommandExecutionTask {
 			record_index = findMinQualityRecord();
 
 			taskControl.disableInterruptMaster();
+
+			queue_event = scienceDataSent();
 		}
 
-		if (TC_state == TC_State.SC_TM_e)
+		if (queue_event)
 		{
 			/* Science Telemetry is in progress, so the event record */
 			/* cannot be written to the Science Data memory. Instead */
@@ -2010,12 +1963,19 @@ public class TelecommandExecutionTask {
 			/* copied to the Science Data memory after the Science   */
 			/* telemetry is completed.                               */
 
-			if (event_queue_length < MAX_QUEUE_LENGTH)
+			if (event_queue_length < event_queue_size)
 			{
 				/* There is still room in the queue. */
 
 				event_queue_length++;
 				/* Prevent the event data from being overwritten. */
+
+				telemetry_data.reportEventQueueLength(event_queue_length);
+			}
+			else
+			{
+				telemetry_data.reportEventQueueDrop();
+				/* The event is dropped, and its record reused. */
 			}
 			taskControl.enableInterruptMaster();
 		}
@@ -2027,27 +1987,34 @@ public class TelecommandExecutionTask {
 				/* Science Data memory was not full */
 
 				record_index = free_slot_index;
-				science_data.event[record_index].setQualityNumber(0);
+				science_data.setQualityNumber(record_index, 0);
 				free_slot_index++;
 			}
 
+			store = science_data;
+			index = quality_index;
+			event = getFreeRecord();
 
 			/* Increment event counters. */
 			incrementCounters(
-					event_queue[0].getSUNumber() - 1,
-					event_queue[0].getClassification());
+					event.getSUNumber() - 1,
+					event.getClassification());
 
 			taskControl.enableInterruptMaster();
 
-			if (event_queue[0].getQualityNumber() >=
-				science_data.event[record_index].getQualityNumber())
+			if (event.getQualityNumber() >=
+				store.getQualityNumber(record_index))
 
 			{
 
-				science_data.event[record_index].copyFrom(event_queue[0]);
+				store.storeEvent(record_index, event);
 
 				/* In this state the event data is located always to */
-				/* the first element of the queue.                   */
+				/* the first free record of the queue.               */
+
+				index.update(record_index,
+						store.getQualityNumber(record_index),
+						store.getHitTime(record_index));
 			}
 		}
 	}   
@@ -2055,6 +2022,40 @@ public class TelecommandExecutionTask {
 
 
 	/** Purpose        : Finds event with lowest quality from Science Data memory.
+	 * Interface      : inputs      - science_data.event, event records
+	 *                  outputs     - return value, index of event record with
+	 *                                   the lowest quality.
+	 *                  subroutines - GetElapsedTime
+	 * Preconditions  : none.
+	 * Postconditions : none.
+	 * Algorithm      : -return the head of quality_index, which orders the
+	 *                   records by quality number, then by hit time (older
+	 *                   first), then by index. This selects the same record
+	 *                   as the linear search of the original code (see
+	 *                   findMinQualityRecordLinear).
+	 */
+	private /*unsigned int*/ int findMinQualityRecord()  {
+		
+		return quality_index.minSlot();
+	}
+
+	/** Purpose        : Updates the quality index entry of the given record.
+	 * Interface      : inputs      - science_data.event[record_index]
+	 *                  outputs     - quality_index
+	 * Preconditions  : The record is used, i.e. record_index < free_slot_index.
+	 * Postconditions : The record is ordered by its current quality number
+	 *                  and hit time.
+	 */
+	private void updateQualityIndex(/* uint_least16_t */ int record_index) {
+		
+		quality_index.update(record_index,
+				science_data.getQualityNumber(record_index),
+				GetElapsedTime(record_index));
+	}
+
+	/** Purpose        : Finds event with lowest quality from Science Data memory.
+	 *                   Linear search of the original code, kept for reference
+	 *                   and for cross-checking quality_index.
 	 * Interface      : inputs      - science_data.event, event records
 	 *                  outputs     - return value, index of event record with
 	 *                                   the lowest quality.
@@ -2071,7 +2072,7 @@ public class TelecommandExecutionTask {
 	 *                  -End loop.
 	 *                  -return the index of the selected record.
 	 */
-	private /*unsigned int*/ int findMinQualityRecord()  {
+	public /*unsigned int*/ int findMinQualityRecordLinear()  {
 		
 		/* unsigned int INDIRECT_INTERNAL */ int min_quality_number;
 		/* The quality number of an event which has the lowest quality */
@@ -2092,7 +2093,7 @@ public class TelecommandExecutionTask {
 
 
 		min_time             = GetElapsedTime(0);
-		min_quality_number   = science_data.event[0].getQualityNumber();
+		min_quality_number   = science_data.getQualityNumber(0);
 		min_quality_location = 0;
 		/* First event is selected and compared against */
 		/* the following events in the science_data.    */
@@ -2101,17 +2102,17 @@ public class TelecommandExecutionTask {
 		{
 			time = GetElapsedTime(i);
 
-			if(science_data.event[i].getQualityNumber() < min_quality_number)
+			if(science_data.getQualityNumber(i) < min_quality_number)
 			{
 				min_time = time;
-				min_quality_number = science_data.event[i].getQualityNumber();
+				min_quality_number = science_data.getQualityNumber(i);
 				min_quality_location = i;
 				/* If an event in the science_data has a lower quality number than  */
 				/* any of the previous events, its quality_number and location is   */
 				/* stored into variables.                                           */
 			}
 
-			else if(   (science_data.event[i].getQualityNumber() == min_quality_number)
+			else if(   (science_data.getQualityNumber(i) == min_quality_number)
 					&& (time < min_time))
 			{
 				min_time = time;
@@ -2173,7 +2174,7 @@ public class TelecommandExecutionTask {
 			counter = science_data.getEventCounter(sensor_unit,classification);
 
 			new_checksum = 
-				(char) (science_data.counter_checksum ^ counter);
+				(char) (science_data.getCounterChecksum() ^ counter);
 			/* Delete effect of old counter value from the checksum. */
 
 			counter++;
@@ -2184,62 +2185,260 @@ public class TelecommandExecutionTask {
 			science_data.setEventCounter(sensor_unit,classification,(char) counter);
 			/* The event counter is incremented. */
 
-			science_data.counter_checksum = new_checksum;
+			science_data.setCounterChecksum(new_checksum);
 			/* Event counter checksum is updated. */
 		}
 
 	}
 
-	/** Clears the event counters and the quality numbers of                     
-	 *  the event records in the science data memory
+	/** Purpose        : Clears the event counters and the quality numbers of
+	 *                  the event records in the science data memory.
+	 * Interface      : inputs      - event_queue, event_queue_length
+	 *                  outputs     - science_data, science_spare,
+	 *                                free_slot_index, event_queue_length
+	 *                  subroutines - swapScienceData
+	 *                                storeQueuedEvents
+	 *                                releaseScienceSnapshot
+	 * Preconditions  : Science telemetry is not in progress.
+	 * Postconditions : science_data holds the queued events only.
+	 * Algorithm      : - swap science_data with the cleared science_spare
+	 *                  - copy the queued events to science_data
+	 *                  - clear science_spare
+	 *
+	 * XXX: the C code clears the Science Data memory in place; here the
+	 *      cleared spare file is swapped in, and the old one cleared after.
 	 */
 	public void clearEvents() {
 		
-		/* DIRECT_INTERNAL uint_least8_t */ int i;
-		/* This variable is used in the for-loop which goes through  */
-		/* the science data event counter.                           */
-
 		/* Interrupts does not need to be disabled as long as  */
 		/* Telecommand Execution task has higher priority than */
 		/* Acquisition task.                                   */
 
+		swapScienceData();
+
+		storeQueuedEvents();
+		/* Events from the event queue are copied to the Science */
+		/* Data memory, from its first slot on.                  */
+
+		science_data.setCounterChecksum(0);
+		science_data.setNotUsed((byte)0);
+
+		releaseScienceSnapshot();
+	}   
+
+	/** Purpose        : Swaps the Science Data memory with the cleared spare.
+	 * Interface      : inputs      - science_data, science_spare
+	 *                  outputs     - science_data, science_spare,
+	 *                                quality indices, free_slot_index,
+	 *                                telemetry_data.SU_hits
+	 * Preconditions  : science_spare is cleared.
+	 * Postconditions : science_data is empty, and science_spare holds the
+	 *                  previous contents of science_data.
+	 * Algorithm      : - swap the references of the files and their indices
+	 *                  - clear the SU hit counters and free_slot_index
+	 *
+	 * Called from the TC ISR to start a snapshot, so it does not loop over
+	 * the event records.
+	 */
+	private void swapScienceData() {
+
+		/* DIRECT_INTERNAL uint_least8_t */ int i;
+
+		ScienceDataFile file = science_data;
+		science_data  = science_spare;
+		science_spare = file;
+
+		QualityIndex index  = quality_index;
+		quality_index       = spare_quality_index;
+		spare_quality_index = index;
+
 		for(i=0;i<NUM_SU;i++)
 		{
 			telemetry_data.SU_hits[i] = 0;
+		}
+
+		free_slot_index = 0;
+	}
 
+	/** Purpose        : Clears science_spare, after it has been sent.
+	 * Interface      : inputs      - none
+	 *                  outputs     - science_spare, spare_quality_index
+	 * Preconditions  : Science telemetry of science_spare is not in progress.
+	 * Postconditions : science_spare can be swapped in by swapScienceData.
+	 * Algorithm      : - clear the event counters, their checksum, and the
+	 *                    indices, changed marks and encoded sizes of the
+	 *                    event records.
+	 *
+	 * The event records need not be cleared, as free_slot_index is reset
+	 * when the file is swapped in, and recordEvent clears the quality
+	 * number of each slot it takes into use.
+	 */
+	public void releaseScienceSnapshot() {
+
+		/* DIRECT_INTERNAL uint_least8_t */ int i;
+
+		spare_quality_index.clear();
+
+		for(i=0;i<NUM_SU;i++)
+		{
 			/* XXX: refactored to encapsulate multi-dim array access */
-			science_data.resetEventCounters(i);
-			/*event counters are cleared in science_data                           */
+			science_spare.resetEventCounters(i);
+			/*event counters are cleared in science_spare                          */
 		}
 
-		for (i=0; i < event_queue_length; i++) // @WCA loop <= 10
+		science_spare.setCounterChecksum(0);
+		science_spare.setNotUsed((byte)0);
+
+		science_spare.clearRecords();
+	}
+
+	/** Purpose        : Tells whether the Science Telemetry in progress sends
+	 *                  the live Science Data memory.
+	 * Interface      : inputs      - TC_state, delta_science_tm
+	 *                  outputs     - return value
+	 * Preconditions  : none.
+	 * Postconditions : none.
+	 * Algorithm      : - true in state SC_TM_e, unless the telemetry sends
+	 *                    a snapshot.
+	 *
+	 * While this is true, recordEvent leaves new events in event_queue.
+	 */
+	private boolean scienceDataSent() {
+
+		return TC_state == TC_State.SC_TM_e
+			&& (delta_science_tm || !SNAPSHOT_SCIENCE_TM);
+	}
+
+	/** Purpose        : Starts the compressed Science telemetry accepted by
+	 *                  the TC interrupt.
+	 * Interface      : inputs      - science_compressed, the prepared records
+	 *                  outputs     - telemetry_object, telemetry_index,
+	 *                                telemetry_end_index, length of the
+	 *                                Science Data File sent
+	 * Preconditions  : TC state is SC_TM_e, and the TM interrupt is not
+	 *                  enabled.
+	 * Postconditions : The first two bytes are sent, and the TM interrupt
+	 *                  sends the rest.
+	 * Algorithm      : - find the size of the compressed telemetry
+	 *                  - store its length in the Science Data File sent
+	 *                  - send the first two bytes to TM
+	 *                  - enable the TM interrupt
+	 *
+	 * The size takes one encoding of each record, which is kept out of
+	 * the TC interrupt.
+	 */
+	private void startCompressedScienceTm() {
+
+		telemetry_object = science_compressed;
+		telemetry_index = 0;
+		telemetry_end_index = science_compressed.start() - 1;
+
+		/* Science telemetry stops to the end of the last */
+		/* encoded event record.                          */
+
+		getScienceTelemetryFile().setLength((char)((telemetry_end_index + 1)/2));
+
+		tctmDev.clearTmInterruptFlag();
+
+		tctmDev.writeTmMsb (telemetryPointerNext());
+		telemetry_index++;
+		tctmDev.writeTmLsb (telemetryPointerNext());
+		telemetry_index++;
+
+		taskControl.setInterruptMask(TcTmDev.TM_ISR_MASK);
+	}
+
+	/** Purpose        : Ends the telemetry of the changed event records.
+	 * Interface      : inputs      - event_queue, event_queue_length
+	 *                  outputs     - science_data, free_slot_index,
+	 *                                event_queue_length, delta_science_tm
+	 *                  subroutines - storeQueuedEvents
+	 * Preconditions  : The delta telemetry has been sent.
+	 * Postconditions : No event record is marked changed but the events
+	 *                  from the queue.
+	 * Algorithm      : - clear the changed marks of science_data
+	 *                  - store the queued events as recordEvent would have,
+	 *                    marking them changed
+	 *
+	 * Unlike the full Science Data File, the delta telemetry does not
+	 * clear the Science Data memory.
+	 */
+	private void endDeltaScienceTm() {
+
+		/* Interrupts does not need to be disabled as long as  */
+		/* Telecommand Execution task has higher priority than */
+		/* Acquisition task.                                   */
+
+		delta_science_tm = false;
+
+		science_data.clearDirty();
+
+		storeQueuedEvents();
+	}
+
+	/** Purpose        : Stores the queued events to the Science Data memory.
+	 * Interface      : inputs      - event_queue, event_queue_head,
+	 *                                event_queue_length
+	 *                  outputs     - science_data, free_slot_index,
+	 *                                event_queue_head, event_queue_length
+	 *                  subroutines - FindMinQualityRecord
+	 *                                IncrementCounters
+	 * Preconditions  : Science telemetry of science_data is not in progress.
+	 * Postconditions : The event queue is empty.
+	 * Algorithm      : - store each queued event, oldest first, as
+	 *                    recordEvent would have
+	 *                  - move the head of the queue past the stored events,
+	 *                    so that the record of an event being collected
+	 *                    stays in place
+	 */
+	private void storeQueuedEvents() {
+
+		/* DIRECT_INTERNAL uint_least16_t */ int i;
+
+		/* uint_least16_t INDIRECT_INTERNAL */ int record_index;
+
+		EventRecord event;
+
+		for (i=0; i < event_queue_length; i++) // @WCA loop <= debie.telecommand.TelecommandExecutionTask.MAX_EVENT_QUEUE_SIZE
 		{
-			/* Events from the event queue are copied to the Science */
-			/* Data memory.                                          */
-			science_data.event[i].copyFrom(event_queue[i]);
-			//	      STRUCT_ASSIGN (
-			//	         science_data.event[i],
-			//	         event_queue[i],
-			//	         event_record_t);
+			event = queuedEvent(i);
+
+			if (free_slot_index < max_events)
+			{
+				record_index = free_slot_index;
+				science_data.setQualityNumber(record_index, 0);
+				free_slot_index++;
+			}
+			else
+			{
+				record_index = findMinQualityRecord();
+			}
 
 			incrementCounters(
-					event_queue[i].getSUNumber() - 1,
-					event_queue[i].getClassification());
+					event.getSUNumber() - 1,
+					event.getClassification());
+
+			if (event.getQualityNumber() >=
+				science_data.getQualityNumber(record_index))
+			{
+				science_data.storeEvent(record_index, event);
 
-			/* One more event is stored in the Science Data memory. */
-			/* NOTE that the event queue should always be smaller   */
-			/* than the space reserved for event records in the     */
-			/* Science Data memory.                                 */
+				updateQualityIndex(record_index);
+			}
 		}
 
-		free_slot_index    = event_queue_length;
+		event_queue_head += event_queue_length;
+		if (event_queue_head >= event_queue.length) event_queue_head -= event_queue.length;
 
 		event_queue_length = 0;
 		/* Empty the event queue. */
+	}
 
-		science_data.counter_checksum = 0;
-		science_data.not_used         = 0;
-	}   
+	/** the Science Data File sent by the Science TM in progress */
+	public ScienceDataFile getScienceTelemetryFile() {
+
+		return SNAPSHOT_SCIENCE_TM ? science_spare : science_data;
+	}
 
 	/** Purpose        : Empty the event queue length.
 	 * Interface      : inputs      - none
@@ -2260,12 +2459,24 @@ public class TelecommandExecutionTask {
 		return event_queue_length;
 	}
 
+	/** get number of events that can wait in the event queue */
+	public int getEventQueueSize() {
+		
+		return event_queue_size;
+	}
+
 	/** check whether there is a free slot for events */
 	public boolean hasFreeSlot() {
 		
 		return free_slot_index < max_events;
 	}
 
+	/** get index of the record to be replaced next (debugging/testing) */
+	public int getMinQualityRecordIndex() {
+		
+		return findMinQualityRecord();
+	}
+
 	/** get free slot index (debugging/testing) */
 	public int getFreeSlotIndex() {
 		
@@ -2500,12 +2711,12 @@ public class TelecommandExecutionTask {
 
 		else if (suState[idx] == SensorUnitState.switching_e)
 		{
-			HwIf.resetPeakDetector(idx + SensorUnitDev.SU_1);
+			system.getHwIf().resetPeakDetector(idx + SensorUnitDev.SU_1);
 			/*Peak detector for this Sensor Unit is resetted. */       
 
 			taskControl.waitTimeout(AcquisitionTask.PEAK_RESET_MIN_DELAY);
 
-			HwIf.resetPeakDetector(idx + SensorUnitDev.SU_1);
+			system.getHwIf().resetPeakDetector(idx + SensorUnitDev.SU_1);
 			/*Peak detector for this Sensor Unit is resetted again. */   
 
 			suState[idx] = SensorUnitState.on_e;
@@ -2549,6 +2760,36 @@ public class TelecommandExecutionTask {
 		return max_events;
 	}
 
+	/** Block transfer of telemetry, e.g. for a host-side ground link:
+	 *  sends the rest of the current telemetry block (at most
+	 *  buffer.length bytes) to TM with one TcTmDev.writeTmBlock,
+	 *  instead of two bytes per TM interrupt.
+	 *  The telemetry index is left where the TM interrupts would have
+	 *  left it, so the next TM interrupt ends the block as usual.
+	 *  Returns the number of bytes sent (always even). */
+	public int drainTelemetry(byte[] buffer) {
+		
+		int len = (telemetry_end_index - telemetry_index + 1) & ~1;
+		if (len > (buffer.length & ~1)) len = buffer.length & ~1;
+		if (len <= 0) return 0;
+
+		if (telemetry_object == telemetry_data
+			&& telemetry_index <= TelemetryData.TIME_INDEX
+			&& TelemetryData.TIME_INDEX < telemetry_index + len)
+		{
+			telemetry_data.time.set(system.getInternalTime());
+		}
+
+		telemetry_object.copyTo(telemetry_index, buffer, 0, len);
+		for (int i = 0; i < len; i++) {
+			read_memory_checksum ^= buffer[i] & 0xff;
+		}
+		tctmDev.writeTmBlock(buffer, 0, len);
+		telemetry_index += len;
+
+		return len;
+	}
+
 	private int telemetryPointerNext() {
 		
 		return telemetry_object.getByte(telemetry_index);
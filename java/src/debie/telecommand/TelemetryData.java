@@ -2,10 +2,13 @@ package debie.telecommand;
 
 import static debie.telecommand.TelecommandExecutionTask.*;
 import static debie.target.SensorUnitDev.NUM_SU;
+import debie.particles.ClassificationLimits;
 import debie.particles.EventRecord;
+import debie.particles.QualityTable;
 import debie.particles.SensorUnitSettings;
 import debie.support.DebieSystem;
 import debie.support.Dpu;
+import debie.support.KernelObjects;
 import debie.support.TaskControl;
 import debie.support.TelemetryObject;
 import debie.target.TcTmDev;
@@ -60,6 +63,28 @@ public class TelemetryData implements TelemetryObject {
 	/* This is necessary for correct operation of telemetry        */
 	/* retrieving TCs i.e. number of bytes should be even.         */
 	
+	/* Mailbox diagnostics, indexed by mailbox number. These are not
+	 * registers, and are not sent in register TM. */
+	private final int[] mail_overflows  = new int[KernelObjects.NUM_MAILBOXES];
+	private final int[] mail_high_water = new int[KernelObjects.NUM_MAILBOXES];
+
+	/* Event queue diagnostics: events dropped as the queue was full, and
+	 * the largest number of queued events. Not sent in register TM. */
+	private int event_queue_drops;
+	private int event_queue_high_water;
+
+	/* Amplitude terms of the quality formula for the current coefficients;
+	 * kept up to date by setCoefficient. */
+	private final QualityTable quality_table = new QualityTable();
+
+	/* Classification levels and time windows of the sensor units, scaled
+	 * for classification; kept up to date by updateClassificationLimits. */
+	private final ClassificationLimits classification_limits = new ClassificationLimits();
+
+	/* sensor_unit_1 .. sensor_unit_4, indexed by the register map in getByte() */
+	private final SensorUnitSettings[] sensor_unit =
+		{ sensor_unit_1, sensor_unit_2, sensor_unit_3, sensor_unit_4 };
+
 	private TaskControl taskControl;
 	
 	public TelemetryData(DebieSystem system) {
@@ -106,7 +131,7 @@ public class TelemetryData implements TelemetryObject {
 
 	public void setFailedCodeAddress(char failed_code_address) {
 		
-		this.failed_data_address = failed_code_address;
+		this.failed_code_address = failed_code_address;
 	}
 	public void setFailedDataAddress(char failed_data_address) {
 		
@@ -187,6 +212,7 @@ public class TelemetryData implements TelemetryObject {
 		sensor_unit_3.clearAll();
 		os_enable_isr_error = 0;
 		sensor_unit_4.clearAll();
+		updateClassificationLimits();
 		failed_code_address = 0;
 		failed_data_address = 0;		
 		for (int i = 0; i < NUM_SU; i++) {
@@ -196,7 +222,7 @@ public class TelemetryData implements TelemetryObject {
 		software_error = 0;
 		hit_budget_exceedings = 0;
 		for (int i = 0; i < NUM_QCOEFF; i++) {
-			coefficient[i] = 0;
+			setCoefficient(i, 0);
 		}
 		// not_used = 0;
 	}
@@ -372,21 +398,117 @@ public class TelemetryData implements TelemetryObject {
 		getSensorUnit2().init();
 		getSensorUnit3().init();
 		getSensorUnit4().init();
+		updateClassificationLimits();
 		/* Default values for thresholds, classification levels and min/max times */
 		/* related to classification are set here.                                */
 	}
 	
+	/** A message to the given mailbox was lost, because the mailbox was full. */
+	public void reportMailOverflow(int mailbox_number) {
+		
+		mail_overflows[mailbox_number]++;
+	}
+
+	/** The given mailbox holds mail_count messages; keep the maximum. */
+	public void reportMailCount(int mailbox_number, int mail_count) {
+		
+		if (mail_count > mail_high_water[mailbox_number]) {
+			mail_high_water[mailbox_number] = mail_count;
+		}
+	}
+
+	public int getMailOverflows(int mailbox_number) {
+		
+		return mail_overflows[mailbox_number];
+	}
+
+	public int getMailHighWater(int mailbox_number) {
+		
+		return mail_high_water[mailbox_number];
+	}
+
+	public void clearMailDiagnostics() {
+		
+		for (int i = 0; i < KernelObjects.NUM_MAILBOXES; i++) {
+			mail_overflows[i] = 0;
+			mail_high_water[i] = 0;
+		}
+	}
+
+	/** An event was dropped, because the event queue was full. */
+	public void reportEventQueueDrop() {
+		
+		event_queue_drops++;
+	}
+
+	/** The event queue holds queue_length events; keep the maximum. */
+	public void reportEventQueueLength(int queue_length) {
+		
+		if (queue_length > event_queue_high_water) {
+			event_queue_high_water = queue_length;
+		}
+	}
+
+	public int getEventQueueDrops() {
+		
+		return event_queue_drops;
+	}
+
+	public int getEventQueueHighWater() {
+		
+		return event_queue_high_water;
+	}
+
+	public void clearEventQueueDiagnostics() {
+		
+		event_queue_drops = 0;
+		event_queue_high_water = 0;
+	}
+
 	/* getter/setter for coefficient array */
 	public void initCoefficients() {
 		
 		for (int i=0; i<NUM_QCOEFF; i++) {
-			coefficient[i] = EventRecord.DEFAULT_COEFF;
+			setCoefficient(i, EventRecord.DEFAULT_COEFF);
 		}
 	}	
 	
-	public byte[] getCoefficients() {
+	/** Coefficient coeff of the quality formula; it is set only through
+	 *  setCoefficient, which keeps the quality table up to date. */
+	public byte getCoefficient(int coeff) {
+		
+		return coefficient[coeff];
+	}
+
+	/** Set a quality coefficient, and the quality terms that depend on it. */
+	public void setCoefficient(int coeff, int value) {
+		
+		coefficient[coeff] = (byte)value;
+		quality_table.setCoefficient(coeff, coefficient[coeff]);
+	}
+
+	public QualityTable getQualityTable() {
+		
+		return quality_table;
+	}
+
+	/** Rescale the classification limits of a sensor unit; called when
+	 *  its classification levels or time windows are changed. */
+	public void updateClassificationLimits(int sensorUnitIndex) {
+		
+		classification_limits.update(sensorUnitIndex, getSuConfig(sensorUnitIndex));
+	}
+
+	public void updateClassificationLimits() {
+		
+		for (int i = 0; i < NUM_SU; i++) {
+			updateClassificationLimits(i);
+		}
+	}
+
+	public ClassificationLimits getClassificationLimits() {
 		
-		return coefficient;
+		return classification_limits;
 	}
 
 	/* getters for sensor unit settings */
@@ -482,79 +604,162 @@ public class TelemetryData implements TelemetryObject {
 	public static int sizeInBytes() { return SIZE_IN_BYTES; }
 	public static int indexBits()   { return INDEX_BITS; }
 	
+	/* Register map: for each register index, the field it is read from
+	 * (FIELD), the array element or sensor unit (ELEM), and the shift that
+	 * selects the byte within the field (SHIFT). The tables are built once
+	 * at class initialization, so that getByte() is a single dense switch
+	 * without nested calls, and takes the same time for every register. */
+	private static final int F_NOT_USED                  =  0;
+	private static final int F_ERROR_STATUS              =  1;
+	private static final int F_MODE_STATUS               =  2;
+	private static final int F_TC_WORD                   =  3;
+	private static final int F_TC_TIME_TAG               =  4;
+	private static final int F_WATCHDOG_FAILURES         =  5;
+	private static final int F_CHECKSUM_FAILURES         =  6;
+	private static final int F_SW_VERSION                =  7;
+	private static final int F_ISR_SEND_MESSAGE_ERROR    =  8;
+	private static final int F_SU_STATUS                 =  9;
+	private static final int F_SU_TEMPERATURE            = 10;
+	private static final int F_DPU_PLUS_5_DIGITAL        = 11;
+	private static final int F_OS_SEND_MESSAGE_ERROR     = 12;
+	private static final int F_OS_CREATE_TASK_ERROR      = 13;
+	private static final int F_SU_PLUS_50                = 14;
+	private static final int F_SU_MINUS_50               = 15;
+	private static final int F_OS_DISABLE_ISR_ERROR      = 16;
+	private static final int F_OS_WAIT_ERROR             = 17;
+	private static final int F_OS_ATTACH_INTERRUPT_ERROR = 18;
+	private static final int F_OS_ENABLE_ISR_ERROR       = 19;
+	private static final int F_FAILED_CODE_ADDRESS       = 20;
+	private static final int F_FAILED_DATA_ADDRESS       = 21;
+	private static final int F_SU_HITS                   = 22;
+	private static final int F_TIME                      = 23;
+	private static final int F_SOFTWARE_ERROR            = 24;
+	private static final int F_HIT_BUDGET_EXCEEDINGS     = 25;
+	private static final int F_COEFFICIENT               = 26;
+	/* Sensor unit settings, one id per byte of SensorUnitSettings */
+	private static final int F_SU_SETTINGS               = 27;
+
+	private static final byte[] FIELD = new byte[SIZE_IN_BYTES];
+	private static final byte[] ELEM  = new byte[SIZE_IN_BYTES];
+	private static final byte[] SHIFT = new byte[SIZE_IN_BYTES];
+
+	/** Map registers first .. first+count-1 to consecutive elements of a
+	 *  field, each element being elemBytes wide (little endian). */
+	private static void map(int first, int count, int field, int elemBytes) {
+		
+		for (int i = 0; i < count; i++) {
+			FIELD[first+i] = (byte)field;
+			ELEM [first+i] = (byte)(i / elemBytes);
+			SHIFT[first+i] = (byte)((i % elemBytes) << 3);
+		}
+	}
+
+	/** Map the 15 registers of a SensorUnitSettings block. */
+	private static void mapSensorUnit(int first, int unit) {
+		
+		for (int i = 0; i < 15; i++) {
+			FIELD[first+i] = (byte)(F_SU_SETTINGS + i);
+			ELEM [first+i] = (byte)unit;
+		}
+	}
+
+	static {
+		/* registers not listed read as not_used (0) */
+		map(  0, 1, F_ERROR_STATUS, 1);
+		map(  1, 1, F_MODE_STATUS, 1);
+		map(  2, 2, F_TC_WORD, 2);
+		map(  4, 4, F_TC_TIME_TAG, 4);
+		map(  8, 1, F_WATCHDOG_FAILURES, 1);
+		map(  9, 1, F_CHECKSUM_FAILURES, 1);
+		map( 10, 1, F_SW_VERSION, 1);
+		map( 11, 1, F_ISR_SEND_MESSAGE_ERROR, 1);
+		map( 12, NUM_SU, F_SU_STATUS, 1);
+		map( 16, NUM_SU * NUM_TEMP, F_SU_TEMPERATURE, 1);
+		map( 24, 1, F_DPU_PLUS_5_DIGITAL, 1);
+		map( 25, 1, F_OS_SEND_MESSAGE_ERROR, 1);
+		map( 26, 1, F_OS_CREATE_TASK_ERROR, 1);
+		map( 27, 1, F_SU_PLUS_50, 1);
+		map( 28, 1, F_SU_MINUS_50, 1);
+		map( 29, 1, F_OS_DISABLE_ISR_ERROR, 1);
+		/* 30: not_used_1 */
+		mapSensorUnit(31, 0);
+		map( 46, 1, F_OS_WAIT_ERROR, 1);
+		mapSensorUnit(47, 1);
+		map( 62, 1, F_OS_ATTACH_INTERRUPT_ERROR, 1);
+		mapSensorUnit(63, 2);
+		map( 78, 1, F_OS_ENABLE_ISR_ERROR, 1);
+		mapSensorUnit(79, 3);
+		map( 94, 2, F_FAILED_CODE_ADDRESS, 2);
+		map( 96, 2, F_FAILED_DATA_ADDRESS, 2);
+		map( 98, 2 * NUM_SU, F_SU_HITS, 2);
+		/* 106 - 107: padding in original code */
+		map(108, 4, F_TIME, 4);
+		map(112, 1, F_SOFTWARE_ERROR, 1);
+		map(113, 1, F_HIT_BUDGET_EXCEEDINGS, 1);
+		map(114, NUM_QCOEFF, F_COEFFICIENT, 1);
+		/* 119: not_used */
+	}
+
 	/** Serialization: getByte() */
 	public int getByte(int index) {
-		// getHalfWord()
-		switch (index) {
-		case 0: return error_status & 0xff;
-		case 1: return mode_status & 0xff;
-		case 2: return TC_word & 0xff;
-		case 3: return (TC_word >> 8) & 0xff;
-		case 4: case 5: case 6: case 7:
-			return TC_time_tag.getByte(index-4);
-		case 8: return watchdog_failures & 0xff;
-		case 9: return checksum_failures & 0xff;
-		case 10: return SW_version & 0xff;
-		case 11: return isr_send_message_error & 0xff;
-		case 12: case 13: case 14: case 15:
-			return SU_status[index-12] & 0xff;
-		case 16: case 17: case 18: case 19:
-		case 20: case 21: case 22: case 23:
-			return SU_temperature[index-16] & 0xff;
-		case 24: return DPU_plus_5_digital & 0xff;
-		case 25: return os_send_message_error & 0xff;
-		case 26: return os_create_task_error & 0xff;
-		case 27: return SU_plus_50 & 0xff;
-		case 28: return SU_minus_50 & 0xff;
-		case 29: return os_disable_isr_error & 0xff;
-		// case 30: return not_used_1 & 0xff;
-		case 31: case 32: case 33: case 34:
-		case 35: case 36: case 37: case 38:
-		case 39: case 40: case 41: case 42:
-		case 43: case 44: case 45:
-			return sensor_unit_1.getByte(index-31);
-		case 46:
-			return os_wait_error & 0xff;
-		case 47: case 48: case 49: case 50:
-		case 51: case 52: case 53: case 54:
-		case 55: case 56: case 57: case 58:
-		case 59: case 60: case 61:
-			return sensor_unit_2.getByte(index-47);
-		case 62:
-			return os_attach_interrupt_error & 0xff;
-		case 63: case 64: case 65: case 66:
-		case 67: case 68: case 69: case 70:
-		case 71: case 72: case 73: case 74:
-		case 75: case 76: case 77:
-			return sensor_unit_3.getByte(index-63);
-		case 78:
-			return os_enable_isr_error & 0xff;
-		case 79: case 80: case 81: case 82:
-		case 83: case 84: case 85: case 86:
-		case 87: case 88: case 89: case 90:
-		case 91: case 92: case 93:
-			return sensor_unit_4.getByte(index-79);
-		case 94:
-			return failed_code_address & 0xff;
-		case 95:
-			return (failed_code_address >> 8) & 0xff;
-		case 96: 
-			return failed_data_address & 0xff;
-		case 97: 
-			return (failed_data_address >> 8) & 0xff;
-		case 98: case 100: case 102: case 104:
-			return SU_hits[(index-98) >> 1] & 0xff;
-		case 99: case 101: case 103: case 105:
-			return (SU_hits[(index-98) >> 1] >> 8) & 0xff;
-		// case 106: case 107: /* padding in original code */
-		case 108: case 109: case 110:  case 111:
-			return time.getByte(index-108);
-		case 112: return software_error & 0xff;
-		case 113: return hit_budget_exceedings & 0xff;
-		case 114: case 115: case 116: case 117: case 118:
-			return coefficient[index-114];
+		
+		if (index < 0 || index >= SIZE_IN_BYTES) return 0; // not_used
+		
+		int e = ELEM[index];
+		int v;
+		
+		switch (FIELD[index]) {
+		case F_ERROR_STATUS:              v = error_status; break;
+		case F_MODE_STATUS:               v = mode_status; break;
+		case F_TC_WORD:                   v = TC_word; break;
+		case F_TC_TIME_TAG:               v = TC_time_tag.toInt(); break;
+		case F_WATCHDOG_FAILURES:         v = watchdog_failures; break;
+		case F_CHECKSUM_FAILURES:         v = checksum_failures; break;
+		case F_SW_VERSION:                v = SW_version; break;
+		case F_ISR_SEND_MESSAGE_ERROR:    v = isr_send_message_error; break;
+		case F_SU_STATUS:                 v = SU_status[e]; break;
+		case F_SU_TEMPERATURE:            v = SU_temperature[e]; break;
+		case F_DPU_PLUS_5_DIGITAL:        v = DPU_plus_5_digital; break;
+		case F_OS_SEND_MESSAGE_ERROR:     v = os_send_message_error; break;
+		case F_OS_CREATE_TASK_ERROR:      v = os_create_task_error; break;
+		case F_SU_PLUS_50:                v = SU_plus_50; break;
+		case F_SU_MINUS_50:               v = SU_minus_50; break;
+		case F_OS_DISABLE_ISR_ERROR:      v = os_disable_isr_error; break;
+		case F_OS_WAIT_ERROR:             v = os_wait_error; break;
+		case F_OS_ATTACH_INTERRUPT_ERROR: v = os_attach_interrupt_error; break;
+		case F_OS_ENABLE_ISR_ERROR:       v = os_enable_isr_error; break;
+		case F_FAILED_CODE_ADDRESS:       v = failed_code_address; break;
+		case F_FAILED_DATA_ADDRESS:       v = failed_data_address; break;
+		case F_SU_HITS:                   v = SU_hits[e]; break;
+		case F_TIME:                      v = time.toInt(); break;
+		case F_SOFTWARE_ERROR:            v = software_error; break;
+		case F_HIT_BUDGET_EXCEEDINGS:     v = hit_budget_exceedings; break;
+		case F_COEFFICIENT:               v = coefficient[e]; break;
+		case F_SU_SETTINGS +  0: v = sensor_unit[e].plus_5_voltage; break;
+		case F_SU_SETTINGS +  1: v = sensor_unit[e].minus_5_voltage; break;
+		case F_SU_SETTINGS +  2: v = sensor_unit[e].plasma_1_plus_threshold; break;
+		case F_SU_SETTINGS +  3: v = sensor_unit[e].plasma_1_minus_threshold; break;
+		case F_SU_SETTINGS +  4: v = sensor_unit[e].piezo_threshold; break;
+		case F_SU_SETTINGS +  5: v = sensor_unit[e].plasma_1_plus_classification; break;
+		case F_SU_SETTINGS +  6: v = sensor_unit[e].plasma_1_minus_classification; break;
+		case F_SU_SETTINGS +  7: v = sensor_unit[e].piezo_1_classification; break;
+		case F_SU_SETTINGS +  8: v = sensor_unit[e].piezo_2_classification; break;
+		case F_SU_SETTINGS +  9: v = sensor_unit[e].plasma_2_plus_classification; break;
+		case F_SU_SETTINGS + 10: v = sensor_unit[e].plasma_1_plus_to_minus_max_time; break;
+		case F_SU_SETTINGS + 11: v = sensor_unit[e].plasma_1_plus_to_piezo_min_time; break;
+		case F_SU_SETTINGS + 12: v = sensor_unit[e].plasma_1_plus_to_piezo_max_time; break;
+		case F_SU_SETTINGS + 13: v = sensor_unit[e].plasma_1_minus_to_piezo_min_time; break;
+		case F_SU_SETTINGS + 14: v = sensor_unit[e].plasma_1_minus_to_piezo_max_time; break;
+		default:                          v = 0; // not_used
+		}
+		return (v >> SHIFT[index]) & 0xff;
+	}
+	
+	public void copyTo(int fromIndex, byte[] dst, int off, int len) {
+		
+		for (int i = 0; i < len; i++) { // @WCA loop <= 120
+			dst[off+i] = (byte)getByte(fromIndex+i);
 		}
-		return 0; // not_used;		
 	}
 	
 }